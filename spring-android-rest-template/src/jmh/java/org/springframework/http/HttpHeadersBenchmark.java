@@ -0,0 +1,77 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for reading typed values from {@link HttpHeaders} of a typical response.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HttpHeadersBenchmark {
+
+	private HttpHeaders headers;
+
+	@Setup
+	public void setUp() {
+		this.headers = new HttpHeaders();
+		this.headers.set("Content-Type", "application/json;charset=UTF-8");
+		this.headers.set("Date", "Tue, 15 Mar 2016 08:12:31 GMT");
+		this.headers.set("Last-Modified", "Mon, 14 Mar 2016 17:45:02 GMT");
+		// RFC 850 dates are only matched by the second of the supported formats
+		this.headers.set("Expires", "Wednesday, 16-Mar-16 08:12:31 GMT");
+		this.headers.set("Cache-Control", "private, max-age=60");
+		this.headers.set("ETag", "\"5d8c72a5edda8d6a\"");
+		this.headers.set("Server", "nginx");
+		this.headers.set("Vary", "Accept-Encoding");
+	}
+
+	@Benchmark
+	public MediaType getContentType() {
+		return this.headers.getContentType();
+	}
+
+	@Benchmark
+	public long getFirstDate() {
+		return this.headers.getFirstDate("Date");
+	}
+
+	@Benchmark
+	public long getFirstDateFallbackFormat() {
+		return this.headers.getFirstDate("Expires");
+	}
+
+}
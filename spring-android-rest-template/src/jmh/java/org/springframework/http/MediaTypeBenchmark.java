@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for parsing and sorting {@link MediaType}s, as done for every
+ * {@code Content-Type} and {@code Accept} header.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MediaTypeBenchmark {
+
+	@Benchmark
+	public MediaType parseMediaType(ContentType contentType) {
+		return MediaType.parseMediaType(contentType.mediaType);
+	}
+
+	@Benchmark
+	public List<MediaType> sortBySpecificity(AcceptHeader acceptHeader) {
+		List<MediaType> mediaTypes = new ArrayList<MediaType>(acceptHeader.mediaTypes);
+		MediaType.sortBySpecificity(mediaTypes);
+		return mediaTypes;
+	}
+
+
+	/**
+	 * The {@code Content-Type} values to parse.
+	 */
+	@State(Scope.Thread)
+	public static class ContentType {
+
+		@Param({"application/json", "application/json;charset=UTF-8", "text/html;q=0.9;charset=ISO-8859-1"})
+		public String mediaType;
+	}
+
+
+	/**
+	 * The media types of a typical browser {@code Accept} header, to sort. Kept apart from
+	 * {@link ContentType}, so that its parameter does not multiply this benchmark.
+	 */
+	@State(Scope.Thread)
+	public static class AcceptHeader {
+
+		private List<MediaType> mediaTypes;
+
+		@Setup
+		public void setUp() {
+			this.mediaTypes = MediaType.parseMediaTypes("text/html, application/xhtml+xml, " +
+					"application/xml;q=0.9, image/webp, */*;q=0.8, application/json, application/*+json, text/plain");
+		}
+	}
+
+}
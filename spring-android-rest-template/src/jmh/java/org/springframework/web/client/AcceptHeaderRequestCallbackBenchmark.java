@@ -0,0 +1,143 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Benchmarks for the {@code Accept} header callback that {@link RestTemplate} applies
+ * to every request with a response type, using the default message converters.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AcceptHeaderRequestCallbackBenchmark {
+
+	private RequestCallback stringCallback;
+
+	private RequestCallback byteArrayCallback;
+
+	private RequestCallback objectCallback;
+
+	private BenchmarkClientHttpRequest request;
+
+	@Setup
+	public void setUp() {
+		RestTemplate restTemplate = new RestTemplate();
+		this.stringCallback = restTemplate.acceptHeaderRequestCallback(String.class);
+		this.byteArrayCallback = restTemplate.acceptHeaderRequestCallback(byte[].class);
+		this.objectCallback = restTemplate.acceptHeaderRequestCallback(Hotel.class);
+		this.request = new BenchmarkClientHttpRequest();
+	}
+
+	@Benchmark
+	public HttpHeaders string() throws IOException {
+		return doWithRequest(this.stringCallback);
+	}
+
+	@Benchmark
+	public HttpHeaders byteArray() throws IOException {
+		return doWithRequest(this.byteArrayCallback);
+	}
+
+	@Benchmark
+	public HttpHeaders object() throws IOException {
+		return doWithRequest(this.objectCallback);
+	}
+
+	private HttpHeaders doWithRequest(RequestCallback callback) throws IOException {
+		this.request.getHeaders().clear();
+		callback.doWithRequest(this.request);
+		return this.request.getHeaders();
+	}
+
+
+	public static class Hotel {
+
+		private String name;
+
+		private int rooms;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getRooms() {
+			return this.rooms;
+		}
+
+		public void setRooms(int rooms) {
+			this.rooms = rooms;
+		}
+	}
+
+
+	private static class BenchmarkClientHttpRequest implements ClientHttpRequest {
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		public HttpMethod getMethod() {
+			return HttpMethod.GET;
+		}
+
+		public URI getURI() {
+			return URI.create("https://example.com/hotels/42");
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		public OutputStream getBody() throws IOException {
+			return new ByteArrayOutputStream();
+		}
+
+		public ClientHttpResponse execute() throws IOException {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for expanding a {@link UriTemplate}, as done for every request made with a
+ * URI template.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UriTemplateBenchmark {
+
+	private static final String URI_TEMPLATE =
+			"https://api.example.com/v1/users/{user}/repos/{repo}/issues?state={state}&page={page}";
+
+	private UriTemplate uriTemplate;
+
+	private Map<String, Object> uriVariables;
+
+	@Setup
+	public void setUp() {
+		this.uriTemplate = new UriTemplate(URI_TEMPLATE);
+		this.uriVariables = new HashMap<String, Object>();
+		this.uriVariables.put("user", "roy clarkson");
+		this.uriVariables.put("repo", "spring-android");
+		this.uriVariables.put("state", "open");
+		this.uriVariables.put("page", 2);
+	}
+
+	@Benchmark
+	public UriTemplate parse() {
+		return new UriTemplate(URI_TEMPLATE);
+	}
+
+	@Benchmark
+	public URI expandMap() {
+		return this.uriTemplate.expand(this.uriVariables);
+	}
+
+	@Benchmark
+	public URI expandVarargs() {
+		return this.uriTemplate.expand("roy clarkson", "spring-android", "open", 2);
+	}
+
+}
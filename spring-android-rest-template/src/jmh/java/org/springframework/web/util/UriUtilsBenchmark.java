@@ -0,0 +1,75 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for encoding URI components with {@link UriUtils}, for values that need no
+ * encoding as well as values that do.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UriUtilsBenchmark {
+
+	// JMH writes parameter values in the platform encoding, so non-ASCII values are set up here
+	@Param({"unreserved", "non-ascii"})
+	public String kind;
+
+	private String value;
+
+	@Setup
+	public void setUp() {
+		this.value = ("non-ascii".equals(this.kind) ? "H\u00e9llo W\u00f6rld & friends/=?" : "spring-android");
+	}
+
+	@Benchmark
+	public String encodePathSegment() throws UnsupportedEncodingException {
+		return UriUtils.encodePathSegment(this.value, "UTF-8");
+	}
+
+	@Benchmark
+	public String encodeQueryParam() throws UnsupportedEncodingException {
+		return UriUtils.encodeQueryParam(this.value, "UTF-8");
+	}
+
+	@Benchmark
+	public String encodePath() throws UnsupportedEncodingException {
+		return UriUtils.encodePath("/search/" + this.value + "/results", "UTF-8");
+	}
+
+}
@@ -71,6 +71,18 @@ public class ContentCodingType implements Comparable<ContentCodingType> {
 	 */
 	public final static String GZIP_VALUE = "gzip";
 
+	/**
+	 * Public constant encoding type for {@code deflate}.
+	 * @since 2.0
+	 */
+	public final static ContentCodingType DEFLATE;
+
+	/**
+	 * A String equivalent of {@link ContentCodingType#DEFLATE}.
+	 * @since 2.0
+	 */
+	public final static String DEFLATE_VALUE = "deflate";
+
 
 	private static final BitSet TOKEN;
 
@@ -120,6 +132,7 @@ public class ContentCodingType implements Comparable<ContentCodingType> {
 		ALL = ContentCodingType.valueOf(ALL_VALUE);
 		IDENTITY = ContentCodingType.valueOf(IDENTITY_VALUE);
 		GZIP = ContentCodingType.valueOf(GZIP_VALUE);
+		DEFLATE = ContentCodingType.valueOf(DEFLATE_VALUE);
 	}
 
 
@@ -850,6 +850,25 @@ public class HttpHeaders implements MultiValueMap<String, String>, Serializable
 		return getFirst(PRAGMA);
 	}
 
+	/**
+	 * Sets the (new) value of the {@code Range} header.
+	 * @since 2.0
+	 */
+	public void setRange(List<HttpRange> ranges) {
+		String value = HttpRange.toString(ranges);
+		set(RANGE, value);
+	}
+
+	/**
+	 * Return the value of the {@code Range} header.
+	 * <p>Returns an empty list when the range is unknown.
+	 * @since 2.0
+	 */
+	public List<HttpRange> getRange() {
+		String value = getFirst(RANGE);
+		return HttpRange.parseRanges(value);
+	}
+
 	/**
 	 * Set the (new) value of the {@code User-Agent} header.
 	 */
@@ -864,6 +883,44 @@ public class HttpHeaders implements MultiValueMap<String, String>, Serializable
 		return getFirst(USER_AGENT);
 	}
 
+	/**
+	 * Set the (new) value of the {@code Retry-After} header, as a number of seconds.
+	 * @since 2.0
+	 */
+	public void setRetryAfter(long retryAfterSeconds) {
+		set(RETRY_AFTER, Long.toString(retryAfterSeconds));
+	}
+
+	/**
+	 * Return the time to wait before retrying, as specified by the {@code Retry-After}
+	 * header, either as a number of seconds or as an HTTP-date.
+	 * <p>The delay is returned in milliseconds. An HTTP-date is taken relative to
+	 * the {@code Date} header if present, or to the current time otherwise; a date in
+	 * the past results in 0. Returns -1 when the header is absent.
+	 * @throws IllegalArgumentException if the value is neither a number nor a date
+	 * @since 2.0
+	 */
+	public long getRetryAfter() {
+		String value = getFirst(RETRY_AFTER);
+		if (value == null) {
+			return -1;
+		}
+		value = value.trim();
+		if (value.length() > 0 && Character.isDigit(value.charAt(0))) {
+			try {
+				return Long.parseLong(value) * 1000;
+			}
+			catch (NumberFormatException ex) {
+				throw new IllegalArgumentException("Cannot parse delay value \"" + value +
+						"\" for \"" + RETRY_AFTER + "\" header");
+			}
+		}
+		long retryAfter = getFirstDate(RETRY_AFTER);
+		long date = getDate();
+		long now = (date != -1 ? date : System.currentTimeMillis());
+		return Math.max(0, retryAfter - now);
+	}
+
 	/**
 	 * Set the (new) value of the {@code Upgrade} header.
 	 */
@@ -16,7 +16,6 @@
 
 package org.springframework.http.client;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -24,15 +23,51 @@ import org.springframework.http.HttpHeaders;
 
 /**
  * Base implementation of {@link ClientHttpRequest} that buffers output
- * in a byte array before sending it over the wire.
+ * in memory before sending it over the wire.
+ *
+ * <p>The output is buffered in pooled segments (see {@link SegmentedOutputStream}),
+ * which are given back to the pool once the request has been executed.
  *
  * @author Arjen Poutsma
  * @since 1.0
  */
 abstract class AbstractBufferingClientHttpRequest extends AbstractClientHttpRequest {
 
-	private ByteArrayOutputStream bufferedOutput = new ByteArrayOutputStream();
+	private SegmentedOutputStream bufferedOutput = new SegmentedOutputStream();
+
+	private ClientHttpRequestListener requestListener;
+
+	private long phaseStartNanos;
+
+
+	/**
+	 * Set the listener to notify of the network phases of this request.
+	 */
+	void setRequestListener(ClientHttpRequestListener requestListener) {
+		this.requestListener = requestListener;
+	}
 
+	/**
+	 * Indicate whether a listener is notified of the network phases of this request.
+	 */
+	final boolean hasRequestListener() {
+		return (this.requestListener != null);
+	}
+
+	/**
+	 * Notify the listener, if any, that the given phase has ended, and start the next one.
+	 * Does nothing, and takes no timestamp, if there is no listener.
+	 * @param phase the phase that ended
+	 * @param byteCount the number of bytes the phase dealt with, or -1 if unknown
+	 */
+	final void endPhase(ClientHttpRequestEvent.Phase phase, long byteCount) {
+		if (this.requestListener != null) {
+			long now = System.nanoTime();
+			this.requestListener.onEvent(
+					new ClientHttpRequestEvent(phase, getMethod(), getURI(), this.phaseStartNanos, now, byteCount));
+			this.phaseStartNanos = now;
+		}
+	}
 
 	@Override
 	protected OutputStream getBodyInternal(HttpHeaders headers) throws IOException {
@@ -41,13 +76,35 @@ abstract class AbstractBufferingClientHttpRequest extends AbstractClientHttpRequ
 
 	@Override
 	protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
-		byte[] bytes = this.bufferedOutput.toByteArray();
+		if (this.requestListener != null) {
+			this.phaseStartNanos = System.nanoTime();
+		}
+		SegmentedOutputStream bufferedOutput = this.bufferedOutput;
 		if (headers.getContentLength() == -1) {
-			headers.setContentLength(bytes.length);
+			headers.setContentLength(bufferedOutput.size());
+		}
+		try {
+			return executeInternal(headers, bufferedOutput);
 		}
-		ClientHttpResponse result = executeInternal(headers, bytes);
-		this.bufferedOutput = null;
-		return result;
+		finally {
+			this.bufferedOutput = null;
+			bufferedOutput.release();
+		}
+	}
+
+	/**
+	 * Template method that writes the given headers and buffered content to the HTTP request.
+	 * <p>The default implementation copies the content into a single array and delegates to
+	 * {@link #executeInternal(HttpHeaders, byte[])}. Subclasses that can send the segments
+	 * as they are should override this method; the segments are released when it returns.
+	 * @param headers the HTTP headers
+	 * @param bufferedOutput the body content
+	 * @return the response object for the executed request
+	 */
+	protected ClientHttpResponse executeInternal(HttpHeaders headers, SegmentedOutputStream bufferedOutput)
+			throws IOException {
+
+		return executeInternal(headers, bufferedOutput.toByteArray());
 	}
 
 	/**
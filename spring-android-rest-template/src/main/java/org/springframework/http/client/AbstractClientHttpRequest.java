@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2016 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,15 +23,23 @@ import java.util.zip.GZIPOutputStream;
 
 import org.springframework.http.ContentCodingType;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.StreamingHttpOutputMessage;
 import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
 
 /**
  * Abstract base for {@link ClientHttpRequest} that makes sure that headers
  * and body are not written multiple times.
  *
+ * <p>When the {@code Content-Encoding} header is set to {@code gzip}, the body written
+ * to {@link #getBody()} is compressed on the fly, and any {@code Content-Length} header
+ * is removed, since it would not match the compressed body. Streaming requests compress
+ * the streaming body they were given through {@link #getEncodedBody}.
+ *
  * @author Arjen Poutsma
  * @author Roy Clarkson
  * @since 1.0
+ * @see CompressingClientHttpRequestFactory
  */
 public abstract class AbstractClientHttpRequest implements ClientHttpRequest {
 
@@ -50,8 +58,13 @@ public abstract class AbstractClientHttpRequest implements ClientHttpRequest {
 	@Override
 	public final OutputStream getBody() throws IOException {
 		assertNotExecuted();
+		boolean compress = shouldCompress();
+		if (compress) {
+			// the length of the compressed body is not known yet
+			this.headers.remove(HttpHeaders.CONTENT_LENGTH);
+		}
 		OutputStream body = getBodyInternal(this.headers);
-		if (shouldCompress()) {
+		if (compress) {
 			return getCompressedBody(body);
 		} else {
 			return body;
@@ -59,6 +72,9 @@ public abstract class AbstractClientHttpRequest implements ClientHttpRequest {
 	}
 
 	private boolean shouldCompress() {
+		if (!isCompressionSupported()) {
+			return false;
+		}
 		List<ContentCodingType> contentCodingTypes = headers.getContentEncoding();
 		for (ContentCodingType contentCodingType : contentCodingTypes) {
 			if (contentCodingType.equals(ContentCodingType.GZIP)) {
@@ -75,6 +91,40 @@ public abstract class AbstractClientHttpRequest implements ClientHttpRequest {
 		return this.compressedBody;
 	}
 
+	/**
+	 * Return the given streaming body as it is to be written to the network. Streaming
+	 * bodies already carry the encoding named by the {@code Content-Encoding} header,
+	 * and are returned as is, except for those {@linkplain #unencodedBody marked} as
+	 * unencoded, which are compressed as requested by the header, removing any
+	 * {@code Content-Length} header. Streaming requests that write the body to the
+	 * network call this method on execution.
+	 * @param body the streaming body, may be {@code null}
+	 * @return the body to write
+	 * @since 2.0
+	 */
+	protected StreamingHttpOutputMessage.Body getEncodedBody(StreamingHttpOutputMessage.Body body) {
+		if (!(body instanceof UnencodedBody)) {
+			return body;
+		}
+		StreamingHttpOutputMessage.Body content = ((UnencodedBody) body).body;
+		if (!shouldCompress()) {
+			return content;
+		}
+		this.headers.remove(HttpHeaders.CONTENT_LENGTH);
+		return new CompressedBody(content);
+	}
+
+	/**
+	 * Mark the given streaming body as not encoded yet, so that the request that writes
+	 * it to the network compresses it as requested by the {@code Content-Encoding}
+	 * header. Wrapping requests that write the body to the
+	 * {@linkplain #getBody() output stream} of a non-streaming request write it as is,
+	 * and that request compresses it.
+	 */
+	static StreamingHttpOutputMessage.Body unencodedBody(StreamingHttpOutputMessage.Body body) {
+		return new UnencodedBody(body);
+	}
+
 	@Override
 	public final ClientHttpResponse execute() throws IOException {
 		assertNotExecuted();
@@ -94,6 +144,18 @@ public abstract class AbstractClientHttpRequest implements ClientHttpRequest {
 		Assert.state(!this.executed, "ClientHttpRequest already executed");
 	}
 
+	/**
+	 * Indicates whether this request compresses its body as requested by the
+	 * {@code Content-Encoding} header.
+	 * <p>Default implementation returns {@code true}. Requests that hand their body on
+	 * to another {@link ClientHttpRequest} return {@code false}, so that the body is
+	 * compressed only once, by the request that writes it to the network.
+	 * @since 2.0
+	 */
+	protected boolean isCompressionSupported() {
+		return true;
+	}
+
 	/**
 	 * Abstract template method that returns the body.
 	 * @param headers the HTTP headers
@@ -108,4 +170,44 @@ public abstract class AbstractClientHttpRequest implements ClientHttpRequest {
 	 */
 	protected abstract ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException;
 
+
+
+	/**
+	 * Streaming body that is yet to be encoded by the request that writes it to the
+	 * network.
+	 */
+	private static class UnencodedBody implements StreamingHttpOutputMessage.Body {
+
+		private final StreamingHttpOutputMessage.Body body;
+
+		public UnencodedBody(StreamingHttpOutputMessage.Body body) {
+			this.body = body;
+		}
+
+		@Override
+		public void writeTo(OutputStream outputStream) throws IOException {
+			this.body.writeTo(outputStream);
+		}
+	}
+
+
+	/**
+	 * Streaming body that compresses the body it wraps.
+	 */
+	private static class CompressedBody implements StreamingHttpOutputMessage.Body {
+
+		private final StreamingHttpOutputMessage.Body body;
+
+		public CompressedBody(StreamingHttpOutputMessage.Body body) {
+			this.body = body;
+		}
+
+		@Override
+		public void writeTo(OutputStream outputStream) throws IOException {
+			GZIPOutputStream compressedStream = new GZIPOutputStream(StreamUtils.nonClosing(outputStream));
+			this.body.writeTo(compressedStream);
+			compressedStream.close();
+		}
+	}
+
 }
@@ -18,21 +18,28 @@ package org.springframework.http.client;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.util.List;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import org.springframework.http.ContentCodingType;
 import org.springframework.http.HttpStatus;
 
 /**
  * Abstract base for {@link ClientHttpResponse}.
+ *
+ * <p>Bodies with a {@code gzip} or {@code deflate} {@code Content-Encoding} are
+ * decoded transparently. Both the zlib format and raw deflate data are accepted for
+ * {@code deflate}, since servers commonly send either.
  * 
  * @author Roy Clarkson
  * @since 1.0
  */
 public abstract class AbstractClientHttpResponse implements ClientHttpResponse {
 
-	private InputStream compressedBody;
+	private InputStream decodedBody;
 
 
 	public HttpStatus getStatusCode() throws IOException {
@@ -41,16 +48,17 @@ public abstract class AbstractClientHttpResponse implements ClientHttpResponse {
 
 	public InputStream getBody() throws IOException {
 		InputStream body = getBodyInternal();
-		if (isCompressed()) {
-			return getCompressedBody(body);
+		ContentCodingType contentCoding = getContentCoding();
+		if (contentCoding != null) {
+			return getDecodedBody(body, contentCoding);
 		}
 		return body;
 	}
 	
 	public void close() {
-		if (this.compressedBody != null) {
+		if (this.decodedBody != null) {
 			try {
-				this.compressedBody.close();
+				this.decodedBody.close();
 			} catch (IOException e) {
 				// ignore
 			}
@@ -58,21 +66,47 @@ public abstract class AbstractClientHttpResponse implements ClientHttpResponse {
 		closeInternal();
 	}
 
-	private boolean isCompressed() {
+	private ContentCodingType getContentCoding() {
 		List<ContentCodingType> contentCodingTypes = this.getHeaders().getContentEncoding();
 		for (ContentCodingType contentCodingType : contentCodingTypes) {
-			if (contentCodingType.equals(ContentCodingType.GZIP)) {
-				return true;
+			if (contentCodingType.equals(ContentCodingType.GZIP) ||
+					contentCodingType.equals(ContentCodingType.DEFLATE)) {
+				return contentCodingType;
 			}
 		}
-		return false;
+		return null;
 	}
 
-	private InputStream getCompressedBody(InputStream body) throws IOException {
-		if (this.compressedBody == null) {
-			this.compressedBody = new GZIPInputStream(body);
+	private InputStream getDecodedBody(InputStream body, ContentCodingType contentCoding) throws IOException {
+		if (this.decodedBody == null) {
+			PushbackInputStream in = new PushbackInputStream(body, 2);
+			int first = in.read();
+			if (first == -1) {
+				// nothing to decode, as for HEAD requests or 204 responses
+				this.decodedBody = in;
+				return this.decodedBody;
+			}
+			int second = in.read();
+			if (second != -1) {
+				in.unread(second);
+			}
+			in.unread(first);
+			if (contentCoding.equals(ContentCodingType.GZIP)) {
+				this.decodedBody = new GZIPInputStream(in);
+			}
+			else {
+				this.decodedBody = new InflatingInputStream(in, !isZlibHeader(first, second));
+			}
 		}
-		return this.compressedBody;
+		return this.decodedBody;
+	}
+
+	/**
+	 * Indicates whether the given bytes form a zlib header (RFC 1950), as opposed to
+	 * the start of raw deflate data (RFC 1951).
+	 */
+	private static boolean isZlibHeader(int first, int second) {
+		return (second != -1 && (first & 0x0f) == 8 && ((first << 8) | second) % 31 == 0);
 	}
 
 
@@ -88,4 +122,24 @@ public abstract class AbstractClientHttpResponse implements ClientHttpResponse {
 	protected abstract void closeInternal();
 
 
+	/**
+	 * {@link InflaterInputStream} that releases its {@link Inflater} when closed.
+	 */
+	private static class InflatingInputStream extends InflaterInputStream {
+
+		public InflatingInputStream(InputStream in, boolean nowrap) {
+			super(in, new Inflater(nowrap));
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			}
+			finally {
+				this.inf.end();
+			}
+		}
+	}
+
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.StreamingHttpOutputMessage;
+
+/**
+ * Base class for {@link ClientHttpRequest} decorators that acquire a resource, such
+ * as a concurrency slot, before executing their delegate and release it once the
+ * response is closed or the execution fails.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+abstract class AbstractReleasingClientHttpRequest implements ClientHttpRequest, StreamingHttpOutputMessage {
+
+	private final ClientHttpRequest delegate;
+
+	private Body body;
+
+
+	protected AbstractReleasingClientHttpRequest(ClientHttpRequest delegate) {
+		this.delegate = delegate;
+	}
+
+
+	public HttpMethod getMethod() {
+		return this.delegate.getMethod();
+	}
+
+	public URI getURI() {
+		return this.delegate.getURI();
+	}
+
+	public HttpHeaders getHeaders() {
+		return this.delegate.getHeaders();
+	}
+
+	public OutputStream getBody() throws IOException {
+		return this.delegate.getBody();
+	}
+
+	public void setBody(Body body) {
+		if (this.delegate instanceof StreamingHttpOutputMessage) {
+			((StreamingHttpOutputMessage) this.delegate).setBody(body);
+		}
+		else {
+			this.body = body;
+		}
+	}
+
+	public final ClientHttpResponse execute() throws IOException {
+		acquire();
+		ClientHttpResponse response = null;
+		try {
+			if (this.body != null) {
+				this.body.writeTo(this.delegate.getBody());
+			}
+			response = this.delegate.execute();
+			onResponse(response);
+			return new ReleasingClientHttpResponse(response, this);
+		}
+		catch (IOException ex) {
+			onFailure();
+			release();
+			if (response != null) {
+				response.close();
+			}
+			throw ex;
+		}
+		catch (RuntimeException ex) {
+			onFailure();
+			release();
+			if (response != null) {
+				response.close();
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * Acquire the resource that the execution of the delegate needs, blocking if
+	 * necessary.
+	 * @throws IOException if the resource could not be acquired
+	 */
+	protected abstract void acquire() throws IOException;
+
+	/**
+	 * Template method invoked with the response of the delegate, before it is returned.
+	 * <p>Default implementation is empty.
+	 * @param response the response of the delegate
+	 * @throws IOException in case of I/O errors, which fail the execution
+	 */
+	protected void onResponse(ClientHttpResponse response) throws IOException {
+	}
+
+	/**
+	 * Template method invoked when the execution fails, before the resource is released.
+	 * <p>Default implementation is empty.
+	 */
+	protected void onFailure() {
+	}
+
+	/**
+	 * Release the resource acquired by {@link #acquire()}. Invoked once per execution.
+	 */
+	protected abstract void release();
+
+
+	/**
+	 * Response that releases the resource of its request when closed.
+	 */
+	private static class ReleasingClientHttpResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse delegate;
+
+		private final AbstractReleasingClientHttpRequest request;
+
+		private boolean closed;
+
+		public ReleasingClientHttpResponse(ClientHttpResponse delegate, AbstractReleasingClientHttpRequest request) {
+			this.delegate = delegate;
+			this.request = request;
+		}
+
+		public HttpStatus getStatusCode() throws IOException {
+			return this.delegate.getStatusCode();
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return this.delegate.getRawStatusCode();
+		}
+
+		public String getStatusText() throws IOException {
+			return this.delegate.getStatusText();
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.delegate.getHeaders();
+		}
+
+		public InputStream getBody() throws IOException {
+			return this.delegate.getBody();
+		}
+
+		public void close() {
+			try {
+				this.delegate.close();
+			}
+			finally {
+				synchronized (this) {
+					if (!this.closed) {
+						this.closed = true;
+						this.request.release();
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -16,31 +16,68 @@
 
 package org.springframework.http.client;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 
 import org.springframework.http.HttpMethod;
+import org.springframework.util.Assert;
 
 /**
  * Wrapper for a {@link ClientHttpRequestFactory} that buffers all outgoing and incoming streams in memory.
  *
  * <p>Using this wrapper allows for multiple reads of the {@linkplain ClientHttpResponse#getBody() response body}.
+ * Response bodies larger than the {@linkplain #setInMemoryThreshold(int) in-memory threshold} are buffered in a
+ * temporary file instead, which is deleted when the response is closed.
  *
  * @author Arjen Poutsma
+ * @author Roy Clarkson
  * @since 1.0
  */
 public class BufferingClientHttpRequestFactory extends AbstractClientHttpRequestFactoryWrapper {
 
+	/**
+	 * The default in-memory threshold: 1 MB.
+	 */
+	public static final int DEFAULT_IN_MEMORY_THRESHOLD = 1024 * 1024;
+
+	private int inMemoryThreshold = DEFAULT_IN_MEMORY_THRESHOLD;
+
+	private File tempDirectory;
+
+
 	public BufferingClientHttpRequestFactory(ClientHttpRequestFactory requestFactory) {
 		super(requestFactory);
 	}
 
+
+	/**
+	 * Set the maximum size of a response body, in bytes, that is buffered in memory. Larger bodies,
+	 * or bodies whose {@code Content-Length} exceeds this size, are buffered in a temporary file.
+	 * <p>Default is {@link #DEFAULT_IN_MEMORY_THRESHOLD}.
+	 * @param inMemoryThreshold the threshold in bytes
+	 */
+	public void setInMemoryThreshold(int inMemoryThreshold) {
+		Assert.isTrue(inMemoryThreshold >= 0, "'inMemoryThreshold' must not be negative");
+		this.inMemoryThreshold = inMemoryThreshold;
+	}
+
+	/**
+	 * Set the directory in which temporary files for large response bodies are created,
+	 * typically {@code Context.getCacheDir()}.
+	 * <p>Default is the system temporary directory ({@code java.io.tmpdir}).
+	 * @param tempDirectory the directory
+	 */
+	public void setTempDirectory(File tempDirectory) {
+		this.tempDirectory = tempDirectory;
+	}
+
 	@Override
 	protected ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod, ClientHttpRequestFactory requestFactory)
 			throws IOException {
 		ClientHttpRequest request = requestFactory.createRequest(uri, httpMethod);
 		if (shouldBuffer(uri, httpMethod)) {
-			return new BufferingClientHttpRequestWrapper(request);
+			return new BufferingClientHttpRequestWrapper(request, this.inMemoryThreshold, this.tempDirectory);
 		}
 		else {
 			return request;
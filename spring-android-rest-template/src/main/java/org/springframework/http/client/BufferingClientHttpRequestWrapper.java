@@ -16,8 +16,8 @@
 
 package org.springframework.http.client;
 
+import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.URI;
 
 import org.springframework.http.HttpHeaders;
@@ -35,10 +35,16 @@ final class BufferingClientHttpRequestWrapper extends AbstractBufferingClientHtt
 
 	private final ClientHttpRequest request;
 
+	private final int inMemoryThreshold;
 
-	BufferingClientHttpRequestWrapper(ClientHttpRequest request) {
+	private final File tempDirectory;
+
+
+	BufferingClientHttpRequestWrapper(ClientHttpRequest request, int inMemoryThreshold, File tempDirectory) {
 		Assert.notNull(request, "'request' must not be null");
 		this.request = request;
+		this.inMemoryThreshold = inMemoryThreshold;
+		this.tempDirectory = tempDirectory;
 	}
 
 
@@ -50,13 +56,17 @@ final class BufferingClientHttpRequestWrapper extends AbstractBufferingClientHtt
 		return this.request.getURI();
 	}
 
+	@Override
+	protected boolean isCompressionSupported() {
+		return false;
+	}
+
 	@Override
 	protected ClientHttpResponse executeInternal(HttpHeaders headers, byte[] bufferedOutput) throws IOException {
-		OutputStream body = this.request.getBody();
 		this.request.getHeaders().putAll(headers);
-		StreamUtils.copy(bufferedOutput, body);
+		StreamUtils.copy(bufferedOutput, this.request.getBody());
 		ClientHttpResponse response = this.request.execute();
-		return new BufferingClientHttpResponseWrapper(response);
+		return new BufferingClientHttpResponseWrapper(response, this.inMemoryThreshold, this.tempDirectory);
 	}
 
 }
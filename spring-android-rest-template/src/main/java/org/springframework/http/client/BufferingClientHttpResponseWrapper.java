@@ -16,30 +16,54 @@
 
 package org.springframework.http.client;
 
-import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.util.StreamUtils;
 
+import android.util.Log;
+
 /**
  * Simple implementation of {@link ClientHttpResponse} that reads the request's body into memory,
  * thus allowing for multiple invocations of {@link #getBody()}.
  *
+ * <p>Bodies up to the in-memory threshold are buffered in pooled segments (see
+ * {@link SegmentedOutputStream}); larger bodies are spilled to a temporary file, which is
+ * deleted when the response is closed.
+ *
  * @author Arjen Poutsma
+ * @author Roy Clarkson
  * @since 1.0
  */
 final class BufferingClientHttpResponseWrapper implements ClientHttpResponse {
 
+	private static final String TAG = "BufferingClientHttpResponseWrapper";
+
+	private static final String TEMP_FILE_PREFIX = "response";
+
+	private static final String TEMP_FILE_SUFFIX = ".tmp";
+
 	private final ClientHttpResponse response;
 
-	private byte[] body;
+	private final int inMemoryThreshold;
+
+	private final File tempDirectory;
 
+	private SegmentedOutputStream body;
 
-	BufferingClientHttpResponseWrapper(ClientHttpResponse response) {
+	private File bodyFile;
+
+
+	BufferingClientHttpResponseWrapper(ClientHttpResponse response, int inMemoryThreshold, File tempDirectory) {
 		this.response = response;
+		this.inMemoryThreshold = inMemoryThreshold;
+		this.tempDirectory = tempDirectory;
 	}
 
 
@@ -60,14 +84,85 @@ final class BufferingClientHttpResponseWrapper implements ClientHttpResponse {
 	}
 
 	public InputStream getBody() throws IOException {
-		if (this.body == null) {
-			this.body = StreamUtils.copyToByteArray(this.response.getBody());
+		if (this.body == null && this.bodyFile == null) {
+			bufferBody();
+		}
+		if (this.bodyFile != null) {
+			return new FileInputStream(this.bodyFile);
+		}
+		return this.body.getInputStream();
+	}
+
+	private void bufferBody() throws IOException {
+		InputStream in = this.response.getBody();
+		SegmentedOutputStream buffer = new SegmentedOutputStream();
+		OutputStream out = buffer;
+		boolean buffered = false;
+		try {
+			if (getHeaders().getContentLength() > this.inMemoryThreshold) {
+				out = spill(buffer);
+			}
+			byte[] transferBuffer = new byte[StreamUtils.BUFFER_SIZE];
+			int bytesRead;
+			while ((bytesRead = in.read(transferBuffer)) != -1) {
+				out.write(transferBuffer, 0, bytesRead);
+				if (out == buffer && buffer.size() > this.inMemoryThreshold) {
+					out = spill(buffer);
+				}
+			}
+			buffered = true;
+		}
+		finally {
+			if (out != buffer) {
+				out.close();
+			}
+			if (!buffered) {
+				buffer.release();
+				deleteBodyFile();
+			}
+		}
+		if (this.bodyFile == null) {
+			this.body = buffer;
+		}
+	}
+
+	private OutputStream spill(SegmentedOutputStream buffer) throws IOException {
+		this.bodyFile = File.createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX, this.tempDirectory);
+		if (Log.isLoggable(TAG, Log.DEBUG)) {
+			Log.d(TAG, "Response body exceeds " + this.inMemoryThreshold + " bytes, buffering in " + this.bodyFile);
+		}
+		OutputStream out = new FileOutputStream(this.bodyFile);
+		try {
+			buffer.writeTo(out);
+		}
+		catch (IOException ex) {
+			out.close();
+			throw ex;
+		}
+		buffer.release();
+		return out;
+	}
+
+	private void deleteBodyFile() {
+		if (this.bodyFile != null) {
+			if (!this.bodyFile.delete() && Log.isLoggable(TAG, Log.WARN)) {
+				Log.w(TAG, "Could not delete " + this.bodyFile);
+			}
+			this.bodyFile = null;
 		}
-		return new ByteArrayInputStream(this.body);
 	}
 
 	public void close() {
-		this.response.close();
+		try {
+			this.response.close();
+		}
+		finally {
+			if (this.body != null) {
+				this.body.release();
+				this.body = null;
+			}
+			deleteBodyFile();
+		}
 	}
 
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when a request is rejected without reaching the host because the
+ * maximum number of concurrent requests against that host has been reached.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see CircuitBreakerClientHttpRequestFactory#setMaxConcurrentRequestsPerHost(int)
+ */
+public class BulkheadFullException extends IOException {
+
+	private static final long serialVersionUID = 5121734098765409216L;
+
+	private final String host;
+
+
+	/**
+	 * Create a new {@code BulkheadFullException}.
+	 * @param host the host, as {@code scheme://host:port}
+	 * @param inFlightRequests the number of requests in flight against the host
+	 */
+	public BulkheadFullException(String host, int inFlightRequests) {
+		super("Maximum of " + inFlightRequests + " concurrent requests for \"" + host + "\" reached");
+		this.host = host;
+	}
+
+
+	/**
+	 * Return the host the request was rejected for.
+	 */
+	public String getHost() {
+		return this.host;
+	}
+
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.util.Assert;
+
+import android.util.Log;
+
+/**
+ * {@link HostResolver} decorator that caches the addresses resolved by a delegate
+ * resolver in memory.
+ *
+ * <p>Successful lookups are cached for the {@linkplain #setTimeToLive(long) time to
+ * live}, and failed lookups for the {@linkplain #setNegativeTimeToLive(long) negative
+ * time to live}. The cache holds a limited number of host names and evicts the least
+ * recently used one when full.
+ *
+ * <p>Once a cached entry has been used for a {@linkplain #setRefreshAheadFactor(float)
+ * share} of its time to live, the next lookup still returns the cached addresses but
+ * also refreshes the entry in the background, so that frequently used hosts never
+ * wait for the delegate resolver. Once an entry has expired, its addresses are still
+ * returned right away for the {@linkplain #setStaleIfError(long) stale-if-error}
+ * period while the entry is refreshed in the background, and keep being returned
+ * while the delegate fails. Concurrent lookups of a host that is not cached share a
+ * single lookup of the delegate resolver.
+ *
+ * <p>The platform resolver does not expose the time to live of DNS records, so the
+ * same configured time to live applies to all hosts.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+public class CachingHostResolver implements HostResolver {
+
+	private static final String TAG = "CachingHostResolver";
+
+	private static final int MAX_REFRESH_THREADS = 2;
+
+
+	private final HostResolver delegate;
+
+	private final Map<String, CacheEntry> entries = new LruCache(this);
+
+	private final Map<String, PendingLookup> pendingLookups = new HashMap<String, PendingLookup>();
+
+	private int maxEntries = 256;
+
+	private long timeToLive = 60000;
+
+	private long negativeTimeToLive = 10000;
+
+	private float refreshAheadFactor = 0.75f;
+
+	private long staleIfError = 300000;
+
+
+	/**
+	 * Create a new {@code CachingHostResolver} that caches the lookups of the platform
+	 * resolver.
+	 * @see SystemHostResolver
+	 */
+	public CachingHostResolver() {
+		this(new SystemHostResolver());
+	}
+
+	/**
+	 * Create a new {@code CachingHostResolver} that caches the lookups of the given
+	 * resolver.
+	 * @param delegate the resolver to delegate cache misses to
+	 */
+	public CachingHostResolver(HostResolver delegate) {
+		Assert.notNull(delegate, "'delegate' must not be null");
+		this.delegate = delegate;
+	}
+
+
+	/**
+	 * Set the maximum number of host names to cache.
+	 * <p>Default is 256.
+	 */
+	public void setMaxEntries(int maxEntries) {
+		Assert.isTrue(maxEntries > 0, "'maxEntries' must be larger than 0");
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Set the duration in milliseconds for which a successful lookup is cached.
+	 * <p>Default is 60000.
+	 */
+	public void setTimeToLive(long timeToLive) {
+		Assert.isTrue(timeToLive > 0, "'timeToLive' must be larger than 0");
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * Set the duration in milliseconds for which a failed lookup is cached. A value
+	 * of 0 disables caching of failed lookups.
+	 * <p>Default is 10000.
+	 */
+	public void setNegativeTimeToLive(long negativeTimeToLive) {
+		Assert.isTrue(negativeTimeToLive >= 0, "'negativeTimeToLive' must not be negative");
+		this.negativeTimeToLive = negativeTimeToLive;
+	}
+
+	/**
+	 * Set the share of the time to live after which a lookup that hits the cache
+	 * refreshes the entry in the background. A value of 1 disables refresh-ahead.
+	 * <p>Default is 0.75.
+	 */
+	public void setRefreshAheadFactor(float refreshAheadFactor) {
+		Assert.isTrue(refreshAheadFactor > 0 && refreshAheadFactor <= 1,
+				"'refreshAheadFactor' must be larger than 0 and at most 1");
+		this.refreshAheadFactor = refreshAheadFactor;
+	}
+
+	/**
+	 * Set the duration in milliseconds after expiry during which the addresses of an
+	 * expired entry are returned while the entry is refreshed in the background, or
+	 * while the delegate resolver fails to refresh it. A value of 0 disables
+	 * stale-if-error, so that lookups wait for the delegate once an entry has expired.
+	 * <p>Default is 300000.
+	 */
+	public void setStaleIfError(long staleIfError) {
+		Assert.isTrue(staleIfError >= 0, "'staleIfError' must not be negative");
+		this.staleIfError = staleIfError;
+	}
+
+	/**
+	 * Remove all cached entries.
+	 */
+	public void clear() {
+		synchronized (this.entries) {
+			this.entries.clear();
+		}
+	}
+
+
+	@Override
+	public InetAddress[] resolve(String host) throws UnknownHostException {
+		long now = System.nanoTime();
+		CacheEntry entry;
+		PendingLookup pending;
+		boolean leader = false;
+		synchronized (this.entries) {
+			entry = this.entries.get(host);
+			if (entry != null && entry.addresses != null) {
+				if (entry.isFresh(now) || now - entry.expiresAt < this.staleIfError * 1000000) {
+					if (!entry.refreshing && now - entry.refreshAt >= 0) {
+						entry.refreshing = true;
+						refreshInBackground(host, entry);
+					}
+					return entry.addresses.clone();
+				}
+			}
+			else if (entry != null && entry.isFresh(now)) {
+				throw new UnknownHostException(host);
+			}
+			pending = this.pendingLookups.get(host);
+			if (pending == null) {
+				pending = new PendingLookup();
+				this.pendingLookups.put(host, pending);
+				leader = true;
+			}
+		}
+		if (leader) {
+			// Resolve outside of the lock, so that a stalled lookup does not block other hosts
+			lookup(host, pending);
+		}
+		return pending.await(host);
+	}
+
+	private void lookup(String host, PendingLookup pending) {
+		try {
+			InetAddress[] addresses = this.delegate.resolve(host);
+			put(host, new CacheEntry(addresses, System.nanoTime(), this.timeToLive, this.refreshAheadFactor));
+			pending.setAddresses(addresses);
+		}
+		catch (UnknownHostException ex) {
+			if (this.negativeTimeToLive > 0) {
+				put(host, new CacheEntry(null, System.nanoTime(), this.negativeTimeToLive, 1));
+			}
+			pending.setFailure(ex);
+		}
+		catch (RuntimeException ex) {
+			pending.setFailure(ex);
+		}
+		catch (Error ex) {
+			pending.setFailure(ex);
+		}
+		finally {
+			synchronized (this.entries) {
+				this.pendingLookups.remove(host);
+			}
+		}
+	}
+
+	private void refreshInBackground(final String host, final CacheEntry entry) {
+		RefreshExecutor.INSTANCE.execute(new Runnable() {
+			public void run() {
+				try {
+					InetAddress[] addresses = delegate.resolve(host);
+					put(host, new CacheEntry(addresses, System.nanoTime(), timeToLive, refreshAheadFactor));
+				}
+				catch (UnknownHostException ex) {
+					if (Log.isLoggable(TAG, Log.DEBUG)) {
+						Log.d(TAG, "Could not refresh \"" + host + "\", keeping cached addresses: " + ex);
+					}
+					synchronized (entries) {
+						entry.refreshing = false;
+					}
+				}
+				catch (RuntimeException ex) {
+					synchronized (entries) {
+						entry.refreshing = false;
+					}
+					throw ex;
+				}
+			}
+		});
+	}
+
+	private void put(String host, CacheEntry entry) {
+		synchronized (this.entries) {
+			this.entries.put(host, entry);
+		}
+	}
+
+
+	/**
+	 * Access-ordered map that evicts the least recently used host name once it holds
+	 * more than the maximum number of entries.
+	 */
+	private static class LruCache extends LinkedHashMap<String, CacheEntry> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final CachingHostResolver resolver;
+
+		public LruCache(CachingHostResolver resolver) {
+			super(16, 0.75f, true);
+			this.resolver = resolver;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+			return size() > this.resolver.maxEntries;
+		}
+	}
+
+
+	/**
+	 * A cached lookup: the resolved addresses, or {@code null} for a failed lookup.
+	 */
+	private static class CacheEntry {
+
+		private final InetAddress[] addresses;
+
+		private final long expiresAt;
+
+		private final long refreshAt;
+
+		private boolean refreshing;
+
+		public CacheEntry(InetAddress[] addresses, long now, long timeToLive, float refreshAheadFactor) {
+			this.addresses = addresses;
+			this.expiresAt = now + timeToLive * 1000000;
+			this.refreshAt = now + (long) (timeToLive * refreshAheadFactor) * 1000000;
+		}
+
+		public boolean isFresh(long now) {
+			return now - this.expiresAt < 0;
+		}
+	}
+
+
+	/**
+	 * A lookup in progress, shared by all callers that miss the cache for its host.
+	 */
+	private static class PendingLookup {
+
+		private final CountDownLatch latch = new CountDownLatch(1);
+
+		private volatile InetAddress[] addresses;
+
+		private volatile Throwable failure;
+
+		public void setAddresses(InetAddress[] addresses) {
+			this.addresses = addresses;
+			this.latch.countDown();
+		}
+
+		public void setFailure(Throwable failure) {
+			this.failure = failure;
+			this.latch.countDown();
+		}
+
+		public InetAddress[] await(String host) throws UnknownHostException {
+			try {
+				this.latch.await();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				UnknownHostException interrupted = new UnknownHostException(host);
+				interrupted.initCause(ex);
+				throw interrupted;
+			}
+			if (this.failure instanceof UnknownHostException) {
+				throw (UnknownHostException) this.failure;
+			}
+			if (this.failure instanceof RuntimeException) {
+				throw (RuntimeException) this.failure;
+			}
+			if (this.failure instanceof Error) {
+				throw (Error) this.failure;
+			}
+			return this.addresses.clone();
+		}
+	}
+
+
+	/**
+	 * Holder for the executor that background refreshes run on, created on first use.
+	 */
+	private static class RefreshExecutor {
+
+		static final ExecutorService INSTANCE;
+
+		static {
+			final AtomicInteger threadCount = new AtomicInteger();
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_REFRESH_THREADS, MAX_REFRESH_THREADS, 30,
+					TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable, "CachingHostResolver-" + threadCount.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			executor.allowCoreThreadTimeOut(true);
+			INSTANCE = executor;
+		}
+	}
+
+}
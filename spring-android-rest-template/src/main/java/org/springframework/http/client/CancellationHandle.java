@@ -0,0 +1,361 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
+
+import android.util.Log;
+
+/**
+ * Handle through which the requests executed on one thread can be cancelled from
+ * another thread.
+ *
+ * <p>A handle is {@linkplain #setCurrent(CancellationHandle) bound} to the calling
+ * thread while it executes requests. The request factories register the transport of
+ * each request created on that thread with the bound handle:
+ * {@link SimpleClientHttpRequestFactory} disconnects the {@code HttpURLConnection},
+ * the OkHttp factories cancel the {@code Call}, and the HttpComponents factories abort
+ * the {@code HttpUriRequest}. {@link #cancel()} aborts all of them, including
+ * transfers in progress, and any transport registered afterwards is aborted
+ * immediately.
+ *
+ * <p>A handle created with a parent is cancelled together with its parent until it is
+ * {@linkplain #release() released}. A handle may carry a tag, which allows
+ * {@link org.springframework.web.client.RestTemplate#cancel(Object)} to cancel a group
+ * of requests at once.
+ *
+ * <p>A handle may also have a {@linkplain #setTimeout(long) deadline}, at which it is
+ * cancelled automatically. A child handle is bound by the deadline of its parent as
+ * well, so the remaining time propagates to the requests nested within a request.
+ *
+ * <p>Aborting a transport may block briefly while its socket is closed.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+public class CancellationHandle {
+
+	private static final String TAG = "CancellationHandle";
+
+	private static final ThreadLocal<CancellationHandle> currentHandle = new ThreadLocal<CancellationHandle>();
+
+
+	private final CancellationHandle parent;
+
+	private final Object tag;
+
+	private final List<Runnable> abortActions = new ArrayList<Runnable>();
+
+	private final List<CancellationHandle> children = new ArrayList<CancellationHandle>();
+
+	private volatile boolean cancelled;
+
+	private volatile boolean deadlineExceeded;
+
+	private volatile boolean hasOwnDeadline;
+
+	private volatile long deadline;
+
+	private ScheduledFuture<?> deadlineTask;
+
+
+	/**
+	 * Create a new, untagged {@code CancellationHandle}.
+	 */
+	public CancellationHandle() {
+		this(null, null);
+	}
+
+	/**
+	 * Create a new {@code CancellationHandle} with the given tag.
+	 * @param tag the tag, may be {@code null}
+	 */
+	public CancellationHandle(Object tag) {
+		this(null, tag);
+	}
+
+	/**
+	 * Create a new {@code CancellationHandle} that is cancelled together with the given
+	 * parent, and has the same tag.
+	 * @param parent the parent handle
+	 */
+	public CancellationHandle(CancellationHandle parent) {
+		this(parent, tagOf(parent));
+	}
+
+	private CancellationHandle(CancellationHandle parent, Object tag) {
+		this.parent = parent;
+		this.tag = tag;
+		if (parent != null) {
+			parent.addChild(this);
+		}
+	}
+
+
+	private static Object tagOf(CancellationHandle parent) {
+		Assert.notNull(parent, "'parent' must not be null");
+		return parent.getTag();
+	}
+
+
+	/**
+	 * Return the handle bound to the current thread, or {@code null} if none.
+	 */
+	public static CancellationHandle getCurrent() {
+		return currentHandle.get();
+	}
+
+	/**
+	 * Bind the given handle to the current thread.
+	 * @param handle the handle to bind, or {@code null} to unbind the current one
+	 */
+	public static void setCurrent(CancellationHandle handle) {
+		if (handle != null) {
+			currentHandle.set(handle);
+		}
+		else {
+			currentHandle.remove();
+		}
+	}
+
+	/**
+	 * Register the given action, which aborts the transport of a request, with the handle
+	 * bound to the current thread, if any.
+	 */
+	static void registerAbortAction(Runnable abortAction) {
+		CancellationHandle handle = getCurrent();
+		if (handle != null) {
+			handle.addAbortAction(abortAction);
+		}
+	}
+
+
+	/**
+	 * Return the tag of this handle, or {@code null} if none.
+	 */
+	public Object getTag() {
+		return this.tag;
+	}
+
+	/**
+	 * Set a deadline the given number of milliseconds from now, at which this handle is
+	 * cancelled. Replaces any deadline previously set on this handle; the deadline of
+	 * the parent, if earlier, still applies.
+	 * @param timeout the timeout in milliseconds
+	 */
+	public void setTimeout(long timeout) {
+		Assert.isTrue(timeout > 0, "'timeout' must be larger than 0");
+		synchronized (this) {
+			this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+			this.hasOwnDeadline = true;
+			if (this.deadlineTask != null) {
+				this.deadlineTask.cancel(false);
+			}
+			if (!this.cancelled) {
+				this.deadlineTask = DeadlineTimer.INSTANCE.schedule(new Runnable() {
+					public void run() {
+						cancel(true);
+					}
+				}, timeout, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Indicates whether this handle, or one of its ancestors, has a deadline.
+	 */
+	public boolean hasDeadline() {
+		return (this.hasOwnDeadline || (this.parent != null && this.parent.hasDeadline()));
+	}
+
+	/**
+	 * Return the time in milliseconds left until the deadline of this handle or of one
+	 * of its ancestors, whichever is earlier.
+	 * @return the remaining time, 0 if the deadline has passed, or -1 if there is none
+	 */
+	public long getRemainingTime() {
+		if (!hasDeadline()) {
+			return -1;
+		}
+		long remaining = getDeadline() - System.nanoTime();
+		return (remaining > 0 ? TimeUnit.NANOSECONDS.toMillis(remaining) : 0);
+	}
+
+	private long getDeadline() {
+		if (this.parent == null || !this.parent.hasDeadline()) {
+			return this.deadline;
+		}
+		long parentDeadline = this.parent.getDeadline();
+		// compare by difference, as System.nanoTime() may overflow
+		return (!this.hasOwnDeadline || parentDeadline - this.deadline < 0 ? parentDeadline : this.deadline);
+	}
+
+	/**
+	 * Indicates whether this handle has been cancelled.
+	 */
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+
+	/**
+	 * Indicates whether this handle has been cancelled because its deadline, or the
+	 * deadline of one of its ancestors, has passed.
+	 */
+	public boolean isDeadlineExceeded() {
+		return this.deadlineExceeded;
+	}
+
+	/**
+	 * Cancel this handle, aborting the transports registered with it and with its
+	 * children. Cancelling a handle more than once has no further effect.
+	 */
+	public void cancel() {
+		cancel(false);
+	}
+
+	private void cancel(boolean deadlineExceeded) {
+		List<Runnable> actions;
+		List<CancellationHandle> handles;
+		synchronized (this) {
+			if (this.cancelled) {
+				return;
+			}
+			this.deadlineExceeded = deadlineExceeded;
+			this.cancelled = true;
+			if (this.deadlineTask != null) {
+				this.deadlineTask.cancel(false);
+			}
+			actions = new ArrayList<Runnable>(this.abortActions);
+			handles = new ArrayList<CancellationHandle>(this.children);
+			this.abortActions.clear();
+			this.children.clear();
+		}
+		for (Runnable action : actions) {
+			abort(action);
+		}
+		for (CancellationHandle child : handles) {
+			child.cancel(deadlineExceeded);
+		}
+	}
+
+	/**
+	 * Release this handle: detach it from its parent and drop the transports registered
+	 * with it. To be called once the requests it covers have completed.
+	 */
+	public void release() {
+		if (this.parent != null) {
+			this.parent.removeChild(this);
+		}
+		synchronized (this) {
+			if (this.deadlineTask != null) {
+				this.deadlineTask.cancel(false);
+			}
+			this.abortActions.clear();
+		}
+	}
+
+	private void addAbortAction(Runnable abortAction) {
+		synchronized (this) {
+			if (!this.cancelled) {
+				this.abortActions.add(abortAction);
+				return;
+			}
+		}
+		abort(abortAction);
+	}
+
+	private void addChild(CancellationHandle child) {
+		synchronized (this) {
+			if (!this.cancelled) {
+				this.children.add(child);
+				return;
+			}
+		}
+		child.cancel(this.deadlineExceeded);
+	}
+
+	private synchronized void removeChild(CancellationHandle child) {
+		this.children.remove(child);
+	}
+
+	private static void abort(Runnable abortAction) {
+		try {
+			abortAction.run();
+		}
+		catch (RuntimeException ex) {
+			if (Log.isLoggable(TAG, Log.DEBUG)) {
+				Log.d(TAG, "Could not abort request transport: " + ex);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "CancellationHandle [tag=" + ObjectUtils.nullSafeToString(this.tag) + ", cancelled=" + this.cancelled + "]";
+	}
+
+
+	/**
+	 * Holder for the timer that cancels handles at their deadline, created on first use.
+	 * Deadline tasks cancelled by {@link CancellationHandle#release()} are removed from
+	 * its queue, so that handles released well before their deadline are not retained.
+	 */
+	private static class DeadlineTimer {
+
+		// available as of Java 7 and Android 5.0 (API 21)
+		private static final Method setRemoveOnCancelPolicy =
+				ReflectionUtils.findMethod(ScheduledThreadPoolExecutor.class, "setRemoveOnCancelPolicy", boolean.class);
+
+		private static final long PURGE_INTERVAL = 60000;
+
+		static final ScheduledExecutorService INSTANCE;
+
+		static {
+			final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "CancellationHandle-deadline");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			if (setRemoveOnCancelPolicy != null) {
+				ReflectionUtils.invokeMethod(setRemoveOnCancelPolicy, executor, true);
+			}
+			else {
+				// Older platforms keep cancelled tasks queued until their delay elapses
+				executor.scheduleWithFixedDelay(new Runnable() {
+					public void run() {
+						executor.purge();
+					}
+				}, PURGE_INTERVAL, PURGE_INTERVAL, TimeUnit.MILLISECONDS);
+			}
+			INSTANCE = executor;
+		}
+	}
+
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+
+/**
+ * Tracks the outcome of recent requests against a single host for a
+ * {@link CircuitBreakerClientHttpRequestFactory}, and decides whether further
+ * requests are permitted.
+ *
+ * <p>The circuit starts out {@link State#CLOSED closed}, letting requests through and
+ * recording their outcome in a sliding window of the most recent calls. Once the
+ * share of failed or slow calls in the window reaches its threshold, the circuit
+ * {@link State#OPEN opens} and requests fail fast with a
+ * {@link CircuitBreakerOpenException}. After a wait, the circuit becomes
+ * {@link State#HALF_OPEN half-open} and lets a limited number of probe requests
+ * through: if they all succeed the circuit closes again, otherwise it reopens.
+ *
+ * <p>Independently of the circuit state, the number of concurrent requests against
+ * the host is capped; requests beyond the cap fail fast with a
+ * {@link BulkheadFullException}.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see CircuitBreakerClientHttpRequestFactory#getCircuitBreaker(String)
+ */
+public final class CircuitBreaker {
+
+	/**
+	 * The states of a circuit breaker.
+	 */
+	public enum State {
+
+		/**
+		 * Requests are permitted and their outcome is recorded.
+		 */
+		CLOSED,
+
+		/**
+		 * Requests fail fast without reaching the host.
+		 */
+		OPEN,
+
+		/**
+		 * A limited number of probe requests is permitted to test whether the host
+		 * has recovered.
+		 */
+		HALF_OPEN
+	}
+
+
+	private final String host;
+
+	private final CircuitBreakerClientHttpRequestFactory settings;
+
+	private final boolean[] failedCalls;
+
+	private final boolean[] slowCalls;
+
+	private int windowIndex;
+
+	private int windowCount;
+
+	private int failedCount;
+
+	private int slowCount;
+
+	private State state = State.CLOSED;
+
+	private long openedAt;
+
+	private int startedProbes;
+
+	private int succeededProbes;
+
+	private int inFlightRequests;
+
+
+	CircuitBreaker(String host, CircuitBreakerClientHttpRequestFactory settings) {
+		this.host = host;
+		this.settings = settings;
+		this.failedCalls = new boolean[settings.getSlidingWindowSize()];
+		this.slowCalls = new boolean[settings.getSlidingWindowSize()];
+	}
+
+
+	/**
+	 * Return the host this circuit breaker applies to, as {@code scheme://host:port}.
+	 */
+	public String getHost() {
+		return this.host;
+	}
+
+	/**
+	 * Return the current state of the circuit.
+	 */
+	public synchronized State getState() {
+		return this.state;
+	}
+
+	/**
+	 * Return the percentage of failed calls in the sliding window, or -1 if fewer
+	 * calls than the minimum have been recorded.
+	 */
+	public synchronized float getFailureRate() {
+		return getRate(this.failedCount);
+	}
+
+	/**
+	 * Return the percentage of slow calls in the sliding window, or -1 if fewer calls
+	 * than the minimum have been recorded.
+	 */
+	public synchronized float getSlowCallRate() {
+		return getRate(this.slowCount);
+	}
+
+	/**
+	 * Return the number of calls recorded in the sliding window.
+	 */
+	public synchronized int getNumberOfCalls() {
+		return this.windowCount;
+	}
+
+	/**
+	 * Return the number of requests against the host currently in flight.
+	 */
+	public synchronized int getInFlightRequests() {
+		return this.inFlightRequests;
+	}
+
+	/**
+	 * Close the circuit and discard all recorded calls.
+	 */
+	public synchronized void reset() {
+		transitionTo(State.CLOSED);
+	}
+
+	/**
+	 * Indicates whether the circuit is open and still within its wait duration, so
+	 * that any request would be rejected.
+	 */
+	synchronized boolean isOpen() {
+		return (this.state == State.OPEN && !isWaitDurationElapsed());
+	}
+
+	/**
+	 * Acquire permission to execute a request, to be returned through
+	 * {@link #release()} once the request has completed.
+	 * @return {@code true} if the request is a probe of a half-open circuit
+	 * @throws CircuitBreakerOpenException if the circuit does not permit the request
+	 * @throws BulkheadFullException if too many requests are in flight
+	 */
+	synchronized boolean acquirePermission() throws IOException {
+		if (this.state == State.OPEN) {
+			if (!isWaitDurationElapsed()) {
+				throw new CircuitBreakerOpenException(this.host);
+			}
+			transitionTo(State.HALF_OPEN);
+		}
+		boolean probe = (this.state == State.HALF_OPEN);
+		if (probe && this.startedProbes >= this.settings.getPermittedProbesInHalfOpenState()) {
+			throw new CircuitBreakerOpenException(this.host);
+		}
+		if (this.inFlightRequests >= this.settings.getMaxConcurrentRequestsPerHost()) {
+			throw new BulkheadFullException(this.host, this.inFlightRequests);
+		}
+		if (probe) {
+			this.startedProbes++;
+		}
+		this.inFlightRequests++;
+		return probe;
+	}
+
+	/**
+	 * Record the outcome of a request executed with permission.
+	 */
+	synchronized void recordResult(boolean probe, boolean failed, boolean slow) {
+		if (probe) {
+			if (this.state != State.HALF_OPEN) {
+				return;
+			}
+			if (failed || slow) {
+				transitionTo(State.OPEN);
+			}
+			else if (++this.succeededProbes >= this.settings.getPermittedProbesInHalfOpenState()) {
+				transitionTo(State.CLOSED);
+			}
+		}
+		else if (this.state == State.CLOSED) {
+			record(failed, slow);
+			if (this.windowCount >= this.settings.getMinimumNumberOfCalls() &&
+					(getFailureRate() >= this.settings.getFailureRateThreshold() ||
+					getSlowCallRate() >= this.settings.getSlowCallRateThreshold())) {
+				transitionTo(State.OPEN);
+			}
+		}
+	}
+
+	/**
+	 * Return the permission acquired through {@link #acquirePermission()}.
+	 */
+	synchronized void release() {
+		this.inFlightRequests--;
+	}
+
+	private void record(boolean failed, boolean slow) {
+		if (this.windowCount == this.failedCalls.length) {
+			if (this.failedCalls[this.windowIndex]) {
+				this.failedCount--;
+			}
+			if (this.slowCalls[this.windowIndex]) {
+				this.slowCount--;
+			}
+		}
+		else {
+			this.windowCount++;
+		}
+		this.failedCalls[this.windowIndex] = failed;
+		this.slowCalls[this.windowIndex] = slow;
+		if (failed) {
+			this.failedCount++;
+		}
+		if (slow) {
+			this.slowCount++;
+		}
+		this.windowIndex = (this.windowIndex + 1) % this.failedCalls.length;
+	}
+
+	private void transitionTo(State state) {
+		this.state = state;
+		this.startedProbes = 0;
+		this.succeededProbes = 0;
+		if (state == State.OPEN) {
+			this.openedAt = System.nanoTime();
+		}
+		else if (state == State.CLOSED) {
+			this.windowIndex = 0;
+			this.windowCount = 0;
+			this.failedCount = 0;
+			this.slowCount = 0;
+		}
+	}
+
+	private boolean isWaitDurationElapsed() {
+		long elapsed = (System.nanoTime() - this.openedAt) / 1000000;
+		return (elapsed >= this.settings.getWaitDurationInOpenState());
+	}
+
+	private float getRate(int count) {
+		if (this.windowCount == 0 || this.windowCount < this.settings.getMinimumNumberOfCalls()) {
+			return -1;
+		}
+		return (count * 100f) / this.windowCount;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "CircuitBreaker [host=" + this.host + ", state=" + this.state + ", failureRate=" +
+				getFailureRate() + ", slowCallRate=" + getSlowCallRate() + ", inFlightRequests=" +
+				this.inFlightRequests + "]";
+	}
+
+}
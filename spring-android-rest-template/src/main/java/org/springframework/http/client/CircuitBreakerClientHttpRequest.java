@@ -0,0 +1,74 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+
+/**
+ * {@link ClientHttpRequest} implementation that executes its delegate under the
+ * control of a {@link CircuitBreaker}.
+ *
+ * <p>Created via the {@link CircuitBreakerClientHttpRequestFactory}.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+final class CircuitBreakerClientHttpRequest extends AbstractReleasingClientHttpRequest {
+
+	private final CircuitBreaker circuitBreaker;
+
+	private final CircuitBreakerClientHttpRequestFactory requestFactory;
+
+	private boolean probe;
+
+	private long start;
+
+
+	CircuitBreakerClientHttpRequest(ClientHttpRequest delegate, CircuitBreaker circuitBreaker,
+			CircuitBreakerClientHttpRequestFactory requestFactory) {
+		super(delegate);
+		this.circuitBreaker = circuitBreaker;
+		this.requestFactory = requestFactory;
+	}
+
+
+	@Override
+	protected void acquire() throws IOException {
+		this.probe = this.circuitBreaker.acquirePermission();
+		this.start = System.nanoTime();
+	}
+
+	@Override
+	protected void onResponse(ClientHttpResponse response) throws IOException {
+		// the status line is where a degraded host keeps the caller waiting
+		int statusCode = response.getRawStatusCode();
+		long duration = (System.nanoTime() - this.start) / 1000000;
+		this.circuitBreaker.recordResult(this.probe, this.requestFactory.isFailure(statusCode),
+				duration > this.requestFactory.getSlowCallDurationThreshold());
+	}
+
+	@Override
+	protected void onFailure() {
+		this.circuitBreaker.recordResult(this.probe, true, false);
+	}
+
+	@Override
+	protected void release() {
+		this.circuitBreaker.release();
+	}
+
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.support.HostKeyUtils;
+import org.springframework.util.Assert;
+
+/**
+ * Wrapper for a {@link ClientHttpRequestFactory} that isolates hosts from each other
+ * with a {@link CircuitBreaker} per host, so that a degraded host cannot tie up all
+ * threads waiting on it.
+ *
+ * <p>Each host - identified by scheme, host and port - keeps statistics of failed and
+ * slow calls over a sliding window of its most recent requests. When either rate
+ * reaches its threshold, the circuit opens and requests to the host fail fast with a
+ * {@link CircuitBreakerOpenException} until the wait duration has passed and probe
+ * requests have succeeded. In addition, a bulkhead caps the number of concurrent
+ * requests per host, rejecting requests beyond the cap with a
+ * {@link BulkheadFullException}.
+ *
+ * <p>A call is considered failed when it throws an {@link IOException} or its response
+ * has a status code for which {@link #isFailure(int)} returns {@code true}, and slow
+ * when its response status was received after more than the slow call duration
+ * threshold. A request occupies a slot in the bulkhead until its response is closed.
+ *
+ * <p>The state of each host can be queried through {@link #getCircuitBreaker(String)}
+ * and {@link #getCircuitBreakers()}. Settings should be configured before the first
+ * request is executed.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see CircuitBreaker
+ */
+public class CircuitBreakerClientHttpRequestFactory extends AbstractClientHttpRequestFactoryWrapper {
+
+	private final ConcurrentMap<String, CircuitBreaker> circuitBreakers =
+			new ConcurrentHashMap<String, CircuitBreaker>();
+
+	private int slidingWindowSize = 20;
+
+	private int minimumNumberOfCalls = 10;
+
+	private float failureRateThreshold = 50;
+
+	private long slowCallDurationThreshold = 5 * 1000;
+
+	private float slowCallRateThreshold = 80;
+
+	private long waitDurationInOpenState = 30 * 1000;
+
+	private int permittedProbesInHalfOpenState = 3;
+
+	private int maxConcurrentRequestsPerHost = 10;
+
+
+	public CircuitBreakerClientHttpRequestFactory(ClientHttpRequestFactory requestFactory) {
+		super(requestFactory);
+	}
+
+
+	/**
+	 * Set the number of most recent calls per host the failure and slow call rates
+	 * are computed over.
+	 * <p>Default is 20.
+	 */
+	public void setSlidingWindowSize(int slidingWindowSize) {
+		Assert.isTrue(slidingWindowSize > 0, "'slidingWindowSize' must be larger than 0");
+		this.slidingWindowSize = slidingWindowSize;
+	}
+
+	int getSlidingWindowSize() {
+		return this.slidingWindowSize;
+	}
+
+	/**
+	 * Set the minimum number of calls that must have been recorded for a host before
+	 * its circuit can open.
+	 * <p>Default is 10.
+	 */
+	public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+		Assert.isTrue(minimumNumberOfCalls > 0, "'minimumNumberOfCalls' must be larger than 0");
+		this.minimumNumberOfCalls = minimumNumberOfCalls;
+	}
+
+	int getMinimumNumberOfCalls() {
+		return this.minimumNumberOfCalls;
+	}
+
+	/**
+	 * Set the percentage of failed calls at which a circuit opens.
+	 * <p>Default is 50.
+	 */
+	public void setFailureRateThreshold(float failureRateThreshold) {
+		Assert.isTrue(failureRateThreshold > 0 && failureRateThreshold <= 100,
+				"'failureRateThreshold' must be larger than 0 and at most 100");
+		this.failureRateThreshold = failureRateThreshold;
+	}
+
+	float getFailureRateThreshold() {
+		return this.failureRateThreshold;
+	}
+
+	/**
+	 * Set the duration in milliseconds after which a call is considered slow.
+	 * <p>Default is 5000.
+	 */
+	public void setSlowCallDurationThreshold(long slowCallDurationThreshold) {
+		Assert.isTrue(slowCallDurationThreshold > 0, "'slowCallDurationThreshold' must be larger than 0");
+		this.slowCallDurationThreshold = slowCallDurationThreshold;
+	}
+
+	long getSlowCallDurationThreshold() {
+		return this.slowCallDurationThreshold;
+	}
+
+	/**
+	 * Set the percentage of slow calls at which a circuit opens.
+	 * <p>Default is 80.
+	 */
+	public void setSlowCallRateThreshold(float slowCallRateThreshold) {
+		Assert.isTrue(slowCallRateThreshold > 0 && slowCallRateThreshold <= 100,
+				"'slowCallRateThreshold' must be larger than 0 and at most 100");
+		this.slowCallRateThreshold = slowCallRateThreshold;
+	}
+
+	float getSlowCallRateThreshold() {
+		return this.slowCallRateThreshold;
+	}
+
+	/**
+	 * Set the time in milliseconds an open circuit waits before letting probe
+	 * requests through.
+	 * <p>Default is 30000.
+	 */
+	public void setWaitDurationInOpenState(long waitDurationInOpenState) {
+		Assert.isTrue(waitDurationInOpenState >= 0, "'waitDurationInOpenState' must not be negative");
+		this.waitDurationInOpenState = waitDurationInOpenState;
+	}
+
+	long getWaitDurationInOpenState() {
+		return this.waitDurationInOpenState;
+	}
+
+	/**
+	 * Set the number of probe requests a half-open circuit lets through; the circuit
+	 * closes once all of them have succeeded.
+	 * <p>Default is 3.
+	 */
+	public void setPermittedProbesInHalfOpenState(int permittedProbesInHalfOpenState) {
+		Assert.isTrue(permittedProbesInHalfOpenState > 0, "'permittedProbesInHalfOpenState' must be larger than 0");
+		this.permittedProbesInHalfOpenState = permittedProbesInHalfOpenState;
+	}
+
+	int getPermittedProbesInHalfOpenState() {
+		return this.permittedProbesInHalfOpenState;
+	}
+
+	/**
+	 * Set the maximum number of concurrent requests per host.
+	 * <p>Default is 10.
+	 */
+	public void setMaxConcurrentRequestsPerHost(int maxConcurrentRequestsPerHost) {
+		Assert.isTrue(maxConcurrentRequestsPerHost > 0, "'maxConcurrentRequestsPerHost' must be larger than 0");
+		this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+	}
+
+	int getMaxConcurrentRequestsPerHost() {
+		return this.maxConcurrentRequestsPerHost;
+	}
+
+	/**
+	 * Return the circuit breaker of the given host, or {@code null} if no request has
+	 * been made to it yet.
+	 * @param host the host, as {@code scheme://host:port}, where the port is omitted
+	 * if not specified in the request URI
+	 */
+	public CircuitBreaker getCircuitBreaker(String host) {
+		return this.circuitBreakers.get(host);
+	}
+
+	/**
+	 * Return the circuit breakers of all hosts requests have been made to, keyed by
+	 * {@code scheme://host:port}.
+	 */
+	public Map<String, CircuitBreaker> getCircuitBreakers() {
+		return new HashMap<String, CircuitBreaker>(this.circuitBreakers);
+	}
+
+	@Override
+	protected ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod, ClientHttpRequestFactory requestFactory)
+			throws IOException {
+		CircuitBreaker circuitBreaker = obtainCircuitBreaker(getHostKey(uri));
+		if (circuitBreaker.isOpen()) {
+			throw new CircuitBreakerOpenException(circuitBreaker.getHost());
+		}
+		ClientHttpRequest delegate = requestFactory.createRequest(uri, httpMethod);
+		return new CircuitBreakerClientHttpRequest(delegate, circuitBreaker, this);
+	}
+
+	/**
+	 * Indicates whether a response with the given status code counts as a failed call.
+	 * <p>Default implementation returns {@code true} for server errors ({@code 5xx}).
+	 * Subclasses can override this method to change this behavior.
+	 * @param statusCode the raw status code of the response
+	 * @return {@code true} if the call failed; {@code false} otherwise
+	 */
+	protected boolean isFailure(int statusCode) {
+		return (statusCode >= 500);
+	}
+
+	/**
+	 * Return the key of the circuit breaker for the given URI.
+	 * <p>Default implementation returns {@code scheme://host:port}, omitting the port
+	 * if not specified. Subclasses can override this method to group hosts differently.
+	 * @param uri the request URI
+	 * @return the key of the circuit breaker
+	 */
+	protected String getHostKey(URI uri) {
+		return HostKeyUtils.getHostKey(uri);
+	}
+
+	private CircuitBreaker obtainCircuitBreaker(String host) {
+		CircuitBreaker circuitBreaker = this.circuitBreakers.get(host);
+		if (circuitBreaker == null) {
+			circuitBreaker = new CircuitBreaker(host, this);
+			CircuitBreaker existing = this.circuitBreakers.putIfAbsent(host, circuitBreaker);
+			if (existing != null) {
+				circuitBreaker = existing;
+			}
+		}
+		return circuitBreaker;
+	}
+
+}
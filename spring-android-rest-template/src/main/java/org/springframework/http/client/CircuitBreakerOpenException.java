@@ -0,0 +1,54 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when a request is rejected without reaching the host because the
+ * host's {@link CircuitBreaker} is open.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see CircuitBreakerClientHttpRequestFactory
+ */
+public class CircuitBreakerOpenException extends IOException {
+
+	private static final long serialVersionUID = -3460127651325587392L;
+
+	private final String host;
+
+
+	/**
+	 * Create a new {@code CircuitBreakerOpenException}.
+	 * @param host the host whose circuit is open, as {@code scheme://host:port}
+	 */
+	public CircuitBreakerOpenException(String host) {
+		super("Circuit breaker for \"" + host + "\" is open");
+		this.host = host;
+	}
+
+
+	/**
+	 * Return the host whose circuit is open.
+	 */
+	public String getHost() {
+		return this.host;
+	}
+
+}
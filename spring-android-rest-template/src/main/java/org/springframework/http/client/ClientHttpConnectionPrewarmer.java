@@ -0,0 +1,45 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.net.URI;
+import java.util.List;
+
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Implemented by {@link ClientHttpRequestFactory} implementations that can set up
+ * connections ahead of the first request to a host, so that DNS resolution, connecting
+ * and the TLS handshake are not paid for in a user-visible request.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see ConnectionPrewarmResult
+ */
+public interface ClientHttpConnectionPrewarmer {
+
+	/**
+	 * Resolve the hosts of the given URIs and connect to them in the background.
+	 * <p>URIs that share scheme, host and port are warmed once. Failures do not fail
+	 * the returned future, they are reported by the result instead.
+	 * @param uris the base URIs of the hosts to connect to
+	 * @return a future that completes once all hosts have been warmed
+	 */
+	ListenableFuture<ConnectionPrewarmResult> prewarm(List<URI> uris);
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.net.URI;
+
+import org.springframework.http.HttpMethod;
+
+/**
+ * Event that describes a completed phase of the execution of a request, passed to a
+ * {@link ClientHttpRequestListener}.
+ *
+ * <p>Timestamps are taken from {@link System#nanoTime()}, so they can only be compared
+ * with each other, not with wall-clock time.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+public class ClientHttpRequestEvent {
+
+	/**
+	 * The phases of the execution of a request.
+	 */
+	public enum Phase {
+
+		/**
+		 * Expansion of the URI template into the request URI.
+		 */
+		URI_EXPANSION,
+
+		/**
+		 * Selection of the message converter that writes the request body. Part of
+		 * {@link #REQUEST_SERIALIZATION}.
+		 */
+		CONVERTER_SELECTION,
+
+		/**
+		 * Preparation of the request: headers set and request body serialized.
+		 */
+		REQUEST_SERIALIZATION,
+
+		/**
+		 * Acquisition of a connection, up to the point where the request body can be
+		 * written. Includes sending the request headers on most clients.
+		 */
+		CONNECT,
+
+		/**
+		 * Writing of the request body; the byte count is the size of the body.
+		 */
+		REQUEST_BODY_SENT,
+
+		/**
+		 * Waiting for the response headers, i.e. until the first response byte.
+		 */
+		RESPONSE_HEADERS,
+
+		/**
+		 * Execution of the request until the response status is available, as seen by
+		 * the {@code RestTemplate}. Spans {@link #CONNECT}, {@link #REQUEST_BODY_SENT}
+		 * and {@link #RESPONSE_HEADERS}.
+		 */
+		EXCHANGE,
+
+		/**
+		 * Handling of an error response by the response error handler.
+		 */
+		ERROR_HANDLING,
+
+		/**
+		 * Reading of the response body and its conversion into the result object.
+		 */
+		DESERIALIZATION
+	}
+
+
+	private final Phase phase;
+
+	private final HttpMethod method;
+
+	private final URI uri;
+
+	private final long startNanos;
+
+	private final long endNanos;
+
+	private final long byteCount;
+
+
+	/**
+	 * Create a new {@code ClientHttpRequestEvent}.
+	 * @param phase the phase that ended
+	 * @param method the HTTP method of the request
+	 * @param uri the URI of the request
+	 * @param startNanos the start of the phase, as returned by {@link System#nanoTime()}
+	 * @param endNanos the end of the phase, as returned by {@link System#nanoTime()}
+	 * @param byteCount the number of bytes the phase dealt with, or -1 if unknown
+	 */
+	public ClientHttpRequestEvent(Phase phase, HttpMethod method, URI uri, long startNanos, long endNanos,
+			long byteCount) {
+
+		this.phase = phase;
+		this.method = method;
+		this.uri = uri;
+		this.startNanos = startNanos;
+		this.endNanos = endNanos;
+		this.byteCount = byteCount;
+	}
+
+
+	/**
+	 * Return the phase that ended.
+	 */
+	public Phase getPhase() {
+		return this.phase;
+	}
+
+	/**
+	 * Return the HTTP method of the request.
+	 */
+	public HttpMethod getMethod() {
+		return this.method;
+	}
+
+	/**
+	 * Return the URI of the request.
+	 */
+	public URI getUri() {
+		return this.uri;
+	}
+
+	/**
+	 * Return the target host of the request, or {@code null} if unknown.
+	 */
+	public String getHost() {
+		return (this.uri != null ? this.uri.getHost() : null);
+	}
+
+	/**
+	 * Return the start of the phase, as returned by {@link System#nanoTime()}.
+	 */
+	public long getStartNanos() {
+		return this.startNanos;
+	}
+
+	/**
+	 * Return the end of the phase, as returned by {@link System#nanoTime()}.
+	 */
+	public long getEndNanos() {
+		return this.endNanos;
+	}
+
+	/**
+	 * Return the duration of the phase in nanoseconds.
+	 */
+	public long getDurationNanos() {
+		return this.endNanos - this.startNanos;
+	}
+
+	/**
+	 * Return the number of bytes the phase dealt with, such as the size of the request
+	 * body, or -1 if unknown.
+	 */
+	public long getByteCount() {
+		return this.byteCount;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(this.phase).append(' ').append(this.method).append(' ').append(this.uri);
+		builder.append(" took ").append(getDurationNanos()).append(" ns");
+		if (this.byteCount != -1) {
+			builder.append(" (").append(this.byteCount).append(" bytes)");
+		}
+		return builder.toString();
+	}
+
+}
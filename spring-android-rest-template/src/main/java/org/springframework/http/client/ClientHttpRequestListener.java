@@ -0,0 +1,44 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+/**
+ * Callback interface that is notified of the phases of the execution of a request,
+ * for instance to find out where the time of an exchange is spent.
+ *
+ * <p>Can be registered on a {@link org.springframework.web.client.RestTemplate}, which
+ * reports the phases it performs itself (URI expansion, serialization, error handling,
+ * deserialization), and on a {@link ClientHttpRequestFactory} that supports it, which
+ * reports the network phases (connect, request sent, response headers received).
+ *
+ * <p>Listeners are invoked synchronously on the thread executing the request, so they
+ * should return quickly and must not throw exceptions.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see ClientHttpRequestEvent
+ */
+public interface ClientHttpRequestListener {
+
+	/**
+	 * Invoked when a phase of the execution of a request has ended.
+	 * @param event the event describing the phase
+	 */
+	void onEvent(ClientHttpRequestEvent event);
+
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StreamUtils;
+
+/**
+ * {@link ClientHttpRequest} implementation that shares a single exchange between
+ * identical requests executed concurrently.
+ *
+ * <p>Created via the {@link CoalescingClientHttpRequestFactory}.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+final class CoalescingClientHttpRequest extends AbstractBufferingClientHttpRequest {
+
+	private static final String[] NON_COALESCING_HEADERS = {HttpHeaders.RANGE, HttpHeaders.IF_RANGE,
+			HttpHeaders.IF_MATCH, HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE,
+			HttpHeaders.IF_UNMODIFIED_SINCE};
+
+	private final ClientHttpRequestFactory requestFactory;
+
+	private final ConcurrentMap<String, Exchange> inFlightExchanges;
+
+	private final Set<String> keyHeaders;
+
+	private final Set<String> ignoredHeaders;
+
+	private final URI uri;
+
+	private final HttpMethod method;
+
+
+	CoalescingClientHttpRequest(ClientHttpRequestFactory requestFactory,
+			ConcurrentMap<String, Exchange> inFlightExchanges, Set<String> keyHeaders, Set<String> ignoredHeaders,
+			URI uri, HttpMethod method) {
+		this.requestFactory = requestFactory;
+		this.inFlightExchanges = inFlightExchanges;
+		this.keyHeaders = keyHeaders;
+		this.ignoredHeaders = ignoredHeaders;
+		this.uri = uri;
+		this.method = method;
+	}
+
+
+	public HttpMethod getMethod() {
+		return this.method;
+	}
+
+	public URI getURI() {
+		return this.uri;
+	}
+
+	@Override
+	protected boolean isCompressionSupported() {
+		return false;
+	}
+
+	@Override
+	protected ClientHttpResponse executeInternal(HttpHeaders headers, byte[] bufferedOutput) throws IOException {
+		if (bufferedOutput.length > 0 || isPartialOrConditional(headers)) {
+			return createDelegate(headers, bufferedOutput).execute();
+		}
+		String key = getExchangeKey(headers);
+		Exchange exchange = new Exchange();
+		Exchange inFlightExchange = this.inFlightExchanges.putIfAbsent(key, exchange);
+		if (inFlightExchange != null) {
+			return inFlightExchange.awaitResponse();
+		}
+		try {
+			ClientHttpResponse response = createDelegate(headers, bufferedOutput).execute();
+			try {
+				exchange.setResponse(new BufferedResponse(response));
+			}
+			finally {
+				response.close();
+			}
+		}
+		catch (IOException ex) {
+			exchange.setFailure(ex);
+		}
+		catch (RuntimeException ex) {
+			exchange.setFailure(ex);
+		}
+		catch (Error ex) {
+			exchange.setFailure(ex);
+			throw ex;
+		}
+		finally {
+			this.inFlightExchanges.remove(key);
+			exchange.complete();
+		}
+		return exchange.getResponse();
+	}
+
+	private ClientHttpRequest createDelegate(HttpHeaders headers, byte[] bufferedOutput) throws IOException {
+		ClientHttpRequest request = this.requestFactory.createRequest(this.uri, this.method);
+		request.getHeaders().putAll(headers);
+		if (bufferedOutput.length > 0) {
+			StreamUtils.copy(bufferedOutput, request.getBody());
+		}
+		return request;
+	}
+
+	/**
+	 * Indicates whether the response to a request with the given headers depends on
+	 * more than the resource, and so must not be shared with other requests.
+	 */
+	private static boolean isPartialOrConditional(HttpHeaders headers) {
+		for (String headerName : NON_COALESCING_HEADERS) {
+			if (headers.containsKey(headerName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Return a key that is equal for requests with the same method, URI and values of
+	 * the headers that are not ignored, or of the key headers if any, regardless of the
+	 * order and case of the header names.
+	 */
+	private String getExchangeKey(HttpHeaders headers) {
+		Map<String, List<String>> sortedHeaders = new TreeMap<String, List<String>>();
+		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+			String headerName = entry.getKey().toLowerCase(Locale.ENGLISH);
+			if (this.keyHeaders != null ? this.keyHeaders.contains(headerName) :
+					!this.ignoredHeaders.contains(headerName)) {
+				sortedHeaders.put(headerName, entry.getValue());
+			}
+		}
+		return this.method.name() + " " + this.uri + " " + sortedHeaders;
+	}
+
+
+	/**
+	 * An exchange that is in flight, and that requests can wait upon for its response.
+	 */
+	static class Exchange {
+
+		private final CountDownLatch latch = new CountDownLatch(1);
+
+		private volatile BufferedResponse response;
+
+		private volatile Throwable failure;
+
+		void setResponse(BufferedResponse response) {
+			this.response = response;
+		}
+
+		void setFailure(Throwable failure) {
+			this.failure = failure;
+		}
+
+		void complete() {
+			this.latch.countDown();
+		}
+
+		ClientHttpResponse awaitResponse() throws IOException {
+			try {
+				this.latch.await();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for coalesced request");
+			}
+			if (this.failure instanceof RuntimeException) {
+				throw (RuntimeException) this.failure;
+			}
+			else if (this.failure != null) {
+				IOException ex = new IOException("Coalesced request failed: " + this.failure.getMessage());
+				ex.initCause(this.failure);
+				throw ex;
+			}
+			return getResponse();
+		}
+
+		ClientHttpResponse getResponse() throws IOException {
+			if (this.failure instanceof IOException) {
+				throw (IOException) this.failure;
+			}
+			else if (this.failure instanceof RuntimeException) {
+				throw (RuntimeException) this.failure;
+			}
+			return new SharedClientHttpResponse(this.response);
+		}
+	}
+
+
+	/**
+	 * Status, headers and body of a response, read once.
+	 */
+	private static class BufferedResponse {
+
+		private final int statusCode;
+
+		private final String statusText;
+
+		private final HttpHeaders headers;
+
+		private final byte[] body;
+
+		BufferedResponse(ClientHttpResponse response) throws IOException {
+			this.statusCode = response.getRawStatusCode();
+			this.statusText = response.getStatusText();
+			HttpHeaders headers = new HttpHeaders();
+			headers.putAll(response.getHeaders());
+			this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+			InputStream body = response.getBody();
+			this.body = (body != null ? StreamUtils.copyToByteArray(body) : new byte[0]);
+		}
+	}
+
+
+	/**
+	 * Response over a {@link BufferedResponse}, handed out to each coalesced request.
+	 */
+	private static class SharedClientHttpResponse implements ClientHttpResponse {
+
+		private final BufferedResponse response;
+
+		SharedClientHttpResponse(BufferedResponse response) {
+			this.response = response;
+		}
+
+		public HttpStatus getStatusCode() throws IOException {
+			return HttpStatus.valueOf(getRawStatusCode());
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return this.response.statusCode;
+		}
+
+		public String getStatusText() throws IOException {
+			return this.response.statusText;
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.response.headers;
+		}
+
+		public InputStream getBody() throws IOException {
+			return new ByteArrayInputStream(this.response.body);
+		}
+
+		public void close() {
+		}
+	}
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.util.Assert;
+
+/**
+ * Wrapper for a {@link ClientHttpRequestFactory} that coalesces identical requests
+ * executed concurrently into a single exchange with the server.
+ *
+ * <p>When a request is executed while an identical one - same method, URI and
+ * headers, and no body - is in flight, it does not go to the server but waits for the
+ * response of the first one instead. That response is buffered in memory once, and
+ * every waiting request receives its own {@link ClientHttpResponse} over the buffered
+ * body.
+ *
+ * <p>All request headers keep requests apart, except for the
+ * {@linkplain #setIgnoredHeaders(Collection) ignored headers}, which vary per request
+ * without changing the response, such as tracing identifiers. Callers that know which
+ * headers the server responds to can narrow the key down to those via
+ * {@link #setKeyHeaders(Collection)}. Requests that carry a {@code Range} header or a
+ * conditional header, such as {@code If-None-Match} or {@code If-Modified-Since}, are
+ * never coalesced, since their response depends on more than the resource.
+ *
+ * <p>By default only {@code GET} and {@code HEAD} requests are coalesced; see
+ * {@link #shouldCoalesce(URI, HttpMethod)}. Requests are only coalesced while in flight:
+ * a request executed after an identical one completed goes to the server again.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+public class CoalescingClientHttpRequestFactory extends AbstractClientHttpRequestFactoryWrapper {
+
+	/**
+	 * The tracing headers, which differ per request without changing the response, and
+	 * so are ignored by default.
+	 */
+	public static final Set<String> DEFAULT_IGNORED_HEADERS = Collections.unmodifiableSet(new LinkedHashSet<String>(
+			Arrays.asList("X-Request-ID", "X-Correlation-ID", "traceparent", "tracestate", "b3", "X-B3-TraceId",
+					"X-B3-SpanId", "X-B3-ParentSpanId", "X-B3-Sampled")));
+
+	private final ConcurrentMap<String, CoalescingClientHttpRequest.Exchange> inFlightExchanges =
+			new ConcurrentHashMap<String, CoalescingClientHttpRequest.Exchange>();
+
+	private volatile Set<String> ignoredHeaders = toLowerCase(DEFAULT_IGNORED_HEADERS);
+
+	private volatile Set<String> keyHeaders;
+
+
+	public CoalescingClientHttpRequestFactory(ClientHttpRequestFactory requestFactory) {
+		super(requestFactory);
+	}
+
+
+	/**
+	 * Set the names of the request headers to leave out when comparing requests. Requests
+	 * that differ only in these headers share a single exchange, sent with the headers of
+	 * the first one.
+	 * <p>Default is {@link #DEFAULT_IGNORED_HEADERS}.
+	 */
+	public void setIgnoredHeaders(Collection<String> ignoredHeaders) {
+		Assert.notNull(ignoredHeaders, "'ignoredHeaders' must not be null");
+		this.ignoredHeaders = toLowerCase(ignoredHeaders);
+	}
+
+	/**
+	 * Return the names, in lower case, of the request headers left out when comparing
+	 * requests.
+	 */
+	public Set<String> getIgnoredHeaders() {
+		return this.ignoredHeaders;
+	}
+
+	/**
+	 * Set the names of the only request headers whose values must match for requests to
+	 * be coalesced, instead of all headers but the ignored ones. Requests that differ
+	 * only in other headers share a single exchange, sent with the headers of the first
+	 * one. Any header that carries credentials must therefore be included.
+	 * <p>Default is {@code null}, i.e. all headers but the
+	 * {@linkplain #setIgnoredHeaders(Collection) ignored headers}.
+	 */
+	public void setKeyHeaders(Collection<String> keyHeaders) {
+		this.keyHeaders = (keyHeaders != null ? toLowerCase(keyHeaders) : null);
+	}
+
+	/**
+	 * Return the names, in lower case, of the only request headers whose values must
+	 * match for requests to be coalesced, or {@code null} if all headers but the ignored
+	 * ones must.
+	 */
+	public Set<String> getKeyHeaders() {
+		return this.keyHeaders;
+	}
+
+	@Override
+	protected ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod, ClientHttpRequestFactory requestFactory)
+			throws IOException {
+		if (shouldCoalesce(uri, httpMethod)) {
+			return new CoalescingClientHttpRequest(requestFactory, this.inFlightExchanges, this.keyHeaders,
+					this.ignoredHeaders, uri, httpMethod);
+		}
+		else {
+			return requestFactory.createRequest(uri, httpMethod);
+		}
+	}
+
+	/**
+	 * Indicates whether concurrent requests for the given URI and method may be coalesced.
+	 *
+	 * <p>Default implementation returns {@code true} for the idempotent, safe methods
+	 * {@code GET} and {@code HEAD}. Subclasses can override this method to change this
+	 * behavior.
+	 *
+	 * @param uri the URI
+	 * @param httpMethod the method
+	 * @return {@code true} if the exchange may be coalesced; {@code false} otherwise
+	 */
+	protected boolean shouldCoalesce(URI uri, HttpMethod httpMethod) {
+		return (HttpMethod.GET == httpMethod || HttpMethod.HEAD == httpMethod);
+	}
+
+	private static Set<String> toLowerCase(Collection<String> headerNames) {
+		Set<String> result = new LinkedHashSet<String>(headerNames.size());
+		for (String headerName : headerNames) {
+			result.add(headerName.toLowerCase(Locale.ENGLISH));
+		}
+		return Collections.unmodifiableSet(result);
+	}
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.springframework.http.ContentCodingType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ClientHttpRequest} implementation that decides whether to compress its body
+ * once the body's size is known, and then writes it to the underlying request.
+ *
+ * <p>The body is compressed by the request that writes it to the network, which honors
+ * the {@code Content-Encoding} header; both bodies written to the
+ * {@linkplain #getBody() output stream} and streaming bodies are handed on uncompressed,
+ * so that wrapping requests in between do not compress them a second time. Streaming
+ * bodies to compress are marked as such, since other streaming bodies are written to
+ * the network as they are.
+ *
+ * <p>Created via the {@link CompressingClientHttpRequestFactory}.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+final class CompressingClientHttpRequest implements ClientHttpRequest, StreamingHttpOutputMessage {
+
+	private final ClientHttpRequest delegate;
+
+	private final CompressingClientHttpRequestFactory requestFactory;
+
+	private final HttpHeaders headers = new HttpHeaders();
+
+	private Body body;
+
+	private DeferringOutputStream outputStream;
+
+	private boolean executed = false;
+
+
+	CompressingClientHttpRequest(ClientHttpRequest delegate, CompressingClientHttpRequestFactory requestFactory) {
+		this.delegate = delegate;
+		this.requestFactory = requestFactory;
+	}
+
+
+	public HttpMethod getMethod() {
+		return this.delegate.getMethod();
+	}
+
+	public URI getURI() {
+		return this.delegate.getURI();
+	}
+
+	public HttpHeaders getHeaders() {
+		return (this.executed ? HttpHeaders.readOnlyHttpHeaders(this.headers) : this.headers);
+	}
+
+	public void setBody(Body body) {
+		assertNotExecuted();
+		this.body = body;
+	}
+
+	public OutputStream getBody() throws IOException {
+		assertNotExecuted();
+		if (this.outputStream == null) {
+			long contentLength = this.headers.getContentLength();
+			if (contentLength != -1 || !isCompressible()) {
+				// the decision can be made right away
+				this.outputStream = new DeferringOutputStream(openDelegateBody(isCompressible(contentLength)));
+			}
+			else {
+				this.outputStream = new DeferringOutputStream(null);
+			}
+		}
+		return this.outputStream;
+	}
+
+	public ClientHttpResponse execute() throws IOException {
+		assertNotExecuted();
+		if (this.body != null) {
+			writeStreamingBody();
+		}
+		else if (this.outputStream != null) {
+			this.outputStream.complete();
+		}
+		else {
+			this.delegate.getHeaders().putAll(this.headers);
+		}
+		ClientHttpResponse response = this.delegate.execute();
+		this.executed = true;
+		return response;
+	}
+
+	private void writeStreamingBody() throws IOException {
+		long contentLength = this.headers.getContentLength();
+		boolean compress = isCompressible(contentLength == -1 ? Long.MAX_VALUE : contentLength);
+		if (this.delegate instanceof StreamingHttpOutputMessage) {
+			prepareDelegateHeaders(compress);
+			((StreamingHttpOutputMessage) this.delegate).setBody(
+					compress ? AbstractClientHttpRequest.unencodedBody(this.body) : this.body);
+		}
+		else {
+			this.body.writeTo(openDelegateBody(compress));
+		}
+	}
+
+	/**
+	 * Copy the headers to the underlying request, and return its output stream. If
+	 * the body is to be compressed, the underlying request compresses it as it is
+	 * written to the returned stream.
+	 */
+	private OutputStream openDelegateBody(boolean compress) throws IOException {
+		prepareDelegateHeaders(compress);
+		return this.delegate.getBody();
+	}
+
+	private void prepareDelegateHeaders(boolean compress) {
+		HttpHeaders delegateHeaders = this.delegate.getHeaders();
+		delegateHeaders.putAll(this.headers);
+		if (compress) {
+			delegateHeaders.set(HttpHeaders.CONTENT_ENCODING, ContentCodingType.GZIP_VALUE);
+			delegateHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+		}
+	}
+
+	private boolean isCompressible() {
+		return (!this.headers.containsKey(HttpHeaders.CONTENT_ENCODING) &&
+				this.requestFactory.isCompressible(this.headers.getContentType()));
+	}
+
+	private boolean isCompressible(long contentLength) {
+		return (contentLength >= this.requestFactory.getMinimumSize() && isCompressible());
+	}
+
+	private void assertNotExecuted() {
+		Assert.state(!this.executed, "ClientHttpRequest already executed");
+	}
+
+
+	/**
+	 * Output stream that holds back the body until it has reached the minimum size for
+	 * compression, and then passes it on to the underlying request.
+	 */
+	private class DeferringOutputStream extends OutputStream {
+
+		private ByteArrayOutputStream buffer;
+
+		private OutputStream target;
+
+		public DeferringOutputStream(OutputStream target) {
+			this.target = target;
+			if (target == null) {
+				this.buffer = new ByteArrayOutputStream(requestFactory.getMinimumSize());
+			}
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (this.target == null && this.buffer.size() + 1 >= requestFactory.getMinimumSize()) {
+				openTarget(true);
+			}
+			if (this.target != null) {
+				this.target.write(b);
+			}
+			else {
+				this.buffer.write(b);
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (this.target == null && this.buffer.size() + len >= requestFactory.getMinimumSize()) {
+				openTarget(true);
+			}
+			if (this.target != null) {
+				this.target.write(b, off, len);
+			}
+			else {
+				this.buffer.write(b, off, len);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (this.target != null) {
+				this.target.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			// the body is completed on execute
+		}
+
+		/**
+		 * Pass on a body that has remained below the minimum size uncompressed.
+		 */
+		public void complete() throws IOException {
+			if (this.target == null) {
+				openTarget(false);
+			}
+		}
+
+		private void openTarget(boolean compress) throws IOException {
+			this.target = openDelegateBody(compress);
+			this.buffer.writeTo(this.target);
+			this.buffer = null;
+		}
+	}
+
+}
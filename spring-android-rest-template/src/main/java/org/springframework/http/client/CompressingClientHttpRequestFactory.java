@@ -0,0 +1,125 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.util.Assert;
+
+/**
+ * Wrapper for a {@link ClientHttpRequestFactory} that compresses request bodies with
+ * {@code gzip}, to save bandwidth on uploads.
+ *
+ * <p>A body is compressed when its {@code Content-Type} is one of the
+ * {@linkplain #setCompressibleMediaTypes compressible media types} and it is at least
+ * {@linkplain #setMinimumSize minimum size} bytes long; smaller bodies rarely get
+ * smaller. The length is taken from the {@code Content-Length} header if known, and
+ * otherwise determined by holding back the first bytes written until either the
+ * minimum size is reached or the body is complete. Requests that already specify a
+ * {@code Content-Encoding} are left alone.
+ *
+ * <p>The body is compressed while it is written to the underlying request, so it is
+ * never held in memory in both forms. Servers must accept {@code gzip} encoded request
+ * bodies for this wrapper to be used.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+public class CompressingClientHttpRequestFactory extends AbstractClientHttpRequestFactoryWrapper {
+
+	/**
+	 * Default minimum size in bytes of bodies to compress.
+	 */
+	public static final int DEFAULT_MINIMUM_SIZE = 1024;
+
+	private int minimumSize = DEFAULT_MINIMUM_SIZE;
+
+	private List<MediaType> compressibleMediaTypes = new ArrayList<MediaType>(Arrays.asList(
+			MediaType.valueOf("text/*"), MediaType.APPLICATION_JSON, MediaType.valueOf("application/*+json"),
+			MediaType.APPLICATION_XML, MediaType.valueOf("application/*+xml"), MediaType.APPLICATION_FORM_URLENCODED,
+			MediaType.valueOf("application/javascript")));
+
+
+	public CompressingClientHttpRequestFactory(ClientHttpRequestFactory requestFactory) {
+		super(requestFactory);
+	}
+
+
+	/**
+	 * Set the minimum size in bytes of bodies to compress.
+	 * <p>Default is {@value #DEFAULT_MINIMUM_SIZE}.
+	 */
+	public void setMinimumSize(int minimumSize) {
+		Assert.isTrue(minimumSize >= 0, "'minimumSize' must not be negative");
+		this.minimumSize = minimumSize;
+	}
+
+	/**
+	 * Return the minimum size in bytes of bodies to compress.
+	 */
+	public int getMinimumSize() {
+		return this.minimumSize;
+	}
+
+	/**
+	 * Set the media types of bodies to compress. Wildcards such as {@code text/*} or
+	 * {@code application/*+json} are supported.
+	 * <p>By default, text, JSON, XML, JavaScript and form data are compressed.
+	 */
+	public void setCompressibleMediaTypes(List<MediaType> compressibleMediaTypes) {
+		Assert.notNull(compressibleMediaTypes, "'compressibleMediaTypes' must not be null");
+		this.compressibleMediaTypes = new ArrayList<MediaType>(compressibleMediaTypes);
+	}
+
+	/**
+	 * Return the media types of bodies to compress.
+	 */
+	public List<MediaType> getCompressibleMediaTypes() {
+		return this.compressibleMediaTypes;
+	}
+
+	@Override
+	protected ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod, ClientHttpRequestFactory requestFactory)
+			throws IOException {
+		return new CompressingClientHttpRequest(requestFactory.createRequest(uri, httpMethod), this);
+	}
+
+	/**
+	 * Indicates whether a body of the given content type should be compressed.
+	 * @param contentType the content type, may be {@code null}
+	 * @return {@code true} if the body should be compressed; {@code false} otherwise
+	 */
+	protected boolean isCompressible(MediaType contentType) {
+		if (contentType == null) {
+			return false;
+		}
+		for (MediaType compressibleMediaType : this.compressibleMediaTypes) {
+			if (compressibleMediaType.includes(contentType)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
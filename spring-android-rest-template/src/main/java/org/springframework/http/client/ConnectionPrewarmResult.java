@@ -0,0 +1,114 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of {@link ClientHttpConnectionPrewarmer#prewarm(List)}: for each URI,
+ * whether its host could be resolved and connected to.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+public class ConnectionPrewarmResult {
+
+	private final Map<URI, InetAddress[]> resolvedAddresses = new LinkedHashMap<URI, InetAddress[]>();
+
+	private final List<URI> connectedUris = new ArrayList<URI>();
+
+	private final Map<URI, Exception> failures = new LinkedHashMap<URI, Exception>();
+
+
+	synchronized void addResolved(URI uri, InetAddress[] addresses) {
+		this.resolvedAddresses.put(uri, addresses);
+	}
+
+	synchronized void addConnected(URI uri) {
+		this.connectedUris.add(uri);
+	}
+
+	synchronized void addFailure(URI uri, Exception ex) {
+		this.failures.put(uri, ex);
+	}
+
+
+	/**
+	 * Indicate whether the host of the given URI was resolved.
+	 */
+	public synchronized boolean isResolved(URI uri) {
+		return this.resolvedAddresses.containsKey(uri);
+	}
+
+	/**
+	 * Return the addresses the host of the given URI was resolved to, or {@code null}
+	 * if it was not resolved.
+	 */
+	public synchronized InetAddress[] getResolvedAddresses(URI uri) {
+		return this.resolvedAddresses.get(uri);
+	}
+
+	/**
+	 * Indicate whether a connection to the given URI was established, including the TLS
+	 * handshake for {@code https} URIs.
+	 */
+	public synchronized boolean isConnected(URI uri) {
+		return this.connectedUris.contains(uri);
+	}
+
+	/**
+	 * Return the URIs a connection was established to.
+	 */
+	public synchronized List<URI> getConnectedUris() {
+		return Collections.unmodifiableList(new ArrayList<URI>(this.connectedUris));
+	}
+
+	/**
+	 * Return the exception that prevented resolving or connecting to the given URI,
+	 * or {@code null} if none.
+	 */
+	public synchronized Exception getFailure(URI uri) {
+		return this.failures.get(uri);
+	}
+
+	/**
+	 * Return the URIs that could not be warmed, along with the cause.
+	 */
+	public synchronized Map<URI, Exception> getFailures() {
+		return Collections.unmodifiableMap(new LinkedHashMap<URI, Exception>(this.failures));
+	}
+
+	/**
+	 * Indicate whether all URIs were connected to.
+	 */
+	public synchronized boolean isSuccessful() {
+		return this.failures.isEmpty();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "ConnectionPrewarmResult [connected=" + this.connectedUris + ", failures=" + this.failures.keySet() + "]";
+	}
+
+}
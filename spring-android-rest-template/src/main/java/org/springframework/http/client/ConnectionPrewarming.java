@@ -0,0 +1,187 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import android.util.Log;
+
+/**
+ * Support for {@link ClientHttpConnectionPrewarmer} implementations: warms hosts on a
+ * small pool of daemon threads shared by all request factories.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+abstract class ConnectionPrewarming {
+
+	private static final String TAG = "ConnectionPrewarming";
+
+	private static final int MAX_THREADS = 4;
+
+
+	/**
+	 * Strategy that connects to a given URI.
+	 */
+	interface Connector {
+
+		/**
+		 * Connect to the given URI, leaving the connection pooled if the client supports it.
+		 * @param uri the URI to connect to
+		 * @throws IOException in case of I/O errors
+		 */
+		void connect(URI uri) throws IOException;
+	}
+
+
+	/**
+	 * Resolve the hosts of the given URIs with the given resolver and connect to them
+	 * with the given connector, in the background.
+	 * @param uris the URIs to warm up, one per origin
+	 * @param hostResolver the resolver the request factory looks hosts up with, or
+	 * {@code null} for the platform resolver
+	 * @param connector the connector to connect with
+	 */
+	static ListenableFuture<ConnectionPrewarmResult> prewarm(List<URI> uris, HostResolver hostResolver,
+			final Connector connector) {
+
+		Assert.notNull(uris, "'uris' must not be null");
+		final HostResolver resolver = (hostResolver != null ? hostResolver : new SystemHostResolver());
+		Map<String, URI> origins = new LinkedHashMap<String, URI>();
+		for (URI uri : uris) {
+			Assert.notNull(uri, "'uris' must not contain null elements");
+			String origin = getOrigin(uri);
+			if (!origins.containsKey(origin)) {
+				origins.put(origin, uri);
+			}
+		}
+		final ConnectionPrewarmResult result = new ConnectionPrewarmResult();
+		final SettableListenableFuture<ConnectionPrewarmResult> future =
+				new SettableListenableFuture<ConnectionPrewarmResult>();
+		if (origins.isEmpty()) {
+			future.set(result);
+			return future;
+		}
+		final AtomicInteger remaining = new AtomicInteger(origins.size());
+		for (final URI uri : origins.values()) {
+			PrewarmExecutor.INSTANCE.execute(new Runnable() {
+				public void run() {
+					try {
+						prewarm(uri, resolver, connector, result);
+					}
+					finally {
+						if (remaining.decrementAndGet() == 0) {
+							future.set(result);
+						}
+					}
+				}
+			});
+		}
+		return future;
+	}
+
+	/**
+	 * Return the origin of the given URI, with the default port of its scheme made
+	 * explicit, so that {@code https://example.com/} and {@code https://example.com:443/}
+	 * are warmed once.
+	 */
+	static String getOrigin(URI uri) {
+		String scheme = (uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ENGLISH) : null);
+		String host = (uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ENGLISH) : null);
+		int port = uri.getPort();
+		if (port == -1) {
+			if ("https".equals(scheme)) {
+				port = 443;
+			}
+			else if ("http".equals(scheme)) {
+				port = 80;
+			}
+		}
+		return scheme + "://" + host + ":" + port;
+	}
+
+	private static void prewarm(URI uri, HostResolver hostResolver, Connector connector,
+			ConnectionPrewarmResult result) {
+
+		try {
+			result.addResolved(uri, hostResolver.resolve(uri.getHost()));
+			connector.connect(uri);
+			result.addConnected(uri);
+		}
+		catch (Exception ex) {
+			if (Log.isLoggable(TAG, Log.DEBUG)) {
+				Log.d(TAG, "Could not prewarm connection to \"" + uri + "\": " + ex);
+			}
+			result.addFailure(uri, ex);
+		}
+	}
+
+	/**
+	 * Connect to the given URI by executing a {@code HEAD} request created by the given
+	 * factory, and close the response so that the connection is returned to the pool.
+	 */
+	static void executeHead(ClientHttpRequestFactory requestFactory, URI uri) throws IOException {
+		ClientHttpResponse response = requestFactory.createRequest(uri, HttpMethod.HEAD).execute();
+		try {
+			response.getRawStatusCode();
+		}
+		finally {
+			response.close();
+		}
+	}
+
+
+	/**
+	 * Holder for the executor that prewarming runs on, created on first use.
+	 */
+	private static class PrewarmExecutor {
+
+		static final ExecutorService INSTANCE;
+
+		static {
+			final AtomicInteger threadCount = new AtomicInteger();
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 30, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable, "ConnectionPrewarming-" + threadCount.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			executor.allowCoreThreadTimeOut(true);
+			INSTANCE = executor;
+		}
+	}
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Strategy interface for resolving host names to IP addresses, used by the request
+ * factories that allow the DNS lookup of their client to be replaced.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see SystemHostResolver
+ * @see CachingHostResolver
+ */
+public interface HostResolver {
+
+	/**
+	 * Resolve the given host name to its IP addresses.
+	 * @param host the host name to resolve
+	 * @return the resolved addresses, never empty
+	 * @throws UnknownHostException if the host name could not be resolved
+	 */
+	InetAddress[] resolve(String host) throws UnknownHostException;
+
+}
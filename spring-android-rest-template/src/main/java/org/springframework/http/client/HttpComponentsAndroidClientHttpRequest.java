@@ -17,7 +17,10 @@
 package org.springframework.http.client;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -26,9 +29,10 @@ import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.protocol.HttpContext;
+import org.springframework.http.ContentCodingType;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 
@@ -69,6 +73,17 @@ final class HttpComponentsAndroidClientHttpRequest extends AbstractBufferingClie
 
 	@Override
 	public ClientHttpResponse executeInternal(HttpHeaders headers, byte[] bufferedOutput) throws IOException {
+		return executeInternal(headers, SegmentedOutputStream.wrap(bufferedOutput));
+	}
+
+	@Override
+	public ClientHttpResponse executeInternal(HttpHeaders headers, SegmentedOutputStream bufferedOutput)
+			throws IOException {
+
+		if (!headers.containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+			// unlike the other clients, this one does not negotiate compression by itself
+			headers.setAcceptEncoding(Arrays.asList(ContentCodingType.GZIP, ContentCodingType.DEFLATE));
+		}
 		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
 			String headerName = entry.getKey();
 			if (!headerName.equalsIgnoreCase(HTTP.CONTENT_LEN) && !headerName.equalsIgnoreCase(HTTP.TRANSFER_ENCODING)) {
@@ -79,11 +94,53 @@ final class HttpComponentsAndroidClientHttpRequest extends AbstractBufferingClie
 		}
 		if (this.httpRequest instanceof HttpEntityEnclosingRequest) {
 			HttpEntityEnclosingRequest entityEnclosingReq = (HttpEntityEnclosingRequest) this.httpRequest;
-			HttpEntity requestEntity = new ByteArrayEntity(bufferedOutput);
+			HttpEntity requestEntity = new SegmentedEntity(bufferedOutput, this);
 			entityEnclosingReq.setEntity(requestEntity);
 		}
-		HttpResponse httpResponse = httpClient.execute(this.httpRequest, this.httpContext);
+		HttpContext context = (hasRequestListener() ? new PhaseReportingHttpContext(this.httpContext, this) :
+				this.httpContext);
+		HttpResponse httpResponse = httpClient.execute(this.httpRequest, context);
+		endPhase(ClientHttpRequestEvent.Phase.RESPONSE_HEADERS, -1);
 		return new HttpComponentsAndroidClientHttpResponse(httpResponse);
 	}
 
+
+	private static class SegmentedEntity extends AbstractHttpEntity {
+
+		private final SegmentedOutputStream content;
+
+		private final HttpComponentsAndroidClientHttpRequest request;
+
+		public SegmentedEntity(SegmentedOutputStream content, HttpComponentsAndroidClientHttpRequest request) {
+			this.content = content;
+			this.request = request;
+		}
+
+		@Override
+		public boolean isRepeatable() {
+			return true;
+		}
+
+		@Override
+		public long getContentLength() {
+			return this.content.size();
+		}
+
+		@Override
+		public InputStream getContent() {
+			return this.content.getInputStream();
+		}
+
+		@Override
+		public void writeTo(OutputStream outputStream) throws IOException {
+			this.content.writeTo(outputStream);
+			this.request.endPhase(ClientHttpRequestEvent.Phase.REQUEST_BODY_SENT, this.content.size());
+		}
+
+		@Override
+		public boolean isStreaming() {
+			return false;
+		}
+	}
+
 }
@@ -71,6 +71,8 @@ public class HttpComponentsAndroidClientHttpRequestFactory implements ClientHttp
 
 	private HttpClient httpClient;
 
+	private ClientHttpRequestListener requestListener;
+
 	/**
 	 * Create a new instance of the {@code HttpComponentsAndroidClientHttpRequestFactory} with a default {@link HttpClient}
 	 * that uses a default {@link ThreadSafeClientConnManager}.
@@ -131,10 +133,29 @@ public class HttpComponentsAndroidClientHttpRequestFactory implements ClientHttp
 		getHttpClient().getParams().setIntParameter(CoreConnectionPNames.SO_TIMEOUT, timeout);
 	}
 
+	/**
+	 * Set the listener to notify of the network phases of each request.
+	 * <p>The {@link ClientHttpRequestEvent.Phase#CONNECT} phase is reported through the
+	 * {@link HttpContext} of the request, which is wrapped for that purpose.
+	 * <p>Default is none, in which case no timestamps are taken.
+	 * @param requestListener the listener, or {@code null} for none
+	 */
+	public void setRequestListener(ClientHttpRequestListener requestListener) {
+		this.requestListener = requestListener;
+	}
+
 	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
-		HttpUriRequest httpRequest = createHttpRequest(httpMethod, uri);
+		final HttpUriRequest httpRequest = createHttpRequest(httpMethod, uri);
 		postProcessHttpRequest(httpRequest);
-		return new HttpComponentsAndroidClientHttpRequest(getHttpClient(), httpRequest, createHttpContext(httpMethod, uri));
+		CancellationHandle.registerAbortAction(new Runnable() {
+			public void run() {
+				httpRequest.abort();
+			}
+		});
+		HttpComponentsAndroidClientHttpRequest request =
+				new HttpComponentsAndroidClientHttpRequest(getHttpClient(), httpRequest, createHttpContext(httpMethod, uri));
+		request.setRequestListener(this.requestListener);
+		return request;
 	}
 
 	/**
@@ -17,6 +17,8 @@
 package org.springframework.http.client;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
@@ -25,7 +27,7 @@ import org.apache.http.HttpEntity;
 import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.entity.ByteArrayEntityHC4;
+import org.apache.http.entity.AbstractHttpEntityHC4;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.protocol.HttpContext;
@@ -81,14 +83,24 @@ final class HttpComponentsClientHttpRequest extends AbstractBufferingClientHttpR
 
 	@Override
 	protected ClientHttpResponse executeInternal(HttpHeaders headers, byte[] bufferedOutput) throws IOException {
+		return executeInternal(headers, SegmentedOutputStream.wrap(bufferedOutput));
+	}
+
+	@Override
+	protected ClientHttpResponse executeInternal(HttpHeaders headers, SegmentedOutputStream bufferedOutput)
+			throws IOException {
+
 		addHeaders(this.httpRequest, headers);
 
 		if (this.httpRequest instanceof HttpEntityEnclosingRequest) {
 			HttpEntityEnclosingRequest entityEnclosingRequest = (HttpEntityEnclosingRequest) this.httpRequest;
-			HttpEntity requestEntity = new ByteArrayEntityHC4(bufferedOutput);
+			HttpEntity requestEntity = new SegmentedEntity(bufferedOutput, this);
 			entityEnclosingRequest.setEntity(requestEntity);
 		}
-		CloseableHttpResponse httpResponse = this.httpClient.execute(this.httpRequest, this.httpContext);
+		HttpContext context = (hasRequestListener() ? new PhaseReportingHttpContext(this.httpContext, this) :
+				this.httpContext);
+		CloseableHttpResponse httpResponse = this.httpClient.execute(this.httpRequest, context);
+		endPhase(ClientHttpRequestEvent.Phase.RESPONSE_HEADERS, -1);
 		return new HttpComponentsClientHttpResponse(httpResponse);
 	}
 
@@ -114,4 +126,43 @@ final class HttpComponentsClientHttpRequest extends AbstractBufferingClientHttpR
 		}
 	}
 
+
+	private static class SegmentedEntity extends AbstractHttpEntityHC4 {
+
+		private final SegmentedOutputStream content;
+
+		private final HttpComponentsClientHttpRequest request;
+
+		public SegmentedEntity(SegmentedOutputStream content, HttpComponentsClientHttpRequest request) {
+			this.content = content;
+			this.request = request;
+		}
+
+		@Override
+		public boolean isRepeatable() {
+			return true;
+		}
+
+		@Override
+		public long getContentLength() {
+			return this.content.size();
+		}
+
+		@Override
+		public InputStream getContent() {
+			return this.content.getInputStream();
+		}
+
+		@Override
+		public void writeTo(OutputStream outputStream) throws IOException {
+			this.content.writeTo(outputStream);
+			this.request.endPhase(ClientHttpRequestEvent.Phase.REQUEST_BODY_SENT, this.content.size());
+		}
+
+		@Override
+		public boolean isStreaming() {
+			return false;
+		}
+	}
+
 }
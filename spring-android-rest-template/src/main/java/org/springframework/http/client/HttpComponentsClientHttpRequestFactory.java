@@ -17,7 +17,10 @@
 package org.springframework.http.client;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.List;
 
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
@@ -32,13 +35,21 @@ import org.apache.http.client.methods.HttpPutHC4;
 import org.apache.http.client.methods.HttpTraceHC4;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.protocol.HttpContext;
 
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.http.HttpMethod;
 import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
 
 /**
  * {@link org.springframework.http.client.ClientHttpRequestFactory} implementation that
@@ -56,7 +67,7 @@ import org.springframework.util.Assert;
  * @since 1.0
  */
 public class HttpComponentsClientHttpRequestFactory implements
-		ClientHttpRequestFactory, DisposableBean {
+		ClientHttpRequestFactory, ClientHttpConnectionPrewarmer, DisposableBean {
 
 	private CloseableHttpClient httpClient;
 
@@ -66,6 +77,10 @@ public class HttpComponentsClientHttpRequestFactory implements
 
 	private boolean bufferRequestBody = true;
 
+	private ClientHttpRequestListener requestListener;
+
+	private HostResolver hostResolver;
+
 	/**
 	 * Create a new instance of the {@code HttpComponentsClientHttpRequestFactory} with a
 	 * default {@link HttpClient}.
@@ -74,6 +89,18 @@ public class HttpComponentsClientHttpRequestFactory implements
 		this(HttpClients.createSystem());
 	}
 
+	/**
+	 * Create a new instance of the {@code HttpComponentsClientHttpRequestFactory} with a
+	 * default {@link HttpClient} that looks up the IP addresses of host names with the
+	 * given resolver, for example a {@link CachingHostResolver}.
+	 * <p>The client is configured from the system properties like the default client.
+	 * @param hostResolver the resolver to use as the client's {@link DnsResolver}
+	 */
+	public HttpComponentsClientHttpRequestFactory(HostResolver hostResolver) {
+		this(createSystemHttpClient(hostResolver));
+		this.hostResolver = hostResolver;
+	}
+
 	/**
 	 * Create a new instance of the {@code HttpComponentsClientHttpRequestFactory} with
 	 * the given {@link HttpClient} instance.
@@ -88,6 +115,28 @@ public class HttpComponentsClientHttpRequestFactory implements
 		this.httpClient = (CloseableHttpClient) httpClient;
 	}
 
+	private static CloseableHttpClient createSystemHttpClient(final HostResolver hostResolver) {
+		Assert.notNull(hostResolver, "'hostResolver' must not be null");
+		Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+				.register("http", PlainConnectionSocketFactory.getSocketFactory())
+				.register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+				.build();
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+				socketFactoryRegistry, new DnsResolver() {
+					@Override
+					public InetAddress[] resolve(String host) throws UnknownHostException {
+						return hostResolver.resolve(host);
+					}
+				});
+		// Apply the pool sizing HttpClientBuilder derives from the system properties
+		if ("true".equalsIgnoreCase(System.getProperty("http.keepAlive", "true"))) {
+			int maxConnections = Integer.parseInt(System.getProperty("http.maxConnections", "5"));
+			connectionManager.setDefaultMaxPerRoute(maxConnections);
+			connectionManager.setMaxTotal(2 * maxConnections);
+		}
+		return HttpClients.custom().useSystemProperties().setConnectionManager(connectionManager).build();
+	}
+
 	/**
 	 * Set the {@code HttpClient} used for
 	 * <p>
@@ -179,12 +228,29 @@ public class HttpComponentsClientHttpRequestFactory implements
 		this.bufferRequestBody = bufferRequestBody;
 	}
 
+	/**
+	 * Set the listener to notify of the network phases of each request.
+	 * <p>Only requests that buffer their body report events. The
+	 * {@link ClientHttpRequestEvent.Phase#CONNECT} phase is reported through the
+	 * {@link HttpContext} of the request, which is wrapped for that purpose.
+	 * <p>Default is none, in which case no timestamps are taken.
+	 * @param requestListener the listener, or {@code null} for none
+	 */
+	public void setRequestListener(ClientHttpRequestListener requestListener) {
+		this.requestListener = requestListener;
+	}
+
 	@Override
 	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
 		CloseableHttpClient client = (CloseableHttpClient) getHttpClient();
 		Assert.state(client != null, "Synchronous execution requires an HttpClient to be set");
-		HttpUriRequest httpRequest = createHttpUriRequest(httpMethod, uri);
+		final HttpUriRequest httpRequest = createHttpUriRequest(httpMethod, uri);
 		postProcessHttpRequest(httpRequest);
+		CancellationHandle.registerAbortAction(new Runnable() {
+			public void run() {
+				httpRequest.abort();
+			}
+		});
 		HttpContext context = createHttpContext(httpMethod, uri);
 		if (context == null) {
 			context = HttpClientContext.create();
@@ -209,7 +275,9 @@ public class HttpComponentsClientHttpRequestFactory implements
 			context.setAttribute(HttpClientContext.REQUEST_CONFIG, config);
 		}
 		if (this.bufferRequestBody) {
-			return new HttpComponentsClientHttpRequest(client, httpRequest, context);
+			HttpComponentsClientHttpRequest request = new HttpComponentsClientHttpRequest(client, httpRequest, context);
+			request.setRequestListener(this.requestListener);
+			return request;
 		}
 		else {
 			return new HttpComponentsStreamingClientHttpRequest(client, httpRequest, context);
@@ -269,6 +337,22 @@ public class HttpComponentsClientHttpRequestFactory implements
 		return null;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>Each host is resolved, through the host resolver the factory was created with
+	 * if any, and sent a {@code HEAD} request, which opens a connection, completes the
+	 * TLS handshake and leaves the connection in the client's connection manager.
+	 */
+	@Override
+	public ListenableFuture<ConnectionPrewarmResult> prewarm(List<URI> uris) {
+		return ConnectionPrewarming.prewarm(uris, this.hostResolver, new ConnectionPrewarming.Connector() {
+			@Override
+			public void connect(URI uri) throws IOException {
+				ConnectionPrewarming.executeHead(HttpComponentsClientHttpRequestFactory.this, uri);
+			}
+		});
+	}
+
 	/**
 	 * Shutdown hook that closes the underlying
 	 * {@link org.apache.http.conn.HttpClientConnectionManager ClientConnectionManager}'s
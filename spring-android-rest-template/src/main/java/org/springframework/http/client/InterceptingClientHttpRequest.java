@@ -60,6 +60,11 @@ class InterceptingClientHttpRequest extends AbstractBufferingClientHttpRequest {
 		return uri;
 	}
 
+	@Override
+	protected boolean isCompressionSupported() {
+		return false;
+	}
+
 	@Override
 	protected final ClientHttpResponse executeInternal(HttpHeaders headers, byte[] bufferedOutput) throws IOException {
 		RequestExecution requestExecution = new RequestExecution();
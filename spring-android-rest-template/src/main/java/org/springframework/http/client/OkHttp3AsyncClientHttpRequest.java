@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.URI;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.web.client.HttpClientErrorException;
+
+/**
+ * {@link AsyncClientHttpRequest} implementation that uses OkHttp 3.x to execute
+ * requests. The request is enqueued on the client's
+ * {@linkplain okhttp3.Dispatcher dispatcher}, so no thread is blocked while the
+ * exchange is in flight.
+ *
+ * <p>Created via the {@link OkHttp3ClientHttpRequestFactory}.
+ *
+ * @author Luciano Leggieri
+ * @author Arjen Poutsma
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+class OkHttp3AsyncClientHttpRequest extends AbstractBufferingAsyncClientHttpRequest {
+
+	private final OkHttpClient client;
+
+	private final URI uri;
+
+	private final HttpMethod method;
+
+
+	public OkHttp3AsyncClientHttpRequest(OkHttpClient client, URI uri, HttpMethod method) {
+		this.client = client;
+		this.uri = uri;
+		this.method = method;
+	}
+
+
+	@Override
+	public HttpMethod getMethod() {
+		return this.method;
+	}
+
+	@Override
+	public URI getURI() {
+		return this.uri;
+	}
+
+	@Override
+	protected ListenableFuture<ClientHttpResponse> executeInternal(HttpHeaders headers, byte[] content)
+			throws IOException {
+
+		Request request = OkHttp3ClientHttpRequestFactory.buildRequest(headers, content, this.uri, this.method);
+		return new OkHttpListenableFuture(this.client.newCall(request));
+	}
+
+
+	/**
+	 * {@link ListenableFuture} that completes when OkHttp invokes the enqueued
+	 * call's {@link Callback}. Cancelling the future cancels the call.
+	 */
+	private static class OkHttpListenableFuture extends SettableListenableFuture<ClientHttpResponse> {
+
+		private final Call call;
+
+		public OkHttpListenableFuture(Call call) {
+			this.call = call;
+			this.call.enqueue(new Callback() {
+				@Override
+				public void onResponse(Call call, Response response) {
+					ClientHttpResponse clientResponse = new OkHttp3ClientHttpResponse(response);
+					if (!set(clientResponse)) {
+						// cancelled in the meantime
+						clientResponse.close();
+					}
+				}
+				@Override
+				public void onFailure(Call call, IOException ex) {
+					if (ex instanceof ProtocolException &&
+							OkHttp3ClientHttpRequestFactory.PROXY_AUTH_ERROR.equals(ex.getMessage())) {
+						setException(new HttpClientErrorException(HttpStatus.PROXY_AUTHENTICATION_REQUIRED,
+								HttpStatus.PROXY_AUTHENTICATION_REQUIRED.getReasonPhrase()));
+					}
+					else {
+						setException(ex);
+					}
+				}
+			});
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled) {
+				this.call.cancel();
+			}
+			return cancelled;
+		}
+	}
+
+}
@@ -16,31 +16,64 @@
 
 package org.springframework.http.client;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
 import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import okhttp3.Call;
+import okhttp3.Dns;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
 
 import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.util.concurrent.ListenableFuture;
 
 /**
  * {@link ClientHttpRequestFactory} implementation that uses
  * <a href="https://square.github.io/okhttp/">OkHttp 3.x</a> to create requests.
  *
+ * <p>Also implements {@link AsyncClientHttpRequestFactory}: asynchronous requests
+ * are enqueued on the {@link OkHttpClient}'s dispatcher and do not block a thread
+ * while waiting for the response.
+ *
  * @author Stéphane Nicolas
  * @author Luciano Leggieri
  * @author Arjen Poutsma
  * @author Roy Clarkson
  * @since 2.0
  */
-public class OkHttp3ClientHttpRequestFactory implements ClientHttpRequestFactory, DisposableBean {
+public class OkHttp3ClientHttpRequestFactory
+		implements ClientHttpRequestFactory, AsyncClientHttpRequestFactory, ClientHttpConnectionPrewarmer,
+		DisposableBean {
+
+	static final String PROXY_AUTH_ERROR = "Received HTTP_PROXY_AUTH (407) code while not using proxy";
+
+	private static final byte[] NO_BODY = new byte[0];
 
 	private OkHttpClient client;
 
 	private final boolean defaultClient;
 
+	private boolean bufferRequestBody = true;
+
+	private ClientHttpRequestListener requestListener;
+
+	private HostResolver hostResolver;
+
 
 	/**
 	 * Create a factory with a default {@link OkHttpClient} instance.
@@ -94,14 +127,86 @@ public class OkHttp3ClientHttpRequestFactory implements ClientHttpRequestFactory
 				.build();
 	}
 
+	/**
+	 * Sets the resolver used to look up the IP addresses of host names, for example a
+	 * {@link CachingHostResolver}.
+	 * @see okhttp3.OkHttpClient.Builder#dns(Dns)
+	 */
+	public void setHostResolver(HostResolver hostResolver) {
+		Assert.notNull(hostResolver, "'hostResolver' must not be null");
+		this.hostResolver = hostResolver;
+		this.client = this.client.newBuilder()
+				.dns(new HostResolverDns(hostResolver))
+				.build();
+	}
+
+	/**
+	 * Indicates whether this request factory should buffer the request body internally.
+	 * <p>
+	 * Default is {@code true}. When sending large amounts of data via POST or PUT, it is
+	 * recommended to change this property to {@code false}, so as not to run out of
+	 * memory. The request body is then written directly to the OkHttp connection, using
+	 * the {@code Content-Length} header if known and chunked transfer encoding otherwise.
+	 * Note that a streamed body cannot be replayed, e.g. on a redirect.
+	 * <p>Applies to synchronous requests only; asynchronous requests are always buffered.
+	 */
+	public void setBufferRequestBody(boolean bufferRequestBody) {
+		this.bufferRequestBody = bufferRequestBody;
+	}
+
+	/**
+	 * Set the listener to notify of the network phases of each request.
+	 * <p>Only synchronous requests that buffer their body report events. Setting a
+	 * listener adds a network interceptor to the {@link OkHttpClient}, which reports when
+	 * a connection has been acquired and when the response headers have been received.
+	 * <p>Default is none, in which case no timestamps are taken.
+	 * @param requestListener the listener, or {@code null} for none
+	 */
+	public void setRequestListener(ClientHttpRequestListener requestListener) {
+		this.requestListener = requestListener;
+		if (requestListener != null && !this.client.networkInterceptors().contains(NetworkPhaseInterceptor.INSTANCE)) {
+			this.client = this.client.newBuilder()
+					.addNetworkInterceptor(NetworkPhaseInterceptor.INSTANCE)
+					.build();
+		}
+	}
+
 
 	@Override
 	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
 		return createRequestInternal(uri, httpMethod);
 	}
 
-	private OkHttp3ClientHttpRequest createRequestInternal(URI uri, HttpMethod httpMethod) {
-		return new OkHttp3ClientHttpRequest(this.client, uri, httpMethod);
+	private ClientHttpRequest createRequestInternal(URI uri, HttpMethod httpMethod) {
+		if (this.bufferRequestBody) {
+			OkHttp3ClientHttpRequest request = new OkHttp3ClientHttpRequest(this.client, uri, httpMethod);
+			request.setRequestListener(this.requestListener);
+			return request;
+		}
+		else {
+			return new OkHttp3StreamingClientHttpRequest(this.client, uri, httpMethod);
+		}
+	}
+
+	@Override
+	public AsyncClientHttpRequest createAsyncRequest(URI uri, HttpMethod httpMethod) {
+		return new OkHttp3AsyncClientHttpRequest(this.client, uri, httpMethod);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Each host is resolved, through the {@linkplain #setHostResolver(HostResolver) host
+	 * resolver} if set, and sent a {@code HEAD} request, which opens a connection,
+	 * completes the TLS handshake and leaves the connection in the client's connection pool.
+	 */
+	@Override
+	public ListenableFuture<ConnectionPrewarmResult> prewarm(List<URI> uris) {
+		return ConnectionPrewarming.prewarm(uris, this.hostResolver, new ConnectionPrewarming.Connector() {
+			@Override
+			public void connect(URI uri) throws IOException {
+				ConnectionPrewarming.executeHead(OkHttp3ClientHttpRequestFactory.this, uri);
+			}
+		});
 	}
 
 	@Override
@@ -114,4 +219,91 @@ public class OkHttp3ClientHttpRequestFactory implements ClientHttpRequestFactory
 			this.client.dispatcher().executorService().shutdown();
 		}
 	}
+
+	static Request buildRequest(HttpHeaders headers, byte[] content, URI uri, HttpMethod method)
+			throws MalformedURLException {
+
+		RequestBody body = (content.length > 0 ? RequestBody.create(getContentType(headers), content) : null);
+		return buildRequest(headers, body, uri, method);
+	}
+
+	static Request buildRequest(HttpHeaders headers, RequestBody body, URI uri, HttpMethod method)
+			throws MalformedURLException {
+
+		boolean requiresBody = method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH;
+
+		if (requiresBody && body == null) {
+			body = RequestBody.create(null, NO_BODY);
+		}
+
+		Request.Builder builder = new Request.Builder().url(uri.toURL()).method(method.name(), body);
+
+		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+			String headerName = entry.getKey();
+			for (String headerValue : entry.getValue()) {
+				builder.addHeader(headerName, headerValue);
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Create a call for the given request, and register it with the
+	 * {@link CancellationHandle} bound to the current thread.
+	 */
+	static Call newCall(OkHttpClient client, Request request) {
+		final Call call = client.newCall(request);
+		CancellationHandle.registerAbortAction(new Runnable() {
+			public void run() {
+				call.cancel();
+			}
+		});
+		return call;
+	}
+
+	static MediaType getContentType(HttpHeaders headers) {
+		String rawContentType = headers.getFirst("Content-Type");
+		return (StringUtils.hasText(rawContentType) ? MediaType.parse(rawContentType) : null);
+	}
+
+
+	/**
+	 * Network interceptor that reports the network phases of the requests it is tagged with.
+	 */
+	private static class NetworkPhaseInterceptor implements Interceptor {
+
+		static final NetworkPhaseInterceptor INSTANCE = new NetworkPhaseInterceptor();
+
+		@Override
+		public Response intercept(Chain chain) throws IOException {
+			Request request = chain.request();
+			if (!(request.tag() instanceof OkHttp3ClientHttpRequest)) {
+				return chain.proceed(request);
+			}
+			OkHttp3ClientHttpRequest clientRequest = (OkHttp3ClientHttpRequest) request.tag();
+			clientRequest.endPhase(ClientHttpRequestEvent.Phase.CONNECT, -1);
+			Response response = chain.proceed(request);
+			clientRequest.endPhase(ClientHttpRequestEvent.Phase.RESPONSE_HEADERS, -1);
+			return response;
+		}
+	}
+
+
+	/**
+	 * Adapts a {@link HostResolver} to OkHttp's {@link Dns} interface.
+	 */
+	private static class HostResolverDns implements Dns {
+
+		private final HostResolver hostResolver;
+
+		public HostResolverDns(HostResolver hostResolver) {
+			this.hostResolver = hostResolver;
+		}
+
+		@Override
+		public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+			return Arrays.asList(this.hostResolver.resolve(hostname));
+		}
+	}
+
 }
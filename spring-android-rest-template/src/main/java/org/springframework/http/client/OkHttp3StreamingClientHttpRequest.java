@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.net.URI;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpClientErrorException;
+
+/**
+ * {@link ClientHttpRequest} implementation that uses OkHttp 3.x to execute streaming
+ * requests. The request body is written straight to the connection instead of being
+ * buffered in memory first.
+ *
+ * <p>Created via the {@link OkHttp3ClientHttpRequestFactory}.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see OkHttp3ClientHttpRequestFactory#setBufferRequestBody(boolean)
+ */
+final class OkHttp3StreamingClientHttpRequest extends AbstractClientHttpRequest
+		implements StreamingHttpOutputMessage {
+
+	private final OkHttpClient client;
+
+	private final URI uri;
+
+	private final HttpMethod method;
+
+	private Body body;
+
+
+	OkHttp3StreamingClientHttpRequest(OkHttpClient client, URI uri, HttpMethod method) {
+		this.client = client;
+		this.uri = uri;
+		this.method = method;
+	}
+
+
+	@Override
+	public HttpMethod getMethod() {
+		return this.method;
+	}
+
+	@Override
+	public URI getURI() {
+		return this.uri;
+	}
+
+	@Override
+	public void setBody(Body body) {
+		assertNotExecuted();
+		this.body = body;
+	}
+
+	@Override
+	protected OutputStream getBodyInternal(HttpHeaders headers) throws IOException {
+		throw new UnsupportedOperationException("getBody not supported");
+	}
+
+	@Override
+	protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+		Body body = getEncodedBody(this.body);
+		RequestBody requestBody = (body != null ? new StreamingRequestBody(headers, body) : null);
+		Request request = OkHttp3ClientHttpRequestFactory.buildRequest(headers, requestBody, this.uri, this.method);
+		Response response = null;
+		try {
+			response = OkHttp3ClientHttpRequestFactory.newCall(this.client, request).execute();
+		}
+		catch (ProtocolException e) {
+			if (OkHttp3ClientHttpRequestFactory.PROXY_AUTH_ERROR.equals(e.getMessage())) {
+				throw new HttpClientErrorException(HttpStatus.PROXY_AUTHENTICATION_REQUIRED,
+						HttpStatus.PROXY_AUTHENTICATION_REQUIRED.getReasonPhrase());
+			} else {
+				throw e;
+			}
+		}
+		return new OkHttp3ClientHttpResponse(response);
+	}
+
+
+	private static class StreamingRequestBody extends RequestBody {
+
+		private final HttpHeaders headers;
+
+		private final StreamingHttpOutputMessage.Body body;
+
+		public StreamingRequestBody(HttpHeaders headers, StreamingHttpOutputMessage.Body body) {
+			this.headers = headers;
+			this.body = body;
+		}
+
+		@Override
+		public MediaType contentType() {
+			return OkHttp3ClientHttpRequestFactory.getContentType(this.headers);
+		}
+
+		@Override
+		public long contentLength() {
+			return this.headers.getContentLength();
+		}
+
+		@Override
+		public void writeTo(BufferedSink sink) throws IOException {
+			this.body.writeTo(StreamUtils.nonClosing(sink.outputStream()));
+		}
+	}
+
+}
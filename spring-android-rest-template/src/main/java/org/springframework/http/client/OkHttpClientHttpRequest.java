@@ -19,20 +19,17 @@ package org.springframework.http.client;
 import java.io.IOException;
 import java.net.ProtocolException;
 import java.net.URI;
-import java.net.URL;
-import java.util.List;
-import java.util.Map;
 
 import com.squareup.okhttp.MediaType;
 import com.squareup.okhttp.OkHttpClient;
 import com.squareup.okhttp.Request;
 import com.squareup.okhttp.RequestBody;
 import com.squareup.okhttp.Response;
+import okio.BufferedSink;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.util.StringUtils;
 import org.springframework.web.client.HttpClientErrorException;
 
 /**
@@ -49,10 +46,6 @@ import org.springframework.web.client.HttpClientErrorException;
 class OkHttpClientHttpRequest extends AbstractBufferingClientHttpRequest
 		implements ClientHttpRequest {
 
-	private static final String PROXY_AUTH_ERROR = "Received HTTP_PROXY_AUTH (407) code while not using proxy";
-
-	private static final byte[] NO_BODY = new byte[0];
-
 	private final OkHttpClient client;
 
 	private final URI uri;
@@ -79,35 +72,25 @@ class OkHttpClientHttpRequest extends AbstractBufferingClientHttpRequest
 
 	@Override
 	protected ClientHttpResponse executeInternal(HttpHeaders headers, byte[] content) throws IOException {
+		return executeInternal(headers, SegmentedOutputStream.wrap(content));
+	}
 
-		boolean requiresBody = method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH;
-
-		RequestBody body;
-
-		if (requiresBody && content.length == 0) {
-			body = RequestBody.create(null, NO_BODY);
-		} else {
-			MediaType contentType = getContentType(headers);
-			body = (content.length > 0 ? RequestBody.create(contentType, content) : null);
-		}
-
-		URL url = this.uri.toURL();
-		String methodName = this.method.name();
-		Request.Builder builder = new Request.Builder().url(url).method(methodName, body);
-
-		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
-			String headerName = entry.getKey();
-			for (String headerValue : entry.getValue()) {
-				builder.addHeader(headerName, headerValue);
-			}
+	@Override
+	protected ClientHttpResponse executeInternal(HttpHeaders headers, SegmentedOutputStream content)
+			throws IOException {
+
+		RequestBody body = (content.size() > 0 ? new SegmentedRequestBody(headers, content, this) : null);
+		Request request = OkHttpClientHttpRequestFactory.buildRequest(headers, body, this.uri, this.method);
+		if (hasRequestListener()) {
+			// lets the factory's network interceptor report the network phases of this request
+			request = request.newBuilder().tag(this).build();
 		}
-		Request request = builder.build();
 		Response response = null;
 		try {
-			response = client.newCall(request).execute();
+			response = OkHttpClientHttpRequestFactory.newCall(this.client, request).execute();
 		}
 		catch (ProtocolException e) {
-			if (PROXY_AUTH_ERROR.equals(e.getMessage())) {
+			if (OkHttpClientHttpRequestFactory.PROXY_AUTH_ERROR.equals(e.getMessage())) {
 				throw new HttpClientErrorException(HttpStatus.PROXY_AUTHENTICATION_REQUIRED,
 						HttpStatus.PROXY_AUTHENTICATION_REQUIRED.getReasonPhrase());
 			} else {
@@ -117,9 +100,38 @@ class OkHttpClientHttpRequest extends AbstractBufferingClientHttpRequest
 		return new OkHttpClientHttpResponse(response);
 	}
 
-	private MediaType getContentType(HttpHeaders headers) {
-		String rawContentType = headers.getFirst("Content-Type");
-		return (StringUtils.hasText(rawContentType) ? MediaType.parse(rawContentType) : null);
+
+	private static class SegmentedRequestBody extends RequestBody {
+
+		private final HttpHeaders headers;
+
+		private final SegmentedOutputStream content;
+
+		private final OkHttpClientHttpRequest request;
+
+		public SegmentedRequestBody(HttpHeaders headers, SegmentedOutputStream content,
+				OkHttpClientHttpRequest request) {
+
+			this.headers = headers;
+			this.content = content;
+			this.request = request;
+		}
+
+		@Override
+		public MediaType contentType() {
+			return OkHttpClientHttpRequestFactory.getContentType(this.headers);
+		}
+
+		@Override
+		public long contentLength() {
+			return this.content.size();
+		}
+
+		@Override
+		public void writeTo(BufferedSink sink) throws IOException {
+			this.content.writeTo(sink.outputStream());
+			this.request.endPhase(ClientHttpRequestEvent.Phase.REQUEST_BODY_SENT, this.content.size());
+		}
 	}
 
 }
@@ -16,14 +16,30 @@
 
 package org.springframework.http.client;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
 import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import com.squareup.okhttp.Call;
+import com.squareup.okhttp.Dns;
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.MediaType;
 import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
 
 import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
 /**
  * {@link ClientHttpRequestFactory} implementation that uses
@@ -38,10 +54,18 @@ import org.springframework.util.Assert;
 @Deprecated
 public class OkHttpClientHttpRequestFactory implements ClientHttpRequestFactory, DisposableBean {
 
+	static final String PROXY_AUTH_ERROR = "Received HTTP_PROXY_AUTH (407) code while not using proxy";
+
+	private static final byte[] NO_BODY = new byte[0];
+
 	private final OkHttpClient client;
 
 	private final boolean defaultClient;
 
+	private boolean bufferRequestBody = true;
+
+	private ClientHttpRequestListener requestListener;
+
 
 	/**
 	 * Create a factory with a default {@link OkHttpClient} instance.
@@ -89,14 +113,60 @@ public class OkHttpClientHttpRequestFactory implements ClientHttpRequestFactory,
 		this.client.setConnectTimeout(connectTimeout, TimeUnit.MILLISECONDS);
 	}
 
+	/**
+	 * Sets the resolver used to look up the IP addresses of host names, for example a
+	 * {@link CachingHostResolver}.
+	 * @see OkHttpClient#setDns(Dns)
+	 */
+	public void setHostResolver(HostResolver hostResolver) {
+		Assert.notNull(hostResolver, "'hostResolver' must not be null");
+		this.client.setDns(new HostResolverDns(hostResolver));
+	}
+
+	/**
+	 * Indicates whether this request factory should buffer the request body internally.
+	 * <p>
+	 * Default is {@code true}. When sending large amounts of data via POST or PUT, it is
+	 * recommended to change this property to {@code false}, so as not to run out of
+	 * memory. The request body is then written directly to the OkHttp connection, using
+	 * the {@code Content-Length} header if known and chunked transfer encoding otherwise.
+	 * Note that a streamed body cannot be replayed, e.g. on a redirect.
+	 */
+	public void setBufferRequestBody(boolean bufferRequestBody) {
+		this.bufferRequestBody = bufferRequestBody;
+	}
+
+	/**
+	 * Set the listener to notify of the network phases of each request.
+	 * <p>Only requests that buffer their body report events. Setting a listener adds a
+	 * network interceptor to the {@link OkHttpClient}, which reports when a connection
+	 * has been acquired and when the response headers have been received.
+	 * <p>Default is none, in which case no timestamps are taken.
+	 * @param requestListener the listener, or {@code null} for none
+	 * @see OkHttpClient#networkInterceptors()
+	 */
+	public void setRequestListener(ClientHttpRequestListener requestListener) {
+		this.requestListener = requestListener;
+		if (requestListener != null && !this.client.networkInterceptors().contains(NetworkPhaseInterceptor.INSTANCE)) {
+			this.client.networkInterceptors().add(NetworkPhaseInterceptor.INSTANCE);
+		}
+	}
+
 
 	@Override
 	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
 		return createRequestInternal(uri, httpMethod);
 	}
 
-	private OkHttpClientHttpRequest createRequestInternal(URI uri, HttpMethod httpMethod) {
-		return new OkHttpClientHttpRequest(this.client, uri, httpMethod);
+	private ClientHttpRequest createRequestInternal(URI uri, HttpMethod httpMethod) {
+		if (this.bufferRequestBody) {
+			OkHttpClientHttpRequest request = new OkHttpClientHttpRequest(this.client, uri, httpMethod);
+			request.setRequestListener(this.requestListener);
+			return request;
+		}
+		else {
+			return new OkHttpStreamingClientHttpRequest(this.client, uri, httpMethod);
+		}
 	}
 
 	@Override
@@ -109,4 +179,91 @@ public class OkHttpClientHttpRequestFactory implements ClientHttpRequestFactory,
 			this.client.getDispatcher().getExecutorService().shutdown();
 		}
 	}
+
+	static Request buildRequest(HttpHeaders headers, byte[] content, URI uri, HttpMethod method)
+			throws MalformedURLException {
+
+		RequestBody body = (content.length > 0 ? RequestBody.create(getContentType(headers), content) : null);
+		return buildRequest(headers, body, uri, method);
+	}
+
+	static Request buildRequest(HttpHeaders headers, RequestBody body, URI uri, HttpMethod method)
+			throws MalformedURLException {
+
+		boolean requiresBody = method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH;
+
+		if (requiresBody && body == null) {
+			body = RequestBody.create(null, NO_BODY);
+		}
+
+		Request.Builder builder = new Request.Builder().url(uri.toURL()).method(method.name(), body);
+
+		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+			String headerName = entry.getKey();
+			for (String headerValue : entry.getValue()) {
+				builder.addHeader(headerName, headerValue);
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Create a call for the given request, and register it with the
+	 * {@link CancellationHandle} bound to the current thread.
+	 */
+	static Call newCall(OkHttpClient client, Request request) {
+		final Call call = client.newCall(request);
+		CancellationHandle.registerAbortAction(new Runnable() {
+			public void run() {
+				call.cancel();
+			}
+		});
+		return call;
+	}
+
+	static MediaType getContentType(HttpHeaders headers) {
+		String rawContentType = headers.getFirst("Content-Type");
+		return (StringUtils.hasText(rawContentType) ? MediaType.parse(rawContentType) : null);
+	}
+
+
+	/**
+	 * Network interceptor that reports the network phases of the requests it is tagged with.
+	 */
+	private static class NetworkPhaseInterceptor implements Interceptor {
+
+		static final NetworkPhaseInterceptor INSTANCE = new NetworkPhaseInterceptor();
+
+		@Override
+		public Response intercept(Chain chain) throws IOException {
+			Request request = chain.request();
+			if (!(request.tag() instanceof OkHttpClientHttpRequest)) {
+				return chain.proceed(request);
+			}
+			OkHttpClientHttpRequest clientRequest = (OkHttpClientHttpRequest) request.tag();
+			clientRequest.endPhase(ClientHttpRequestEvent.Phase.CONNECT, -1);
+			Response response = chain.proceed(request);
+			clientRequest.endPhase(ClientHttpRequestEvent.Phase.RESPONSE_HEADERS, -1);
+			return response;
+		}
+	}
+
+
+	/**
+	 * Adapts a {@link HostResolver} to OkHttp's {@link Dns} interface.
+	 */
+	private static class HostResolverDns implements Dns {
+
+		private final HostResolver hostResolver;
+
+		public HostResolverDns(HostResolver hostResolver) {
+			this.hostResolver = hostResolver;
+		}
+
+		@Override
+		public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+			return Arrays.asList(this.hostResolver.resolve(hostname));
+		}
+	}
+
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * {@link HttpContext} that reports the {@link ClientHttpRequestEvent.Phase#CONNECT CONNECT}
+ * phase of an Apache HttpClient request, and otherwise delegates to the context of the
+ * request.
+ *
+ * <p>The request executor marks the request as not sent yet once the connection is
+ * established, right before it writes the request line, whether or not the request has
+ * a body.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+final class PhaseReportingHttpContext implements HttpContext {
+
+	private final HttpContext delegate;
+
+	private final AbstractBufferingClientHttpRequest request;
+
+	private boolean connected;
+
+
+	/**
+	 * Create a new {@code PhaseReportingHttpContext}.
+	 * @param delegate the context of the request, or {@code null} for a new one
+	 * @param request the request to report the phase of
+	 */
+	PhaseReportingHttpContext(HttpContext delegate, AbstractBufferingClientHttpRequest request) {
+		this.delegate = (delegate != null ? delegate : new BasicHttpContext());
+		this.request = request;
+	}
+
+
+	public Object getAttribute(String id) {
+		return this.delegate.getAttribute(id);
+	}
+
+	public void setAttribute(String id, Object obj) {
+		this.delegate.setAttribute(id, obj);
+		if (!this.connected && ExecutionContext.HTTP_REQ_SENT.equals(id) && Boolean.FALSE.equals(obj)) {
+			// reported once, even if the request is retried or redirected
+			this.connected = true;
+			this.request.endPhase(ClientHttpRequestEvent.Phase.CONNECT, -1);
+		}
+	}
+
+	public Object removeAttribute(String id) {
+		return this.delegate.removeAttribute(id);
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+
+/**
+ * {@link ClientHttpRequest} implementation that executes its delegate once it has
+ * been given a slot by a {@link PrioritySchedulingClientHttpRequestFactory}.
+ *
+ * <p>Created via the {@link PrioritySchedulingClientHttpRequestFactory}.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+final class PrioritySchedulingClientHttpRequest extends AbstractReleasingClientHttpRequest {
+
+	private final RequestPriority priority;
+
+	private final String host;
+
+	private final PrioritySchedulingClientHttpRequestFactory requestFactory;
+
+	private PrioritySchedulingClientHttpRequestFactory.Slot slot;
+
+
+	PrioritySchedulingClientHttpRequest(ClientHttpRequest delegate, RequestPriority priority, String host,
+			PrioritySchedulingClientHttpRequestFactory requestFactory) {
+		super(delegate);
+		this.priority = priority;
+		this.host = host;
+		this.requestFactory = requestFactory;
+	}
+
+
+	@Override
+	protected void acquire() throws IOException {
+		this.slot = this.requestFactory.acquire(this.priority, this.host);
+	}
+
+	@Override
+	protected void release() {
+		this.requestFactory.release(this.slot);
+	}
+
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.support.HostKeyUtils;
+import org.springframework.util.Assert;
+
+/**
+ * Wrapper for a {@link ClientHttpRequestFactory} that schedules the execution of
+ * requests by {@link RequestPriority}, so that a burst of low-priority requests cannot
+ * delay the requests the user is waiting on.
+ *
+ * <p>A request waits for a slot before it is executed, and holds it until its response
+ * is closed. Slots are limited in total, per priority lane and per host - identified
+ * by scheme, host and port. When a slot becomes available, it is given to the most
+ * urgent waiting request that fits within the limits, in order of arrival within a
+ * lane. Waiting {@link RequestPriority#BACKGROUND background} and
+ * {@link RequestPriority#PREFETCH prefetch} requests move up one lane per aging
+ * interval waited, up to {@link RequestPriority#NORMAL normal}, so that they cannot
+ * starve.
+ *
+ * <p>Background and prefetch requests yield to
+ * {@link RequestPriority#INTERACTIVE interactive} ones: interactive requests do not
+ * count the slots held by running background and prefetch requests against the total
+ * and per host limits, and no background or prefetch request is started while an
+ * interactive request is waiting. Transfers already in progress are not interrupted.
+ *
+ * <p>The priority of a request is taken from the {@link RequestPriorityHolder} of the
+ * executing thread, {@link RequestPriority#NORMAL} by default. A request waiting for
+ * a slot gives up when the {@link CancellationHandle} of its thread is cancelled.
+ * Settings should be configured before the first request is executed.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+public class PrioritySchedulingClientHttpRequestFactory extends AbstractClientHttpRequestFactoryWrapper {
+
+	private final Object lock = new Object();
+
+	private final LinkedList<Slot> waitingSlots = new LinkedList<Slot>();
+
+	private final int[] runningCountPerLane = new int[RequestPriority.values().length];
+
+	private final Map<String, int[]> runningCountsPerHost = new HashMap<String, int[]>();
+
+	private int runningCount;
+
+	private int yieldingCount;
+
+	private int maxConcurrentRequests = 6;
+
+	private final int[] maxConcurrentRequestsPerLane = new int[] {6, 6, 3, 2};
+
+	private int maxConcurrentRequestsPerHost = 4;
+
+	private long agingInterval = 2000;
+
+
+	public PrioritySchedulingClientHttpRequestFactory(ClientHttpRequestFactory requestFactory) {
+		super(requestFactory);
+	}
+
+
+	/**
+	 * Set the maximum number of concurrent requests, not counting the interactive
+	 * requests that use the slots of background and prefetch requests.
+	 * <p>Default is 6.
+	 */
+	public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+		Assert.isTrue(maxConcurrentRequests > 0, "'maxConcurrentRequests' must be larger than 0");
+		this.maxConcurrentRequests = maxConcurrentRequests;
+	}
+
+	/**
+	 * Set the maximum number of concurrent requests of the given priority.
+	 * <p>Default is 6 for interactive and normal requests, 3 for background requests
+	 * and 2 for prefetch requests.
+	 */
+	public void setMaxConcurrentRequests(RequestPriority priority, int maxConcurrentRequests) {
+		Assert.notNull(priority, "'priority' must not be null");
+		Assert.isTrue(maxConcurrentRequests > 0, "'maxConcurrentRequests' must be larger than 0");
+		this.maxConcurrentRequestsPerLane[priority.ordinal()] = maxConcurrentRequests;
+	}
+
+	/**
+	 * Set the maximum number of concurrent requests per host.
+	 * <p>Default is 4.
+	 */
+	public void setMaxConcurrentRequestsPerHost(int maxConcurrentRequestsPerHost) {
+		Assert.isTrue(maxConcurrentRequestsPerHost > 0, "'maxConcurrentRequestsPerHost' must be larger than 0");
+		this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+	}
+
+	/**
+	 * Set the time in milliseconds after which a waiting background or prefetch request
+	 * moves up one lane.
+	 * <p>Default is 2000.
+	 */
+	public void setAgingInterval(long agingInterval) {
+		Assert.isTrue(agingInterval > 0, "'agingInterval' must be larger than 0");
+		this.agingInterval = agingInterval;
+	}
+
+	/**
+	 * Return the number of running requests of the given priority, i.e. requests that
+	 * hold a slot.
+	 */
+	public int getRunningRequestCount(RequestPriority priority) {
+		synchronized (this.lock) {
+			return this.runningCountPerLane[priority.ordinal()];
+		}
+	}
+
+	/**
+	 * Return the number of requests waiting for a slot.
+	 */
+	public int getWaitingRequestCount() {
+		synchronized (this.lock) {
+			return this.waitingSlots.size();
+		}
+	}
+
+	@Override
+	protected ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod, ClientHttpRequestFactory requestFactory)
+			throws IOException {
+		RequestPriority priority = getPriority(uri, httpMethod);
+		ClientHttpRequest delegate = requestFactory.createRequest(uri, httpMethod);
+		return new PrioritySchedulingClientHttpRequest(delegate, priority, getHostKey(uri), this);
+	}
+
+	/**
+	 * Return the priority of a request for the given URI and HTTP method.
+	 * <p>Default implementation returns the priority bound to the current thread by the
+	 * {@link RequestPriorityHolder}, or {@link RequestPriority#NORMAL} if none.
+	 * Subclasses can override this method to prioritize requests differently.
+	 * @param uri the request URI
+	 * @param httpMethod the HTTP method
+	 * @return the priority of the request
+	 */
+	protected RequestPriority getPriority(URI uri, HttpMethod httpMethod) {
+		RequestPriority priority = RequestPriorityHolder.getPriority();
+		return (priority != null ? priority : RequestPriority.NORMAL);
+	}
+
+	/**
+	 * Return the key under which concurrent requests to the host of the given URI are
+	 * counted.
+	 * <p>Default implementation returns {@code scheme://host:port}, omitting the port
+	 * if not specified. Subclasses can override this method to group hosts differently.
+	 * @param uri the request URI
+	 * @return the key of the host
+	 */
+	protected String getHostKey(URI uri) {
+		return HostKeyUtils.getHostKey(uri);
+	}
+
+	/**
+	 * Wait for a slot for a request of the given priority to the given host.
+	 * @throws InterruptedIOException if the thread is interrupted or the request is
+	 * cancelled while waiting
+	 */
+	Slot acquire(RequestPriority priority, String host) throws InterruptedIOException {
+		final Slot slot = new Slot(priority, host);
+		CancellationHandle.registerAbortAction(new Runnable() {
+			public void run() {
+				synchronized (lock) {
+					slot.cancelled = true;
+					lock.notifyAll();
+				}
+			}
+		});
+		synchronized (this.lock) {
+			this.waitingSlots.add(slot);
+			dispatch();
+			while (!slot.admitted) {
+				if (slot.cancelled) {
+					this.waitingSlots.remove(slot);
+					dispatch();
+					throw new InterruptedIOException("Request cancelled while waiting for a slot");
+				}
+				try {
+					// wake up periodically, as waiting requests age
+					this.lock.wait(this.agingInterval);
+				}
+				catch (InterruptedException ex) {
+					this.waitingSlots.remove(slot);
+					dispatch();
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for a slot");
+				}
+				dispatch();
+			}
+		}
+		return slot;
+	}
+
+	/**
+	 * Return the given slot, and hand it on to the next waiting request, if any.
+	 */
+	void release(Slot slot) {
+		synchronized (this.lock) {
+			if (!slot.admitted || slot.released) {
+				return;
+			}
+			slot.released = true;
+			this.runningCount--;
+			this.runningCountPerLane[slot.priority.ordinal()]--;
+			int[] hostCounts = this.runningCountsPerHost.get(slot.host);
+			hostCounts[0]--;
+			if (slot.yielding) {
+				this.yieldingCount--;
+				hostCounts[1]--;
+			}
+			if (hostCounts[0] == 0) {
+				this.runningCountsPerHost.remove(slot.host);
+			}
+			dispatch();
+		}
+	}
+
+	/**
+	 * Admit waiting requests, most urgent first, as long as they fit within the limits.
+	 */
+	private void dispatch() {
+		boolean admitted = false;
+		long now = System.nanoTime();
+		while (!this.waitingSlots.isEmpty()) {
+			boolean interactiveWaiting = false;
+			for (Slot slot : this.waitingSlots) {
+				if (getLane(slot, now) == RequestPriority.INTERACTIVE.ordinal()) {
+					interactiveWaiting = true;
+					break;
+				}
+			}
+			Slot next = null;
+			int nextLane = Integer.MAX_VALUE;
+			for (Slot slot : this.waitingSlots) {
+				int lane = getLane(slot, now);
+				if (lane < nextLane && isAdmissible(slot, lane, interactiveWaiting)) {
+					next = slot;
+					nextLane = lane;
+				}
+			}
+			if (next == null) {
+				break;
+			}
+			this.waitingSlots.remove(next);
+			admit(next);
+			admitted = true;
+		}
+		if (admitted) {
+			this.lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Return the lane the given waiting slot is currently ranked in, after aging.
+	 */
+	private int getLane(Slot slot, long now) {
+		int lane = slot.priority.ordinal();
+		int normal = RequestPriority.NORMAL.ordinal();
+		if (lane <= normal) {
+			return lane;
+		}
+		long steps = (now - slot.createdAt) / TimeUnit.MILLISECONDS.toNanos(this.agingInterval);
+		return (int) Math.max(normal, lane - steps);
+	}
+
+	private boolean isAdmissible(Slot slot, int lane, boolean interactiveWaiting) {
+		int priority = slot.priority.ordinal();
+		if (this.runningCountPerLane[priority] >= this.maxConcurrentRequestsPerLane[priority]) {
+			return false;
+		}
+		int[] hostCounts = this.runningCountsPerHost.get(slot.host);
+		int hostRunningCount = (hostCounts != null ? hostCounts[0] : 0);
+		int hostYieldingCount = (hostCounts != null ? hostCounts[1] : 0);
+		if (lane == RequestPriority.INTERACTIVE.ordinal()) {
+			return (this.runningCount - this.yieldingCount < this.maxConcurrentRequests &&
+					hostRunningCount - hostYieldingCount < this.maxConcurrentRequestsPerHost);
+		}
+		if (slot.yielding && lane >= RequestPriority.BACKGROUND.ordinal() && interactiveWaiting) {
+			return false;
+		}
+		return (this.runningCount < this.maxConcurrentRequests &&
+				hostRunningCount < this.maxConcurrentRequestsPerHost);
+	}
+
+	private void admit(Slot slot) {
+		slot.admitted = true;
+		this.runningCount++;
+		this.runningCountPerLane[slot.priority.ordinal()]++;
+		int[] hostCounts = this.runningCountsPerHost.get(slot.host);
+		if (hostCounts == null) {
+			hostCounts = new int[2];
+			this.runningCountsPerHost.put(slot.host, hostCounts);
+		}
+		hostCounts[0]++;
+		if (slot.yielding) {
+			this.yieldingCount++;
+			hostCounts[1]++;
+		}
+	}
+
+
+	/**
+	 * A request's claim to execute, from the time it starts waiting until its response
+	 * is closed.
+	 */
+	static class Slot {
+
+		private final RequestPriority priority;
+
+		private final String host;
+
+		private final boolean yielding;
+
+		private final long createdAt = System.nanoTime();
+
+		private boolean admitted;
+
+		private boolean released;
+
+		private boolean cancelled;
+
+		private Slot(RequestPriority priority, String host) {
+			this.priority = priority;
+			this.host = host;
+			this.yielding = (priority == RequestPriority.BACKGROUND || priority == RequestPriority.PREFETCH);
+		}
+	}
+
+}
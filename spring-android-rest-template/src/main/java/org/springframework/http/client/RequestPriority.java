@@ -0,0 +1,50 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+/**
+ * Priority lanes of a {@link PrioritySchedulingClientHttpRequestFactory}, from the
+ * most to the least urgent.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see RequestPriorityHolder
+ */
+public enum RequestPriority {
+
+	/**
+	 * A request the user is waiting on. Interactive requests may use the slots of
+	 * running {@link #BACKGROUND} and {@link #PREFETCH} requests.
+	 */
+	INTERACTIVE,
+
+	/**
+	 * A regular request, the default.
+	 */
+	NORMAL,
+
+	/**
+	 * A request whose result is not awaited by the user, e.g. a synchronization.
+	 */
+	BACKGROUND,
+
+	/**
+	 * A speculative request for data that may be needed later.
+	 */
+	PREFETCH
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+/**
+ * Holder that binds a {@link RequestPriority} to the current thread, for the requests
+ * executed on it through a {@link PrioritySchedulingClientHttpRequestFactory}.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+public abstract class RequestPriorityHolder {
+
+	private static final ThreadLocal<RequestPriority> priorityHolder = new ThreadLocal<RequestPriority>();
+
+
+	/**
+	 * Bind the given priority to the current thread.
+	 * @param priority the priority, or {@code null} to reset the thread's priority
+	 */
+	public static void setPriority(RequestPriority priority) {
+		if (priority != null) {
+			priorityHolder.set(priority);
+		}
+		else {
+			resetPriority();
+		}
+	}
+
+	/**
+	 * Return the priority bound to the current thread, or {@code null} if none.
+	 */
+	public static RequestPriority getPriority() {
+		return priorityHolder.get();
+	}
+
+	/**
+	 * Reset the priority of the current thread.
+	 */
+	public static void resetPriority() {
+		priorityHolder.remove();
+	}
+
+}
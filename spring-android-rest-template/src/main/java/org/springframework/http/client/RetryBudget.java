@@ -0,0 +1,107 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import org.springframework.util.Assert;
+
+/**
+ * Limits retries to a share of the overall traffic, so that retrying does not
+ * multiply the load on a backend that is already failing.
+ *
+ * <p>The budget is a token bucket: every request deposits {@code retryRatio} tokens,
+ * and every retry withdraws a whole token. The bucket holds at most
+ * {@code maxTokens} tokens and starts out full, which allows a short burst of
+ * retries; in the long run at most {@code retryRatio} retries are made per request.
+ * With the defaults, a backend that fails every request sees at most 10% extra load.
+ *
+ * <p>A budget may be shared between several {@link RetryingClientHttpRequestFactory}
+ * instances, and is safe for concurrent use.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see RetryingClientHttpRequestFactory#setRetryBudget(RetryBudget)
+ */
+public class RetryBudget {
+
+	/**
+	 * Default number of retries permitted per request.
+	 */
+	public static final float DEFAULT_RETRY_RATIO = 0.1f;
+
+	/**
+	 * Default maximum number of retries that can be made in a burst.
+	 */
+	public static final int DEFAULT_MAX_TOKENS = 10;
+
+	private final float retryRatio;
+
+	private final int maxTokens;
+
+	private double tokens;
+
+
+	/**
+	 * Create a new {@code RetryBudget} with the default ratio and burst size.
+	 */
+	public RetryBudget() {
+		this(DEFAULT_RETRY_RATIO, DEFAULT_MAX_TOKENS);
+	}
+
+	/**
+	 * Create a new {@code RetryBudget}.
+	 * @param retryRatio the number of retries permitted per request, for instance
+	 * {@code 0.2} to permit retrying one in five requests
+	 * @param maxTokens the maximum number of retries that can be made in a burst
+	 */
+	public RetryBudget(float retryRatio, int maxTokens) {
+		Assert.isTrue(retryRatio >= 0, "'retryRatio' must not be negative");
+		Assert.isTrue(maxTokens >= 0, "'maxTokens' must not be negative");
+		this.retryRatio = retryRatio;
+		this.maxTokens = maxTokens;
+		this.tokens = maxTokens;
+	}
+
+
+	/**
+	 * Record that a request, not counting its retries, is about to be executed.
+	 */
+	public synchronized void recordRequest() {
+		this.tokens = Math.min(this.maxTokens, this.tokens + this.retryRatio);
+	}
+
+	/**
+	 * Withdraw the budget for a single retry.
+	 * @return {@code true} if the retry may be made; {@code false} if the budget is
+	 * exhausted
+	 */
+	public synchronized boolean tryRetry() {
+		if (this.tokens < 1) {
+			return false;
+		}
+		this.tokens--;
+		return true;
+	}
+
+	/**
+	 * Return the number of retries that can currently be made.
+	 */
+	public synchronized int getAvailableRetries() {
+		return (int) this.tokens;
+	}
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.StreamUtils;
+
+import android.util.Log;
+
+/**
+ * {@link ClientHttpRequest} implementation that executes its buffered request
+ * again when an attempt fails with a transient error.
+ *
+ * <p>Created via the {@link RetryingClientHttpRequestFactory}.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+final class RetryingClientHttpRequest extends AbstractBufferingClientHttpRequest {
+
+	private static final String TAG = "RetryingClientHttpRequest";
+
+	private final RetryingClientHttpRequestFactory retryingRequestFactory;
+
+	private final ClientHttpRequestFactory requestFactory;
+
+	private final URI uri;
+
+	private final HttpMethod method;
+
+
+	RetryingClientHttpRequest(RetryingClientHttpRequestFactory retryingRequestFactory,
+			ClientHttpRequestFactory requestFactory, URI uri, HttpMethod method) {
+		this.retryingRequestFactory = retryingRequestFactory;
+		this.requestFactory = requestFactory;
+		this.uri = uri;
+		this.method = method;
+	}
+
+
+	public HttpMethod getMethod() {
+		return this.method;
+	}
+
+	public URI getURI() {
+		return this.uri;
+	}
+
+	@Override
+	protected boolean isCompressionSupported() {
+		return false;
+	}
+
+	@Override
+	protected ClientHttpResponse executeInternal(HttpHeaders headers, byte[] bufferedOutput) throws IOException {
+		RetryBudget retryBudget = this.retryingRequestFactory.getRetryBudget();
+		retryBudget.recordRequest();
+		int maxAttempts = this.retryingRequestFactory.getMaxAttempts();
+		for (int retry = 0; ; retry++) {
+			boolean lastAttempt = (retry + 1 >= maxAttempts);
+			ClientHttpResponse response;
+			try {
+				response = executeAttempt(headers, bufferedOutput);
+			}
+			catch (IOException ex) {
+				if (lastAttempt || !this.retryingRequestFactory.isRetryable(ex)) {
+					throw ex;
+				}
+				long backoff = this.retryingRequestFactory.getBackoff(retry);
+				if (!isWithinDeadline(backoff) || !retryBudget.tryRetry()) {
+					throw ex;
+				}
+				if (Log.isLoggable(TAG, Log.DEBUG)) {
+					Log.d(TAG, this.method + " request for \"" + this.uri + "\" failed with " + ex +
+							"; retrying in " + backoff + " ms");
+				}
+				this.retryingRequestFactory.sleep(backoff);
+				continue;
+			}
+			int statusCode = response.getRawStatusCode();
+			if (lastAttempt || !this.retryingRequestFactory.isRetryable(statusCode)) {
+				return response;
+			}
+			long delay = getRetryAfter(response.getHeaders());
+			if (delay > this.retryingRequestFactory.getMaxRetryAfter()) {
+				return response;
+			}
+			if (delay == -1) {
+				delay = this.retryingRequestFactory.getBackoff(retry);
+			}
+			if (!isWithinDeadline(delay) || !retryBudget.tryRetry()) {
+				return response;
+			}
+			response.close();
+			if (Log.isLoggable(TAG, Log.DEBUG)) {
+				Log.d(TAG, this.method + " request for \"" + this.uri + "\" resulted in " + statusCode +
+						"; retrying in " + delay + " ms");
+			}
+			this.retryingRequestFactory.sleep(delay);
+		}
+	}
+
+	private ClientHttpResponse executeAttempt(HttpHeaders headers, byte[] bufferedOutput) throws IOException {
+		ClientHttpRequest delegate = this.requestFactory.createRequest(this.uri, this.method);
+		delegate.getHeaders().putAll(headers);
+		if (bufferedOutput.length > 0) {
+			StreamUtils.copy(bufferedOutput, delegate.getBody());
+		}
+		return delegate.execute();
+	}
+
+	/**
+	 * Indicates whether the deadline of the {@link CancellationHandle} bound to the
+	 * current thread, if any, leaves time for a retry after the given delay.
+	 */
+	private static boolean isWithinDeadline(long delay) {
+		CancellationHandle handle = CancellationHandle.getCurrent();
+		if (handle == null) {
+			return true;
+		}
+		long remainingTime = handle.getRemainingTime();
+		return (!handle.isCancelled() && (remainingTime == -1 || remainingTime > delay));
+	}
+
+	private static long getRetryAfter(HttpHeaders headers) {
+		try {
+			return headers.getRetryAfter();
+		}
+		catch (IllegalArgumentException ex) {
+			// fall back to the backoff
+			return -1;
+		}
+	}
+
+}
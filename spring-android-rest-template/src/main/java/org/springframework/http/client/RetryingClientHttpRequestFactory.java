@@ -0,0 +1,262 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import javax.net.ssl.SSLHandshakeException;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.Assert;
+
+/**
+ * Wrapper for a {@link ClientHttpRequestFactory} that retries idempotent requests
+ * which failed with an I/O error or with a transient status code such as
+ * {@code 503 Service Unavailable} or {@code 429 Too Many Requests}.
+ *
+ * <p>Retries are spaced by a capped exponential backoff with full jitter: before
+ * retry {@code n} the request waits a random time between zero and
+ * {@code min(maxBackoff, initialBackoff * backoffMultiplier^n)}. A {@code Retry-After}
+ * header on the response takes precedence over the backoff; if it asks for a longer
+ * wait than {@link #setMaxRetryAfter maxRetryAfter}, the response is returned as is.
+ *
+ * <p>All retries are subject to a {@link RetryBudget} that limits them to a share of
+ * the overall traffic, so that a failing backend is not flooded with retries. When the
+ * budget is exhausted, the last failure is passed on to the caller.
+ *
+ * <p>When the last attempt fails, its response or exception is returned to the caller,
+ * so a {@link org.springframework.web.client.RestTemplate RestTemplate} still reports
+ * it through its error handler.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see RetryBudget
+ */
+public class RetryingClientHttpRequestFactory extends AbstractClientHttpRequestFactoryWrapper {
+
+	/**
+	 * Default maximum number of attempts per request, including the first one.
+	 */
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+	/**
+	 * Default upper bound of the wait before the first retry, in milliseconds.
+	 */
+	public static final long DEFAULT_INITIAL_BACKOFF = 100;
+
+	/**
+	 * Default upper bound of the wait before any retry, in milliseconds.
+	 */
+	public static final long DEFAULT_MAX_BACKOFF = 10 * 1000;
+
+	/**
+	 * Default longest {@code Retry-After} delay that is waited for, in milliseconds.
+	 */
+	public static final long DEFAULT_MAX_RETRY_AFTER = 30 * 1000;
+
+	private static final Set<HttpMethod> IDEMPOTENT_METHODS = new HashSet<HttpMethod>(Arrays.asList(
+			HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.TRACE, HttpMethod.PUT, HttpMethod.DELETE));
+
+	private final Random random = new Random();
+
+	private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+	private long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+
+	private long maxBackoff = DEFAULT_MAX_BACKOFF;
+
+	private double backoffMultiplier = 2;
+
+	private long maxRetryAfter = DEFAULT_MAX_RETRY_AFTER;
+
+	private Set<Integer> retryableStatusCodes = toValues(HttpStatus.TOO_MANY_REQUESTS, HttpStatus.BAD_GATEWAY,
+			HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.GATEWAY_TIMEOUT);
+
+	private RetryBudget retryBudget = new RetryBudget();
+
+
+	public RetryingClientHttpRequestFactory(ClientHttpRequestFactory requestFactory) {
+		super(requestFactory);
+	}
+
+
+	/**
+	 * Set the maximum number of attempts per request, including the first one.
+	 * <p>Default is {@value #DEFAULT_MAX_ATTEMPTS}.
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+		Assert.isTrue(maxAttempts > 0, "'maxAttempts' must be larger than 0");
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * Set the upper bound of the wait before the first retry, in milliseconds.
+	 * <p>Default is {@value #DEFAULT_INITIAL_BACKOFF}.
+	 */
+	public void setInitialBackoff(long initialBackoff) {
+		Assert.isTrue(initialBackoff >= 0, "'initialBackoff' must not be negative");
+		this.initialBackoff = initialBackoff;
+	}
+
+	/**
+	 * Set the upper bound of the wait before any retry, in milliseconds.
+	 * <p>Default is {@value #DEFAULT_MAX_BACKOFF}.
+	 */
+	public void setMaxBackoff(long maxBackoff) {
+		Assert.isTrue(maxBackoff >= 0, "'maxBackoff' must not be negative");
+		this.maxBackoff = maxBackoff;
+	}
+
+	/**
+	 * Set the factor by which the backoff grows with each retry.
+	 * <p>Default is 2.
+	 */
+	public void setBackoffMultiplier(double backoffMultiplier) {
+		Assert.isTrue(backoffMultiplier >= 1, "'backoffMultiplier' must not be smaller than 1");
+		this.backoffMultiplier = backoffMultiplier;
+	}
+
+	/**
+	 * Set the longest delay requested by a {@code Retry-After} header that is waited
+	 * for, in milliseconds. Responses asking for a longer delay are not retried.
+	 * <p>Default is {@value #DEFAULT_MAX_RETRY_AFTER}.
+	 */
+	public void setMaxRetryAfter(long maxRetryAfter) {
+		Assert.isTrue(maxRetryAfter >= 0, "'maxRetryAfter' must not be negative");
+		this.maxRetryAfter = maxRetryAfter;
+	}
+
+	/**
+	 * Set the response status codes that are retried.
+	 * <p>Default is {@code 429}, {@code 502}, {@code 503} and {@code 504}.
+	 */
+	public void setRetryableStatusCodes(HttpStatus... retryableStatusCodes) {
+		Assert.notNull(retryableStatusCodes, "'retryableStatusCodes' must not be null");
+		this.retryableStatusCodes = toValues(retryableStatusCodes);
+	}
+
+	/**
+	 * Set the budget that limits the number of retries.
+	 * <p>Default is a {@link RetryBudget} permitting
+	 * {@value RetryBudget#DEFAULT_RETRY_RATIO} retries per request.
+	 */
+	public void setRetryBudget(RetryBudget retryBudget) {
+		Assert.notNull(retryBudget, "'retryBudget' must not be null");
+		this.retryBudget = retryBudget;
+	}
+
+	/**
+	 * Return the budget that limits the number of retries.
+	 */
+	public RetryBudget getRetryBudget() {
+		return this.retryBudget;
+	}
+
+	@Override
+	protected ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod, ClientHttpRequestFactory requestFactory)
+			throws IOException {
+		if (this.maxAttempts > 1 && isRetryable(httpMethod)) {
+			return new RetryingClientHttpRequest(this, requestFactory, uri, httpMethod);
+		}
+		else {
+			return requestFactory.createRequest(uri, httpMethod);
+		}
+	}
+
+	/**
+	 * Indicates whether requests with the given method may be retried.
+	 * <p>Default implementation returns {@code true} for the idempotent methods
+	 * {@code GET}, {@code HEAD}, {@code OPTIONS}, {@code TRACE}, {@code PUT} and
+	 * {@code DELETE}. Subclasses can override this method to change this behavior.
+	 * @param httpMethod the method
+	 * @return {@code true} if the request may be retried; {@code false} otherwise
+	 */
+	protected boolean isRetryable(HttpMethod httpMethod) {
+		return IDEMPOTENT_METHODS.contains(httpMethod);
+	}
+
+	/**
+	 * Indicates whether a request that failed with the given exception may be retried.
+	 * <p>Default implementation returns {@code false} for unknown hosts and failed TLS
+	 * handshakes, which are unlikely to be transient, and {@code true} otherwise.
+	 * Subclasses can override this method to change this behavior.
+	 * @param ex the exception the request failed with
+	 * @return {@code true} if the request may be retried; {@code false} otherwise
+	 */
+	protected boolean isRetryable(IOException ex) {
+		return !(ex instanceof UnknownHostException || ex instanceof SSLHandshakeException);
+	}
+
+	/**
+	 * Indicates whether a request that received the given status code may be retried.
+	 * @param statusCode the raw status code of the response
+	 * @return {@code true} if the request may be retried; {@code false} otherwise
+	 */
+	protected boolean isRetryable(int statusCode) {
+		return this.retryableStatusCodes.contains(statusCode);
+	}
+
+	int getMaxAttempts() {
+		return this.maxAttempts;
+	}
+
+	long getMaxRetryAfter() {
+		return this.maxRetryAfter;
+	}
+
+	/**
+	 * Return the randomized wait before the given retry, counting from 0.
+	 */
+	long getBackoff(int retry) {
+		double cap = Math.min(this.maxBackoff, this.initialBackoff * Math.pow(this.backoffMultiplier, retry));
+		return (long) (this.random.nextDouble() * cap);
+	}
+
+	/**
+	 * Wait for the given number of milliseconds before a retry.
+	 */
+	void sleep(long millis) throws IOException {
+		if (millis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to retry");
+		}
+	}
+
+	private static Set<Integer> toValues(HttpStatus... statusCodes) {
+		Set<Integer> values = new HashSet<Integer>();
+		for (HttpStatus statusCode : statusCodes) {
+			values.add(statusCode.value());
+		}
+		return values;
+	}
+
+}
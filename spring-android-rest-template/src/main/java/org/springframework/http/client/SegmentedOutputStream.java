@@ -0,0 +1,257 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * {@link OutputStream} that buffers its content in a list of fixed-size segments
+ * rather than in a single growing array.
+ *
+ * <p>Unlike {@link java.io.ByteArrayOutputStream}, growing the buffer never copies the
+ * content written so far, and the content can be handed to the underlying HTTP client
+ * segment by segment without being flattened first. Segments are taken from a shared,
+ * bounded pool and given back by {@link #release()}, so that buffering a request body
+ * does not allocate any memory in the steady state.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+final class SegmentedOutputStream extends OutputStream {
+
+	/**
+	 * The size of each segment, in bytes.
+	 */
+	static final int SEGMENT_SIZE = 8 * 1024;
+
+	/**
+	 * The maximum number of free segments kept in the pool.
+	 */
+	static final int MAX_POOLED_SEGMENTS = 64;
+
+	private static final LinkedList<byte[]> pool = new LinkedList<byte[]>();
+
+	private final List<byte[]> segments = new ArrayList<byte[]>();
+
+	private final boolean pooled;
+
+	private int lastSegmentCount;
+
+	private int size;
+
+
+	/**
+	 * Create a new, empty {@code SegmentedOutputStream} backed by pooled segments.
+	 */
+	SegmentedOutputStream() {
+		this.pooled = true;
+	}
+
+	private SegmentedOutputStream(byte[] content) {
+		this.pooled = false;
+		this.segments.add(content);
+		this.lastSegmentCount = content.length;
+		this.size = content.length;
+	}
+
+
+	/**
+	 * Return a {@code SegmentedOutputStream} that holds the given content as its only
+	 * segment. The array is not copied, and it is not given to the pool on release.
+	 * @param content the content
+	 * @return the stream
+	 */
+	static SegmentedOutputStream wrap(byte[] content) {
+		return new SegmentedOutputStream(content);
+	}
+
+	/**
+	 * Return the number of free segments in the pool.
+	 */
+	static int getPooledSegmentCount() {
+		synchronized (pool) {
+			return pool.size();
+		}
+	}
+
+
+	@Override
+	public void write(int b) {
+		if (this.segments.isEmpty() || this.lastSegmentCount == lastSegment().length) {
+			addSegment();
+		}
+		lastSegment()[this.lastSegmentCount++] = (byte) b;
+		this.size++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		if (off < 0 || len < 0 || off + len > b.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		while (len > 0) {
+			if (this.segments.isEmpty() || this.lastSegmentCount == lastSegment().length) {
+				addSegment();
+			}
+			int count = Math.min(len, lastSegment().length - this.lastSegmentCount);
+			System.arraycopy(b, off, lastSegment(), this.lastSegmentCount, count);
+			this.lastSegmentCount += count;
+			this.size += count;
+			off += count;
+			len -= count;
+		}
+	}
+
+	/**
+	 * Return the number of bytes written to this stream.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Write the content of this stream to the given output stream, one segment at a time.
+	 * @param out the stream to write to; it is not closed
+	 * @throws IOException in case of I/O errors
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		for (int i = 0; i < this.segments.size(); i++) {
+			out.write(this.segments.get(i), 0, getSegmentLength(i));
+		}
+	}
+
+	/**
+	 * Return a copy of the content of this stream as a single array.
+	 */
+	public byte[] toByteArray() {
+		byte[] result = new byte[this.size];
+		int pos = 0;
+		for (int i = 0; i < this.segments.size(); i++) {
+			int length = getSegmentLength(i);
+			System.arraycopy(this.segments.get(i), 0, result, pos, length);
+			pos += length;
+		}
+		return result;
+	}
+
+	/**
+	 * Return an {@link InputStream} that reads the content of this stream without copying it.
+	 * The returned stream must not be used after {@link #release()}.
+	 */
+	public InputStream getInputStream() {
+		return new SegmentInputStream();
+	}
+
+	/**
+	 * Give the segments of this stream back to the pool and reset it to empty.
+	 * The content must not be referenced anywhere once this method has been called.
+	 */
+	public void release() {
+		if (this.pooled) {
+			synchronized (pool) {
+				for (byte[] segment : this.segments) {
+					if (pool.size() >= MAX_POOLED_SEGMENTS) {
+						break;
+					}
+					pool.addFirst(segment);
+				}
+			}
+		}
+		this.segments.clear();
+		this.lastSegmentCount = 0;
+		this.size = 0;
+	}
+
+	private byte[] lastSegment() {
+		return this.segments.get(this.segments.size() - 1);
+	}
+
+	private int getSegmentLength(int index) {
+		return (index == this.segments.size() - 1 ? this.lastSegmentCount : this.segments.get(index).length);
+	}
+
+	private void addSegment() {
+		byte[] segment = null;
+		if (this.pooled) {
+			synchronized (pool) {
+				segment = pool.poll();
+			}
+		}
+		this.segments.add(segment != null ? segment : new byte[SEGMENT_SIZE]);
+		this.lastSegmentCount = 0;
+	}
+
+
+	/**
+	 * {@link InputStream} over the segments of the enclosing stream.
+	 */
+	private class SegmentInputStream extends InputStream {
+
+		private int segmentIndex;
+
+		private int segmentPos;
+
+		private int remaining = size;
+
+		@Override
+		public int read() {
+			if (!nextSegment()) {
+				return -1;
+			}
+			this.remaining--;
+			return segments.get(this.segmentIndex)[this.segmentPos++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (!nextSegment()) {
+				return -1;
+			}
+			int count = Math.min(len, getSegmentLength(this.segmentIndex) - this.segmentPos);
+			System.arraycopy(segments.get(this.segmentIndex), this.segmentPos, b, off, count);
+			this.segmentPos += count;
+			this.remaining -= count;
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return this.remaining;
+		}
+
+		private boolean nextSegment() {
+			if (this.remaining <= 0) {
+				return false;
+			}
+			while (this.segmentPos == getSegmentLength(this.segmentIndex)) {
+				this.segmentIndex++;
+				this.segmentPos = 0;
+			}
+			return true;
+		}
+	}
+
+}
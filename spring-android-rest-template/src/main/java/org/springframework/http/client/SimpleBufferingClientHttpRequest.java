@@ -17,6 +17,7 @@
 package org.springframework.http.client;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -25,7 +26,6 @@ import java.util.Map;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.util.FileCopyUtils;
 
 /**
  * {@link ClientHttpRequest} implementation that uses standard J2SE facilities to execute buffered requests.
@@ -63,6 +63,13 @@ final class SimpleBufferingClientHttpRequest extends AbstractBufferingClientHttp
 
 	@Override
 	protected ClientHttpResponse executeInternal(HttpHeaders headers, byte[] bufferedOutput) throws IOException {
+		return executeInternal(headers, SegmentedOutputStream.wrap(bufferedOutput));
+	}
+
+	@Override
+	protected ClientHttpResponse executeInternal(HttpHeaders headers, SegmentedOutputStream bufferedOutput)
+			throws IOException {
+
 		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
 			String headerName = entry.getKey();
 			for (String headerValue : entry.getValue()) {
@@ -71,14 +78,28 @@ final class SimpleBufferingClientHttpRequest extends AbstractBufferingClientHttp
 		}
 
 		if (this.connection.getDoOutput() && this.outputStreaming) {
-			this.connection.setFixedLengthStreamingMode(bufferedOutput.length);
+			this.connection.setFixedLengthStreamingMode(bufferedOutput.size());
 		}
 		this.connection.connect();
+		endPhase(ClientHttpRequestEvent.Phase.CONNECT, -1);
 		if (this.connection.getDoOutput()) {
-			FileCopyUtils.copy(bufferedOutput, this.connection.getOutputStream());
+			OutputStream out = this.connection.getOutputStream();
+			try {
+				bufferedOutput.writeTo(out);
+			}
+			finally {
+				out.close();
+			}
+			endPhase(ClientHttpRequestEvent.Phase.REQUEST_BODY_SENT, bufferedOutput.size());
 		}
 
-		return new SimpleClientHttpResponse(this.connection);
+		SimpleClientHttpResponse response = new SimpleClientHttpResponse(this.connection);
+		if (hasRequestListener()) {
+			// the response headers are otherwise only read once the status is asked for
+			response.getRawStatusCode();
+			endPhase(ClientHttpRequestEvent.Phase.RESPONSE_HEADERS, -1);
+		}
+		return response;
 	}
 
 }
@@ -17,14 +17,17 @@
 package org.springframework.http.client;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.Proxy;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.List;
 
 import org.springframework.http.HttpMethod;
 import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
 
 /**
  * {@link ClientHttpRequestFactory} implementation that uses standard J2SE facilities.
@@ -36,7 +39,7 @@ import org.springframework.util.Assert;
  * @see java.net.HttpURLConnection
  * @see HttpComponentsClientHttpRequestFactory
  */
-public class SimpleClientHttpRequestFactory implements ClientHttpRequestFactory {
+public class SimpleClientHttpRequestFactory implements ClientHttpRequestFactory, ClientHttpConnectionPrewarmer {
 
 	// Specifying 0 results in the Android system default chunk length
 	private static final int DEFAULT_CHUNK_SIZE = 0;
@@ -56,6 +59,8 @@ public class SimpleClientHttpRequestFactory implements ClientHttpRequestFactory
 
 	private boolean reuseConnection = false;
 
+	private ClientHttpRequestListener requestListener;
+
 
 	/**
 	 * Set the {@link Proxy} to use for this request factory.
@@ -140,12 +145,31 @@ public class SimpleClientHttpRequestFactory implements ClientHttpRequestFactory
 		this.reuseConnection = reuseConnection;
 	}
 
+	/**
+	 * Set the listener to notify of the network phases of each request.
+	 * <p>Only requests that buffer their body report events. To report the
+	 * {@link ClientHttpRequestEvent.Phase#RESPONSE_HEADERS} phase, the response headers,
+	 * which {@code HttpURLConnection} otherwise reads lazily, are read on execution.
+	 * <p>Default is none, in which case no timestamps are taken.
+	 * @param requestListener the listener, or {@code null} for none
+	 */
+	public void setRequestListener(ClientHttpRequestListener requestListener) {
+		this.requestListener = requestListener;
+	}
+
 	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
 		System.setProperty("http.keepAlive", Boolean.toString(this.reuseConnection));
-		HttpURLConnection connection = openConnection(uri.toURL(), this.proxy);
+		final HttpURLConnection connection = openConnection(uri.toURL(), this.proxy);
 		prepareConnection(connection, httpMethod.name());
+		CancellationHandle.registerAbortAction(new Runnable() {
+			public void run() {
+				connection.disconnect();
+			}
+		});
 		if (this.bufferRequestBody) {
-			return new SimpleBufferingClientHttpRequest(connection, this.outputStreaming);
+			SimpleBufferingClientHttpRequest request = new SimpleBufferingClientHttpRequest(connection, this.outputStreaming);
+			request.setRequestListener(this.requestListener);
+			return request;
 		}
 		else {
 			return new SimpleStreamingClientHttpRequest(connection, this.chunkSize,
@@ -153,6 +177,42 @@ public class SimpleClientHttpRequestFactory implements ClientHttpRequestFactory
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>Each host is resolved and sent a {@code HEAD} request, which completes the
+	 * TLS handshake and populates the SSL session cache. The connection itself is only
+	 * kept for reuse if {@linkplain #setReuseConnection(boolean) connection reuse} is
+	 * enabled.
+	 */
+	@Override
+	public ListenableFuture<ConnectionPrewarmResult> prewarm(List<URI> uris) {
+		// HttpURLConnection always looks hosts up with the platform resolver
+		return ConnectionPrewarming.prewarm(uris, null, new ConnectionPrewarming.Connector() {
+			@Override
+			public void connect(URI uri) throws IOException {
+				HttpURLConnection connection = openConnection(uri.toURL(), proxy);
+				prepareConnection(connection, HttpMethod.HEAD.name());
+				boolean pooled = false;
+				try {
+					int statusCode = connection.getResponseCode();
+					if (reuseConnection) {
+						// Closing the body rather than disconnecting returns the connection to the pool
+						InputStream body = (statusCode >= 400 ? connection.getErrorStream() : connection.getInputStream());
+						if (body != null) {
+							body.close();
+						}
+						pooled = true;
+					}
+				}
+				finally {
+					if (!pooled) {
+						connection.disconnect();
+					}
+				}
+			}
+		});
+	}
+
 	/**
 	 * Opens and returns a connection to the given URL.
 	 * <p>The default implementation uses the given {@linkplain #setProxy(java.net.Proxy) proxy} -
@@ -18,6 +18,7 @@ package org.springframework.http.client;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.reflect.Method;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -26,6 +27,7 @@ import java.util.Map;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StreamUtils;
 
 /**
@@ -39,6 +41,10 @@ import org.springframework.util.StreamUtils;
  */
 final class SimpleStreamingClientHttpRequest extends AbstractClientHttpRequest {
 
+	// available as of Java 7 and Android 4.4 (API 19)
+	private static final Method setFixedLengthStreamingModeLong =
+			ReflectionUtils.findMethod(HttpURLConnection.class, "setFixedLengthStreamingMode", long.class);
+
 	private final HttpURLConnection connection;
 
 	private final int chunkSize;
@@ -76,9 +82,12 @@ final class SimpleStreamingClientHttpRequest extends AbstractClientHttpRequest {
 	protected OutputStream getBodyInternal(HttpHeaders headers) throws IOException {
 		if (this.body == null) {
 			if (this.outputStreaming) {
-				int contentLength = (int) headers.getContentLength();
-				if (contentLength >= 0) {
-					this.connection.setFixedLengthStreamingMode(contentLength);
+				long contentLength = headers.getContentLength();
+				if (contentLength >= 0 && contentLength <= Integer.MAX_VALUE) {
+					this.connection.setFixedLengthStreamingMode((int) contentLength);
+				}
+				else if (contentLength >= 0 && setFixedLengthStreamingModeLong != null) {
+					ReflectionUtils.invokeMethod(setFixedLengthStreamingModeLong, this.connection, contentLength);
 				}
 				else {
 					this.connection.setChunkedStreamingMode(this.chunkSize);
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.StreamingHttpOutputMessage;
+
+/**
+ * Represents the context of a client-side HTTP request execution with a streaming body.
+ *
+ * <p>Used to invoke the next interceptor in the interceptor chain, or - if the calling
+ * interceptor is last - execute the request itself.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see StreamingClientHttpRequestInterceptor
+ */
+public interface StreamingClientHttpRequestExecution {
+
+	/**
+	 * Execute the request with the given request attributes and body, and return the response.
+	 *
+	 * @param request the request, containing method, URI, and headers
+	 * @param body the body of the request to execute, or {@code null} if there is none
+	 * @return the response
+	 * @throws IOException in case of I/O errors
+	 */
+	ClientHttpResponse execute(HttpRequest request, StreamingHttpOutputMessage.Body body) throws IOException;
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.StreamingHttpOutputMessage;
+
+/**
+ * Intercepts client-side HTTP requests without buffering the request body. Implementations
+ * of this interface can be {@linkplain
+ * org.springframework.http.client.support.InterceptingHttpAccessor#setStreamingInterceptors(java.util.List)
+ * registered} with the {@link org.springframework.web.client.RestTemplate RestTemplate}.
+ *
+ * <p>Unlike a {@link ClientHttpRequestInterceptor}, which is handed the fully buffered
+ * request body as a byte array, a streaming interceptor only sees a
+ * {@linkplain StreamingHttpOutputMessage.Body handle} to the body. The body is written
+ * once, directly to the underlying request, after the last interceptor hands the request
+ * on. This makes streaming interceptors suitable for concerns such as authentication or
+ * tracing, which only need the request line and headers.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see StreamingInterceptingClientHttpRequestFactory
+ */
+public interface StreamingClientHttpRequestInterceptor {
+
+	/**
+	 * Intercept the given request, and return a response. The given
+	 * {@link StreamingClientHttpRequestExecution} allows the interceptor to pass on the
+	 * request and body to the next entity in the chain.
+	 *
+	 * <p>An implementation may wrap the request to change its method, URI or headers, and
+	 * may wrap the body to filter the bytes as they are written. It should not write the
+	 * body itself, since the body can only be written once.
+	 *
+	 * @param request the request, containing method, URI, and headers
+	 * @param body the body of the request, or {@code null} if there is none
+	 * @param execution the request execution
+	 * @return the response
+	 * @throws IOException in case of I/O errors
+	 */
+	ClientHttpResponse intercept(HttpRequest request, StreamingHttpOutputMessage.Body body,
+			StreamingClientHttpRequestExecution execution) throws IOException;
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Wrapper for a {@link ClientHttpRequest} that has support for
+ * {@link StreamingClientHttpRequestInterceptor}s.
+ *
+ * <p>The body set through {@link #setBody(Body)} is passed along the interceptor chain
+ * as is, and written to the delegate request exactly once: through
+ * {@link StreamingHttpOutputMessage#setBody(Body)} if the delegate supports it, or
+ * else to its {@linkplain ClientHttpRequest#getBody() output stream}. Callers that
+ * write to {@link #getBody()} directly instead are buffered, as before.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+class StreamingInterceptingClientHttpRequest implements ClientHttpRequest, StreamingHttpOutputMessage {
+
+	private final ClientHttpRequestFactory requestFactory;
+
+	private final List<StreamingClientHttpRequestInterceptor> interceptors;
+
+	private final HttpMethod method;
+
+	private final URI uri;
+
+	private final HttpHeaders headers = new HttpHeaders();
+
+	private Body body;
+
+	private ByteArrayOutputStream bufferedOutput;
+
+	private boolean executed = false;
+
+
+	protected StreamingInterceptingClientHttpRequest(ClientHttpRequestFactory requestFactory,
+			List<StreamingClientHttpRequestInterceptor> interceptors, URI uri, HttpMethod method) {
+		this.requestFactory = requestFactory;
+		this.interceptors = interceptors;
+		this.method = method;
+		this.uri = uri;
+	}
+
+
+	@Override
+	public HttpMethod getMethod() {
+		return this.method;
+	}
+
+	@Override
+	public URI getURI() {
+		return this.uri;
+	}
+
+	@Override
+	public HttpHeaders getHeaders() {
+		return (this.executed ? HttpHeaders.readOnlyHttpHeaders(this.headers) : this.headers);
+	}
+
+	@Override
+	public void setBody(Body body) {
+		assertNotExecuted();
+		this.body = body;
+	}
+
+	@Override
+	public OutputStream getBody() throws IOException {
+		assertNotExecuted();
+		if (this.bufferedOutput == null) {
+			this.bufferedOutput = new ByteArrayOutputStream();
+		}
+		return this.bufferedOutput;
+	}
+
+	@Override
+	public ClientHttpResponse execute() throws IOException {
+		assertNotExecuted();
+		Body bodyToUse = this.body;
+		if (bodyToUse == null && this.bufferedOutput != null) {
+			byte[] bytes = this.bufferedOutput.toByteArray();
+			if (this.headers.getContentLength() == -1) {
+				this.headers.setContentLength(bytes.length);
+			}
+			bodyToUse = (bytes.length > 0 ? new ByteArrayBody(bytes) : null);
+			this.bufferedOutput = null;
+		}
+		ClientHttpResponse result = new RequestExecution().execute(this, bodyToUse);
+		this.executed = true;
+		return result;
+	}
+
+	private void assertNotExecuted() {
+		Assert.state(!this.executed, "ClientHttpRequest already executed");
+	}
+
+
+	private class RequestExecution implements StreamingClientHttpRequestExecution {
+
+		private final Iterator<StreamingClientHttpRequestInterceptor> iterator;
+
+		private RequestExecution() {
+			this.iterator = interceptors.iterator();
+		}
+
+		@Override
+		public ClientHttpResponse execute(HttpRequest request, Body body) throws IOException {
+			if (this.iterator.hasNext()) {
+				StreamingClientHttpRequestInterceptor nextInterceptor = this.iterator.next();
+				return nextInterceptor.intercept(request, body, this);
+			}
+			else {
+				ClientHttpRequest delegate = requestFactory.createRequest(request.getURI(), request.getMethod());
+
+				delegate.getHeaders().putAll(request.getHeaders());
+
+				if (body != null) {
+					if (delegate instanceof StreamingHttpOutputMessage) {
+						((StreamingHttpOutputMessage) delegate).setBody(body);
+					}
+					else {
+						body.writeTo(delegate.getBody());
+					}
+				}
+				return delegate.execute();
+			}
+		}
+	}
+
+
+	private static class ByteArrayBody implements Body {
+
+		private final byte[] bytes;
+
+		public ByteArrayBody(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		@Override
+		public void writeTo(OutputStream outputStream) throws IOException {
+			StreamUtils.copy(this.bytes, outputStream);
+		}
+	}
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * {@link HostResolver} implementation that uses the platform resolver, through
+ * {@link InetAddress#getAllByName(String)}.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+public class SystemHostResolver implements HostResolver {
+
+	@Override
+	public InetAddress[] resolve(String host) throws UnknownHostException {
+		return InetAddress.getAllByName(host);
+	}
+
+}
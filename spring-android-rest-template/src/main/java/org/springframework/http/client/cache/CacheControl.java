@@ -0,0 +1,149 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StringUtils;
+
+/**
+ * Parsed representation of the directives of a {@code Cache-Control} header,
+ * as far as they are relevant to a private client-side cache.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see <a href="https://tools.ietf.org/html/rfc7234#section-5.2">RFC 7234, section 5.2</a>
+ */
+final class CacheControl {
+
+	private boolean noCache;
+
+	private boolean noStore;
+
+	private boolean mustRevalidate;
+
+	private long maxAge = -1;
+
+	private long staleWhileRevalidate = -1;
+
+
+	private CacheControl() {
+	}
+
+
+	/**
+	 * Whether the {@code no-cache} directive is present.
+	 */
+	public boolean isNoCache() {
+		return this.noCache;
+	}
+
+	/**
+	 * Whether the {@code no-store} directive is present.
+	 */
+	public boolean isNoStore() {
+		return this.noStore;
+	}
+
+	/**
+	 * Whether the {@code must-revalidate} or {@code proxy-revalidate} directive is present.
+	 */
+	public boolean isMustRevalidate() {
+		return this.mustRevalidate;
+	}
+
+	/**
+	 * Return the {@code max-age} in seconds, or -1 if not present.
+	 */
+	public long getMaxAge() {
+		return this.maxAge;
+	}
+
+	/**
+	 * Return the {@code stale-while-revalidate} window in seconds, or -1 if not present.
+	 * @see <a href="https://tools.ietf.org/html/rfc5861#section-3">RFC 5861, section 3</a>
+	 */
+	public long getStaleWhileRevalidate() {
+		return this.staleWhileRevalidate;
+	}
+
+
+	/**
+	 * Parse the {@code Cache-Control} header of the given headers. A {@code Pragma: no-cache}
+	 * header is treated as {@code Cache-Control: no-cache}.
+	 * @param headers the headers to parse
+	 * @return the parsed directives, never {@code null}
+	 */
+	public static CacheControl parse(HttpHeaders headers) {
+		CacheControl cacheControl = new CacheControl();
+		List<String> values = headers.get(HttpHeaders.CACHE_CONTROL);
+		if (values != null) {
+			for (String value : values) {
+				for (String directive : StringUtils.tokenizeToStringArray(value, ",")) {
+					cacheControl.parseDirective(directive);
+				}
+			}
+		}
+		String pragma = headers.getPragma();
+		if (pragma != null && pragma.toLowerCase().contains("no-cache")) {
+			cacheControl.noCache = true;
+		}
+		return cacheControl;
+	}
+
+	private void parseDirective(String directive) {
+		String name = directive;
+		String argument = null;
+		int idx = directive.indexOf('=');
+		if (idx != -1) {
+			name = directive.substring(0, idx).trim();
+			argument = StringUtils.trimTrailingCharacter(
+					StringUtils.trimLeadingCharacter(directive.substring(idx + 1).trim(), '"'), '"');
+		}
+		name = name.toLowerCase();
+		if ("no-cache".equals(name)) {
+			this.noCache = true;
+		}
+		else if ("no-store".equals(name)) {
+			this.noStore = true;
+		}
+		else if ("must-revalidate".equals(name) || "proxy-revalidate".equals(name)) {
+			this.mustRevalidate = true;
+		}
+		else if ("max-age".equals(name)) {
+			this.maxAge = parseSeconds(argument);
+		}
+		else if ("stale-while-revalidate".equals(name)) {
+			this.staleWhileRevalidate = parseSeconds(argument);
+		}
+	}
+
+	private static long parseSeconds(String argument) {
+		if (argument == null) {
+			return -1;
+		}
+		try {
+			return Math.max(0, Long.parseLong(argument));
+		}
+		catch (NumberFormatException ex) {
+			// RFC 7234, section 1.2.1: treat an invalid delta-seconds as a stale response
+			return 0;
+		}
+	}
+
+}
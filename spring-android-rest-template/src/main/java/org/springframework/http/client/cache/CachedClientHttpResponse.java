@@ -0,0 +1,90 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * {@link ClientHttpResponse} implementation that serves an {@link HttpCacheEntry}.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+final class CachedClientHttpResponse implements ClientHttpResponse {
+
+	private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+	private final HttpCacheEntry entry;
+
+	private final HttpHeaders headers = new HttpHeaders();
+
+
+	/**
+	 * Create a response for the given entry.
+	 * @param entry the cache entry
+	 * @param age the current age of the entry in milliseconds, to be reported in the
+	 * {@code Age} header, or -1 if the entry was just received from the server
+	 * @param stale whether the entry is served stale
+	 */
+	CachedClientHttpResponse(HttpCacheEntry entry, long age, boolean stale) {
+		this.entry = entry;
+		this.headers.putAll(entry.getHeaders());
+		if (age >= 0) {
+			this.headers.set(HttpHeaders.AGE, Long.toString(age / 1000));
+		}
+		if (stale) {
+			this.headers.add(HttpHeaders.WARNING, STALE_WARNING);
+		}
+	}
+
+
+	@Override
+	public HttpStatus getStatusCode() throws IOException {
+		return HttpStatus.valueOf(getRawStatusCode());
+	}
+
+	@Override
+	public int getRawStatusCode() throws IOException {
+		return this.entry.getStatusCode();
+	}
+
+	@Override
+	public String getStatusText() throws IOException {
+		return this.entry.getStatusText();
+	}
+
+	@Override
+	public HttpHeaders getHeaders() {
+		return this.headers;
+	}
+
+	@Override
+	public InputStream getBody() throws IOException {
+		return new ByteArrayInputStream(this.entry.getBody());
+	}
+
+	@Override
+	public void close() {
+	}
+
+}
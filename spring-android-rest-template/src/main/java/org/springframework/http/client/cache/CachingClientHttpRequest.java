@@ -0,0 +1,363 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.http.ContentCodingType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StringUtils;
+
+import android.util.Log;
+
+/**
+ * {@link ClientHttpRequest} implementation that looks up {@code GET} requests in the
+ * cache of a {@link CachingClientHttpRequestFactory} before executing them.
+ *
+ * <p>Created via the {@link CachingClientHttpRequestFactory}.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+final class CachingClientHttpRequest extends AbstractClientHttpRequest {
+
+	private static final String TAG = CachingClientHttpRequestFactory.class.getSimpleName();
+
+	/**
+	 * Status codes that are cacheable by default, see RFC 7231, section 6.1.
+	 */
+	private static final Set<Integer> CACHEABLE_STATUS_CODES = new HashSet<Integer>(
+			Arrays.asList(200, 203, 204, 300, 301, 404, 405, 410, 414, 501));
+
+	private final CachingClientHttpRequestFactory cache;
+
+	private final ClientHttpRequestFactory requestFactory;
+
+	private final URI uri;
+
+	private ByteArrayOutputStream bufferedOutput = new ByteArrayOutputStream();
+
+
+	CachingClientHttpRequest(CachingClientHttpRequestFactory cache, ClientHttpRequestFactory requestFactory, URI uri) {
+		this.cache = cache;
+		this.requestFactory = requestFactory;
+		this.uri = uri;
+	}
+
+
+	@Override
+	public HttpMethod getMethod() {
+		return HttpMethod.GET;
+	}
+
+	@Override
+	public URI getURI() {
+		return this.uri;
+	}
+
+	@Override
+	protected boolean isCompressionSupported() {
+		return false;
+	}
+
+	@Override
+	protected OutputStream getBodyInternal(HttpHeaders headers) throws IOException {
+		return this.bufferedOutput;
+	}
+
+	@Override
+	protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+		byte[] content = this.bufferedOutput.toByteArray();
+		this.bufferedOutput = null;
+
+		CacheControl requestCacheControl = CacheControl.parse(headers);
+		if (content.length > 0 || requestCacheControl.isNoStore() || isConditional(headers)) {
+			return execute(this.requestFactory, this.uri, headers, content);
+		}
+
+		String key = this.cache.getCacheKey(this.uri);
+		HttpCacheEntry entry = this.cache.getEntry(key);
+		if (entry != null && !entry.matchesVaryHeaders(headers)) {
+			entry = null;
+		}
+		if (entry != null && !requestCacheControl.isNoCache()) {
+			CacheControl responseCacheControl = CacheControl.parse(entry.getHeaders());
+			if (!responseCacheControl.isNoCache()) {
+				long now = System.currentTimeMillis();
+				long age = entry.getCurrentAge(now);
+				long freshnessLifetime = entry.getFreshnessLifetime();
+				if (requestCacheControl.getMaxAge() != -1) {
+					freshnessLifetime = Math.min(freshnessLifetime, requestCacheControl.getMaxAge() * 1000);
+				}
+				if (age < freshnessLifetime) {
+					return new CachedClientHttpResponse(entry, age, false);
+				}
+				long staleWhileRevalidate = responseCacheControl.getStaleWhileRevalidate();
+				if (staleWhileRevalidate != -1 && !responseCacheControl.isMustRevalidate() &&
+						requestCacheControl.getMaxAge() == -1 && age < freshnessLifetime + staleWhileRevalidate * 1000 &&
+						revalidateInBackground(key, headers, entry)) {
+					return new CachedClientHttpResponse(entry, age, true);
+				}
+			}
+		}
+		return fetch(this.cache, this.requestFactory, this.uri, headers, key, entry);
+	}
+
+	private boolean revalidateInBackground(final String key, HttpHeaders headers, final HttpCacheEntry entry) {
+		if (!this.cache.startRevalidation(key)) {
+			// already being revalidated
+			return true;
+		}
+		final HttpHeaders requestHeaders = new HttpHeaders();
+		requestHeaders.putAll(headers);
+		try {
+			this.cache.getRevalidationExecutor().execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						fetch(cache, requestFactory, uri, requestHeaders, key, entry).close();
+					}
+					catch (IOException ex) {
+						if (Log.isLoggable(TAG, Log.WARN)) {
+							Log.w(TAG, "Background revalidation of \"" + uri + "\" failed", ex);
+						}
+					}
+					finally {
+						cache.finishRevalidation(key);
+					}
+				}
+			});
+			return true;
+		}
+		catch (RejectedExecutionException ex) {
+			this.cache.finishRevalidation(key);
+			return false;
+		}
+	}
+
+
+	/**
+	 * Execute the request over the network, revalidating the given entry if any, and store
+	 * the response if allowed.
+	 */
+	static ClientHttpResponse fetch(CachingClientHttpRequestFactory cache, ClientHttpRequestFactory requestFactory,
+			URI uri, HttpHeaders headers, String key, HttpCacheEntry entry) throws IOException {
+
+		HttpHeaders requestHeaders = new HttpHeaders();
+		requestHeaders.putAll(headers);
+		if (entry != null) {
+			String eTag = entry.getHeaders().getETag();
+			if (eTag != null) {
+				requestHeaders.set(HttpHeaders.IF_NONE_MATCH, eTag);
+			}
+			String lastModified = entry.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+			if (lastModified != null) {
+				requestHeaders.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+			}
+		}
+
+		long requestTime = System.currentTimeMillis();
+		ClientHttpResponse response = execute(requestFactory, uri, requestHeaders, null);
+		long responseTime = System.currentTimeMillis();
+
+		int statusCode = response.getRawStatusCode();
+		if (entry != null && statusCode == HttpStatus.NOT_MODIFIED.value()) {
+			HttpCacheEntry revalidated = entry.revalidated(response.getHeaders(), requestTime, responseTime);
+			response.close();
+			cache.putEntry(key, revalidated);
+			return new CachedClientHttpResponse(revalidated, revalidated.getCurrentAge(responseTime), false);
+		}
+
+		Map<String, String> varyHeaders = getVaryHeaders(headers, response.getHeaders());
+		if (varyHeaders == null || !isStorable(headers, statusCode, response.getHeaders()) ||
+				response.getHeaders().getContentLength() > cache.getMaxEntrySize()) {
+			if (entry != null && statusCode < 500) {
+				cache.removeEntry(key);
+			}
+			return response;
+		}
+
+		String statusText;
+		byte[] body;
+		try {
+			statusText = response.getStatusText();
+			InputStream in = response.getBody();
+			body = (in != null ? readBody(in, cache.getMaxEntrySize()) : new byte[0]);
+			if (body.length > cache.getMaxEntrySize()) {
+				// too large to store: hand out what was read, followed by the rest of the stream
+				cache.removeEntry(key);
+				return new PartiallyReadClientHttpResponse(response, body, in);
+			}
+		}
+		catch (IOException ex) {
+			response.close();
+			throw ex;
+		}
+		HttpHeaders responseHeaders = new HttpHeaders();
+		responseHeaders.putAll(response.getHeaders());
+		response.close();
+
+		List<ContentCodingType> contentEncoding = responseHeaders.getContentEncoding();
+		if (contentEncoding.contains(ContentCodingType.GZIP) || contentEncoding.contains(ContentCodingType.DEFLATE)) {
+			// the body has been decompressed by the response
+			responseHeaders.remove(HttpHeaders.CONTENT_ENCODING);
+		}
+		responseHeaders.remove(HttpHeaders.TRANSFER_ENCODING);
+		responseHeaders.setContentLength(body.length);
+
+		HttpCacheEntry newEntry = new HttpCacheEntry(statusCode, statusText, responseHeaders, body,
+				requestTime, responseTime, varyHeaders);
+		cache.putEntry(key, newEntry);
+		return new CachedClientHttpResponse(newEntry, -1, false);
+	}
+
+	private static ClientHttpResponse execute(ClientHttpRequestFactory requestFactory, URI uri,
+			HttpHeaders headers, byte[] content) throws IOException {
+
+		ClientHttpRequest request = requestFactory.createRequest(uri, HttpMethod.GET);
+		request.getHeaders().putAll(headers);
+		if (content != null && content.length > 0) {
+			request.getBody().write(content);
+		}
+		return request.execute();
+	}
+
+	private static boolean isConditional(HttpHeaders headers) {
+		return (headers.containsKey(HttpHeaders.IF_NONE_MATCH) || headers.containsKey(HttpHeaders.IF_MODIFIED_SINCE) ||
+				headers.containsKey(HttpHeaders.IF_MATCH) || headers.containsKey(HttpHeaders.IF_UNMODIFIED_SINCE) ||
+				headers.containsKey(HttpHeaders.RANGE));
+	}
+
+	/**
+	 * Determine whether a response may be stored, see RFC 7234, section 3. Responses are
+	 * only stored if they carry freshness information or a validator, as others would
+	 * never be served from the cache.
+	 */
+	private static boolean isStorable(HttpHeaders requestHeaders, int statusCode, HttpHeaders responseHeaders) {
+		if (!CACHEABLE_STATUS_CODES.contains(statusCode)) {
+			return false;
+		}
+		CacheControl responseCacheControl = CacheControl.parse(responseHeaders);
+		if (responseCacheControl.isNoStore() || CacheControl.parse(requestHeaders).isNoStore()) {
+			return false;
+		}
+		return (responseCacheControl.getMaxAge() != -1 || responseHeaders.containsKey(HttpHeaders.EXPIRES) ||
+				responseHeaders.containsKey(HttpHeaders.ETAG) || responseHeaders.containsKey(HttpHeaders.LAST_MODIFIED));
+	}
+
+	/**
+	 * Return the values of the request headers named in the {@code Vary} response header,
+	 * or {@code null} if the response varies on everything ({@code Vary: *}).
+	 */
+	private static Map<String, String> getVaryHeaders(HttpHeaders requestHeaders, HttpHeaders responseHeaders) {
+		Map<String, String> varyHeaders = new LinkedHashMap<String, String>();
+		List<String> values = responseHeaders.get(HttpHeaders.VARY);
+		if (values != null) {
+			for (String value : values) {
+				for (String headerName : StringUtils.tokenizeToStringArray(value, ",")) {
+					if ("*".equals(headerName)) {
+						return null;
+					}
+					varyHeaders.put(headerName, HttpCacheEntry.getHeaderValue(requestHeaders, headerName));
+				}
+			}
+		}
+		return varyHeaders;
+	}
+
+	/**
+	 * Read the given stream up to one byte past the given limit, so that the caller
+	 * can tell whether the limit was exceeded.
+	 */
+	private static byte[] readBody(InputStream in, long limit) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int bytesRead;
+		while (out.size() <= limit &&
+				(bytesRead = in.read(buffer, 0, (int) Math.min(buffer.length, limit + 1 - out.size()))) != -1) {
+			out.write(buffer, 0, bytesRead);
+		}
+		return out.toByteArray();
+	}
+
+
+	/**
+	 * Response whose body consists of bytes already read from the wrapped response,
+	 * followed by the remainder of its body.
+	 */
+	private static class PartiallyReadClientHttpResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse response;
+
+		private final InputStream body;
+
+		PartiallyReadClientHttpResponse(ClientHttpResponse response, byte[] head, InputStream remainder) {
+			this.response = response;
+			this.body = new SequenceInputStream(new ByteArrayInputStream(head), remainder);
+		}
+
+		@Override
+		public HttpStatus getStatusCode() throws IOException {
+			return this.response.getStatusCode();
+		}
+
+		@Override
+		public int getRawStatusCode() throws IOException {
+			return this.response.getRawStatusCode();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return this.response.getStatusText();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.response.getHeaders();
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			return this.body;
+		}
+
+		@Override
+		public void close() {
+			this.response.close();
+		}
+	}
+
+}
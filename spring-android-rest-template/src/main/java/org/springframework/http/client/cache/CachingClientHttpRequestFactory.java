@@ -0,0 +1,259 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AbstractClientHttpRequestFactoryWrapper;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.util.Assert;
+
+import android.util.Log;
+
+/**
+ * Wrapper for a {@link ClientHttpRequestFactory} that caches responses to {@code GET}
+ * requests in an {@link HttpCacheStore}, following the rules of a private cache as
+ * described in <a href="https://tools.ietf.org/html/rfc7234">RFC 7234</a>.
+ *
+ * <p>A stored response is served without contacting the server for as long as it is
+ * fresh, as determined by its {@code Cache-Control: max-age} directive, its
+ * {@code Expires} header, or heuristically from its {@code Last-Modified} header.
+ * Once stale, it is revalidated with a conditional request using {@code If-None-Match}
+ * and {@code If-Modified-Since}; a {@code 304 Not Modified} response refreshes the stored
+ * entry. Responses carrying a {@code stale-while-revalidate} directive
+ * (<a href="https://tools.ietf.org/html/rfc5861">RFC 5861</a>) are served stale within
+ * that window while being revalidated in the background.
+ *
+ * <p>{@code Cache-Control: no-store}, {@code no-cache} and {@code max-age} on requests
+ * are honored as well, as are {@code Vary} headers on responses. A non-error response
+ * to an unsafe method, such as {@code POST} or {@code DELETE}, invalidates the stored
+ * responses for its URI and for the URIs in its {@code Location} and
+ * {@code Content-Location} headers.
+ *
+ * <p>Response bodies are buffered in memory in order to be stored, up to the
+ * {@linkplain #setMaxEntrySize(long) maximum entry size}; larger responses are passed
+ * through uncached.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see DiskLruHttpCacheStore
+ */
+public class CachingClientHttpRequestFactory extends AbstractClientHttpRequestFactoryWrapper
+		implements DisposableBean {
+
+	private static final String TAG = CachingClientHttpRequestFactory.class.getSimpleName();
+
+	/**
+	 * The default maximum size of a response body that is stored: 2 MB.
+	 */
+	public static final long DEFAULT_MAX_ENTRY_SIZE = 2 * 1024 * 1024;
+
+	private final HttpCacheStore cacheStore;
+
+	private long maxEntrySize = DEFAULT_MAX_ENTRY_SIZE;
+
+	private Executor revalidationExecutor;
+
+	private ExecutorService defaultRevalidationExecutor;
+
+	private final Set<String> revalidatingKeys = Collections.synchronizedSet(new HashSet<String>());
+
+
+	/**
+	 * Create a new {@code CachingClientHttpRequestFactory} for the given request factory
+	 * and cache store.
+	 * @param requestFactory the request factory to wrap
+	 * @param cacheStore the store to keep responses in
+	 */
+	public CachingClientHttpRequestFactory(ClientHttpRequestFactory requestFactory, HttpCacheStore cacheStore) {
+		super(requestFactory);
+		Assert.notNull(cacheStore, "'cacheStore' must not be null");
+		this.cacheStore = cacheStore;
+		this.defaultRevalidationExecutor = createDefaultRevalidationExecutor();
+		this.revalidationExecutor = this.defaultRevalidationExecutor;
+	}
+
+
+	/**
+	 * Return the store that responses are kept in.
+	 */
+	public HttpCacheStore getCacheStore() {
+		return this.cacheStore;
+	}
+
+	/**
+	 * Set the maximum size, in bytes, of a response body that is stored. Larger
+	 * responses are passed through without being buffered.
+	 * <p>Default is {@link #DEFAULT_MAX_ENTRY_SIZE}.
+	 */
+	public void setMaxEntrySize(long maxEntrySize) {
+		Assert.isTrue(maxEntrySize >= 0, "'maxEntrySize' must not be negative");
+		this.maxEntrySize = maxEntrySize;
+	}
+
+	/**
+	 * Return the maximum size, in bytes, of a response body that is stored.
+	 */
+	public long getMaxEntrySize() {
+		return this.maxEntrySize;
+	}
+
+	/**
+	 * Set the {@link Executor} used to revalidate responses served under
+	 * {@code stale-while-revalidate}.
+	 * <p>By default, a single background thread is used, which is shut down when
+	 * this factory is {@linkplain #destroy() destroyed}.
+	 */
+	public void setRevalidationExecutor(Executor revalidationExecutor) {
+		Assert.notNull(revalidationExecutor, "'revalidationExecutor' must not be null");
+		if (this.defaultRevalidationExecutor != null) {
+			this.defaultRevalidationExecutor.shutdown();
+			this.defaultRevalidationExecutor = null;
+		}
+		this.revalidationExecutor = revalidationExecutor;
+	}
+
+	/**
+	 * Return the {@link Executor} used to revalidate responses in the background.
+	 */
+	public Executor getRevalidationExecutor() {
+		return this.revalidationExecutor;
+	}
+
+	@Override
+	protected ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod, ClientHttpRequestFactory requestFactory)
+			throws IOException {
+		if (HttpMethod.GET == httpMethod) {
+			return new CachingClientHttpRequest(this, requestFactory, uri);
+		}
+		ClientHttpRequest request = requestFactory.createRequest(uri, httpMethod);
+		if (HttpMethod.POST == httpMethod || HttpMethod.PUT == httpMethod ||
+				HttpMethod.PATCH == httpMethod || HttpMethod.DELETE == httpMethod) {
+			return new InvalidatingClientHttpRequest(this, request);
+		}
+		return request;
+	}
+
+	/**
+	 * Return the key under which responses for the given URI are stored.
+	 * <p>The default implementation returns the string form of the URI.
+	 * @param uri the request URI
+	 * @return the cache key
+	 */
+	protected String getCacheKey(URI uri) {
+		return uri.toString();
+	}
+
+	/**
+	 * Remove all stored responses.
+	 * @throws IOException in case of I/O errors
+	 */
+	public void clear() throws IOException {
+		this.cacheStore.clear();
+	}
+
+	/**
+	 * Shut down the default revalidation executor, if used.
+	 */
+	@Override
+	public void destroy() {
+		if (this.defaultRevalidationExecutor != null) {
+			this.defaultRevalidationExecutor.shutdown();
+		}
+	}
+
+
+	HttpCacheEntry getEntry(String key) {
+		try {
+			return this.cacheStore.get(key);
+		}
+		catch (IOException ex) {
+			logStoreFailure("read", key, ex);
+			return null;
+		}
+	}
+
+	void putEntry(String key, HttpCacheEntry entry) {
+		try {
+			this.cacheStore.put(key, entry);
+		}
+		catch (IOException ex) {
+			logStoreFailure("write", key, ex);
+		}
+	}
+
+	void removeEntry(String key) {
+		try {
+			this.cacheStore.remove(key);
+		}
+		catch (IOException ex) {
+			logStoreFailure("remove", key, ex);
+		}
+	}
+
+	/**
+	 * Mark a background revalidation of the given key as started.
+	 * @return {@code false} if one is in progress already
+	 */
+	boolean startRevalidation(String key) {
+		return this.revalidatingKeys.add(key);
+	}
+
+	void finishRevalidation(String key) {
+		this.revalidatingKeys.remove(key);
+	}
+
+	private void logStoreFailure(String operation, String key, IOException ex) {
+		if (Log.isLoggable(TAG, Log.WARN)) {
+			Log.w(TAG, "Could not " + operation + " cache entry for \"" + key + "\"", ex);
+		}
+	}
+
+	private static ExecutorService createDefaultRevalidationExecutor() {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new RevalidationThreadFactory());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+
+	private static class RevalidationThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger threadCount = new AtomicInteger();
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "CachingClientHttpRequestFactory-" + this.threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
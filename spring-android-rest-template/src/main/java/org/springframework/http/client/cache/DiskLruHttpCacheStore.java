@@ -0,0 +1,264 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.util.Assert;
+
+import android.util.Log;
+
+/**
+ * {@link HttpCacheStore} implementation that keeps one file per entry in a directory,
+ * bounded in total size. When the size is exceeded, the least recently used entries are
+ * evicted.
+ *
+ * <p>Files are written to a temporary file first and then renamed, so that readers never
+ * observe a partially written entry. The access order is kept in memory, and persisted
+ * through the files' modification times, so that it survives restarts.
+ *
+ * <p>Entry files hold the cache key followed by the {@linkplain HttpCacheEntry#writeTo
+ * binary form} of the entry; they are named after an MD5 hash of the key.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+public class DiskLruHttpCacheStore implements HttpCacheStore {
+
+	private static final String TAG = DiskLruHttpCacheStore.class.getSimpleName();
+
+	private static final String ENTRY_SUFFIX = ".entry";
+
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private final File directory;
+
+	private final long maxSize;
+
+	private final LinkedHashMap<String, Long> index = new LinkedHashMap<String, Long>(16, 0.75f, true);
+
+	private long size;
+
+
+	/**
+	 * Create a new {@code DiskLruHttpCacheStore} in the given directory. Existing entries in
+	 * the directory are kept, up to the given maximum size.
+	 * @param directory the directory to store entries in; created if it does not exist
+	 * @param maxSize the maximum total size of all entries, in bytes
+	 */
+	public DiskLruHttpCacheStore(File directory, long maxSize) {
+		Assert.notNull(directory, "'directory' must not be null");
+		Assert.isTrue(maxSize > 0, "'maxSize' must be larger than 0");
+		directory.mkdirs();
+		Assert.isTrue(directory.isDirectory(), "'directory' [" + directory + "] is not a directory");
+		this.directory = directory;
+		this.maxSize = maxSize;
+		loadIndex();
+	}
+
+
+	/**
+	 * Return the directory that entries are stored in.
+	 */
+	public File getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * Return the maximum total size of all entries, in bytes.
+	 */
+	public long getMaxSize() {
+		return this.maxSize;
+	}
+
+	/**
+	 * Return the current total size of all entries, in bytes.
+	 */
+	public synchronized long getSize() {
+		return this.size;
+	}
+
+	@Override
+	public HttpCacheEntry get(String key) throws IOException {
+		String fileName = getFileName(key);
+		synchronized (this) {
+			if (this.index.get(fileName) == null) {
+				return null;
+			}
+		}
+		File file = new File(this.directory, fileName);
+		DataInputStream in;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		}
+		catch (FileNotFoundException ex) {
+			removeFile(fileName);
+			return null;
+		}
+		try {
+			if (!key.equals(in.readUTF())) {
+				return null;
+			}
+			HttpCacheEntry entry = HttpCacheEntry.readFrom(in);
+			file.setLastModified(System.currentTimeMillis());
+			return entry;
+		}
+		catch (IOException ex) {
+			if (Log.isLoggable(TAG, Log.WARN)) {
+				Log.w(TAG, "Removing unreadable cache entry " + file, ex);
+			}
+			removeFile(fileName);
+			return null;
+		}
+		finally {
+			try {
+				in.close();
+			}
+			catch (IOException ex) {
+				// ignore
+			}
+		}
+	}
+
+	@Override
+	public void put(String key, HttpCacheEntry entry) throws IOException {
+		String fileName = getFileName(key);
+		File tempFile = File.createTempFile(fileName, TEMP_SUFFIX, this.directory);
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			try {
+				out.writeUTF(key);
+				entry.writeTo(out);
+			}
+			finally {
+				out.close();
+			}
+			long length = tempFile.length();
+			if (length > this.maxSize) {
+				remove(key);
+				return;
+			}
+			synchronized (this) {
+				File file = new File(this.directory, fileName);
+				if (!tempFile.renameTo(file)) {
+					throw new IOException("Could not rename " + tempFile + " to " + file);
+				}
+				Long previous = this.index.put(fileName, length);
+				this.size += length - (previous != null ? previous : 0);
+				trimToSize();
+			}
+		}
+		finally {
+			tempFile.delete();
+		}
+	}
+
+	@Override
+	public void remove(String key) throws IOException {
+		removeFile(getFileName(key));
+	}
+
+	@Override
+	public synchronized void clear() throws IOException {
+		for (String fileName : this.index.keySet()) {
+			new File(this.directory, fileName).delete();
+		}
+		this.index.clear();
+		this.size = 0;
+	}
+
+	private synchronized void removeFile(String fileName) {
+		Long length = this.index.remove(fileName);
+		if (length != null) {
+			this.size -= length;
+			new File(this.directory, fileName).delete();
+		}
+	}
+
+	private void trimToSize() {
+		Iterator<Map.Entry<String, Long>> iterator = this.index.entrySet().iterator();
+		while (this.size > this.maxSize && iterator.hasNext()) {
+			Map.Entry<String, Long> eldest = iterator.next();
+			new File(this.directory, eldest.getKey()).delete();
+			this.size -= eldest.getValue();
+			iterator.remove();
+		}
+	}
+
+	private synchronized void loadIndex() {
+		File[] files = this.directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File file1, File file2) {
+				long lastModified1 = file1.lastModified();
+				long lastModified2 = file2.lastModified();
+				return (lastModified1 < lastModified2 ? -1 : (lastModified1 == lastModified2 ? 0 : 1));
+			}
+		});
+		for (File file : files) {
+			String fileName = file.getName();
+			if (fileName.endsWith(TEMP_SUFFIX)) {
+				file.delete();
+			}
+			else if (fileName.endsWith(ENTRY_SUFFIX)) {
+				long length = file.length();
+				this.index.put(fileName, length);
+				this.size += length;
+			}
+		}
+		trimToSize();
+	}
+
+	private static String getFileName(String key) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("MD5");
+			byte[] hash = digest.digest(key.getBytes("UTF-8"));
+			StringBuilder builder = new StringBuilder(hash.length * 2 + ENTRY_SUFFIX.length());
+			for (byte b : hash) {
+				builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+				builder.append(Character.forDigit(b & 0xF, 16));
+			}
+			return builder.append(ENTRY_SUFFIX).toString();
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+		catch (UnsupportedEncodingException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * A response stored in an {@link HttpCacheStore}: the status, headers and body of the
+ * response, the times at which it was requested and received, and the values of the
+ * request headers it {@code Vary}s on.
+ *
+ * <p>Entries are immutable and can be written to and read from a compact binary format
+ * by means of {@link #writeTo(OutputStream)} and {@link #readFrom(InputStream)}.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+public final class HttpCacheEntry {
+
+	private static final int FORMAT_MAGIC = 0x53414301;
+
+	private static final long MAX_HEURISTIC_LIFETIME = 24 * 60 * 60 * 1000L;
+
+	private final int statusCode;
+
+	private final String statusText;
+
+	private final HttpHeaders headers;
+
+	private final byte[] body;
+
+	private final long requestTime;
+
+	private final long responseTime;
+
+	private final Map<String, String> varyHeaders;
+
+
+	/**
+	 * Create a new {@code HttpCacheEntry}.
+	 * @param statusCode the raw HTTP status code of the response
+	 * @param statusText the HTTP status text of the response
+	 * @param headers the response headers
+	 * @param body the response body
+	 * @param requestTime the time at which the request was sent, in milliseconds
+	 * @param responseTime the time at which the response was received, in milliseconds
+	 * @param varyHeaders the values of the request headers named in the response's
+	 * {@code Vary} header; may be {@code null}
+	 */
+	public HttpCacheEntry(int statusCode, String statusText, HttpHeaders headers, byte[] body,
+			long requestTime, long responseTime, Map<String, String> varyHeaders) {
+		this.statusCode = statusCode;
+		this.statusText = (statusText != null ? statusText : "");
+		this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+		this.body = (body != null ? body : new byte[0]);
+		this.requestTime = requestTime;
+		this.responseTime = responseTime;
+		this.varyHeaders = (varyHeaders != null ? Collections.unmodifiableMap(varyHeaders) :
+				Collections.<String, String>emptyMap());
+	}
+
+
+	/**
+	 * Return the raw HTTP status code of the stored response.
+	 */
+	public int getStatusCode() {
+		return this.statusCode;
+	}
+
+	/**
+	 * Return the HTTP status text of the stored response.
+	 */
+	public String getStatusText() {
+		return this.statusText;
+	}
+
+	/**
+	 * Return the (read-only) headers of the stored response.
+	 */
+	public HttpHeaders getHeaders() {
+		return this.headers;
+	}
+
+	/**
+	 * Return the body of the stored response.
+	 */
+	public byte[] getBody() {
+		return this.body;
+	}
+
+	/**
+	 * Return the time at which the request for the stored response was sent.
+	 */
+	public long getRequestTime() {
+		return this.requestTime;
+	}
+
+	/**
+	 * Return the time at which the stored response was received.
+	 */
+	public long getResponseTime() {
+		return this.responseTime;
+	}
+
+	/**
+	 * Return the values of the request headers that the stored response varies on.
+	 */
+	public Map<String, String> getVaryHeaders() {
+		return this.varyHeaders;
+	}
+
+	/**
+	 * Indicate whether the given request headers select this entry, i.e. whether they
+	 * have the same values for all headers that the stored response varies on.
+	 */
+	public boolean matchesVaryHeaders(HttpHeaders requestHeaders) {
+		for (Map.Entry<String, String> entry : this.varyHeaders.entrySet()) {
+			if (!ObjectUtils.nullSafeEquals(entry.getValue(), getHeaderValue(requestHeaders, entry.getKey()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return the freshness lifetime of the stored response in milliseconds, based on its
+	 * {@code max-age} directive, its {@code Expires} header or, failing those, a heuristic
+	 * of 10% of the time since it was last modified, up to one day.
+	 * @see <a href="https://tools.ietf.org/html/rfc7234#section-4.2.1">RFC 7234, section 4.2.1</a>
+	 */
+	public long getFreshnessLifetime() {
+		CacheControl cacheControl = CacheControl.parse(this.headers);
+		if (cacheControl.getMaxAge() != -1) {
+			return cacheControl.getMaxAge() * 1000;
+		}
+		long date = getDate();
+		long expires = this.headers.getExpires();
+		if (expires != -1) {
+			return Math.max(0, expires - date);
+		}
+		long lastModified = getDateHeader(HttpHeaders.LAST_MODIFIED);
+		if (lastModified != -1 && lastModified < date) {
+			return Math.min((date - lastModified) / 10, MAX_HEURISTIC_LIFETIME);
+		}
+		return 0;
+	}
+
+	/**
+	 * Return the current age of the stored response in milliseconds.
+	 * @param now the current time in milliseconds
+	 * @see <a href="https://tools.ietf.org/html/rfc7234#section-4.2.3">RFC 7234, section 4.2.3</a>
+	 */
+	public long getCurrentAge(long now) {
+		long apparentAge = Math.max(0, this.responseTime - getDate());
+		long ageValue = 0;
+		String age = this.headers.getFirst(HttpHeaders.AGE);
+		if (age != null) {
+			try {
+				ageValue = Math.max(0, Long.parseLong(age.trim())) * 1000;
+			}
+			catch (NumberFormatException ex) {
+				// ignore
+			}
+		}
+		long correctedAgeValue = ageValue + (this.responseTime - this.requestTime);
+		long correctedInitialAge = Math.max(apparentAge, correctedAgeValue);
+		return correctedInitialAge + Math.max(0, now - this.responseTime);
+	}
+
+	/**
+	 * Return a copy of this entry whose headers are updated with those of a
+	 * {@code 304 Not Modified} response received on revalidation.
+	 * @param notModifiedHeaders the headers of the {@code 304} response
+	 * @param requestTime the time at which the revalidation request was sent
+	 * @param responseTime the time at which the {@code 304} response was received
+	 * @see <a href="https://tools.ietf.org/html/rfc7234#section-4.3.4">RFC 7234, section 4.3.4</a>
+	 */
+	public HttpCacheEntry revalidated(HttpHeaders notModifiedHeaders, long requestTime, long responseTime) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.putAll(this.headers);
+		for (Map.Entry<String, List<String>> entry : notModifiedHeaders.entrySet()) {
+			String name = entry.getKey();
+			if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) &&
+					!HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) &&
+					!HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+				headers.put(name, entry.getValue());
+			}
+		}
+		return new HttpCacheEntry(this.statusCode, this.statusText, headers, this.body,
+				requestTime, responseTime, this.varyHeaders);
+	}
+
+	private long getDate() {
+		long date = getDateHeader(HttpHeaders.DATE);
+		return (date != -1 ? date : this.responseTime);
+	}
+
+	private long getDateHeader(String headerName) {
+		try {
+			return this.headers.getFirstDate(headerName);
+		}
+		catch (IllegalArgumentException ex) {
+			return -1;
+		}
+	}
+
+
+	/**
+	 * Write this entry to the given stream. Does not close the stream.
+	 * @param outputStream the stream to write to
+	 * @throws IOException in case of I/O errors, or if a header value is too long
+	 * to be stored
+	 */
+	public void writeTo(OutputStream outputStream) throws IOException {
+		DataOutputStream out = new DataOutputStream(outputStream);
+		out.writeInt(FORMAT_MAGIC);
+		out.writeShort(this.statusCode);
+		out.writeUTF(this.statusText);
+		out.writeLong(this.requestTime);
+		out.writeLong(this.responseTime);
+		out.writeShort(this.headers.size());
+		for (Map.Entry<String, List<String>> entry : this.headers.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeShort(entry.getValue().size());
+			for (String value : entry.getValue()) {
+				out.writeUTF(value);
+			}
+		}
+		out.writeShort(this.varyHeaders.size());
+		for (Map.Entry<String, String> entry : this.varyHeaders.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeBoolean(entry.getValue() != null);
+			if (entry.getValue() != null) {
+				out.writeUTF(entry.getValue());
+			}
+		}
+		out.writeInt(this.body.length);
+		out.write(this.body);
+		out.flush();
+	}
+
+	/**
+	 * Read an entry from the given stream, as written by {@link #writeTo(OutputStream)}.
+	 * Does not close the stream.
+	 * @param inputStream the stream to read from
+	 * @return the entry
+	 * @throws IOException in case of I/O errors, or if the stream does not contain an entry
+	 */
+	public static HttpCacheEntry readFrom(InputStream inputStream) throws IOException {
+		DataInputStream in = new DataInputStream(inputStream);
+		if (in.readInt() != FORMAT_MAGIC) {
+			throw new IOException("Not a cache entry, or unsupported format version");
+		}
+		int statusCode = in.readUnsignedShort();
+		String statusText = in.readUTF();
+		long requestTime = in.readLong();
+		long responseTime = in.readLong();
+		HttpHeaders headers = new HttpHeaders();
+		int headerCount = in.readUnsignedShort();
+		for (int i = 0; i < headerCount; i++) {
+			String name = in.readUTF();
+			int valueCount = in.readUnsignedShort();
+			List<String> values = new ArrayList<String>(valueCount);
+			for (int j = 0; j < valueCount; j++) {
+				values.add(in.readUTF());
+			}
+			headers.put(name, values);
+		}
+		Map<String, String> varyHeaders = new LinkedHashMap<String, String>();
+		int varyCount = in.readUnsignedShort();
+		for (int i = 0; i < varyCount; i++) {
+			String name = in.readUTF();
+			varyHeaders.put(name, in.readBoolean() ? in.readUTF() : null);
+		}
+		byte[] body = new byte[in.readInt()];
+		in.readFully(body);
+		return new HttpCacheEntry(statusCode, statusText, headers, body, requestTime, responseTime, varyHeaders);
+	}
+
+	/**
+	 * Return the values of the given request header as a single comma-separated
+	 * string, or {@code null} if the header is absent.
+	 */
+	static String getHeaderValue(HttpHeaders requestHeaders, String headerName) {
+		List<String> values = requestHeaders.get(headerName);
+		return (values != null ? StringUtils.collectionToCommaDelimitedString(values) : null);
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.io.IOException;
+
+/**
+ * Strategy interface for the storage used by a {@link CachingClientHttpRequestFactory}.
+ *
+ * <p>Implementations must be thread-safe. Failures are reported as {@link IOException}s;
+ * the caching request factory treats them as cache misses rather than failing requests.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see DiskLruHttpCacheStore
+ */
+public interface HttpCacheStore {
+
+	/**
+	 * Return the entry stored under the given key.
+	 * @param key the cache key
+	 * @return the entry, or {@code null} if none
+	 * @throws IOException in case of I/O errors
+	 */
+	HttpCacheEntry get(String key) throws IOException;
+
+	/**
+	 * Store the given entry under the given key, replacing any existing entry.
+	 * @param key the cache key
+	 * @param entry the entry to store
+	 * @throws IOException in case of I/O errors
+	 */
+	void put(String key, HttpCacheEntry entry) throws IOException;
+
+	/**
+	 * Remove the entry stored under the given key, if any.
+	 * @param key the cache key
+	 * @throws IOException in case of I/O errors
+	 */
+	void remove(String key) throws IOException;
+
+	/**
+	 * Remove all entries from this store.
+	 * @throws IOException in case of I/O errors
+	 */
+	void clear() throws IOException;
+
+}
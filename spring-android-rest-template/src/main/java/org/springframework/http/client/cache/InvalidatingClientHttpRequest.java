@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * {@link ClientHttpRequest} implementation for unsafe methods, such as {@code POST} or
+ * {@code DELETE}, that invalidates the responses stored by a
+ * {@link CachingClientHttpRequestFactory} once its delegate returns a non-error response.
+ *
+ * <p>Created via the {@link CachingClientHttpRequestFactory}.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+final class InvalidatingClientHttpRequest implements ClientHttpRequest, StreamingHttpOutputMessage {
+
+	private final CachingClientHttpRequestFactory cache;
+
+	private final ClientHttpRequest delegate;
+
+	private Body body;
+
+
+	InvalidatingClientHttpRequest(CachingClientHttpRequestFactory cache, ClientHttpRequest delegate) {
+		this.cache = cache;
+		this.delegate = delegate;
+	}
+
+
+	public HttpMethod getMethod() {
+		return this.delegate.getMethod();
+	}
+
+	public URI getURI() {
+		return this.delegate.getURI();
+	}
+
+	public HttpHeaders getHeaders() {
+		return this.delegate.getHeaders();
+	}
+
+	public OutputStream getBody() throws IOException {
+		return this.delegate.getBody();
+	}
+
+	public void setBody(Body body) {
+		if (this.delegate instanceof StreamingHttpOutputMessage) {
+			((StreamingHttpOutputMessage) this.delegate).setBody(body);
+		}
+		else {
+			this.body = body;
+		}
+	}
+
+	public ClientHttpResponse execute() throws IOException {
+		if (this.body != null) {
+			this.body.writeTo(this.delegate.getBody());
+		}
+		ClientHttpResponse response = this.delegate.execute();
+		int statusCode = response.getRawStatusCode();
+		// RFC 7234, section 4.4: only a non-error response invalidates the stored responses
+		if (statusCode >= 200 && statusCode < 400) {
+			URI uri = getURI();
+			invalidate(uri, uri);
+			HttpHeaders headers = response.getHeaders();
+			invalidate(uri, headers.getFirst(HttpHeaders.LOCATION));
+			invalidate(uri, headers.getFirst(HttpHeaders.CONTENT_LOCATION));
+		}
+		return response;
+	}
+
+	private void invalidate(URI requestUri, String location) {
+		if (location != null) {
+			try {
+				invalidate(requestUri, requestUri.resolve(location));
+			}
+			catch (IllegalArgumentException ex) {
+				// not a valid URI reference, nothing to invalidate
+			}
+		}
+	}
+
+	private void invalidate(URI requestUri, URI uri) {
+		// a response must not invalidate the responses of another host
+		String host = uri.getHost();
+		if (host != null && host.equalsIgnoreCase(requestUri.getHost())) {
+			this.cache.removeEntry(this.cache.getCacheKey(uri));
+		}
+	}
+
+}
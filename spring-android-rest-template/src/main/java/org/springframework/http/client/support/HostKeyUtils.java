@@ -0,0 +1,53 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.support;
+
+import java.net.URI;
+import java.util.Locale;
+
+/**
+ * Miscellaneous methods for keying per-host state, such as circuit breakers and
+ * concurrency limits, by the origin of a request URI.
+ *
+ * <p>Mainly for internal use within the framework.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+public abstract class HostKeyUtils {
+
+	/**
+	 * Return the key of the origin of the given URI: {@code scheme://host:port}, with
+	 * the scheme and host in lower case and the port omitted if not specified.
+	 * @param uri the request URI
+	 * @return the key of the origin
+	 */
+	public static String getHostKey(URI uri) {
+		StringBuilder builder = new StringBuilder();
+		if (uri.getScheme() != null) {
+			builder.append(uri.getScheme().toLowerCase(Locale.ENGLISH)).append("://");
+		}
+		if (uri.getHost() != null) {
+			builder.append(uri.getHost().toLowerCase(Locale.ENGLISH));
+		}
+		if (uri.getPort() != -1) {
+			builder.append(':').append(uri.getPort());
+		}
+		return builder.toString();
+	}
+
+}
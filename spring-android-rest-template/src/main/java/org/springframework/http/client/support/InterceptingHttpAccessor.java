@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2016 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,8 @@ import java.util.ArrayList;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.InterceptingClientHttpRequestFactory;
+import org.springframework.http.client.StreamingClientHttpRequestInterceptor;
+import org.springframework.http.client.StreamingInterceptingClientHttpRequestFactory;
 import org.springframework.util.CollectionUtils;
 
 /**
@@ -31,12 +33,16 @@ import org.springframework.util.CollectionUtils;
  * <p>Not intended to be used directly. See {@link org.springframework.web.client.RestTemplate}.
  *
  * @author Arjen Poutsma
+ * @author Roy Clarkson
  * @since 1.0
  */
 public abstract class InterceptingHttpAccessor extends HttpAccessor {
 
 	private List<ClientHttpRequestInterceptor> interceptors = new ArrayList<ClientHttpRequestInterceptor>();
 
+	private List<StreamingClientHttpRequestInterceptor> streamingInterceptors =
+			new ArrayList<StreamingClientHttpRequestInterceptor>();
+
 	/**
 	 * Sets the request interceptors that this accessor should use.
 	 */
@@ -51,9 +57,31 @@ public abstract class InterceptingHttpAccessor extends HttpAccessor {
 		return this.interceptors;
 	}
 
+	/**
+	 * Sets the streaming request interceptors that this accessor should use.
+	 * <p>Streaming interceptors do not buffer the request body. They are applied after
+	 * any {@linkplain #setInterceptors(List) regular interceptors}; note that registering
+	 * a regular interceptor still causes the request body to be buffered.
+	 * @since 2.0
+	 */
+	public void setStreamingInterceptors(List<StreamingClientHttpRequestInterceptor> streamingInterceptors) {
+		this.streamingInterceptors = streamingInterceptors;
+	}
+
+	/**
+	 * Return the streaming request interceptors that this accessor uses.
+	 * @since 2.0
+	 */
+	public List<StreamingClientHttpRequestInterceptor> getStreamingInterceptors() {
+		return this.streamingInterceptors;
+	}
+
 	@Override
 	public ClientHttpRequestFactory getRequestFactory() {
 		ClientHttpRequestFactory delegate = super.getRequestFactory();
+		if (!CollectionUtils.isEmpty(getStreamingInterceptors())) {
+			delegate = new StreamingInterceptingClientHttpRequestFactory(delegate, getStreamingInterceptors());
+		}
 		if (!CollectionUtils.isEmpty(getInterceptors())) {
 			return new InterceptingClientHttpRequestFactory(delegate, getInterceptors());
 		}
@@ -17,6 +17,7 @@
 package org.springframework.http.converter;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -26,6 +27,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
 import org.springframework.util.Assert;
 
 /**
@@ -150,12 +152,13 @@ public abstract class AbstractHttpMessageConverter<T> implements HttpMessageConv
 	/**
 	 * This implementation delegates to {@link #getDefaultContentType(Object)} if a content
 	 * type was not provided, calls {@link #getContentLength}, and sets the corresponding headers
-	 * on the output message. It then calls {@link #writeInternal}.
+	 * on the output message. It then calls {@link #writeInternal}, directly or, for a
+	 * {@link StreamingHttpOutputMessage}, once the request body is actually written.
 	 */
-	public final void write(T t, MediaType contentType, HttpOutputMessage outputMessage)
+	public final void write(final T t, MediaType contentType, HttpOutputMessage outputMessage)
 			throws IOException, HttpMessageNotWritableException {
 
-		HttpHeaders headers = outputMessage.getHeaders();
+		final HttpHeaders headers = outputMessage.getHeaders();
 		if (headers.getContentType() == null) {
 			MediaType contentTypeToUse = contentType;
 			if (contentType == null || contentType.isWildcardType() || contentType.isWildcardSubtype()) {
@@ -171,8 +174,28 @@ public abstract class AbstractHttpMessageConverter<T> implements HttpMessageConv
 				headers.setContentLength(contentLength);
 			}
 		}
-		writeInternal(t, outputMessage);
-		outputMessage.getBody().flush();
+		if (outputMessage instanceof StreamingHttpOutputMessage) {
+			StreamingHttpOutputMessage streamingOutputMessage = (StreamingHttpOutputMessage) outputMessage;
+			streamingOutputMessage.setBody(new StreamingHttpOutputMessage.Body() {
+				@Override
+				public void writeTo(final OutputStream outputStream) throws IOException {
+					writeInternal(t, new HttpOutputMessage() {
+						@Override
+						public OutputStream getBody() throws IOException {
+							return outputStream;
+						}
+						@Override
+						public HttpHeaders getHeaders() {
+							return headers;
+						}
+					});
+				}
+			});
+		}
+		else {
+			writeInternal(t, outputMessage);
+			outputMessage.getBody().flush();
+		}
 	}
 
 	/**
@@ -16,6 +16,7 @@
 
 package org.springframework.http.converter;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
@@ -29,12 +30,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
 import org.springframework.util.Assert;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -77,6 +80,8 @@ public class FormHttpMessageConverter implements HttpMessageConverter<MultiValue
 					'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U',
 					'V', 'W', 'X', 'Y', 'Z'};
 
+	private static final int MULTIPART_BUFFER_SIZE = 8192;
+
 	private final Random rnd = new Random();
 
 	private Charset charset = Charset.forName("UTF-8");
@@ -243,21 +248,58 @@ public class FormHttpMessageConverter implements HttpMessageConverter<MultiValue
 				builder.append('&');
 			}
 		}
-		byte[] bytes = builder.toString().getBytes(charset.name());
+		final byte[] bytes = builder.toString().getBytes(charset.name());
 		outputMessage.getHeaders().setContentLength(bytes.length);
-		StreamUtils.copy(bytes, outputMessage.getBody());
+
+		if (outputMessage instanceof StreamingHttpOutputMessage) {
+			StreamingHttpOutputMessage streamingOutputMessage = (StreamingHttpOutputMessage) outputMessage;
+			streamingOutputMessage.setBody(new StreamingHttpOutputMessage.Body() {
+				@Override
+				public void writeTo(OutputStream outputStream) throws IOException {
+					StreamUtils.copy(bytes, outputStream);
+				}
+			});
+		}
+		else {
+			StreamUtils.copy(bytes, outputMessage.getBody());
+		}
 	}
 
-	private void writeMultipart(MultiValueMap<String, Object> parts, HttpOutputMessage outputMessage)
+	private void writeMultipart(final MultiValueMap<String, Object> parts, HttpOutputMessage outputMessage)
 			throws IOException {
-		byte[] boundary = generateMultipartBoundary();
+		final byte[] boundary = generateMultipartBoundary();
 
 		Map<String, String> parameters = Collections.singletonMap("boundary", new String(boundary, "US-ASCII"));
 		MediaType contentType = new MediaType(MediaType.MULTIPART_FORM_DATA, parameters);
 		outputMessage.getHeaders().setContentType(contentType);
+		if (outputMessage.getHeaders().getContentLength() == -1) {
+			long contentLength = getMultipartContentLength(parts, boundary);
+			if (contentLength != -1) {
+				outputMessage.getHeaders().setContentLength(contentLength);
+			}
+		}
+
+		if (outputMessage instanceof StreamingHttpOutputMessage) {
+			StreamingHttpOutputMessage streamingOutputMessage = (StreamingHttpOutputMessage) outputMessage;
+			streamingOutputMessage.setBody(new StreamingHttpOutputMessage.Body() {
+				@Override
+				public void writeTo(OutputStream outputStream) throws IOException {
+					writeMultipart(parts, boundary, outputStream);
+				}
+			});
+		}
+		else {
+			writeMultipart(parts, boundary, outputMessage.getBody());
+		}
+	}
 
-		writeParts(outputMessage.getBody(), parts, boundary);
-		writeEnd(boundary, outputMessage.getBody());
+	private void writeMultipart(MultiValueMap<String, Object> parts, byte[] boundary, OutputStream outputStream)
+			throws IOException {
+		// coalesce the small writes of boundaries and headers, while large part bodies pass through
+		OutputStream os = new BufferedOutputStream(outputStream, MULTIPART_BUFFER_SIZE);
+		writeParts(os, parts, boundary);
+		writeEnd(boundary, os);
+		os.flush();
 	}
 
 	private void writeParts(OutputStream os, MultiValueMap<String, Object> parts, byte[] boundary) throws IOException {
@@ -267,13 +309,65 @@ public class FormHttpMessageConverter implements HttpMessageConverter<MultiValue
 				if (part != null) {
 					writeBoundary(boundary, os);
 					HttpEntity entity = getEntity(part);
-					writePart(name, entity, os);
+					writePart(name, entity, new MultipartHttpOutputMessage(os));
 					writeNewLine(os);
 				}
 			}
 		}
 	}
 
+	/**
+	 * Return the exact length of the multipart body, or -1 if the length of any part is unknown.
+	 * <p>Only {@code byte[]}, {@code String} and {@code Resource} parts can have a known length.
+	 * The headers of each part are determined by letting its converter write them, and the
+	 * length of its body is taken from the {@code Content-Length} header set by the
+	 * converter, so that the content itself is not read.
+	 */
+	private long getMultipartContentLength(MultiValueMap<String, Object> parts, byte[] boundary) {
+		long contentLength = 0;
+		for (Map.Entry<String, List<Object>> entry : parts.entrySet()) {
+			String name = entry.getKey();
+			for (Object part : entry.getValue()) {
+				if (part != null) {
+					long partLength = getPartLength(name, getEntity(part));
+					if (partLength == -1) {
+						return -1;
+					}
+					// "--" boundary CRLF, part, CRLF
+					contentLength += boundary.length + 4 + partLength + 2;
+				}
+			}
+		}
+		// "--" boundary "--" CRLF
+		return contentLength + boundary.length + 6;
+	}
+
+	private long getPartLength(String name, HttpEntity partEntity) {
+		Object partBody = partEntity.getBody();
+		if (!(partBody instanceof byte[] || partBody instanceof String || partBody instanceof Resource) ||
+				partBody instanceof InputStreamResource) {
+			// an InputStreamResource can only be read once
+			return -1;
+		}
+		ByteCountingOutputStream headerCounter = new ByteCountingOutputStream();
+		MultipartHttpOutputMessage outputMessage = new MultipartHttpOutputMessage(headerCounter, true);
+		try {
+			writePart(name, partEntity, outputMessage);
+		}
+		catch (Exception ex) {
+			// either the end of the part headers, or a failure that writing the part will report
+			if (!outputMessage.headersWritten) {
+				return -1;
+			}
+		}
+		if (!outputMessage.headersWritten) {
+			// nothing is written for this part
+			return 0;
+		}
+		long contentLength = outputMessage.headers.getContentLength();
+		return (contentLength != -1 ? headerCounter.count + contentLength : -1);
+	}
+
 	private void writeBoundary(byte[] boundary, OutputStream os) throws IOException {
 		os.write('-');
 		os.write('-');
@@ -292,14 +386,14 @@ public class FormHttpMessageConverter implements HttpMessageConverter<MultiValue
 	}
 
 	@SuppressWarnings("unchecked")
-	private void writePart(String name, HttpEntity partEntity, OutputStream os) throws IOException {
+	private void writePart(String name, HttpEntity partEntity, MultipartHttpOutputMessage multipartOutputMessage)
+			throws IOException {
 		Object partBody = partEntity.getBody();
 		Class<?> partType = partBody.getClass();
 		HttpHeaders partHeaders = partEntity.getHeaders();
 		MediaType partContentType = partHeaders.getContentType();
 		for (HttpMessageConverter messageConverter : partConverters) {
 			if (messageConverter.canWrite(partType, partContentType)) {
-				HttpOutputMessage multipartOutputMessage = new MultipartHttpOutputMessage(os);
 				multipartOutputMessage.getHeaders().setContentDispositionFormData(name, getFilename(partBody));
 				if (!partHeaders.isEmpty()) {
 					multipartOutputMessage.getHeaders().putAll(partHeaders);
@@ -361,6 +455,7 @@ public class FormHttpMessageConverter implements HttpMessageConverter<MultiValue
 
 	/**
 	 * Implementation of {@link org.springframework.http.HttpOutputMessage} used for writing multipart data.
+	 * When only probing for the part headers, the body is not written.
 	 */
 	private class MultipartHttpOutputMessage implements HttpOutputMessage {
 
@@ -368,10 +463,17 @@ public class FormHttpMessageConverter implements HttpMessageConverter<MultiValue
 
 		private final OutputStream os;
 
+		private final boolean headersOnly;
+
 		private boolean headersWritten = false;
 
 		public MultipartHttpOutputMessage(OutputStream os) {
+			this(os, false);
+		}
+
+		public MultipartHttpOutputMessage(OutputStream os, boolean headersOnly) {
 			this.os = os;
+			this.headersOnly = headersOnly;
 		}
 
 		public HttpHeaders getHeaders() {
@@ -380,6 +482,9 @@ public class FormHttpMessageConverter implements HttpMessageConverter<MultiValue
 
 		public OutputStream getBody() throws IOException {
 			writeHeaders();
+			if (this.headersOnly) {
+				throw new PartHeadersWrittenException();
+			}
 			return this.os;
 		}
 
@@ -412,4 +517,32 @@ public class FormHttpMessageConverter implements HttpMessageConverter<MultiValue
 		}
 	}
 
+
+	/**
+	 * Signals that the headers of a part have been written while probing for them.
+	 */
+	private static class PartHeadersWrittenException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+	}
+
+
+	/**
+	 * {@link OutputStream} that only counts the bytes written to it.
+	 */
+	private static class ByteCountingOutputStream extends OutputStream {
+
+		private long count;
+
+		@Override
+		public void write(int b) {
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			this.count += len;
+		}
+	}
+
 }
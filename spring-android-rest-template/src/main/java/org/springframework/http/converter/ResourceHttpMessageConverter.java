@@ -16,8 +16,13 @@
 
 package org.springframework.http.converter;
 
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.InputStreamResource;
@@ -33,14 +38,38 @@ import org.springframework.util.StreamUtils;
  * <p>By default, this converter can read all media types. Written resources use
  * {@code application/octet-stream} for the {@code Content-Type}.
  *
+ * <p>A {@code Resource} is read into memory. When an {@link InputStreamResource} is
+ * requested instead, the body is streamed as a {@link ResponseBodyResource}, unless
+ * read streaming is disabled; the resource must then be closed by the caller.
+ *
  * @author Arjen Poutsma
  * @author Roy Clarkson
  * @since 1.0
  */
 public class ResourceHttpMessageConverter extends AbstractHttpMessageConverter<Resource> {
 
+	private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+	private final boolean supportsReadStreaming;
+
+
+	/**
+	 * Create a new instance of the {@code ResourceHttpMessageConverter}
+	 * that supports read streaming.
+	 */
 	public ResourceHttpMessageConverter() {
+		this(true);
+	}
+
+	/**
+	 * Create a new instance of the {@code ResourceHttpMessageConverter}.
+	 * @param supportsReadStreaming whether an {@link InputStreamResource} is read by
+	 * streaming the body rather than reading it into memory
+	 * @since 2.0
+	 */
+	public ResourceHttpMessageConverter(boolean supportsReadStreaming) {
 		super(MediaType.ALL);
+		this.supportsReadStreaming = supportsReadStreaming;
 	}
 
 
@@ -53,6 +82,10 @@ public class ResourceHttpMessageConverter extends AbstractHttpMessageConverter<R
 	protected Resource readInternal(Class<? extends Resource> clazz, HttpInputMessage inputMessage)
 			throws IOException, HttpMessageNotReadableException {
 
+		if (this.supportsReadStreaming && clazz.isAssignableFrom(ResponseBodyResource.class) &&
+				InputStreamResource.class.isAssignableFrom(clazz)) {
+			return new ResponseBodyResource(inputMessage);
+		}
 		byte[] body = StreamUtils.copyToByteArray(inputMessage.getBody());
 		return new ByteArrayResource(body);
 	}
@@ -66,6 +99,10 @@ public class ResourceHttpMessageConverter extends AbstractHttpMessageConverter<R
 	protected Long getContentLength(Resource resource, MediaType contentType) throws IOException {
 		// Don't try to determine contentLength on InputStreamResource - cannot be read afterwards...
 		// Note: custom InputStreamResource subclasses could provide a pre-calculated content length!
+		if (resource instanceof ResponseBodyResource) {
+			long contentLength = ((ResponseBodyResource) resource).getHeaders().getContentLength();
+			return (contentLength != -1 ? contentLength : null);
+		}
 		return (InputStreamResource.class.equals(resource.getClass()) ? null : resource.contentLength());
 	}
 
@@ -75,7 +112,31 @@ public class ResourceHttpMessageConverter extends AbstractHttpMessageConverter<R
 
 		InputStream in = resource.getInputStream();
 		try {
-			StreamUtils.copy(in, outputMessage.getBody());
+			OutputStream out = outputMessage.getBody();
+			WritableByteChannel target = getChannel(out);
+			if (in instanceof FileInputStream && target != null) {
+				// let the file system move the data, without copying it through the heap
+				FileChannel source = ((FileInputStream) in).getChannel();
+				long position = source.position();
+				long size = source.size();
+				while (position < size) {
+					long transferred = source.transferTo(position, size - position, target);
+					if (transferred == 0) {
+						// the target accepts no more bytes for now, or the file has shrunk
+						source.position(position);
+						position += copy(in, out, size - position);
+						break;
+					}
+					position += transferred;
+				}
+				if (position < size) {
+					throw new IOException("Resource [" + resource + "] ended after " + position + " of " + size +
+							" bytes; was the file truncated while being written?");
+				}
+			}
+			else {
+				copy(in, out, Long.MAX_VALUE);
+			}
 		}
 		finally {
 			try {
@@ -87,4 +148,30 @@ public class ResourceHttpMessageConverter extends AbstractHttpMessageConverter<R
 		outputMessage.getBody().flush();
 	}
 
+	/**
+	 * Copy at most the given number of bytes, and return the number of bytes copied.
+	 */
+	private static long copy(InputStream in, OutputStream out, long maxBytes) throws IOException {
+		// large chunks, since resources are typically files that are read straight from disk
+		byte[] buffer = new byte[WRITE_BUFFER_SIZE];
+		long byteCount = 0;
+		int bytesRead;
+		while (byteCount < maxBytes &&
+				(bytesRead = in.read(buffer, 0, (int) Math.min(buffer.length, maxBytes - byteCount))) != -1) {
+			out.write(buffer, 0, bytesRead);
+			byteCount += bytesRead;
+		}
+		return byteCount;
+	}
+
+	private static WritableByteChannel getChannel(OutputStream out) {
+		if (out instanceof FileOutputStream) {
+			return ((FileOutputStream) out).getChannel();
+		}
+		else if (out instanceof WritableByteChannel) {
+			return (WritableByteChannel) out;
+		}
+		return null;
+	}
+
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.converter;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+
+/**
+ * {@link InputStreamResource} that streams the body of an {@link HttpInputMessage},
+ * rather than reading it into memory.
+ *
+ * <p>The resource holds on to the message, typically an open response, until its
+ * {@linkplain #getInputStream() input stream} or the resource itself is closed, which
+ * closes the message as well. Callers must therefore always close the stream once
+ * they are done with it.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see ResourceHttpMessageConverter#ResourceHttpMessageConverter(boolean)
+ */
+public class ResponseBodyResource extends InputStreamResource implements Closeable {
+
+	private final HttpInputMessage inputMessage;
+
+	private final InputStream body;
+
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+
+	/**
+	 * Create a new {@code ResponseBodyResource} for the body of the given message.
+	 * @param inputMessage the message to stream the body of
+	 * @throws IOException in case of I/O errors
+	 */
+	public ResponseBodyResource(HttpInputMessage inputMessage) throws IOException {
+		this(inputMessage, inputMessage.getBody());
+	}
+
+	private ResponseBodyResource(HttpInputMessage inputMessage, InputStream body) {
+		super(body, "HTTP response body");
+		this.inputMessage = inputMessage;
+		this.body = body;
+	}
+
+
+	/**
+	 * Return the headers of the message.
+	 */
+	public HttpHeaders getHeaders() {
+		return this.inputMessage.getHeaders();
+	}
+
+	/**
+	 * Return the input stream of the body, which closes the message when closed.
+	 */
+	@Override
+	public InputStream getInputStream() throws IOException, IllegalStateException {
+		return new FilterInputStream(super.getInputStream()) {
+			@Override
+			public void close() throws IOException {
+				ResponseBodyResource.this.close();
+			}
+		};
+	}
+
+	/**
+	 * Return the {@code Content-Length} of the message if known, or else determine
+	 * the length by consuming the body.
+	 */
+	@Override
+	public long contentLength() throws IOException {
+		long contentLength = getHeaders().getContentLength();
+		return (contentLength != -1 ? contentLength : super.contentLength());
+	}
+
+	/**
+	 * Close the body and the message, unless already closed.
+	 */
+	public void close() {
+		if (this.closed.compareAndSet(false, true)) {
+			try {
+				this.body.close();
+			}
+			catch (IOException ex) {
+				// ignore
+			}
+			finally {
+				if (this.inputMessage instanceof Closeable) {
+					try {
+						((Closeable) this.inputMessage).close();
+					}
+					catch (IOException ex) {
+						// ignore
+					}
+				}
+			}
+		}
+	}
+
+}
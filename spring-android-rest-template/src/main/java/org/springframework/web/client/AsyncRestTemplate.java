@@ -0,0 +1,753 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.AsyncClientHttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.util.concurrent.ListenableFutureTask;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.web.util.UriTemplate;
+
+/**
+ * <strong>Spring's central class for asynchronous client-side HTTP access.</strong>
+ * Exposes similar methods as {@link RestTemplate}, but returns {@link ListenableFuture}
+ * wrappers as opposed to concrete results.
+ *
+ * <p>The {@code AsyncRestTemplate} exposes a synchronous {@link RestTemplate} via the
+ * {@link #getRestOperations()} method, and shares its
+ * {@linkplain #setMessageConverters message converters}, its
+ * {@linkplain #setErrorHandler error handler}, its
+ * {@linkplain RestTemplate#setRequestFactory request factory} and its
+ * {@linkplain RestTemplate#setInterceptors interceptors} with it. As a consequence,
+ * every {@link org.springframework.http.client.ClientHttpRequestFactory} can be used
+ * for asynchronous access.
+ *
+ * <p>Requests are executed on an {@link Executor}. By default, a bounded thread pool
+ * of {@value #DEFAULT_CONCURRENCY_LIMIT} threads is used, queueing any further requests
+ * until a thread becomes available. Provide a custom executor to change the limit.
+ *
+ * <p>Alternatively, an {@link AsyncClientHttpRequestFactory} such as the
+ * {@link org.springframework.http.client.OkHttp3ClientHttpRequestFactory} can be
+ * {@linkplain #setAsyncRequestFactory set}. Requests are then handed to the
+ * non-blocking transport, and no executor thread is held while they are in flight.
+ * Such requests bypass the synchronous template's request processing: its
+ * {@linkplain RestTemplate#setInterceptors interceptors} and
+ * {@linkplain RestTemplate#setStreamingInterceptors streaming interceptors} cannot be
+ * applied, and setting an asynchronous request factory on a template that has any is
+ * rejected. Its {@linkplain RestTemplate#setRequestListener request listener},
+ * {@linkplain RestTemplate#setMetricsRecorder metrics recorder},
+ * {@linkplain RestTemplate#setExchangeTimeout exchange timeout} and cancellation
+ * handles do not apply either.
+ *
+ * @author Arjen Poutsma
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see AsyncRestOperations
+ * @see RestTemplate
+ */
+public class AsyncRestTemplate implements AsyncRestOperations, DisposableBean {
+
+	/**
+	 * The number of threads used by the default executor.
+	 */
+	public static final int DEFAULT_CONCURRENCY_LIMIT = 4;
+
+	private final RestTemplate syncTemplate;
+
+	private volatile Executor executor;
+
+	private final boolean defaultExecutor;
+
+	private AsyncClientHttpRequestFactory asyncRequestFactory;
+
+
+	/**
+	 * Create a new instance of the {@code AsyncRestTemplate} using default settings.
+	 * <p>This constructor uses a new {@link RestTemplate} and a bounded thread pool of
+	 * {@value #DEFAULT_CONCURRENCY_LIMIT} threads.
+	 */
+	public AsyncRestTemplate() {
+		this(new RestTemplate());
+	}
+
+	/**
+	 * Create a new instance of the {@code AsyncRestTemplate} using the given
+	 * {@link Executor} to execute requests.
+	 * @param executor the executor to use
+	 */
+	public AsyncRestTemplate(Executor executor) {
+		this(new RestTemplate(), executor);
+	}
+
+	/**
+	 * Create a new instance of the {@code AsyncRestTemplate} that delegates to the given
+	 * {@link RestTemplate}, using a bounded thread pool of {@value #DEFAULT_CONCURRENCY_LIMIT}
+	 * threads.
+	 * @param restTemplate the synchronous template to use for message conversion,
+	 * error handling and request creation
+	 */
+	public AsyncRestTemplate(RestTemplate restTemplate) {
+		this(restTemplate, null, true);
+	}
+
+	/**
+	 * Create a new instance of the {@code AsyncRestTemplate} that delegates to the given
+	 * {@link RestTemplate} and executes requests on the given {@link Executor}.
+	 * @param restTemplate the synchronous template to use for message conversion,
+	 * error handling and request creation
+	 * @param executor the executor to use
+	 */
+	public AsyncRestTemplate(RestTemplate restTemplate, Executor executor) {
+		this(restTemplate, executor, false);
+	}
+
+	/**
+	 * Create a new instance of the {@code AsyncRestTemplate} that executes requests with
+	 * the given {@link AsyncClientHttpRequestFactory}, and delegates message conversion
+	 * and error handling to the given {@link RestTemplate}.
+	 * <p>The given template must not have any interceptors; see
+	 * {@link #setAsyncRequestFactory(AsyncClientHttpRequestFactory)}.
+	 * @param asyncRequestFactory the asynchronous request factory
+	 * @param restTemplate the synchronous template to use for message conversion
+	 * and error handling
+	 */
+	public AsyncRestTemplate(AsyncClientHttpRequestFactory asyncRequestFactory, RestTemplate restTemplate) {
+		this(restTemplate);
+		setAsyncRequestFactory(asyncRequestFactory);
+	}
+
+	private AsyncRestTemplate(RestTemplate restTemplate, Executor executor, boolean defaultExecutor) {
+		Assert.notNull(restTemplate, "'restTemplate' must not be null");
+		Assert.isTrue(executor != null || defaultExecutor, "'executor' must not be null");
+		this.syncTemplate = restTemplate;
+		this.executor = executor;
+		this.defaultExecutor = defaultExecutor;
+	}
+
+
+	/**
+	 * Create a bounded executor with the given number of threads. Idle threads are
+	 * allowed to time out, so an unused template does not hold on to any threads.
+	 * @param concurrencyLimit the maximum number of concurrently executing requests
+	 * @return the executor
+	 */
+	public static ExecutorService createDefaultExecutor(int concurrencyLimit) {
+		Assert.isTrue(concurrencyLimit > 0, "'concurrencyLimit' must be larger than 0");
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrencyLimit, concurrencyLimit,
+				60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new DefaultThreadFactory());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Return the {@link Executor} used to execute requests. The default executor is
+	 * created on first use, so a template that only executes requests with an
+	 * {@linkplain #setAsyncRequestFactory asynchronous request factory} does not
+	 * create one.
+	 */
+	public Executor getExecutor() {
+		Executor executor = this.executor;
+		if (executor == null) {
+			synchronized (this) {
+				executor = this.executor;
+				if (executor == null) {
+					executor = createDefaultExecutor(DEFAULT_CONCURRENCY_LIMIT);
+					this.executor = executor;
+				}
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * Set the asynchronous request factory used to execute requests without blocking
+	 * a thread of the {@linkplain #getExecutor() executor}.
+	 * <p>Default is {@code null}, executing requests through the synchronous
+	 * {@link RestTemplate}.
+	 * <p>Requests executed by the asynchronous request factory bypass the synchronous
+	 * template's request processing. Since its interceptors, which may for instance add
+	 * credentials, cannot be applied, this method rejects the factory if the template
+	 * has any. Its request listener, metrics recorder, exchange timeout and cancellation
+	 * handles do not apply to these requests either.
+	 * @throws IllegalStateException if the synchronous template has interceptors or
+	 * streaming interceptors
+	 */
+	public void setAsyncRequestFactory(AsyncClientHttpRequestFactory asyncRequestFactory) {
+		if (asyncRequestFactory != null) {
+			assertNoInterceptors();
+		}
+		this.asyncRequestFactory = asyncRequestFactory;
+	}
+
+	/**
+	 * Return the asynchronous request factory, or {@code null} if none is set.
+	 */
+	public AsyncClientHttpRequestFactory getAsyncRequestFactory() {
+		return this.asyncRequestFactory;
+	}
+
+	/**
+	 * Set the error handler.
+	 * <p>By default, AsyncRestTemplate uses a {@link DefaultResponseErrorHandler}.
+	 */
+	public void setErrorHandler(ResponseErrorHandler errorHandler) {
+		this.syncTemplate.setErrorHandler(errorHandler);
+	}
+
+	/**
+	 * Return the error handler.
+	 */
+	public ResponseErrorHandler getErrorHandler() {
+		return this.syncTemplate.getErrorHandler();
+	}
+
+	/**
+	 * Set the message body converters to use.
+	 * <p>These converters are used to convert from and to HTTP requests and responses.
+	 */
+	public void setMessageConverters(List<HttpMessageConverter<?>> messageConverters) {
+		this.syncTemplate.setMessageConverters(messageConverters);
+	}
+
+	/**
+	 * Return the message body converters.
+	 */
+	public List<HttpMessageConverter<?>> getMessageConverters() {
+		return this.syncTemplate.getMessageConverters();
+	}
+
+	/**
+	 * Return the synchronous {@link RestTemplate} that this template delegates to.
+	 */
+	public RestOperations getRestOperations() {
+		return this.syncTemplate;
+	}
+
+
+	// GET
+
+	public <T> ListenableFuture<T> getForObject(String url, Class<T> responseType, Object... uriVariables)
+			throws RestClientException {
+
+		RequestCallback requestCallback = this.syncTemplate.acceptHeaderRequestCallback(responseType);
+		ResponseExtractor<T> responseExtractor =
+				new HttpMessageConverterExtractor<T>(responseType, getMessageConverters());
+		return execute(url, HttpMethod.GET, requestCallback, responseExtractor, uriVariables);
+	}
+
+	public <T> ListenableFuture<T> getForObject(String url, Class<T> responseType, Map<String, ?> uriVariables)
+			throws RestClientException {
+
+		RequestCallback requestCallback = this.syncTemplate.acceptHeaderRequestCallback(responseType);
+		ResponseExtractor<T> responseExtractor =
+				new HttpMessageConverterExtractor<T>(responseType, getMessageConverters());
+		return execute(url, HttpMethod.GET, requestCallback, responseExtractor, uriVariables);
+	}
+
+	public <T> ListenableFuture<T> getForObject(URI url, Class<T> responseType) throws RestClientException {
+		RequestCallback requestCallback = this.syncTemplate.acceptHeaderRequestCallback(responseType);
+		ResponseExtractor<T> responseExtractor =
+				new HttpMessageConverterExtractor<T>(responseType, getMessageConverters());
+		return execute(url, HttpMethod.GET, requestCallback, responseExtractor);
+	}
+
+	public <T> ListenableFuture<ResponseEntity<T>> getForEntity(String url, Class<T> responseType,
+			Object... uriVariables) throws RestClientException {
+
+		RequestCallback requestCallback = this.syncTemplate.acceptHeaderRequestCallback(responseType);
+		ResponseExtractor<ResponseEntity<T>> responseExtractor = this.syncTemplate.responseEntityExtractor(responseType);
+		return execute(url, HttpMethod.GET, requestCallback, responseExtractor, uriVariables);
+	}
+
+	public <T> ListenableFuture<ResponseEntity<T>> getForEntity(String url, Class<T> responseType,
+			Map<String, ?> uriVariables) throws RestClientException {
+
+		RequestCallback requestCallback = this.syncTemplate.acceptHeaderRequestCallback(responseType);
+		ResponseExtractor<ResponseEntity<T>> responseExtractor = this.syncTemplate.responseEntityExtractor(responseType);
+		return execute(url, HttpMethod.GET, requestCallback, responseExtractor, uriVariables);
+	}
+
+	public <T> ListenableFuture<ResponseEntity<T>> getForEntity(URI url, Class<T> responseType)
+			throws RestClientException {
+
+		RequestCallback requestCallback = this.syncTemplate.acceptHeaderRequestCallback(responseType);
+		ResponseExtractor<ResponseEntity<T>> responseExtractor = this.syncTemplate.responseEntityExtractor(responseType);
+		return execute(url, HttpMethod.GET, requestCallback, responseExtractor);
+	}
+
+	// HEAD
+
+	public ListenableFuture<HttpHeaders> headForHeaders(String url, Object... uriVariables)
+			throws RestClientException {
+
+		return execute(url, HttpMethod.HEAD, null, this.syncTemplate.headersExtractor(), uriVariables);
+	}
+
+	public ListenableFuture<HttpHeaders> headForHeaders(String url, Map<String, ?> uriVariables)
+			throws RestClientException {
+
+		return execute(url, HttpMethod.HEAD, null, this.syncTemplate.headersExtractor(), uriVariables);
+	}
+
+	public ListenableFuture<HttpHeaders> headForHeaders(URI url) throws RestClientException {
+		return execute(url, HttpMethod.HEAD, null, this.syncTemplate.headersExtractor());
+	}
+
+	// POST
+
+	public ListenableFuture<URI> postForLocation(String url, Object request, Object... uriVariables)
+			throws RestClientException {
+
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(request);
+		return execute(url, HttpMethod.POST, requestCallback, new LocationHeaderExtractor(), uriVariables);
+	}
+
+	public ListenableFuture<URI> postForLocation(String url, Object request, Map<String, ?> uriVariables)
+			throws RestClientException {
+
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(request);
+		return execute(url, HttpMethod.POST, requestCallback, new LocationHeaderExtractor(), uriVariables);
+	}
+
+	public ListenableFuture<URI> postForLocation(URI url, Object request) throws RestClientException {
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(request);
+		return execute(url, HttpMethod.POST, requestCallback, new LocationHeaderExtractor());
+	}
+
+	public <T> ListenableFuture<T> postForObject(String url, Object request, Class<T> responseType,
+			Object... uriVariables) throws RestClientException {
+
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(request, responseType);
+		ResponseExtractor<T> responseExtractor =
+				new HttpMessageConverterExtractor<T>(responseType, getMessageConverters());
+		return execute(url, HttpMethod.POST, requestCallback, responseExtractor, uriVariables);
+	}
+
+	public <T> ListenableFuture<T> postForObject(String url, Object request, Class<T> responseType,
+			Map<String, ?> uriVariables) throws RestClientException {
+
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(request, responseType);
+		ResponseExtractor<T> responseExtractor =
+				new HttpMessageConverterExtractor<T>(responseType, getMessageConverters());
+		return execute(url, HttpMethod.POST, requestCallback, responseExtractor, uriVariables);
+	}
+
+	public <T> ListenableFuture<T> postForObject(URI url, Object request, Class<T> responseType)
+			throws RestClientException {
+
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(request, responseType);
+		ResponseExtractor<T> responseExtractor =
+				new HttpMessageConverterExtractor<T>(responseType, getMessageConverters());
+		return execute(url, HttpMethod.POST, requestCallback, responseExtractor);
+	}
+
+	public <T> ListenableFuture<ResponseEntity<T>> postForEntity(String url, Object request,
+			Class<T> responseType, Object... uriVariables) throws RestClientException {
+
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(request, responseType);
+		ResponseExtractor<ResponseEntity<T>> responseExtractor = this.syncTemplate.responseEntityExtractor(responseType);
+		return execute(url, HttpMethod.POST, requestCallback, responseExtractor, uriVariables);
+	}
+
+	public <T> ListenableFuture<ResponseEntity<T>> postForEntity(String url, Object request,
+			Class<T> responseType, Map<String, ?> uriVariables) throws RestClientException {
+
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(request, responseType);
+		ResponseExtractor<ResponseEntity<T>> responseExtractor = this.syncTemplate.responseEntityExtractor(responseType);
+		return execute(url, HttpMethod.POST, requestCallback, responseExtractor, uriVariables);
+	}
+
+	public <T> ListenableFuture<ResponseEntity<T>> postForEntity(URI url, Object request, Class<T> responseType)
+			throws RestClientException {
+
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(request, responseType);
+		ResponseExtractor<ResponseEntity<T>> responseExtractor = this.syncTemplate.responseEntityExtractor(responseType);
+		return execute(url, HttpMethod.POST, requestCallback, responseExtractor);
+	}
+
+	// PUT
+
+	public ListenableFuture<?> put(String url, Object request, Object... uriVariables) throws RestClientException {
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(request);
+		return execute(url, HttpMethod.PUT, requestCallback, null, uriVariables);
+	}
+
+	public ListenableFuture<?> put(String url, Object request, Map<String, ?> uriVariables)
+			throws RestClientException {
+
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(request);
+		return execute(url, HttpMethod.PUT, requestCallback, null, uriVariables);
+	}
+
+	public ListenableFuture<?> put(URI url, Object request) throws RestClientException {
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(request);
+		return execute(url, HttpMethod.PUT, requestCallback, null);
+	}
+
+	// DELETE
+
+	public ListenableFuture<?> delete(String url, Object... uriVariables) throws RestClientException {
+		return execute(url, HttpMethod.DELETE, null, null, uriVariables);
+	}
+
+	public ListenableFuture<?> delete(String url, Map<String, ?> uriVariables) throws RestClientException {
+		return execute(url, HttpMethod.DELETE, null, null, uriVariables);
+	}
+
+	public ListenableFuture<?> delete(URI url) throws RestClientException {
+		return execute(url, HttpMethod.DELETE, null, null);
+	}
+
+	// OPTIONS
+
+	public ListenableFuture<Set<HttpMethod>> optionsForAllow(String url, Object... uriVariables)
+			throws RestClientException {
+
+		return execute(url, HttpMethod.OPTIONS, null, new AllowHeaderExtractor(), uriVariables);
+	}
+
+	public ListenableFuture<Set<HttpMethod>> optionsForAllow(String url, Map<String, ?> uriVariables)
+			throws RestClientException {
+
+		return execute(url, HttpMethod.OPTIONS, null, new AllowHeaderExtractor(), uriVariables);
+	}
+
+	public ListenableFuture<Set<HttpMethod>> optionsForAllow(URI url) throws RestClientException {
+		return execute(url, HttpMethod.OPTIONS, null, new AllowHeaderExtractor());
+	}
+
+	// exchange
+
+	public <T> ListenableFuture<ResponseEntity<T>> exchange(String url, HttpMethod method,
+			HttpEntity<?> requestEntity, Class<T> responseType, Object... uriVariables) throws RestClientException {
+
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(requestEntity, responseType);
+		ResponseExtractor<ResponseEntity<T>> responseExtractor = this.syncTemplate.responseEntityExtractor(responseType);
+		return execute(url, method, requestCallback, responseExtractor, uriVariables);
+	}
+
+	public <T> ListenableFuture<ResponseEntity<T>> exchange(String url, HttpMethod method,
+			HttpEntity<?> requestEntity, Class<T> responseType, Map<String, ?> uriVariables) throws RestClientException {
+
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(requestEntity, responseType);
+		ResponseExtractor<ResponseEntity<T>> responseExtractor = this.syncTemplate.responseEntityExtractor(responseType);
+		return execute(url, method, requestCallback, responseExtractor, uriVariables);
+	}
+
+	public <T> ListenableFuture<ResponseEntity<T>> exchange(URI url, HttpMethod method,
+			HttpEntity<?> requestEntity, Class<T> responseType) throws RestClientException {
+
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(requestEntity, responseType);
+		ResponseExtractor<ResponseEntity<T>> responseExtractor = this.syncTemplate.responseEntityExtractor(responseType);
+		return execute(url, method, requestCallback, responseExtractor);
+	}
+
+	public <T> ListenableFuture<ResponseEntity<T>> exchange(String url, HttpMethod method,
+			HttpEntity<?> requestEntity, ParameterizedTypeReference<T> responseType, Object... uriVariables)
+			throws RestClientException {
+
+		Type type = responseType.getType();
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(requestEntity, type);
+		ResponseExtractor<ResponseEntity<T>> responseExtractor = this.syncTemplate.responseEntityExtractor(type);
+		return execute(url, method, requestCallback, responseExtractor, uriVariables);
+	}
+
+	public <T> ListenableFuture<ResponseEntity<T>> exchange(String url, HttpMethod method,
+			HttpEntity<?> requestEntity, ParameterizedTypeReference<T> responseType, Map<String, ?> uriVariables)
+			throws RestClientException {
+
+		Type type = responseType.getType();
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(requestEntity, type);
+		ResponseExtractor<ResponseEntity<T>> responseExtractor = this.syncTemplate.responseEntityExtractor(type);
+		return execute(url, method, requestCallback, responseExtractor, uriVariables);
+	}
+
+	public <T> ListenableFuture<ResponseEntity<T>> exchange(URI url, HttpMethod method,
+			HttpEntity<?> requestEntity, ParameterizedTypeReference<T> responseType) throws RestClientException {
+
+		Type type = responseType.getType();
+		RequestCallback requestCallback = this.syncTemplate.httpEntityCallback(requestEntity, type);
+		ResponseExtractor<ResponseEntity<T>> responseExtractor = this.syncTemplate.responseEntityExtractor(type);
+		return execute(url, method, requestCallback, responseExtractor);
+	}
+
+	// general execution
+
+	public <T> ListenableFuture<T> execute(String url, HttpMethod method, RequestCallback requestCallback,
+			ResponseExtractor<T> responseExtractor, Object... uriVariables) throws RestClientException {
+
+		URI expanded = new UriTemplate(url).expand(uriVariables);
+		return doExecute(expanded, method, requestCallback, responseExtractor);
+	}
+
+	public <T> ListenableFuture<T> execute(String url, HttpMethod method, RequestCallback requestCallback,
+			ResponseExtractor<T> responseExtractor, Map<String, ?> uriVariables) throws RestClientException {
+
+		URI expanded = new UriTemplate(url).expand(uriVariables);
+		return doExecute(expanded, method, requestCallback, responseExtractor);
+	}
+
+	public <T> ListenableFuture<T> execute(URI url, HttpMethod method, RequestCallback requestCallback,
+			ResponseExtractor<T> responseExtractor) throws RestClientException {
+
+		return doExecute(url, method, requestCallback, responseExtractor);
+	}
+
+	/**
+	 * Execute the given method on the provided URI.
+	 * <p>If an {@linkplain #setAsyncRequestFactory asynchronous request factory} is set,
+	 * the request is created and executed by it, bypassing the synchronous template's
+	 * interceptors, request listener, metrics recorder, exchange timeout and cancellation
+	 * handles. Otherwise, the request is executed on the {@linkplain #getExecutor()
+	 * executor} by the synchronous {@link RestTemplate}. Either way, the
+	 * {@link ClientHttpRequest} is processed using the {@link RequestCallback}, the
+	 * response with the {@link ResponseExtractor}.
+	 * @param url the fully-expanded URL to connect to
+	 * @param method the HTTP method to execute (GET, POST, etc.)
+	 * @param requestCallback object that prepares the request (can be {@code null})
+	 * @param responseExtractor object that extracts the return value from the response (can be {@code null})
+	 * @return a future wrapping an arbitrary object, as returned by the {@link ResponseExtractor}
+	 */
+	protected <T> ListenableFuture<T> doExecute(final URI url, final HttpMethod method,
+			final RequestCallback requestCallback, final ResponseExtractor<T> responseExtractor)
+			throws RestClientException {
+
+		Assert.notNull(url, "'url' must not be null");
+		Assert.notNull(method, "'method' must not be null");
+		if (this.asyncRequestFactory != null) {
+			return doExecuteAsync(url, method, requestCallback, responseExtractor);
+		}
+		ListenableFutureTask<T> future = new ListenableFutureTask<T>(new Callable<T>() {
+			public T call() throws Exception {
+				return syncTemplate.execute(url, method, requestCallback, responseExtractor);
+			}
+		});
+		Executor executor = getExecutor();
+		try {
+			executor.execute(future);
+		}
+		catch (RejectedExecutionException ex) {
+			throw new RestClientException("Executor [" + executor + "] did not accept " + method.name() +
+					" request for \"" + url + "\"", ex);
+		}
+		return future;
+	}
+
+	private <T> ListenableFuture<T> doExecuteAsync(URI url, HttpMethod method, RequestCallback requestCallback,
+			ResponseExtractor<T> responseExtractor) throws RestClientException {
+
+		assertNoInterceptors();
+		try {
+			AsyncClientHttpRequest request = this.asyncRequestFactory.createAsyncRequest(url, method);
+			if (requestCallback != null) {
+				requestCallback.doWithRequest(new AsyncRequestAdapter(request));
+			}
+			ListenableFuture<ClientHttpResponse> responseFuture = request.executeAsync();
+			return new ResponseExtractorFuture<T>(method, url, responseFuture, responseExtractor);
+		}
+		catch (IOException ex) {
+			throw new ResourceAccessException("I/O error on " + method.name() +
+					" request for \"" + url + "\": " + ex.getMessage(), ex);
+		}
+	}
+
+	private void assertNoInterceptors() {
+		Assert.state(CollectionUtils.isEmpty(this.syncTemplate.getInterceptors()) &&
+				CollectionUtils.isEmpty(this.syncTemplate.getStreamingInterceptors()),
+				"Interceptors of the RestTemplate cannot be applied to requests executed by an " +
+				"AsyncClientHttpRequestFactory");
+	}
+
+	/**
+	 * Shut down the default executor, if this template created it.
+	 */
+	public void destroy() throws Exception {
+		Executor executor = this.executor;
+		if (this.defaultExecutor && executor != null) {
+			((ExecutorService) executor).shutdown();
+		}
+	}
+
+
+	/**
+	 * Response extractor that extracts the response {@code Location} header.
+	 */
+	private class LocationHeaderExtractor implements ResponseExtractor<URI> {
+
+		public URI extractData(ClientHttpResponse response) throws IOException {
+			return syncTemplate.headersExtractor().extractData(response).getLocation();
+		}
+	}
+
+	/**
+	 * Response extractor that extracts the response {@code Allow} header.
+	 */
+	private class AllowHeaderExtractor implements ResponseExtractor<Set<HttpMethod>> {
+
+		public Set<HttpMethod> extractData(ClientHttpResponse response) throws IOException {
+			return syncTemplate.headersExtractor().extractData(response).getAllow();
+		}
+	}
+
+	/**
+	 * Adapts an {@link AsyncClientHttpRequest} to the {@link ClientHttpRequest} contract
+	 * expected by {@link RequestCallback} implementations.
+	 */
+	private static class AsyncRequestAdapter implements ClientHttpRequest {
+
+		private final AsyncClientHttpRequest request;
+
+		public AsyncRequestAdapter(AsyncClientHttpRequest request) {
+			this.request = request;
+		}
+
+		public HttpMethod getMethod() {
+			return this.request.getMethod();
+		}
+
+		public URI getURI() {
+			return this.request.getURI();
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.request.getHeaders();
+		}
+
+		public OutputStream getBody() throws IOException {
+			return this.request.getBody();
+		}
+
+		public ClientHttpResponse execute() throws IOException {
+			throw new UnsupportedOperationException("Asynchronous requests are executed by the AsyncRestTemplate");
+		}
+	}
+
+	/**
+	 * Future that handles errors and extracts the response data as soon as the
+	 * response future completes, closing the response afterwards.
+	 */
+	private class ResponseExtractorFuture<T> extends SettableListenableFuture<T> {
+
+		private final HttpMethod method;
+
+		private final URI url;
+
+		private final ListenableFuture<ClientHttpResponse> responseFuture;
+
+		private final ResponseExtractor<T> responseExtractor;
+
+		public ResponseExtractorFuture(HttpMethod method, URI url,
+				ListenableFuture<ClientHttpResponse> responseFuture, ResponseExtractor<T> responseExtractor) {
+
+			this.method = method;
+			this.url = url;
+			this.responseFuture = responseFuture;
+			this.responseExtractor = responseExtractor;
+			responseFuture.addCallback(new ListenableFutureCallback<ClientHttpResponse>() {
+				public void onSuccess(ClientHttpResponse response) {
+					extract(response);
+				}
+				public void onFailure(Throwable ex) {
+					fail(ex);
+				}
+			});
+		}
+
+		private void extract(ClientHttpResponse response) {
+			boolean close = true;
+			try {
+				if (getErrorHandler().hasError(response)) {
+					getErrorHandler().handleError(response);
+				}
+				T result = (this.responseExtractor != null ? this.responseExtractor.extractData(response) : null);
+				// a streamed result closes the response once consumed, unless the future was cancelled
+				close = (!set(result) || !RestTemplate.holdsResponse(result));
+			}
+			catch (Throwable ex) {
+				fail(ex);
+			}
+			finally {
+				if (close) {
+					response.close();
+				}
+			}
+		}
+
+		private void fail(Throwable ex) {
+			if (ex instanceof IOException) {
+				ex = new ResourceAccessException("I/O error on " + this.method.name() +
+						" request for \"" + this.url + "\": " + ex.getMessage(), (IOException) ex);
+			}
+			setException(ex);
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled) {
+				this.responseFuture.cancel(mayInterruptIfRunning);
+			}
+			return cancelled;
+		}
+	}
+
+	/**
+	 * Thread factory for the default executor, creating daemon threads so that pending
+	 * requests do not keep the process alive.
+	 */
+	private static class DefaultThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger threadCount = new AtomicInteger();
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "AsyncRestTemplate-" + this.threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
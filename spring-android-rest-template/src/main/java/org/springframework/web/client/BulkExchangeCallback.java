@@ -0,0 +1,42 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.web.client;
+
+/**
+ * Callback interface for the results of a bulk exchange, invoked as each exchange
+ * completes rather than once the whole batch has finished.
+ *
+ * <p>Callbacks are always invoked on the thread that called
+ * {@link RestTemplate#exchangeAll(java.util.List, Class, BulkExchangeCallback)},
+ * one at a time, so implementations do not need to be thread-safe.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @param <T> the response body type
+ * @see RestTemplate#exchangeAll(java.util.List, Class, BulkExchangeCallback)
+ */
+public interface BulkExchangeCallback<T> {
+
+	/**
+	 * Called when a single exchange of the batch has completed, either successfully
+	 * or with an exception.
+	 * @param result the result of the exchange
+	 */
+	void onResult(BulkExchangeResult<T> result);
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.web.client;
+
+import java.io.InterruptedIOException;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.CancellationHandle;
+import org.springframework.http.client.support.HostKeyUtils;
+
+/**
+ * Coordinates the exchanges of a single bulk request issued through
+ * {@link RestTemplate#exchangeAll}.
+ *
+ * <p>The calling thread dispatches exchanges to the executor while both the global
+ * and the per-host concurrency limit allow it, and then waits for completions.
+ * Completions are handed back to the calling thread, which invokes the callback and
+ * dispatches further exchanges, so that all bookkeeping is single-threaded.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+class BulkExchangeExecutor<T> {
+
+	private final RestTemplate restTemplate;
+
+	private final Type responseType;
+
+	private final int concurrencyLimit;
+
+	private final int concurrencyLimitPerHost;
+
+	private final Executor executor;
+
+
+	BulkExchangeExecutor(RestTemplate restTemplate, Type responseType, int concurrencyLimit,
+			int concurrencyLimitPerHost, Executor executor) {
+
+		this.restTemplate = restTemplate;
+		this.responseType = responseType;
+		this.concurrencyLimit = concurrencyLimit;
+		this.concurrencyLimitPerHost = concurrencyLimitPerHost;
+		this.executor = executor;
+	}
+
+
+	/**
+	 * Execute all given requests, invoking the callback on the calling thread as each
+	 * exchange completes.
+	 */
+	public void execute(List<? extends RequestEntity<?>> requests, BulkExchangeCallback<T> callback) {
+		if (requests.isEmpty()) {
+			return;
+		}
+		ThreadPoolExecutor batchExecutor = null;
+		Executor executor = this.executor;
+		if (executor == null) {
+			batchExecutor = createBatchExecutor(Math.min(this.concurrencyLimit, requests.size()));
+			executor = batchExecutor;
+		}
+		try {
+			dispatch(requests, callback, executor);
+		}
+		finally {
+			if (batchExecutor != null) {
+				batchExecutor.shutdown();
+			}
+		}
+	}
+
+	private void dispatch(List<? extends RequestEntity<?>> requests, BulkExchangeCallback<T> callback,
+			Executor executor) {
+
+		BlockingQueue<BulkExchangeResult<T>> completions = new LinkedBlockingQueue<BulkExchangeResult<T>>();
+		LinkedList<Integer> pending = new LinkedList<Integer>();
+		for (int i = 0; i < requests.size(); i++) {
+			pending.add(i);
+		}
+		Map<String, Integer> hostCounts = new HashMap<String, Integer>();
+		int inFlight = 0;
+		int remaining = requests.size();
+		while (remaining > 0) {
+			Iterator<Integer> iterator = pending.iterator();
+			while (inFlight < this.concurrencyLimit && iterator.hasNext()) {
+				int index = iterator.next();
+				RequestEntity<?> request = requests.get(index);
+				String hostKey = HostKeyUtils.getHostKey(request.getUrl());
+				Integer hostCount = hostCounts.get(hostKey);
+				int count = (hostCount != null ? hostCount : 0);
+				if (count >= this.concurrencyLimitPerHost) {
+					continue;
+				}
+				iterator.remove();
+				hostCounts.put(hostKey, count + 1);
+				inFlight++;
+				try {
+					executor.execute(new ExchangeTask(index, request, completions));
+				}
+				catch (RejectedExecutionException ex) {
+					completions.add(new BulkExchangeResult<T>(index, request, null,
+							new RestClientException("Executor rejected " + request.getMethod() + " request for \"" +
+									request.getUrl() + "\"", ex)));
+				}
+			}
+			BulkExchangeResult<T> result;
+			try {
+				result = completions.take();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new ResourceAccessException("Bulk exchange interrupted",
+						new InterruptedIOException(ex.getMessage()));
+			}
+			inFlight--;
+			remaining--;
+			String hostKey = HostKeyUtils.getHostKey(result.getRequest().getUrl());
+			hostCounts.put(hostKey, hostCounts.get(hostKey) - 1);
+			callback.onResult(result);
+		}
+	}
+
+	private static ThreadPoolExecutor createBatchExecutor(int poolSize) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 1, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new BulkThreadFactory());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+
+	/**
+	 * Performs a single exchange on a worker thread and posts its result.
+	 */
+	private class ExchangeTask implements Runnable {
+
+		private final int index;
+
+		private final RequestEntity<?> request;
+
+		private final BlockingQueue<BulkExchangeResult<T>> completions;
+
+		private final CancellationHandle cancellationHandle;
+
+		public ExchangeTask(int index, RequestEntity<?> request, BlockingQueue<BulkExchangeResult<T>> completions) {
+			this.index = index;
+			this.request = request;
+			this.completions = completions;
+			// the exchange can be cancelled through the handle of the calling thread
+			this.cancellationHandle = CancellationHandle.getCurrent();
+		}
+
+		public void run() {
+			ResponseEntity<T> response = null;
+			RuntimeException exception = null;
+			CancellationHandle previousHandle = CancellationHandle.getCurrent();
+			CancellationHandle.setCurrent(this.cancellationHandle);
+			try {
+				response = restTemplate.execute(this.request.getUrl(), this.request.getMethod(),
+						restTemplate.httpEntityCallback(this.request, responseType),
+						restTemplate.<T>responseEntityExtractor(responseType));
+			}
+			catch (RuntimeException ex) {
+				exception = ex;
+			}
+			catch (Error err) {
+				// always post a result, or the calling thread would wait forever
+				this.completions.add(new BulkExchangeResult<T>(this.index, this.request, null,
+						new RestClientException("Error during " + this.request.getMethod() + " request", err)));
+				throw err;
+			}
+			finally {
+				CancellationHandle.setCurrent(previousHandle);
+			}
+			this.completions.add(new BulkExchangeResult<T>(this.index, this.request, response, exception));
+		}
+	}
+
+
+	/**
+	 * Thread factory for the per-batch executor, creating daemon threads.
+	 */
+	private static class BulkThreadFactory implements ThreadFactory {
+
+		private static final AtomicInteger threadCount = new AtomicInteger();
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "RestTemplate-bulk-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
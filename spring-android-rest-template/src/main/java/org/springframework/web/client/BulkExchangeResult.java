@@ -0,0 +1,106 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.web.client;
+
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * The outcome of a single exchange within a bulk request executed through
+ * {@link RestTemplate#exchangeAll(java.util.List, Class)}.
+ *
+ * <p>Exactly one of {@link #getResponse()} and {@link #getException()} is
+ * non-{@code null}: a failed exchange is reported on its own result and does not
+ * abort the remaining exchanges of the batch.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @param <T> the response body type
+ */
+public final class BulkExchangeResult<T> {
+
+	private final int index;
+
+	private final RequestEntity<?> request;
+
+	private final ResponseEntity<T> response;
+
+	private final RuntimeException exception;
+
+
+	BulkExchangeResult(int index, RequestEntity<?> request, ResponseEntity<T> response,
+			RuntimeException exception) {
+
+		this.index = index;
+		this.request = request;
+		this.response = response;
+		this.exception = exception;
+	}
+
+
+	/**
+	 * Return the position of the request within the submitted list.
+	 */
+	public int getIndex() {
+		return this.index;
+	}
+
+	/**
+	 * Return the request this result belongs to.
+	 */
+	public RequestEntity<?> getRequest() {
+		return this.request;
+	}
+
+	/**
+	 * Return whether the exchange completed with a response.
+	 */
+	public boolean isSuccess() {
+		return (this.exception == null);
+	}
+
+	/**
+	 * Return the response entity, or {@code null} if the exchange failed.
+	 */
+	public ResponseEntity<T> getResponse() {
+		return this.response;
+	}
+
+	/**
+	 * Return the exception the exchange failed with, or {@code null} if it succeeded.
+	 */
+	public RuntimeException getException() {
+		return this.exception;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("<");
+		builder.append(this.index).append(' ');
+		builder.append(this.request.getMethod()).append(' ').append(this.request.getUrl()).append(',');
+		if (this.exception != null) {
+			builder.append(this.exception);
+		}
+		else {
+			builder.append(this.response.getStatusCode());
+		}
+		builder.append('>');
+		return builder.toString();
+	}
+
+}
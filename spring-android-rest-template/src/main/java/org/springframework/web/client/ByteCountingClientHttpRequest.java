@@ -0,0 +1,126 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.client;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * {@link ClientHttpRequest} wrapper that counts the bytes written to the request body,
+ * for the {@linkplain RestTemplate#setMetricsRecorder(RequestMetricsRecorder) request
+ * metrics} of a {@link RestTemplate}.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+final class ByteCountingClientHttpRequest implements ClientHttpRequest, StreamingHttpOutputMessage {
+
+	private final ClientHttpRequest delegate;
+
+	private CountingOutputStream body;
+
+	private Body streamingBody;
+
+
+	ByteCountingClientHttpRequest(ClientHttpRequest delegate) {
+		this.delegate = delegate;
+	}
+
+
+	public HttpMethod getMethod() {
+		return this.delegate.getMethod();
+	}
+
+	public URI getURI() {
+		return this.delegate.getURI();
+	}
+
+	public HttpHeaders getHeaders() {
+		return this.delegate.getHeaders();
+	}
+
+	public OutputStream getBody() throws IOException {
+		if (this.body == null) {
+			this.body = new CountingOutputStream(this.delegate.getBody());
+		}
+		return this.body;
+	}
+
+	public void setBody(final Body body) {
+		if (this.delegate instanceof StreamingHttpOutputMessage) {
+			((StreamingHttpOutputMessage) this.delegate).setBody(new Body() {
+				public void writeTo(OutputStream outputStream) throws IOException {
+					body.writeTo(countBody(outputStream));
+				}
+			});
+		}
+		else {
+			this.streamingBody = body;
+		}
+	}
+
+	public ClientHttpResponse execute() throws IOException {
+		if (this.streamingBody != null) {
+			this.streamingBody.writeTo(getBody());
+		}
+		return this.delegate.execute();
+	}
+
+	/**
+	 * Return the number of bytes written to the request body, or -1 if no body was
+	 * written.
+	 */
+	long getByteCount() {
+		return (this.body != null ? this.body.count : -1);
+	}
+
+	private OutputStream countBody(OutputStream outputStream) {
+		this.body = new CountingOutputStream(outputStream);
+		return this.body;
+	}
+
+
+	private static class CountingOutputStream extends FilterOutputStream {
+
+		private long count;
+
+		public CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.out.write(b);
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			this.out.write(b, off, len);
+			this.count += len;
+		}
+	}
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.client;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * {@link ClientHttpResponse} wrapper that counts the bytes read from the response body,
+ * after any content decoding, for the
+ * {@linkplain RestTemplate#setMetricsRecorder(RequestMetricsRecorder) request metrics} of
+ * a {@link RestTemplate}.
+ *
+ * <p>A response whose body outlives the exchange, such as a streamed resource, records
+ * its metrics once it is closed, see {@link #recordOnClose}.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+final class ByteCountingClientHttpResponse implements ClientHttpResponse {
+
+	private final ClientHttpResponse delegate;
+
+	private CountingInputStream body;
+
+	private RequestMetricsRecorder metricsRecorder;
+
+	private HttpMethod method;
+
+	private String uriTemplate;
+
+	private String host;
+
+	private int statusCode;
+
+	private long startNanos;
+
+	private long requestBytes;
+
+
+	ByteCountingClientHttpResponse(ClientHttpResponse delegate) {
+		this.delegate = delegate;
+	}
+
+
+	public HttpStatus getStatusCode() throws IOException {
+		return this.delegate.getStatusCode();
+	}
+
+	public int getRawStatusCode() throws IOException {
+		return this.delegate.getRawStatusCode();
+	}
+
+	public String getStatusText() throws IOException {
+		return this.delegate.getStatusText();
+	}
+
+	public HttpHeaders getHeaders() {
+		return this.delegate.getHeaders();
+	}
+
+	public InputStream getBody() throws IOException {
+		if (this.body == null) {
+			InputStream body = this.delegate.getBody();
+			if (body == null) {
+				return null;
+			}
+			this.body = new CountingInputStream(body);
+		}
+		return this.body;
+	}
+
+	public void close() {
+		try {
+			this.delegate.close();
+		}
+		finally {
+			RequestMetricsRecorder metricsRecorder;
+			synchronized (this) {
+				metricsRecorder = this.metricsRecorder;
+				this.metricsRecorder = null;
+			}
+			if (metricsRecorder != null) {
+				metricsRecorder.record(this.method, this.uriTemplate, this.host, this.statusCode,
+						System.nanoTime() - this.startNanos, this.requestBytes, getByteCount());
+			}
+		}
+	}
+
+	/**
+	 * Return the number of bytes read from the response body. If the body has not been
+	 * opened, the {@code Content-Length} of the response is returned instead, which is -1
+	 * if unknown.
+	 */
+	long getByteCount() {
+		return (this.body != null ? this.body.count : getHeaders().getContentLength());
+	}
+
+	/**
+	 * Record the metrics of the exchange once this response is closed, including the
+	 * bytes read from its body by then.
+	 */
+	synchronized void recordOnClose(RequestMetricsRecorder metricsRecorder, HttpMethod method, String uriTemplate,
+			String host, int statusCode, long startNanos, long requestBytes) {
+
+		this.metricsRecorder = metricsRecorder;
+		this.method = method;
+		this.uriTemplate = uriTemplate;
+		this.host = host;
+		this.statusCode = statusCode;
+		this.startNanos = startNanos;
+		this.requestBytes = requestBytes;
+	}
+
+
+	private static class CountingInputStream extends FilterInputStream {
+
+		private long count;
+
+		public CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				this.count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int count = super.read(b, off, len);
+			if (count > 0) {
+				this.count += count;
+			}
+			return count;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			this.count += skipped;
+			return skipped;
+		}
+	}
+
+}
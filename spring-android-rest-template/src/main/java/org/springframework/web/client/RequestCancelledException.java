@@ -0,0 +1,50 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.client;
+
+/**
+ * Exception thrown when a request is aborted through its
+ * {@link org.springframework.http.client.CancellationHandle CancellationHandle}.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see RestTemplate#cancel(Object)
+ */
+public class RequestCancelledException extends RestClientException {
+
+	private static final long serialVersionUID = 5086592329357516573L;
+
+
+	/**
+	 * Construct a new {@code RequestCancelledException} with the given message.
+	 * @param msg the message
+	 */
+	public RequestCancelledException(String msg) {
+		super(msg);
+	}
+
+	/**
+	 * Construct a new {@code RequestCancelledException} with the given message and the
+	 * exception raised by the aborted transport.
+	 * @param msg the message
+	 * @param ex the exception raised by the aborted transport
+	 */
+	public RequestCancelledException(String msg, Throwable ex) {
+		super(msg, ex);
+	}
+
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.web.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Aggregates request metrics per endpoint, i.e. per combination of HTTP method, URI
+ * template and host, so that the number of endpoints does not grow with the values of
+ * the URI variables.
+ *
+ * <p>For each endpoint, latencies are recorded into a fixed-bucket histogram, from which
+ * percentiles can be read with a relative error of at most 12.5%. Requests are also
+ * counted by status series, along with the number of request and response bytes.
+ * Recording does not lock: counters are striped across threads, and only merged when a
+ * {@linkplain #getSnapshots() snapshot} is taken.
+ *
+ * <p>Typically set on a {@link RestTemplate} with
+ * {@link RestTemplate#setMetricsRecorder(RequestMetricsRecorder)}, and exported
+ * periodically. Counters are cumulative; exporters that need rates should compute the
+ * difference between two snapshots.
+ *
+ * <p>Each endpoint takes about 8 KB of counters, so the number of endpoints is
+ * {@linkplain #setMaxEndpoints(int) limited}. Once the limit is reached, requests to
+ * further endpoints are recorded under the URI template {@value #OTHER_URI_TEMPLATE}
+ * per HTTP method, without a host.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see RequestMetricsSnapshot
+ */
+public class RequestMetricsRecorder {
+
+	/**
+	 * The URI template under which requests not made from a URI template are recorded.
+	 */
+	public static final String NO_URI_TEMPLATE = "[uri]";
+
+	/**
+	 * The URI template under which requests are recorded once the
+	 * {@linkplain #setMaxEndpoints(int) maximum number of endpoints} has been reached.
+	 */
+	public static final String OTHER_URI_TEMPLATE = "[other]";
+
+	/**
+	 * The default maximum number of endpoints.
+	 */
+	public static final int DEFAULT_MAX_ENDPOINTS = 100;
+
+	/**
+	 * The number of bits of a latency value that select a sub-bucket within a power of two.
+	 */
+	static final int SUB_BUCKET_BITS = 3;
+
+	static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * The highest power of two of a latency in microseconds with its own buckets; slower
+	 * requests, above 2^31 microseconds (about 36 minutes), all go into the last bucket.
+	 */
+	private static final int MAX_MAGNITUDE = 30;
+
+	static final int BUCKET_COUNT = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+	private static final int STRIPE_COUNT = 4;
+
+	// layout of the cells of each stripe: histogram buckets, then the other counters
+	private static final int SERIES_OFFSET = BUCKET_COUNT;
+
+	private static final int FAILURE_OFFSET = SERIES_OFFSET + HttpStatus.Series.values().length;
+
+	private static final int REQUEST_BYTES_OFFSET = FAILURE_OFFSET + 1;
+
+	private static final int RESPONSE_BYTES_OFFSET = REQUEST_BYTES_OFFSET + 1;
+
+	private static final int TOTAL_TIME_OFFSET = RESPONSE_BYTES_OFFSET + 1;
+
+	private static final int CELL_COUNT = TOTAL_TIME_OFFSET + 1;
+
+	private final ConcurrentMap<EndpointKey, AtomicLongArray> endpoints =
+			new ConcurrentHashMap<EndpointKey, AtomicLongArray>();
+
+	private volatile int maxEndpoints = DEFAULT_MAX_ENDPOINTS;
+
+
+	/**
+	 * Set the maximum number of endpoints to keep metrics for. Requests to further
+	 * endpoints are recorded under {@value #OTHER_URI_TEMPLATE}, which does not count
+	 * towards the limit.
+	 * <p>Default is {@value #DEFAULT_MAX_ENDPOINTS}.
+	 */
+	public void setMaxEndpoints(int maxEndpoints) {
+		Assert.isTrue(maxEndpoints >= 0, "'maxEndpoints' must not be negative");
+		this.maxEndpoints = maxEndpoints;
+	}
+
+	/**
+	 * Return the maximum number of endpoints to keep metrics for.
+	 */
+	public int getMaxEndpoints() {
+		return this.maxEndpoints;
+	}
+
+	/**
+	 * Record a completed request.
+	 * @param method the HTTP method
+	 * @param uriTemplate the URI template, or {@link #NO_URI_TEMPLATE} if the request was
+	 * not made from a template
+	 * @param host the target host
+	 * @param statusCode the raw status code of the response, or -1 if no response was
+	 * received, e.g. in case of an I/O error
+	 * @param durationNanos the duration of the request in nanoseconds
+	 * @param requestBytes the size of the request body, or -1 if unknown
+	 * @param responseBytes the size of the response body, or -1 if unknown
+	 */
+	public void record(HttpMethod method, String uriTemplate, String host, int statusCode, long durationNanos,
+			long requestBytes, long responseBytes) {
+
+		AtomicLongArray cells = getCells(new EndpointKey(method, uriTemplate, host));
+		int base = (int) (Thread.currentThread().getId() & (STRIPE_COUNT - 1)) * CELL_COUNT;
+		cells.incrementAndGet(base + getBucketIndex(durationNanos));
+		if (statusCode == -1) {
+			cells.incrementAndGet(base + FAILURE_OFFSET);
+		}
+		else {
+			int series = statusCode / 100 - 1;
+			if (series >= 0 && series < HttpStatus.Series.values().length) {
+				cells.incrementAndGet(base + SERIES_OFFSET + series);
+			}
+		}
+		if (requestBytes > 0) {
+			cells.addAndGet(base + REQUEST_BYTES_OFFSET, requestBytes);
+		}
+		if (responseBytes > 0) {
+			cells.addAndGet(base + RESPONSE_BYTES_OFFSET, responseBytes);
+		}
+		cells.addAndGet(base + TOTAL_TIME_OFFSET, Math.max(durationNanos, 0));
+	}
+
+	private AtomicLongArray getCells(EndpointKey key) {
+		AtomicLongArray cells = this.endpoints.get(key);
+		if (cells == null && this.endpoints.size() >= this.maxEndpoints) {
+			// concurrent recording may exceed the limit by a few endpoints
+			key = new EndpointKey(key.method, OTHER_URI_TEMPLATE, null);
+			cells = this.endpoints.get(key);
+		}
+		if (cells == null) {
+			cells = new AtomicLongArray(STRIPE_COUNT * CELL_COUNT);
+			AtomicLongArray existing = this.endpoints.putIfAbsent(key, cells);
+			if (existing != null) {
+				cells = existing;
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * Return a snapshot of the metrics of each endpoint recorded so far.
+	 * <p>Requests recorded while the snapshot is taken may be partially included.
+	 */
+	public List<RequestMetricsSnapshot> getSnapshots() {
+		List<RequestMetricsSnapshot> snapshots = new ArrayList<RequestMetricsSnapshot>(this.endpoints.size());
+		for (Map.Entry<EndpointKey, AtomicLongArray> entry : this.endpoints.entrySet()) {
+			EndpointKey key = entry.getKey();
+			AtomicLongArray cells = entry.getValue();
+			long[] merged = new long[CELL_COUNT];
+			for (int stripe = 0; stripe < STRIPE_COUNT; stripe++) {
+				for (int i = 0; i < CELL_COUNT; i++) {
+					merged[i] += cells.get(stripe * CELL_COUNT + i);
+				}
+			}
+			long[] buckets = new long[BUCKET_COUNT];
+			System.arraycopy(merged, 0, buckets, 0, BUCKET_COUNT);
+			long[] seriesCounts = new long[HttpStatus.Series.values().length];
+			System.arraycopy(merged, SERIES_OFFSET, seriesCounts, 0, seriesCounts.length);
+			snapshots.add(new RequestMetricsSnapshot(key.method, key.uriTemplate, key.host, buckets, seriesCounts,
+					merged[FAILURE_OFFSET], merged[REQUEST_BYTES_OFFSET], merged[RESPONSE_BYTES_OFFSET],
+					merged[TOTAL_TIME_OFFSET]));
+		}
+		return snapshots;
+	}
+
+	/**
+	 * Discard the metrics of all endpoints.
+	 */
+	public void clear() {
+		this.endpoints.clear();
+	}
+
+	/**
+	 * Return the index of the histogram bucket for the given latency.
+	 */
+	static int getBucketIndex(long durationNanos) {
+		long micros = Math.max(durationNanos, 0) / 1000;
+		if (micros < SUB_BUCKET_COUNT) {
+			return (int) micros;
+		}
+		int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+		if (magnitude > MAX_MAGNITUDE) {
+			return BUCKET_COUNT - 1;
+		}
+		int subBucket = (int) (micros >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+		return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	/**
+	 * Return the highest latency, in nanoseconds, that falls into the given bucket.
+	 */
+	static long getBucketUpperBoundNanos(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return (index + 1) * 1000L - 1;
+		}
+		int magnitude = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+		int subBucket = index % SUB_BUCKET_COUNT;
+		long lowerMicros = (long) (SUB_BUCKET_COUNT + subBucket) << (magnitude - SUB_BUCKET_BITS);
+		long widthMicros = 1L << (magnitude - SUB_BUCKET_BITS);
+		return (lowerMicros + widthMicros) * 1000L - 1;
+	}
+
+
+	private static class EndpointKey {
+
+		private final HttpMethod method;
+
+		private final String uriTemplate;
+
+		private final String host;
+
+		public EndpointKey(HttpMethod method, String uriTemplate, String host) {
+			this.method = method;
+			this.uriTemplate = uriTemplate;
+			this.host = host;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof EndpointKey)) {
+				return false;
+			}
+			EndpointKey otherKey = (EndpointKey) other;
+			return (this.method == otherKey.method &&
+					ObjectUtils.nullSafeEquals(this.uriTemplate, otherKey.uriTemplate) &&
+					ObjectUtils.nullSafeEquals(this.host, otherKey.host));
+		}
+
+		@Override
+		public int hashCode() {
+			int result = ObjectUtils.nullSafeHashCode(this.method);
+			result = 31 * result + ObjectUtils.nullSafeHashCode(this.uriTemplate);
+			result = 31 * result + ObjectUtils.nullSafeHashCode(this.host);
+			return result;
+		}
+	}
+
+}
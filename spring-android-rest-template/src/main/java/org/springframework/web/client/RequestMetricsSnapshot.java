@@ -0,0 +1,185 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.web.client;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.Assert;
+
+/**
+ * Immutable snapshot of the metrics of a single endpoint, as returned by
+ * {@link RequestMetricsRecorder#getSnapshots()}.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ */
+public class RequestMetricsSnapshot {
+
+	private final HttpMethod method;
+
+	private final String uriTemplate;
+
+	private final String host;
+
+	private final long[] buckets;
+
+	private final long[] seriesCounts;
+
+	private final long failureCount;
+
+	private final long requestBytes;
+
+	private final long responseBytes;
+
+	private final long totalTimeNanos;
+
+	private final long count;
+
+
+	RequestMetricsSnapshot(HttpMethod method, String uriTemplate, String host, long[] buckets, long[] seriesCounts,
+			long failureCount, long requestBytes, long responseBytes, long totalTimeNanos) {
+
+		this.method = method;
+		this.uriTemplate = uriTemplate;
+		this.host = host;
+		this.buckets = buckets;
+		this.seriesCounts = seriesCounts;
+		this.failureCount = failureCount;
+		this.requestBytes = requestBytes;
+		this.responseBytes = responseBytes;
+		this.totalTimeNanos = totalTimeNanos;
+		long count = 0;
+		for (long bucket : buckets) {
+			count += bucket;
+		}
+		this.count = count;
+	}
+
+
+	/**
+	 * Return the HTTP method of the endpoint.
+	 */
+	public HttpMethod getMethod() {
+		return this.method;
+	}
+
+	/**
+	 * Return the URI template of the endpoint.
+	 */
+	public String getUriTemplate() {
+		return this.uriTemplate;
+	}
+
+	/**
+	 * Return the target host of the endpoint.
+	 */
+	public String getHost() {
+		return this.host;
+	}
+
+	/**
+	 * Return the number of requests recorded.
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Return the number of requests whose response status is in the given series.
+	 * @param series the status series, e.g. {@link HttpStatus.Series#SERVER_ERROR}
+	 */
+	public long getCount(HttpStatus.Series series) {
+		return this.seriesCounts[series.ordinal()];
+	}
+
+	/**
+	 * Return the number of requests that did not receive a response, e.g. because of an
+	 * I/O error.
+	 */
+	public long getFailureCount() {
+		return this.failureCount;
+	}
+
+	/**
+	 * Return the total number of request body bytes sent, where known.
+	 */
+	public long getRequestBytes() {
+		return this.requestBytes;
+	}
+
+	/**
+	 * Return the total number of response body bytes received, where known.
+	 */
+	public long getResponseBytes() {
+		return this.responseBytes;
+	}
+
+	/**
+	 * Return the total time spent in requests, in nanoseconds.
+	 */
+	public long getTotalTimeNanos() {
+		return this.totalTimeNanos;
+	}
+
+	/**
+	 * Return the mean latency in nanoseconds, or 0 if no request was recorded.
+	 */
+	public long getMeanNanos() {
+		return (this.count > 0 ? this.totalTimeNanos / this.count : 0);
+	}
+
+	/**
+	 * Return the latency, in nanoseconds, below which the given fraction of requests fall,
+	 * e.g. {@code 0.99} for the 99th percentile. The value is the upper bound of the
+	 * histogram bucket the percentile falls into, so it may overestimate the actual
+	 * latency by up to 12.5%.
+	 * @param percentile the percentile, between 0 and 1
+	 * @return the latency in nanoseconds, or 0 if no request was recorded
+	 */
+	public long getPercentileNanos(double percentile) {
+		Assert.isTrue(percentile >= 0 && percentile <= 1, "'percentile' must be between 0 and 1");
+		if (this.count == 0) {
+			return 0;
+		}
+		long rank = Math.max((long) Math.ceil(percentile * this.count), 1);
+		long cumulative = 0;
+		for (int i = 0; i < this.buckets.length; i++) {
+			cumulative += this.buckets[i];
+			if (cumulative >= rank) {
+				return RequestMetricsRecorder.getBucketUpperBoundNanos(i);
+			}
+		}
+		return RequestMetricsRecorder.getBucketUpperBoundNanos(this.buckets.length - 1);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(this.method).append(' ').append(this.uriTemplate);
+		builder.append(" [host=").append(this.host);
+		builder.append(", count=").append(this.count);
+		builder.append(", p50=").append(getPercentileNanos(0.5) / 1000000).append("ms");
+		builder.append(", p90=").append(getPercentileNanos(0.9) / 1000000).append("ms");
+		builder.append(", p99=").append(getPercentileNanos(0.99) / 1000000).append("ms");
+		builder.append(", p999=").append(getPercentileNanos(0.999) / 1000000).append("ms");
+		builder.append(", failures=").append(this.failureCount);
+		builder.append(']');
+		return builder.toString();
+	}
+
+}
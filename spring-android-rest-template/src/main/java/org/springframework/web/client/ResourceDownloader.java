@@ -0,0 +1,780 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.web.client;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.core.io.WritableResource;
+import org.springframework.http.ContentCodingType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.util.UriTemplate;
+
+import android.util.Log;
+
+/**
+ * Downloads a remote resource into a {@link WritableResource} using HTTP range
+ * requests, so that an interrupted download continues where it stopped instead of
+ * starting over.
+ *
+ * <p>When the resource is backed by a file, such as a
+ * {@link org.springframework.core.io.FileSystemResource FileSystemResource}, the
+ * content is first written to a {@code .part} file next to it, which is renamed into
+ * place once complete. The validator of the remote resource ({@code ETag} or
+ * {@code Last-Modified}) is kept alongside, so that a later download of the same
+ * resource resumes the partial file with a {@code Range} and {@code If-Range}
+ * request. If the remote resource has changed in the meantime, the server sends it
+ * in full and the partial file is discarded.
+ *
+ * <p>With a {@linkplain #setParallelism parallelism} greater than 1, a file-backed
+ * download of a resource that supports byte ranges is split into that many range
+ * requests, each of at least the {@linkplain #setMinimumPartSize minimum part size},
+ * which run concurrently and write their content at their offsets in the file.
+ *
+ * <p>Within a single download, an I/O error while reading a response is followed by
+ * a range request for the remaining content, up to the
+ * {@linkplain #setMaxResumeAttempts maximum number of attempts} without progress.
+ * Other resources are written through their {@link WritableResource#getOutputStream()
+ * OutputStream} and can only be resumed that way.
+ *
+ * @author Roy Clarkson
+ * @since 2.0
+ * @see HttpHeaders#setRange(List)
+ */
+public class ResourceDownloader {
+
+	/**
+	 * Default maximum number of consecutive attempts to resume without progress.
+	 */
+	public static final int DEFAULT_MAX_RESUME_ATTEMPTS = 3;
+
+	/**
+	 * Default minimum size in bytes of the parts of a parallel download.
+	 */
+	public static final long DEFAULT_MINIMUM_PART_SIZE = 4 * 1024 * 1024;
+
+	static final String PARTIAL_FILE_SUFFIX = ".part";
+
+	static final String VALIDATOR_FILE_SUFFIX = ".part.validator";
+
+	private static final String TAG = ResourceDownloader.class.getSimpleName();
+
+	private static final String BYTES_UNIT = "bytes";
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final RestOperations restOperations;
+
+	private int parallelism = 1;
+
+	private long minimumPartSize = DEFAULT_MINIMUM_PART_SIZE;
+
+	private int maxResumeAttempts = DEFAULT_MAX_RESUME_ATTEMPTS;
+
+	private Executor executor;
+
+
+	/**
+	 * Create a new {@code ResourceDownloader} that performs its requests through the
+	 * given {@link RestOperations}.
+	 * @param restOperations the rest operations to use, typically a {@link RestTemplate}
+	 */
+	public ResourceDownloader(RestOperations restOperations) {
+		Assert.notNull(restOperations, "'restOperations' must not be null");
+		this.restOperations = restOperations;
+	}
+
+
+	/**
+	 * Set the number of concurrent range requests a file-backed download is split into.
+	 * <p>Default is 1, i.e. a single request.
+	 */
+	public void setParallelism(int parallelism) {
+		Assert.isTrue(parallelism > 0, "'parallelism' must be larger than 0");
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Return the number of concurrent range requests a download is split into.
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	/**
+	 * Set the minimum size in bytes of each part of a parallel download. Resources
+	 * smaller than two parts are downloaded with a single request.
+	 * <p>Default is {@value #DEFAULT_MINIMUM_PART_SIZE}.
+	 */
+	public void setMinimumPartSize(long minimumPartSize) {
+		Assert.isTrue(minimumPartSize > 0, "'minimumPartSize' must be larger than 0");
+		this.minimumPartSize = minimumPartSize;
+	}
+
+	/**
+	 * Return the minimum size in bytes of each part of a parallel download.
+	 */
+	public long getMinimumPartSize() {
+		return this.minimumPartSize;
+	}
+
+	/**
+	 * Set the maximum number of consecutive attempts to resume a download after an
+	 * I/O error, without any content being received in between. 0 disables resuming.
+	 * <p>Default is {@value #DEFAULT_MAX_RESUME_ATTEMPTS}.
+	 */
+	public void setMaxResumeAttempts(int maxResumeAttempts) {
+		Assert.isTrue(maxResumeAttempts >= 0, "'maxResumeAttempts' must not be negative");
+		this.maxResumeAttempts = maxResumeAttempts;
+	}
+
+	/**
+	 * Return the maximum number of consecutive attempts to resume a download.
+	 */
+	public int getMaxResumeAttempts() {
+		return this.maxResumeAttempts;
+	}
+
+	/**
+	 * Set the executor that runs the parts of a parallel download.
+	 * <p>By default, a pool of daemon threads is created for each parallel download.
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Return the executor that runs the parts of a parallel download, if any.
+	 */
+	public Executor getExecutor() {
+		return this.executor;
+	}
+
+
+	/**
+	 * Download the resource at the given URL into the given resource.
+	 * <p>URI Template variables are expanded using the given URI variables, if any.
+	 * @param url the URL
+	 * @param resource the resource to write to
+	 * @param urlVariables the variables to expand in the template
+	 * @return the length of the downloaded content
+	 * @throws RestClientException if the download fails
+	 */
+	public long download(String url, WritableResource resource, Object... urlVariables) throws RestClientException {
+		return download(new UriTemplate(url).expand(urlVariables), resource);
+	}
+
+	/**
+	 * Download the resource at the given URL into the given resource.
+	 * @param url the URL
+	 * @param resource the resource to write to
+	 * @return the length of the downloaded content
+	 * @throws RestClientException if the download fails
+	 */
+	public long download(URI url, WritableResource resource) throws RestClientException {
+		Assert.notNull(url, "'url' must not be null");
+		Assert.notNull(resource, "'resource' must not be null");
+		File file = getFile(resource);
+		try {
+			if (file != null) {
+				return downloadToFile(url, file);
+			}
+			return downloadToStream(url, resource);
+		}
+		catch (IOException ex) {
+			throw new ResourceAccessException("I/O error while downloading \"" + url + "\" to " +
+					resource.getDescription() + ": " + ex.getMessage(), ex);
+		}
+	}
+
+	private static File getFile(WritableResource resource) {
+		try {
+			return resource.getFile();
+		}
+		catch (IOException ex) {
+			// not backed by a file
+			return null;
+		}
+	}
+
+	private long downloadToStream(URI url, WritableResource resource) throws IOException {
+		OutputStream outputStream = resource.getOutputStream();
+		try {
+			Part part = new Part(new StreamSink(outputStream), 0, -1, null, null, null);
+			transfer(url, part);
+			return part.getPosition();
+		}
+		finally {
+			outputStream.close();
+		}
+	}
+
+	private long downloadToFile(URI url, File file) throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+			throw new IOException("Could not create directory " + parent);
+		}
+		File partialFile = new File(file.getPath() + PARTIAL_FILE_SUFFIX);
+		File validatorFile = new File(file.getPath() + VALIDATOR_FILE_SUFFIX);
+		String validator = readValidator(validatorFile);
+		if (validator == null && partialFile.exists() && !partialFile.delete()) {
+			throw new IOException("Could not delete " + partialFile);
+		}
+		long length;
+		RandomAccessFile randomAccessFile = new RandomAccessFile(partialFile, "rw");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			FileSink sink = new FileSink(channel);
+			long position = channel.size();
+			length = -1;
+			if (position == 0 && this.parallelism > 1) {
+				length = downloadInParts(url, sink, randomAccessFile);
+			}
+			if (length == -1) {
+				Part part = new Part(sink, position, -1, validator, validatorFile, null);
+				transfer(url, part);
+				length = part.getPosition();
+			}
+			channel.force(false);
+		}
+		finally {
+			randomAccessFile.close();
+		}
+		moveIntoPlace(partialFile, file);
+		validatorFile.delete();
+		return length;
+	}
+
+	/**
+	 * Download the resource in parts if it supports byte ranges and is large enough.
+	 * @return the length of the resource, or -1 if it was not downloaded
+	 */
+	private long downloadInParts(URI url, FileSink sink, RandomAccessFile randomAccessFile) throws IOException {
+		HttpHeaders headers;
+		try {
+			headers = this.restOperations.execute(url, HttpMethod.HEAD, new IdentityEncodingRequestCallback(),
+					new HeadersExtractor());
+		}
+		catch (HttpStatusCodeException ex) {
+			return -1;
+		}
+		long length = headers.getContentLength();
+		String validator = getValidator(headers);
+		String acceptRanges = headers.getFirst(HttpHeaders.ACCEPT_RANGES);
+		if (length < 2 * this.minimumPartSize || validator == null || acceptRanges == null ||
+				!acceptRanges.toLowerCase().contains(BYTES_UNIT)) {
+			return -1;
+		}
+		int count = (int) Math.min(this.parallelism, length / this.minimumPartSize);
+		long partSize = (length + count - 1) / count;
+		randomAccessFile.setLength(length);
+		DownloadState state = new DownloadState();
+		List<Part> parts = new ArrayList<Part>(count);
+		for (long start = 0; start < length; start += partSize) {
+			long end = Math.min(start + partSize, length) - 1;
+			parts.add(new Part(sink, start, end, validator, null, state));
+		}
+		try {
+			transferAll(url, parts, state);
+		}
+		catch (RuntimeException ex) {
+			// the file has gaps, so it must not be resumed
+			randomAccessFile.setLength(0);
+			throw ex;
+		}
+		return length;
+	}
+
+	private void transferAll(final URI url, List<Part> parts, final DownloadState state) {
+		ThreadPoolExecutor partExecutor = null;
+		Executor executor = this.executor;
+		if (executor == null) {
+			partExecutor = createPartExecutor(parts.size());
+			executor = partExecutor;
+		}
+		final CountDownLatch latch = new CountDownLatch(parts.size());
+		try {
+			for (final Part part : parts) {
+				Runnable task = new Runnable() {
+					public void run() {
+						try {
+							transfer(url, part);
+						}
+						catch (RuntimeException ex) {
+							state.fail(ex);
+						}
+						catch (Error err) {
+							state.fail(new RestClientException("Error while downloading \"" + url + "\"", err));
+							throw err;
+						}
+						finally {
+							latch.countDown();
+						}
+					}
+				};
+				try {
+					executor.execute(task);
+				}
+				catch (RejectedExecutionException ex) {
+					state.fail(new RestClientException("Executor rejected download of \"" + url + "\"", ex));
+					latch.countDown();
+				}
+			}
+			try {
+				latch.await();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				state.fail(new ResourceAccessException("Download of \"" + url + "\" interrupted",
+						new InterruptedIOException(ex.getMessage())));
+			}
+		}
+		finally {
+			if (partExecutor != null) {
+				partExecutor.shutdown();
+			}
+		}
+		state.rethrowFailure();
+	}
+
+	/**
+	 * Transfer the content of the given part, resuming after I/O errors.
+	 */
+	private void transfer(URI url, Part part) {
+		int attempts = 0;
+		while (true) {
+			part.checkNotAborted();
+			long transferred = part.getTransferred();
+			try {
+				this.restOperations.execute(url, HttpMethod.GET, part, part);
+				return;
+			}
+			catch (HttpClientErrorException ex) {
+				if (ex.getStatusCode() != HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE || !part.isOpenEnded() ||
+						part.getPosition() == 0) {
+					throw ex;
+				}
+				long length = getInstanceLength(ex.getResponseHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+				if (length == part.getPosition()) {
+					// a previous download received all content but did not complete
+					return;
+				}
+				if (++attempts > this.maxResumeAttempts) {
+					throw ex;
+				}
+				restart(url, part);
+			}
+			catch (ResourceAccessException ex) {
+				if (part.getTransferred() > transferred) {
+					attempts = 0;
+				}
+				if (++attempts > this.maxResumeAttempts) {
+					throw ex;
+				}
+				if (Log.isLoggable(TAG, Log.DEBUG)) {
+					Log.d(TAG, "Resuming download of \"" + url + "\" at byte " + part.getPosition() + ": " +
+							ex.getMessage());
+				}
+			}
+		}
+	}
+
+	private void restart(URI url, Part part) {
+		try {
+			part.restart(null);
+		}
+		catch (IOException ex) {
+			throw new ResourceAccessException("I/O error while restarting download of \"" + url + "\": " +
+					ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Return the validator to use in an {@code If-Range} header: a strong entity tag,
+	 * or else the last modification date.
+	 */
+	private static String getValidator(HttpHeaders headers) {
+		String eTag = headers.getETag();
+		if (eTag != null && !eTag.startsWith("W/")) {
+			return eTag;
+		}
+		return headers.getFirst(HttpHeaders.LAST_MODIFIED);
+	}
+
+	/**
+	 * Parse a {@code Content-Range} header into its first position, last position
+	 * and instance length, which is -1 when unknown.
+	 */
+	static long[] parseContentRange(String contentRange) throws IOException {
+		if (contentRange != null && contentRange.startsWith(BYTES_UNIT + " ")) {
+			String value = contentRange.substring(BYTES_UNIT.length() + 1).trim();
+			int dashIdx = value.indexOf('-');
+			int slashIdx = value.indexOf('/');
+			if (dashIdx > 0 && slashIdx > dashIdx) {
+				try {
+					long first = Long.parseLong(value.substring(0, dashIdx));
+					long last = Long.parseLong(value.substring(dashIdx + 1, slashIdx));
+					String length = value.substring(slashIdx + 1);
+					return new long[] {first, last, ("*".equals(length) ? -1 : Long.parseLong(length))};
+				}
+				catch (NumberFormatException ex) {
+					// fall through
+				}
+			}
+		}
+		throw new IOException("Invalid Content-Range header: " + contentRange);
+	}
+
+	private static long getInstanceLength(String contentRange) {
+		if (contentRange != null && contentRange.startsWith(BYTES_UNIT + " */")) {
+			try {
+				return Long.parseLong(contentRange.substring(BYTES_UNIT.length() + 3).trim());
+			}
+			catch (NumberFormatException ex) {
+				// unknown
+			}
+		}
+		return -1;
+	}
+
+	private static String readValidator(File validatorFile) throws IOException {
+		if (!validatorFile.exists()) {
+			return null;
+		}
+		InputStream inputStream = new FileInputStream(validatorFile);
+		try {
+			String validator = StreamUtils.copyToString(inputStream, UTF_8).trim();
+			return (validator.length() > 0 ? validator : null);
+		}
+		finally {
+			inputStream.close();
+		}
+	}
+
+	private static void writeValidator(File validatorFile, String validator) throws IOException {
+		if (validator == null) {
+			if (validatorFile.exists() && !validatorFile.delete()) {
+				throw new IOException("Could not delete " + validatorFile);
+			}
+			return;
+		}
+		OutputStream outputStream = new FileOutputStream(validatorFile);
+		try {
+			outputStream.write(validator.getBytes(UTF_8.name()));
+		}
+		finally {
+			outputStream.close();
+		}
+	}
+
+	private static void moveIntoPlace(File partialFile, File file) throws IOException {
+		if (partialFile.renameTo(file)) {
+			return;
+		}
+		// some file systems do not replace an existing file on rename
+		if (!file.delete() || !partialFile.renameTo(file)) {
+			throw new FileNotFoundException("Could not rename " + partialFile + " to " + file);
+		}
+	}
+
+	private static ThreadPoolExecutor createPartExecutor(int poolSize) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 1, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new DownloadThreadFactory());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+
+	/**
+	 * Destination of downloaded content.
+	 */
+	private interface Sink {
+
+		/**
+		 * Write the given bytes at the given position of the content.
+		 */
+		void write(long position, byte[] buffer, int length) throws IOException;
+
+		/**
+		 * Discard all content written so far.
+		 */
+		void truncate() throws IOException;
+	}
+
+
+	/**
+	 * Sink that writes to an {@link OutputStream}, which can only be appended to.
+	 */
+	private static class StreamSink implements Sink {
+
+		private final OutputStream outputStream;
+
+		private long length;
+
+		public StreamSink(OutputStream outputStream) {
+			this.outputStream = outputStream;
+		}
+
+		public void write(long position, byte[] buffer, int length) throws IOException {
+			this.outputStream.write(buffer, 0, length);
+			this.length += length;
+		}
+
+		public void truncate() throws IOException {
+			if (this.length > 0) {
+				throw new RestClientException("Cannot restart download into a stream after " + this.length +
+						" bytes were written");
+			}
+		}
+	}
+
+
+	/**
+	 * Sink that writes to a {@link FileChannel} at the given positions, which allows for
+	 * concurrent writers.
+	 */
+	private static class FileSink implements Sink {
+
+		private final FileChannel channel;
+
+		public FileSink(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		public void write(long position, byte[] buffer, int length) throws IOException {
+			ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, length);
+			while (byteBuffer.hasRemaining()) {
+				position += this.channel.write(byteBuffer, position);
+			}
+		}
+
+		public void truncate() throws IOException {
+			this.channel.truncate(0);
+		}
+	}
+
+
+	/**
+	 * State shared by the parts of a parallel download.
+	 */
+	private static class DownloadState {
+
+		private volatile RuntimeException failure;
+
+		public synchronized void fail(RuntimeException ex) {
+			if (this.failure == null) {
+				this.failure = ex;
+			}
+		}
+
+		public boolean isAborted() {
+			return (this.failure != null);
+		}
+
+		public void rethrowFailure() {
+			if (this.failure != null) {
+				throw this.failure;
+			}
+		}
+	}
+
+
+	/**
+	 * A contiguous range of the content, requested and written by one thread at a time.
+	 * An end position of -1 stands for the rest of the content.
+	 */
+	private static class Part implements RequestCallback, ResponseExtractor<Void> {
+
+		private final Sink sink;
+
+		private final long end;
+
+		private final File validatorFile;
+
+		private final DownloadState state;
+
+		private long position;
+
+		private long transferred;
+
+		private String validator;
+
+		public Part(Sink sink, long position, long end, String validator, File validatorFile, DownloadState state) {
+			this.sink = sink;
+			this.end = end;
+			this.validatorFile = validatorFile;
+			this.state = state;
+			this.position = position;
+			this.validator = validator;
+		}
+
+		public long getPosition() {
+			return this.position;
+		}
+
+		public long getTransferred() {
+			return this.transferred;
+		}
+
+		public boolean isOpenEnded() {
+			return (this.end == -1);
+		}
+
+		public void checkNotAborted() {
+			if (this.state != null && this.state.isAborted()) {
+				throw new RestClientException("Download aborted");
+			}
+		}
+
+		public void doWithRequest(ClientHttpRequest request) throws IOException {
+			HttpHeaders headers = request.getHeaders();
+			// ranges apply to the encoded content, which must therefore be the content itself
+			headers.setAcceptEncoding(ContentCodingType.IDENTITY);
+			if (this.position > 0 || this.end != -1) {
+				HttpRange range = (this.end != -1 ? HttpRange.createByteRange(this.position, this.end) :
+						HttpRange.createByteRange(this.position));
+				headers.setRange(Collections.singletonList(range));
+				if (this.validator != null) {
+					headers.set(HttpHeaders.IF_RANGE, this.validator);
+				}
+			}
+		}
+
+		public Void extractData(ClientHttpResponse response) throws IOException {
+			HttpHeaders headers = response.getHeaders();
+			long length;
+			if (response.getStatusCode() == HttpStatus.PARTIAL_CONTENT) {
+				long[] contentRange = parseContentRange(headers.getFirst(HttpHeaders.CONTENT_RANGE));
+				if (contentRange[0] != this.position) {
+					throw new RestClientException("Requested content from byte " + this.position +
+							", but received " + headers.getFirst(HttpHeaders.CONTENT_RANGE));
+				}
+				length = (this.end != -1 ? this.end + 1 : contentRange[2]);
+			}
+			else if (this.end != -1) {
+				throw new RestClientException("Requested bytes " + this.position + "-" + this.end +
+						", but received the full content");
+			}
+			else {
+				// the full content, either as requested or because the resource has changed
+				restart(getValidator(headers));
+				length = headers.getContentLength();
+			}
+			copy(response.getBody(), length);
+			if (length != -1 && this.position < length) {
+				throw new IOException("Premature end of content at byte " + this.position + " of " + length);
+			}
+			return null;
+		}
+
+		public void restart(String validator) throws IOException {
+			this.sink.truncate();
+			this.position = 0;
+			this.validator = validator;
+			if (this.validatorFile != null) {
+				writeValidator(this.validatorFile, validator);
+			}
+		}
+
+		private void copy(InputStream body, long length) throws IOException {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int bytesRead;
+			while ((bytesRead = body.read(buffer)) != -1) {
+				checkNotAborted();
+				if (length != -1 && this.position + bytesRead > length) {
+					bytesRead = (int) (length - this.position);
+				}
+				this.sink.write(this.position, buffer, bytesRead);
+				this.position += bytesRead;
+				this.transferred += bytesRead;
+				if (length != -1 && this.position == length) {
+					break;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Request callback that asks for the content without any content coding.
+	 */
+	private static class IdentityEncodingRequestCallback implements RequestCallback {
+
+		public void doWithRequest(ClientHttpRequest request) throws IOException {
+			request.getHeaders().setAcceptEncoding(ContentCodingType.IDENTITY);
+		}
+	}
+
+
+	/**
+	 * Response extractor that extracts the response headers.
+	 */
+	private static class HeadersExtractor implements ResponseExtractor<HttpHeaders> {
+
+		public HttpHeaders extractData(ClientHttpResponse response) throws IOException {
+			return response.getHeaders();
+		}
+	}
+
+
+	/**
+	 * Thread factory for the per-download executor, creating daemon threads.
+	 */
+	private static class DownloadThreadFactory implements ThreadFactory {
+
+		private static final AtomicInteger threadCount = new AtomicInteger();
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "ResourceDownloader-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
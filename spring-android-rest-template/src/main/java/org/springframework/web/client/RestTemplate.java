@@ -16,23 +16,35 @@
 
 package org.springframework.web.client;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.lang.reflect.Type;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import javax.xml.transform.Source;
 
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.CancellationHandle;
 import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestEvent;
+import org.springframework.http.client.ClientHttpRequestEvent.Phase;
 import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestListener;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.http.client.support.InterceptingHttpAccessor;
 import org.springframework.http.converter.ByteArrayHttpMessageConverter;
@@ -40,6 +52,7 @@ import org.springframework.http.converter.FormHttpMessageConverter;
 import org.springframework.http.converter.GenericHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.http.converter.ResponseBodyResource;
 import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.json.GsonHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
@@ -48,6 +61,7 @@ import org.springframework.http.converter.xml.SimpleXmlHttpMessageConverter;
 import org.springframework.http.converter.xml.SourceHttpMessageConverter;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
 import org.springframework.web.util.UriTemplate;
 
 import android.util.Log;
@@ -70,11 +84,15 @@ import android.util.Log;
  * <tr><td></td><td>{@link #postForObject}</td></tr>
  * <tr><td>PUT</td><td>{@link #put}</td></tr>
  * <tr><td>any</td><td>{@link #exchange}</td></tr>
- * <tr><td></td><td>{@link #execute}</td></tr> </table>
+ * <tr><td></td><td>{@link #execute}</td></tr>
+ * <tr><td></td><td>{@link #exchangeAll}</td></tr> </table>
  *
  * <p>The {@code exchange} and {@code execute} methods are generalized versions of the more specific methods listed
  * above them. They support additional, less frequently used combinations including support for requests using the
  * HTTP PATCH method. However, note that the underlying HTTP library must also support the desired combination.
+ * The {@code exchangeAll} methods execute a list of {@link RequestEntity requests} concurrently, bounded by the
+ * {@linkplain #setBulkConcurrencyLimit global} and {@linkplain #setBulkConcurrencyLimitPerHost per-host}
+ * concurrency limits.
  *
  * <p>For each of these HTTP methods, there are three corresponding Java methods in the {@code RestTemplate}.
  * Two variants take a {@code String} URI as first argument (eg. {@link #getForObject(String, Class, Object[])},
@@ -139,14 +157,45 @@ import android.util.Log;
  */
 public class RestTemplate extends InterceptingHttpAccessor implements RestOperations {
 
+	/**
+	 * Default maximum number of concurrent exchanges of an {@code exchangeAll} batch.
+	 * @since 2.0
+	 */
+	public static final int DEFAULT_BULK_CONCURRENCY_LIMIT = 8;
+
+	/**
+	 * Default maximum number of concurrent exchanges of an {@code exchangeAll} batch
+	 * against a single host.
+	 * @since 2.0
+	 */
+	public static final int DEFAULT_BULK_CONCURRENCY_LIMIT_PER_HOST = 4;
+
 	private static final String TAG = "RestTemplate";
 
+	/** The URI template of the request about to be executed on the current thread, if any */
+	private static final ThreadLocal<String> currentUriTemplate = new ThreadLocal<String>();
+
 	private final List<HttpMessageConverter<?>> messageConverters = new ArrayList<HttpMessageConverter<?>>();
 
 	private ResponseErrorHandler errorHandler = new DefaultResponseErrorHandler();
 
+	private ClientHttpRequestListener requestListener;
+
+	private RequestMetricsRecorder metricsRecorder;
+
+	private long exchangeTimeout;
+
+	private final Set<CancellationHandle> cancellationHandles =
+			Collections.synchronizedSet(new HashSet<CancellationHandle>());
+
 	private final ResponseExtractor<HttpHeaders> headersExtractor = new HeadersExtractor();
 
+	private int bulkConcurrencyLimit = DEFAULT_BULK_CONCURRENCY_LIMIT;
+
+	private int bulkConcurrencyLimitPerHost = DEFAULT_BULK_CONCURRENCY_LIMIT_PER_HOST;
+
+	private Executor bulkExecutor;
+
 
 	/**
 	 * Create a new instance of the {@link RestTemplate} using default settings.
@@ -256,6 +305,216 @@ public class RestTemplate extends InterceptingHttpAccessor implements RestOperat
 		return this.errorHandler;
 	}
 
+	/**
+	 * Set the listener to notify of the phases of each request performed by this template:
+	 * URI expansion, converter selection, request serialization, the exchange itself,
+	 * error handling and deserialization.
+	 * <p>The network phases of an exchange are reported by the request factory instead,
+	 * see for instance {@link org.springframework.http.client.SimpleClientHttpRequestFactory#setRequestListener}.
+	 * <p>Default is none, in which case no timestamps are taken.
+	 * @param requestListener the listener, or {@code null} for none
+	 * @since 2.0
+	 */
+	public void setRequestListener(ClientHttpRequestListener requestListener) {
+		this.requestListener = requestListener;
+	}
+
+	/**
+	 * Return the request listener, if any.
+	 * @since 2.0
+	 */
+	public ClientHttpRequestListener getRequestListener() {
+		return this.requestListener;
+	}
+
+	/**
+	 * Set the recorder to aggregate request metrics into.
+	 * <p>Requests are keyed by HTTP method, host and URI template, as passed to the
+	 * methods that take a {@code String} URL. Requests made with a {@link URI}, including
+	 * those of {@link #exchange(RequestEntity, Class)} and {@link #exchangeAll}, have no
+	 * template, and are recorded under {@link RequestMetricsRecorder#NO_URI_TEMPLATE}
+	 * rather than their path, which would create an endpoint per identifier in the path.
+	 * The recorded latency spans the whole execution, from the
+	 * creation of the request until the response has been extracted.
+	 * <p>Request and response bytes are counted as they are written to and read from
+	 * the bodies, after any content decoding of the response. Responses whose bodies are
+	 * streamed to the caller, such as a {@link ResponseBodyResource}, are recorded once
+	 * closed.
+	 * <p>Default is none.
+	 * @param metricsRecorder the recorder, or {@code null} for none
+	 * @since 2.0
+	 */
+	public void setMetricsRecorder(RequestMetricsRecorder metricsRecorder) {
+		this.metricsRecorder = metricsRecorder;
+	}
+
+	/**
+	 * Return the request metrics recorder, if any.
+	 * @since 2.0
+	 */
+	public RequestMetricsRecorder getMetricsRecorder() {
+		return this.metricsRecorder;
+	}
+
+	/**
+	 * Set the deadline in milliseconds for each exchange, from the creation of the
+	 * request until the response has been extracted. Unlike the timeouts of the request
+	 * factory, it bounds the exchange as a whole: interceptors, retries, streaming of the
+	 * body and its conversion. A request still in progress at its deadline is aborted
+	 * and fails with a {@link RequestDeadlineExceededException}. The deadline of a
+	 * streamed {@link org.springframework.http.converter.ResponseBodyResource} lasts
+	 * until the resource is closed, so reading it past the deadline fails likewise.
+	 * <p>A deadline set on the {@link CancellationHandle} bound to the calling thread
+	 * takes precedence, which allows overriding the deadline per request. Requests
+	 * nested within a request, e.g. made by an interceptor, inherit its remaining time.
+	 * <p>Default is 0, i.e. no deadline.
+	 * @param exchangeTimeout the deadline in milliseconds, or 0 for none
+	 * @since 2.0
+	 */
+	public void setExchangeTimeout(long exchangeTimeout) {
+		Assert.isTrue(exchangeTimeout >= 0, "'exchangeTimeout' must not be negative");
+		this.exchangeTimeout = exchangeTimeout;
+	}
+
+	/**
+	 * Return the deadline in milliseconds for each exchange, or 0 for none.
+	 * @since 2.0
+	 */
+	public long getExchangeTimeout() {
+		return this.exchangeTimeout;
+	}
+
+	/**
+	 * Cancel the requests in progress on this template that were started while a
+	 * {@link CancellationHandle} with the given tag was bound to the executing thread.
+	 * <p>Their transports are aborted and they fail with a
+	 * {@link RequestCancelledException}. Requests started afterwards are not affected;
+	 * cancel the handle itself to prevent further requests.
+	 * @param tag the tag of the requests to cancel
+	 * @return the number of requests cancelled
+	 * @since 2.0
+	 * @see CancellationHandle#setCurrent(CancellationHandle)
+	 */
+	public int cancel(Object tag) {
+		List<CancellationHandle> handles = new ArrayList<CancellationHandle>();
+		synchronized (this.cancellationHandles) {
+			for (CancellationHandle handle : this.cancellationHandles) {
+				if (ObjectUtils.nullSafeEquals(tag, handle.getTag())) {
+					handles.add(handle);
+				}
+			}
+		}
+		for (CancellationHandle handle : handles) {
+			handle.cancel();
+		}
+		return handles.size();
+	}
+
+	/**
+	 * Set the maximum number of exchanges of an {@code exchangeAll} batch that are
+	 * executed concurrently.
+	 * <p>Default is {@value #DEFAULT_BULK_CONCURRENCY_LIMIT}.
+	 * @since 2.0
+	 */
+	public void setBulkConcurrencyLimit(int bulkConcurrencyLimit) {
+		Assert.isTrue(bulkConcurrencyLimit > 0, "'bulkConcurrencyLimit' must be larger than 0");
+		this.bulkConcurrencyLimit = bulkConcurrencyLimit;
+	}
+
+	/**
+	 * Return the maximum number of concurrent exchanges of an {@code exchangeAll} batch.
+	 * @since 2.0
+	 */
+	public int getBulkConcurrencyLimit() {
+		return this.bulkConcurrencyLimit;
+	}
+
+	/**
+	 * Set the maximum number of exchanges of an {@code exchangeAll} batch that are
+	 * executed concurrently against the same scheme, host and port.
+	 * <p>Default is {@value #DEFAULT_BULK_CONCURRENCY_LIMIT_PER_HOST}.
+	 * @since 2.0
+	 */
+	public void setBulkConcurrencyLimitPerHost(int bulkConcurrencyLimitPerHost) {
+		Assert.isTrue(bulkConcurrencyLimitPerHost > 0, "'bulkConcurrencyLimitPerHost' must be larger than 0");
+		this.bulkConcurrencyLimitPerHost = bulkConcurrencyLimitPerHost;
+	}
+
+	/**
+	 * Return the maximum number of concurrent exchanges of an {@code exchangeAll} batch
+	 * against a single host.
+	 * @since 2.0
+	 */
+	public int getBulkConcurrencyLimitPerHost() {
+		return this.bulkConcurrencyLimitPerHost;
+	}
+
+	/**
+	 * Set the {@link Executor} that executes the exchanges of an {@code exchangeAll}
+	 * batch. The executor must be able to run at least as many tasks concurrently as
+	 * the {@linkplain #setBulkConcurrencyLimit concurrency limit} for the limit to be
+	 * reached.
+	 * <p>Default is {@code null}, creating a thread pool for each batch that is shut
+	 * down once the batch has completed.
+	 * @since 2.0
+	 */
+	public void setBulkExecutor(Executor bulkExecutor) {
+		this.bulkExecutor = bulkExecutor;
+	}
+
+	/**
+	 * Return the {@link Executor} that executes the exchanges of an {@code exchangeAll}
+	 * batch, or {@code null} if a thread pool is created for each batch.
+	 * @since 2.0
+	 */
+	public Executor getBulkExecutor() {
+		return this.bulkExecutor;
+	}
+
+	/**
+	 * Returns a request callback implementation that prepares the request {@code Accept}
+	 * headers based on the given response type and configured
+	 * {@linkplain #getMessageConverters() message converters}.
+	 * @since 2.0
+	 */
+	protected <T> RequestCallback acceptHeaderRequestCallback(Class<T> responseType) {
+		return new AcceptHeaderRequestCallback(responseType);
+	}
+
+	/**
+	 * Returns a request callback implementation that writes the given object to the
+	 * request stream.
+	 * @since 2.0
+	 */
+	protected <T> RequestCallback httpEntityCallback(Object requestBody) {
+		return new HttpEntityRequestCallback(requestBody);
+	}
+
+	/**
+	 * Returns a request callback implementation that writes the given object to the
+	 * request stream.
+	 * @since 2.0
+	 */
+	protected <T> RequestCallback httpEntityCallback(Object requestBody, Type responseType) {
+		return new HttpEntityRequestCallback(requestBody, responseType);
+	}
+
+	/**
+	 * Returns a response extractor for {@link ResponseEntity}.
+	 * @since 2.0
+	 */
+	protected <T> ResponseExtractor<ResponseEntity<T>> responseEntityExtractor(Type responseType) {
+		return new ResponseEntityResponseExtractor<T>(responseType);
+	}
+
+	/**
+	 * Returns a response extractor for {@link HttpHeaders}.
+	 * @since 2.0
+	 */
+	protected ResponseExtractor<HttpHeaders> headersExtractor() {
+		return this.headersExtractor;
+	}
+
 
 	// GET
 
@@ -492,20 +751,155 @@ public class RestTemplate extends InterceptingHttpAccessor implements RestOperat
 		return execute(url, method, requestCallback, responseExtractor);
 	}
 
+	public <T> ResponseEntity<T> exchange(RequestEntity<?> requestEntity, Class<T> responseType)
+			throws RestClientException {
+
+		Assert.notNull(requestEntity, "'requestEntity' must not be null");
+
+		HttpEntityRequestCallback requestCallback = new HttpEntityRequestCallback(requestEntity, responseType);
+		ResponseEntityResponseExtractor<T> responseExtractor = new ResponseEntityResponseExtractor<T>(responseType);
+		return execute(requestEntity.getUrl(), requestEntity.getMethod(), requestCallback, responseExtractor);
+	}
+
+	public <T> ResponseEntity<T> exchange(RequestEntity<?> requestEntity, ParameterizedTypeReference<T> responseType)
+			throws RestClientException {
+
+		Assert.notNull(requestEntity, "'requestEntity' must not be null");
+
+		Type type = responseType.getType();
+		HttpEntityRequestCallback requestCallback = new HttpEntityRequestCallback(requestEntity, type);
+		ResponseEntityResponseExtractor<T> responseExtractor = new ResponseEntityResponseExtractor<T>(type);
+		return execute(requestEntity.getUrl(), requestEntity.getMethod(), requestCallback, responseExtractor);
+	}
+
+	// bulk exchange
+
+	/**
+	 * Execute all given requests concurrently, bounded by the
+	 * {@linkplain #setBulkConcurrencyLimit global} and
+	 * {@linkplain #setBulkConcurrencyLimitPerHost per-host} concurrency limits, and
+	 * return their results in request order.
+	 * <p>A failing exchange does not abort the batch; its exception is reported on the
+	 * corresponding {@link BulkExchangeResult}.
+	 * @param requests the requests to execute
+	 * @param responseType the type of the response bodies
+	 * @return the results, in the order of the given requests
+	 * @since 2.0
+	 */
+	public <T> List<BulkExchangeResult<T>> exchangeAll(List<? extends RequestEntity<?>> requests,
+			Class<T> responseType) {
+
+		return doExchangeAll(requests, responseType);
+	}
+
+	/**
+	 * Execute all given requests concurrently, bounded by the
+	 * {@linkplain #setBulkConcurrencyLimit global} and
+	 * {@linkplain #setBulkConcurrencyLimitPerHost per-host} concurrency limits, and
+	 * return their results in request order. The given
+	 * {@link ParameterizedTypeReference} is used to pass generic type information.
+	 * <p>A failing exchange does not abort the batch; its exception is reported on the
+	 * corresponding {@link BulkExchangeResult}.
+	 * @param requests the requests to execute
+	 * @param responseType the type of the response bodies
+	 * @return the results, in the order of the given requests
+	 * @since 2.0
+	 */
+	public <T> List<BulkExchangeResult<T>> exchangeAll(List<? extends RequestEntity<?>> requests,
+			ParameterizedTypeReference<T> responseType) {
+
+		return doExchangeAll(requests, responseType.getType());
+	}
+
+	/**
+	 * Execute all given requests concurrently, bounded by the
+	 * {@linkplain #setBulkConcurrencyLimit global} and
+	 * {@linkplain #setBulkConcurrencyLimitPerHost per-host} concurrency limits, and
+	 * pass each result to the given callback as soon as its exchange completes.
+	 * <p>The callback is invoked on the calling thread, and this method returns once
+	 * all exchanges have completed.
+	 * @param requests the requests to execute
+	 * @param responseType the type of the response bodies
+	 * @param callback the callback to pass the results to, in completion order
+	 * @since 2.0
+	 */
+	public <T> void exchangeAll(List<? extends RequestEntity<?>> requests, Class<T> responseType,
+			BulkExchangeCallback<T> callback) {
+
+		createBulkExchangeExecutor(requests, responseType, callback).execute(requests, callback);
+	}
+
+	/**
+	 * Execute all given requests concurrently, bounded by the
+	 * {@linkplain #setBulkConcurrencyLimit global} and
+	 * {@linkplain #setBulkConcurrencyLimitPerHost per-host} concurrency limits, and
+	 * pass each result to the given callback as soon as its exchange completes. The
+	 * given {@link ParameterizedTypeReference} is used to pass generic type information.
+	 * <p>The callback is invoked on the calling thread, and this method returns once
+	 * all exchanges have completed.
+	 * @param requests the requests to execute
+	 * @param responseType the type of the response bodies
+	 * @param callback the callback to pass the results to, in completion order
+	 * @since 2.0
+	 */
+	public <T> void exchangeAll(List<? extends RequestEntity<?>> requests,
+			ParameterizedTypeReference<T> responseType, BulkExchangeCallback<T> callback) {
+
+		createBulkExchangeExecutor(requests, responseType.getType(), callback).execute(requests, callback);
+	}
+
+	private <T> List<BulkExchangeResult<T>> doExchangeAll(List<? extends RequestEntity<?>> requests,
+			Type responseType) {
+
+		final List<BulkExchangeResult<T>> results = new ArrayList<BulkExchangeResult<T>>(requests.size());
+		for (int i = 0; i < requests.size(); i++) {
+			results.add(null);
+		}
+		BulkExchangeCallback<T> callback = new BulkExchangeCallback<T>() {
+			public void onResult(BulkExchangeResult<T> result) {
+				results.set(result.getIndex(), result);
+			}
+		};
+		createBulkExchangeExecutor(requests, responseType, callback).execute(requests, callback);
+		return results;
+	}
+
+	private <T> BulkExchangeExecutor<T> createBulkExchangeExecutor(List<? extends RequestEntity<?>> requests,
+			Type responseType, BulkExchangeCallback<T> callback) {
+
+		Assert.notNull(requests, "'requests' must not be null");
+		Assert.notNull(callback, "'callback' must not be null");
+		for (RequestEntity<?> request : requests) {
+			Assert.notNull(request, "'requests' must not contain null elements");
+		}
+		return new BulkExchangeExecutor<T>(this, responseType, this.bulkConcurrencyLimit,
+				this.bulkConcurrencyLimitPerHost, this.bulkExecutor);
+	}
+
 	// general execution
 
 	public <T> T execute(String url, HttpMethod method, RequestCallback requestCallback,
 			ResponseExtractor<T> responseExtractor, Object... urlVariables) throws RestClientException {
 
+		ClientHttpRequestListener listener = this.requestListener;
+		long start = (listener != null ? System.nanoTime() : 0);
 		URI expanded = new UriTemplate(url).expand(urlVariables);
-		return doExecute(expanded, method, requestCallback, responseExtractor);
+		if (listener != null) {
+			fireEvent(listener, Phase.URI_EXPANSION, method, expanded, start, -1);
+		}
+		return doExecute(expanded, url, method, requestCallback, responseExtractor);
 	}
 
 	public <T> T execute(String url, HttpMethod method, RequestCallback requestCallback,
 			ResponseExtractor<T> responseExtractor, Map<String, ?> urlVariables) throws RestClientException {
 
+		ClientHttpRequestListener listener = this.requestListener;
+		long start = (listener != null ? System.nanoTime() : 0);
 		URI expanded = new UriTemplate(url).expand(urlVariables);
-		return doExecute(expanded, method, requestCallback, responseExtractor);
+		if (listener != null) {
+			fireEvent(listener, Phase.URI_EXPANSION, method, expanded, start, -1);
+		}
+		return doExecute(expanded, url, method, requestCallback, responseExtractor);
 	}
 
 	public <T> T execute(URI url, HttpMethod method, RequestCallback requestCallback,
@@ -514,6 +908,23 @@ public class RestTemplate extends InterceptingHttpAccessor implements RestOperat
 		return doExecute(url, method, requestCallback, responseExtractor);
 	}
 
+	/**
+	 * Execute the given method on the provided URI, expanded from the given URI template,
+	 * which {@link #doExecute(URI, HttpMethod, RequestCallback, ResponseExtractor)} uses as
+	 * the key of the {@linkplain #setMetricsRecorder(RequestMetricsRecorder) request metrics}.
+	 */
+	private <T> T doExecute(URI url, String uriTemplate, HttpMethod method, RequestCallback requestCallback,
+			ResponseExtractor<T> responseExtractor) throws RestClientException {
+
+		currentUriTemplate.set(uriTemplate);
+		try {
+			return doExecute(url, method, requestCallback, responseExtractor);
+		}
+		finally {
+			currentUriTemplate.remove();
+		}
+	}
+
 	/**
 	 * Execute the given method on the provided URI.
 	 * <p>The {@link ClientHttpRequest} is processed using the {@link RequestCallback};
@@ -529,37 +940,174 @@ public class RestTemplate extends InterceptingHttpAccessor implements RestOperat
 
 		Assert.notNull(url, "'url' must not be null");
 		Assert.notNull(method, "'method' must not be null");
+		// not inherited by requests nested within this one, e.g. made by an interceptor
+		String uriTemplate = currentUriTemplate.get();
+		currentUriTemplate.remove();
+		// Each request gets a handle of its own, which a cancelled caller handle cancels
+		CancellationHandle callerHandle = CancellationHandle.getCurrent();
+		CancellationHandle cancellationHandle = null;
+		if (callerHandle != null || this.exchangeTimeout > 0) {
+			cancellationHandle = (callerHandle != null ? new CancellationHandle(callerHandle) : new CancellationHandle());
+			if (this.exchangeTimeout > 0 && !cancellationHandle.hasDeadline()) {
+				cancellationHandle.setTimeout(this.exchangeTimeout);
+			}
+			CancellationHandle.setCurrent(cancellationHandle);
+			this.cancellationHandles.add(cancellationHandle);
+		}
+		ClientHttpRequestListener listener = this.requestListener;
+		RequestMetricsRecorder metricsRecorder = this.metricsRecorder;
+		long metricsStart = (metricsRecorder != null ? System.nanoTime() : 0);
+		int statusCode = -1;
+		ByteCountingClientHttpRequest countingRequest = null;
+		ByteCountingClientHttpResponse countingResponse = null;
+		CancellableClientHttpResponse cancellableResponse = null;
 		ClientHttpResponse response = null;
 		try {
 			ClientHttpRequest request = createRequest(url, method);
+			if (metricsRecorder != null) {
+				countingRequest = new ByteCountingClientHttpRequest(request);
+				request = countingRequest;
+			}
+			long start = (listener != null ? System.nanoTime() : 0);
 			if (requestCallback != null) {
 				requestCallback.doWithRequest(request);
+				if (listener != null) {
+					start = fireEvent(listener, Phase.REQUEST_SERIALIZATION, method, url, start,
+							request.getHeaders().getContentLength());
+				}
+			}
+			if (cancellationHandle != null) {
+				checkNotCancelled(cancellationHandle, method, url);
 			}
 			response = request.execute();
+			if (cancellationHandle != null) {
+				cancellableResponse = new CancellableClientHttpResponse(response, cancellationHandle, method, url);
+				response = cancellableResponse;
+			}
+			if (metricsRecorder != null) {
+				countingResponse = new ByteCountingClientHttpResponse(response);
+				response = countingResponse;
+			}
+			if (listener != null || metricsRecorder != null) {
+				// the status line is read lazily by some clients
+				statusCode = response.getRawStatusCode();
+			}
+			if (listener != null) {
+				start = fireEvent(listener, Phase.EXCHANGE, method, url, start, -1);
+			}
 			if (!getErrorHandler().hasError(response)) {
 				logResponseStatus(method, url, response);
 			}
 			else {
-				handleResponseError(method, url, response);
+				try {
+					handleResponseError(method, url, response);
+				}
+				finally {
+					if (listener != null) {
+						start = fireEvent(listener, Phase.ERROR_HANDLING, method, url, start, -1);
+					}
+				}
 			}
 			if (responseExtractor != null) {
-				return responseExtractor.extractData(response);
+				T result = responseExtractor.extractData(response);
+				if (listener != null) {
+					fireEvent(listener, Phase.DESERIALIZATION, method, url, start,
+							response.getHeaders().getContentLength());
+				}
+				if (holdsResponse(result)) {
+					// closed once the result has been consumed
+					response = null;
+				}
+				return result;
 			}
 			else {
 				return null;
 			}
 		}
 		catch (IOException ex) {
+			if (cancellationHandle != null && cancellationHandle.isCancelled()) {
+				throw cancelledException(cancellationHandle, method, url, ex);
+			}
 			throw new ResourceAccessException("I/O error on " + method.name() +
 					" request for \"" + url + "\": " + ex.getMessage(), ex);
 		}
+		catch (RuntimeException ex) {
+			// e.g. a converter failing on a body whose transport was aborted
+			if (cancellationHandle != null && cancellationHandle.isCancelled() &&
+					!(ex instanceof RequestCancelledException) && !(ex instanceof RequestDeadlineExceededException)) {
+				throw cancelledException(cancellationHandle, method, url, ex);
+			}
+			throw ex;
+		}
 		finally {
+			if (metricsRecorder != null) {
+				String metricsKey = (uriTemplate != null ? uriTemplate : RequestMetricsRecorder.NO_URI_TEMPLATE);
+				long requestBytes = (countingRequest != null ? countingRequest.getByteCount() : -1);
+				if (countingResponse != null && response == null) {
+					// the body is read after this method returns
+					countingResponse.recordOnClose(metricsRecorder, method, metricsKey, url.getHost(), statusCode,
+							metricsStart, requestBytes);
+				}
+				else {
+					long responseBytes = (countingResponse != null ? countingResponse.getByteCount() : -1);
+					metricsRecorder.record(method, metricsKey, url.getHost(), statusCode,
+							System.nanoTime() - metricsStart, requestBytes, responseBytes);
+				}
+			}
 			if (response != null) {
 				response.close();
 			}
+			if (cancellationHandle != null) {
+				if (cancellableResponse != null && response == null) {
+					// the body is read after this method returns, and can be cancelled until closed
+					cancellableResponse.releaseOnClose(this.cancellationHandles);
+				}
+				else {
+					this.cancellationHandles.remove(cancellationHandle);
+					cancellationHandle.release();
+				}
+				CancellationHandle.setCurrent(callerHandle);
+			}
+		}
+	}
+
+	private static void checkNotCancelled(CancellationHandle cancellationHandle, HttpMethod method, URI url) {
+		if (cancellationHandle.isCancelled() || cancellationHandle.getRemainingTime() == 0) {
+			throw cancelledException(cancellationHandle, method, url, null);
 		}
 	}
 
+	private static RestClientException cancelledException(CancellationHandle cancellationHandle, HttpMethod method,
+			URI url, Throwable cause) {
+
+		if (cancellationHandle.isDeadlineExceeded() || cancellationHandle.getRemainingTime() == 0) {
+			return new RequestDeadlineExceededException(method.name() + " request for \"" + url +
+					"\" exceeded its deadline", cause);
+		}
+		return new RequestCancelledException(method.name() + " request for \"" + url + "\" was cancelled", cause);
+	}
+
+	/**
+	 * Notify the given listener that the given phase has ended.
+	 * @return the end of the phase, i.e. the start of the next one
+	 */
+	private static long fireEvent(ClientHttpRequestListener listener, Phase phase, HttpMethod method, URI url,
+			long startNanos, long byteCount) {
+
+		long now = System.nanoTime();
+		listener.onEvent(new ClientHttpRequestEvent(phase, method, url, startNanos, now, byteCount));
+		return now;
+	}
+
+	/**
+	 * Indicates whether the given extracted value, or the body of a {@link HttpEntity}, is
+	 * a {@link ResponseBodyResource}, which streams the response and closes it when done.
+	 */
+	static boolean holdsResponse(Object result) {
+		Object body = (result instanceof HttpEntity ? ((HttpEntity<?>) result).getBody() : result);
+		return (body instanceof ResponseBodyResource);
+	}
+
 	private void logResponseStatus(HttpMethod method, URI url, ClientHttpResponse response) {
 		if (Log.isLoggable(TAG, Log.DEBUG)) {
 			try {
@@ -689,8 +1237,14 @@ public class RestTemplate extends InterceptingHttpAccessor implements RestOperat
 				Class<?> requestType = requestBody.getClass();
 				HttpHeaders requestHeaders = requestEntity.getHeaders();
 				MediaType requestContentType = requestHeaders.getContentType();
+				ClientHttpRequestListener listener = getRequestListener();
+				long start = (listener != null ? System.nanoTime() : 0);
 				for (HttpMessageConverter<?> messageConverter : getMessageConverters()) {
 					if (messageConverter.canWrite(requestType, requestContentType)) {
+						if (listener != null) {
+							fireEvent(listener, Phase.CONVERTER_SELECTION, httpRequest.getMethod(),
+									httpRequest.getURI(), start, -1);
+						}
 						if (!requestHeaders.isEmpty()) {
 							httpRequest.getHeaders().putAll(requestHeaders);
 						}
@@ -746,6 +1300,146 @@ public class RestTemplate extends InterceptingHttpAccessor implements RestOperat
 		}
 	}
 
+	/**
+	 * Response whose body fails as soon as its request is cancelled, so that a body
+	 * conversion in progress stops promptly, even if the body has been buffered.
+	 * <p>A response whose body outlives the exchange, such as a streamed resource, keeps
+	 * its request cancellable until it is closed, see {@link #releaseOnClose}.
+	 */
+	private static class CancellableClientHttpResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse response;
+
+		private final CancellationHandle cancellationHandle;
+
+		private final HttpMethod method;
+
+		private final URI url;
+
+		private InputStream body;
+
+		private volatile Set<CancellationHandle> cancellationHandles;
+
+		public CancellableClientHttpResponse(ClientHttpResponse response, CancellationHandle cancellationHandle,
+				HttpMethod method, URI url) {
+
+			this.response = response;
+			this.cancellationHandle = cancellationHandle;
+			this.method = method;
+			this.url = url;
+		}
+
+		public HttpStatus getStatusCode() throws IOException {
+			return this.response.getStatusCode();
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return this.response.getRawStatusCode();
+		}
+
+		public String getStatusText() throws IOException {
+			return this.response.getStatusText();
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.response.getHeaders();
+		}
+
+		public InputStream getBody() throws IOException {
+			if (this.body == null) {
+				this.body = new CancellableInputStream(this.response.getBody(), this);
+			}
+			return this.body;
+		}
+
+		public void close() {
+			try {
+				this.response.close();
+			}
+			finally {
+				Set<CancellationHandle> cancellationHandles = this.cancellationHandles;
+				if (cancellationHandles != null) {
+					cancellationHandles.remove(this.cancellationHandle);
+					this.cancellationHandle.release();
+				}
+			}
+		}
+
+		/**
+		 * Keep the request registered with the given handles, and its handle alive, until
+		 * this response is closed.
+		 */
+		void releaseOnClose(Set<CancellationHandle> cancellationHandles) {
+			this.cancellationHandles = cancellationHandles;
+		}
+
+		/**
+		 * Fail if the request has been cancelled: with an {@link InterruptedIOException}
+		 * during the exchange, or with the exception the exchange would have raised once
+		 * this response outlives it.
+		 * @param cause the exception raised by the aborted transport, if any
+		 */
+		void checkNotCancelled(IOException cause) throws InterruptedIOException {
+			if (this.cancellationHandle.isCancelled()) {
+				if (this.cancellationHandles != null) {
+					throw cancelledException(this.cancellationHandle, this.method, this.url, cause);
+				}
+				if (cause == null) {
+					throw new InterruptedIOException("Request cancelled");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Input stream that fails once the request of the given response is cancelled.
+	 */
+	private static class CancellableInputStream extends FilterInputStream {
+
+		private final CancellableClientHttpResponse response;
+
+		public CancellableInputStream(InputStream in, CancellableClientHttpResponse response) {
+			super(in);
+			this.response = response;
+		}
+
+		@Override
+		public int read() throws IOException {
+			this.response.checkNotCancelled(null);
+			try {
+				return super.read();
+			}
+			catch (IOException ex) {
+				this.response.checkNotCancelled(ex);
+				throw ex;
+			}
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			this.response.checkNotCancelled(null);
+			try {
+				return super.read(b, off, len);
+			}
+			catch (IOException ex) {
+				this.response.checkNotCancelled(ex);
+				throw ex;
+			}
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			this.response.checkNotCancelled(null);
+			try {
+				return super.skip(n);
+			}
+			catch (IOException ex) {
+				this.response.checkNotCancelled(ex);
+				throw ex;
+			}
+		}
+	}
+
 	/**
 	 * Response extractor that extracts the response {@link HttpHeaders}.
 	 */
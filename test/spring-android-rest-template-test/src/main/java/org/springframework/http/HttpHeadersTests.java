@@ -355,6 +355,60 @@ public class HttpHeadersTests extends TestCase {
 		assertThat(headers.getAllow(), Matchers.emptyCollectionOf(HttpMethod.class));
 	}
 
+	@SmallTest
+	public void testRange() {
+		List<HttpRange> ranges = new ArrayList<HttpRange>();
+		ranges.add(HttpRange.createByteRange(0, 499));
+		ranges.add(HttpRange.createByteRange(9500));
+		ranges.add(HttpRange.createSuffixRange(100));
+		headers.setRange(ranges);
+
+		assertEquals("Invalid Range header", "bytes=0-499, 9500-, -100", headers.getFirst("Range"));
+		assertEquals("Invalid Range header", ranges, headers.getRange());
+	}
+
+	@SmallTest
+	public void testRangeBounds() {
+		HttpRange range = HttpRange.createByteRange(9500);
+		assertEquals(9500, range.getRangeStart(10000));
+		assertEquals(9999, range.getRangeEnd(10000));
+		range = HttpRange.createSuffixRange(100);
+		assertEquals(9900, range.getRangeStart(10000));
+		assertEquals(9999, range.getRangeEnd(10000));
+		assertTrue(headers.getRange().isEmpty());
+	}
+
+	@SmallTest
+	public void testRetryAfterSeconds() {
+		assertEquals(-1, headers.getRetryAfter());
+		headers.setRetryAfter(120);
+
+		assertEquals("Invalid Retry-After header", "120", headers.getFirst("Retry-After"));
+		assertEquals("Invalid Retry-After header", 120 * 1000, headers.getRetryAfter());
+	}
+
+	@SmallTest
+	public void testRetryAfterDate() {
+		headers.set("Date", "Thu, 18 Dec 2008 10:20:00 GMT");
+		headers.set("Retry-After", "Thu, 18 Dec 2008 10:21:30 GMT");
+		assertEquals("Invalid Retry-After header", 90 * 1000, headers.getRetryAfter());
+
+		headers.set("Retry-After", "Thu, 18 Dec 2008 10:19:00 GMT");
+		assertEquals("Invalid Retry-After header", 0, headers.getRetryAfter());
+	}
+
+	@SmallTest
+	public void testRetryAfterInvalid() {
+		headers.set("Retry-After", "soon");
+		try {
+			headers.getRetryAfter();
+			fail("IllegalArgumentException expected");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
 	// helpers
 
 	private Date getDateFromHeader(HttpHeaders headers, String key) {
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import junit.framework.TestCase;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StreamUtils;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * @author Roy Clarkson
+ */
+public class AbstractClientHttpResponseTests extends TestCase {
+
+	private static final String CONTENT = "Hello World! Hello World! Hello World!";
+
+	@SmallTest
+	public void testGzip() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GZIPOutputStream gzip = new GZIPOutputStream(out);
+		gzip.write(CONTENT.getBytes("UTF-8"));
+		gzip.close();
+		assertEquals(CONTENT, readBody(new ResponseMock("gzip", out.toByteArray())));
+	}
+
+	@SmallTest
+	public void testDeflateZlib() throws Exception {
+		assertEquals(CONTENT, readBody(new ResponseMock("deflate", deflate(false))));
+	}
+
+	@SmallTest
+	public void testDeflateRaw() throws Exception {
+		assertEquals(CONTENT, readBody(new ResponseMock("deflate", deflate(true))));
+	}
+
+	@SmallTest
+	public void testEmptyBody() throws Exception {
+		assertEquals("", readBody(new ResponseMock("gzip", new byte[0])));
+		assertEquals("", readBody(new ResponseMock("deflate", new byte[0])));
+	}
+
+	@SmallTest
+	public void testIdentity() throws Exception {
+		assertEquals(CONTENT, readBody(new ResponseMock(null, CONTENT.getBytes("UTF-8"))));
+	}
+
+	private static byte[] deflate(boolean nowrap) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+		DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater);
+		deflate.write(CONTENT.getBytes("UTF-8"));
+		deflate.close();
+		deflater.end();
+		return out.toByteArray();
+	}
+
+	private static String readBody(ClientHttpResponse response) throws IOException {
+		try {
+			return new String(StreamUtils.copyToByteArray(response.getBody()), "UTF-8");
+		}
+		finally {
+			response.close();
+		}
+	}
+
+
+	private static class ResponseMock extends AbstractClientHttpResponse {
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final byte[] body;
+
+		private ResponseMock(String contentEncoding, byte[] body) {
+			if (contentEncoding != null) {
+				this.headers.set("Content-Encoding", contentEncoding);
+			}
+			this.body = body;
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return 200;
+		}
+
+		public String getStatusText() throws IOException {
+			return "OK";
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		@Override
+		protected InputStream getBodyInternal() throws IOException {
+			return new ByteArrayInputStream(this.body);
+		}
+
+		@Override
+		protected void closeInternal() {
+		}
+	}
+
+}
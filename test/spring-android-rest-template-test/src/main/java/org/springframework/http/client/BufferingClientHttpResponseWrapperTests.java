@@ -0,0 +1,188 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StreamUtils;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * @author Roy Clarkson
+ */
+public class BufferingClientHttpResponseWrapperTests extends TestCase {
+
+	private File tempDirectory;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.tempDirectory = File.createTempFile("buffering", "");
+		this.tempDirectory.delete();
+		this.tempDirectory.mkdir();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		File[] files = this.tempDirectory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		this.tempDirectory.delete();
+		super.tearDown();
+	}
+
+	@SmallTest
+	public void testBufferInMemory() throws Exception {
+		byte[] body = createBody(1000);
+		ResponseMock responseMock = new ResponseMock(body, -1);
+		ClientHttpResponse response = new BufferingClientHttpResponseWrapper(responseMock, 1000, this.tempDirectory);
+		assertTrue(Arrays.equals(body, StreamUtils.copyToByteArray(response.getBody())));
+		assertTrue(Arrays.equals(body, StreamUtils.copyToByteArray(response.getBody())));
+		assertEquals(0, this.tempDirectory.list().length);
+		assertEquals(1, responseMock.bodyRequests);
+		response.close();
+		assertTrue(responseMock.closed);
+	}
+
+	@SmallTest
+	public void testSpillToFile() throws Exception {
+		byte[] body = createBody(10000);
+		ResponseMock responseMock = new ResponseMock(body, -1);
+		ClientHttpResponse response = new BufferingClientHttpResponseWrapper(responseMock, 1000, this.tempDirectory);
+		assertTrue(Arrays.equals(body, StreamUtils.copyToByteArray(response.getBody())));
+		assertTrue(Arrays.equals(body, StreamUtils.copyToByteArray(response.getBody())));
+		assertEquals(1, this.tempDirectory.list().length);
+		assertEquals(1, responseMock.bodyRequests);
+		response.close();
+		assertTrue(responseMock.closed);
+		assertEquals(0, this.tempDirectory.list().length);
+	}
+
+	@SmallTest
+	public void testSpillToFileByContentLength() throws Exception {
+		byte[] body = createBody(2000);
+		ResponseMock responseMock = new ResponseMock(body, body.length);
+		ClientHttpResponse response = new BufferingClientHttpResponseWrapper(responseMock, 1000, this.tempDirectory);
+		assertTrue(Arrays.equals(body, StreamUtils.copyToByteArray(response.getBody())));
+		assertEquals(1, this.tempDirectory.list().length);
+		response.close();
+		assertEquals(0, this.tempDirectory.list().length);
+	}
+
+	@SmallTest
+	public void testReadFailureDeletesFile() throws Exception {
+		final byte[] body = createBody(10000);
+		ResponseMock responseMock = new ResponseMock(body, -1) {
+			@Override
+			public InputStream getBody() throws IOException {
+				super.getBody();
+				return new ByteArrayInputStream(body) {
+					@Override
+					public int read(byte[] b) throws IOException {
+						if (this.pos > 5000) {
+							throw new IOException("Connection reset");
+						}
+						return super.read(b);
+					}
+				};
+			}
+		};
+		ClientHttpResponse response = new BufferingClientHttpResponseWrapper(responseMock, 1000, this.tempDirectory);
+		try {
+			response.getBody();
+			fail("Expected IOException");
+		}
+		catch (IOException ex) {
+			// expected
+		}
+		assertEquals(0, this.tempDirectory.list().length);
+		response.close();
+		assertTrue(responseMock.closed);
+	}
+
+	private static byte[] createBody(int length) {
+		byte[] body = new byte[length];
+		for (int i = 0; i < length; i++) {
+			body[i] = (byte) (i % 251);
+		}
+		return body;
+	}
+
+
+	private static class ResponseMock implements ClientHttpResponse {
+
+		private final byte[] body;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private int bodyRequests;
+
+		private boolean closed;
+
+		public ResponseMock(byte[] body, long contentLength) {
+			this.body = body;
+			if (contentLength >= 0) {
+				this.headers.setContentLength(contentLength);
+			}
+		}
+
+		@Override
+		public HttpStatus getStatusCode() throws IOException {
+			return HttpStatus.OK;
+		}
+
+		@Override
+		public int getRawStatusCode() throws IOException {
+			return HttpStatus.OK.value();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return HttpStatus.OK.getReasonPhrase();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			this.bodyRequests++;
+			return new ByteArrayInputStream(this.body);
+		}
+
+		@Override
+		public void close() {
+			this.closed = true;
+		}
+	}
+
+}
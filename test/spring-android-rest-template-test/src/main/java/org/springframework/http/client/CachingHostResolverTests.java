@@ -0,0 +1,215 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import android.test.suitebuilder.annotation.MediumTest;
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * @author Roy Clarkson
+ */
+public class CachingHostResolverTests extends TestCase {
+
+	private MockHostResolver delegate;
+
+	private CachingHostResolver resolver;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.delegate = new MockHostResolver();
+		this.resolver = new CachingHostResolver(this.delegate);
+	}
+
+	@SmallTest
+	public void testCachesLookups() throws Exception {
+		InetAddress[] addresses = this.resolver.resolve("example.com");
+		assertEquals(1, addresses.length);
+		assertEquals("example.com", addresses[0].getHostName());
+		assertEquals(addresses[0], this.resolver.resolve("example.com")[0]);
+		assertEquals(1, this.delegate.lookups.get());
+		this.resolver.resolve("example.org");
+		assertEquals(2, this.delegate.lookups.get());
+	}
+
+	@MediumTest
+	public void testTimeToLive() throws Exception {
+		this.resolver.setTimeToLive(50);
+		this.resolver.setStaleIfError(0);
+		this.resolver.resolve("example.com");
+		Thread.sleep(100);
+		this.resolver.resolve("example.com");
+		assertEquals(2, this.delegate.lookups.get());
+	}
+
+	@MediumTest
+	public void testNegativeTimeToLive() throws Exception {
+		this.resolver.setNegativeTimeToLive(50);
+		this.delegate.failing = true;
+		assertUnknownHost("example.com");
+		assertUnknownHost("example.com");
+		assertEquals(1, this.delegate.lookups.get());
+		Thread.sleep(100);
+		this.delegate.failing = false;
+		this.resolver.resolve("example.com");
+		assertEquals(2, this.delegate.lookups.get());
+	}
+
+	@MediumTest
+	public void testStaleIfError() throws Exception {
+		this.resolver.setTimeToLive(50);
+		InetAddress[] addresses = this.resolver.resolve("example.com");
+		Thread.sleep(100);
+		this.delegate.failing = true;
+		assertEquals(addresses[0], this.resolver.resolve("example.com")[0]);
+		awaitLookups(2);
+		assertEquals(addresses[0], this.resolver.resolve("example.com")[0]);
+
+		this.resolver.setStaleIfError(0);
+		assertUnknownHost("example.com");
+	}
+
+	@MediumTest
+	public void testExpiredRefreshedInBackground() throws Exception {
+		this.resolver.setTimeToLive(50);
+		InetAddress[] addresses = this.resolver.resolve("example.com");
+		Thread.sleep(100);
+		this.delegate.release = new CountDownLatch(1);
+		assertEquals(addresses[0], this.resolver.resolve("example.com")[0]);
+		assertEquals(addresses[0], this.resolver.resolve("example.com")[0]);
+		this.delegate.release.countDown();
+		awaitLookups(2);
+		for (int i = 0; i < 100 && this.resolver.resolve("example.com")[0].equals(addresses[0]); i++) {
+			Thread.sleep(10);
+		}
+		assertFalse(addresses[0].equals(this.resolver.resolve("example.com")[0]));
+		assertEquals(2, this.delegate.lookups.get());
+	}
+
+	@MediumTest
+	public void testConcurrentMissesShareLookup() throws Exception {
+		this.delegate.release = new CountDownLatch(1);
+		final List<InetAddress> results = Collections.synchronizedList(new ArrayList<InetAddress>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 4; i++) {
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						results.add(resolver.resolve("example.com")[0]);
+					}
+					catch (UnknownHostException ex) {
+						// leave result unset
+					}
+				}
+			};
+			thread.start();
+			threads.add(thread);
+		}
+		awaitLookups(1);
+		Thread.sleep(50);
+		this.delegate.release.countDown();
+		for (Thread thread : threads) {
+			thread.join(5000);
+		}
+		assertEquals(1, this.delegate.lookups.get());
+		assertEquals(4, results.size());
+		for (InetAddress result : results) {
+			assertEquals(results.get(0), result);
+		}
+	}
+
+	@MediumTest
+	public void testRefreshAhead() throws Exception {
+		this.resolver.setTimeToLive(10000);
+		this.resolver.setRefreshAheadFactor(0.001f);
+		this.resolver.resolve("example.com");
+		Thread.sleep(50);
+		this.resolver.resolve("example.com");
+		for (int i = 0; i < 100 && this.delegate.lookups.get() < 2; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(2, this.delegate.lookups.get());
+		this.resolver.resolve("example.com");
+		assertEquals(2, this.delegate.lookups.get());
+	}
+
+	@SmallTest
+	public void testMaxEntries() throws Exception {
+		this.resolver.setMaxEntries(1);
+		this.resolver.resolve("example.com");
+		this.resolver.resolve("example.org");
+		this.resolver.resolve("example.com");
+		assertEquals(3, this.delegate.lookups.get());
+	}
+
+	private void awaitLookups(int lookups) throws InterruptedException {
+		for (int i = 0; i < 100 && this.delegate.lookups.get() < lookups; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(lookups, this.delegate.lookups.get());
+	}
+
+	private void assertUnknownHost(String host) {
+		try {
+			this.resolver.resolve(host);
+			fail("UnknownHostException expected");
+		}
+		catch (UnknownHostException ex) {
+			// expected
+		}
+	}
+
+
+	private static class MockHostResolver implements HostResolver {
+
+		private final AtomicInteger lookups = new AtomicInteger();
+
+		private volatile boolean failing;
+
+		private volatile CountDownLatch release;
+
+		@Override
+		public InetAddress[] resolve(String host) throws UnknownHostException {
+			int lookup = this.lookups.incrementAndGet();
+			if (this.release != null) {
+				try {
+					this.release.await();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (this.failing) {
+				throw new UnknownHostException(host);
+			}
+			return new InetAddress[] {InetAddress.getByAddress(host, new byte[] {10, 0, 0, (byte) lookup})};
+		}
+	}
+
+}
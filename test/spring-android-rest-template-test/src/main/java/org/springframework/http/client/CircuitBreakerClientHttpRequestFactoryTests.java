@@ -0,0 +1,345 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.LinkedList;
+
+import junit.framework.TestCase;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+
+import android.test.suitebuilder.annotation.MediumTest;
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * @author Roy Clarkson
+ */
+public class CircuitBreakerClientHttpRequestFactoryTests extends TestCase {
+
+	private static final String HOST = "https://example.com";
+
+	private RequestFactoryMock requestFactoryMock;
+
+	private CircuitBreakerClientHttpRequestFactory requestFactory;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.requestFactoryMock = new RequestFactoryMock();
+		this.requestFactory = new CircuitBreakerClientHttpRequestFactory(this.requestFactoryMock);
+		this.requestFactory.setSlidingWindowSize(4);
+		this.requestFactory.setMinimumNumberOfCalls(4);
+		this.requestFactory.setPermittedProbesInHalfOpenState(2);
+		this.requestFactory.setWaitDurationInOpenState(50);
+	}
+
+	@SmallTest
+	public void testClosed() throws Exception {
+		requestFactoryMock.outcomes.add(HttpStatus.INTERNAL_SERVER_ERROR);
+		requestFactoryMock.outcomes.add(HttpStatus.OK);
+		requestFactoryMock.outcomes.add(HttpStatus.OK);
+		execute(HOST);
+
+		CircuitBreaker circuitBreaker = requestFactory.getCircuitBreaker(HOST);
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+		assertEquals(-1f, circuitBreaker.getFailureRate());
+		for (int i = 0; i < 3; i++) {
+			execute(HOST);
+		}
+
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+		assertEquals(4, circuitBreaker.getNumberOfCalls());
+		assertEquals(25f, circuitBreaker.getFailureRate());
+		assertEquals(0f, circuitBreaker.getSlowCallRate());
+	}
+
+	@SmallTest
+	public void testOpenOnFailureRate() throws Exception {
+		tripCircuit(HOST);
+
+		CircuitBreaker circuitBreaker = requestFactory.getCircuitBreaker(HOST);
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+		int executions = requestFactoryMock.executions;
+		try {
+			execute(HOST);
+			fail("CircuitBreakerOpenException expected");
+		}
+		catch (CircuitBreakerOpenException ex) {
+			assertEquals(HOST, ex.getHost());
+		}
+		assertEquals(executions, requestFactoryMock.executions);
+	}
+
+	@MediumTest
+	public void testOpenOnSlowCallRate() throws Exception {
+		requestFactory.setSlowCallDurationThreshold(10);
+		requestFactory.setSlowCallRateThreshold(75);
+		requestFactoryMock.delay = 30;
+
+		for (int i = 0; i < 4; i++) {
+			execute(HOST);
+		}
+
+		CircuitBreaker circuitBreaker = requestFactory.getCircuitBreaker(HOST);
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+	}
+
+	@MediumTest
+	public void testHalfOpenProbesClose() throws Exception {
+		tripCircuit(HOST);
+		Thread.sleep(100);
+
+		ClientHttpResponse probe = execute(HOST);
+		CircuitBreaker circuitBreaker = requestFactory.getCircuitBreaker(HOST);
+		assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+		assertEquals(HttpStatus.OK, probe.getStatusCode());
+		execute(HOST);
+
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+		assertEquals(0, circuitBreaker.getNumberOfCalls());
+	}
+
+	@MediumTest
+	public void testHalfOpenLimitsProbes() throws Exception {
+		tripCircuit(HOST);
+		Thread.sleep(100);
+
+		// probes in flight, not yet completed
+		requestFactoryMock.delay = 200;
+		Thread first = executeInBackground(HOST);
+		Thread second = executeInBackground(HOST);
+		Thread.sleep(100);
+		try {
+			execute(HOST);
+			fail("CircuitBreakerOpenException expected");
+		}
+		catch (CircuitBreakerOpenException ex) {
+			// expected
+		}
+		first.join();
+		second.join();
+	}
+
+	@MediumTest
+	public void testHalfOpenProbeFailureReopens() throws Exception {
+		tripCircuit(HOST);
+		Thread.sleep(100);
+
+		requestFactoryMock.outcomes.add(HttpStatus.SERVICE_UNAVAILABLE);
+		execute(HOST);
+
+		assertEquals(CircuitBreaker.State.OPEN, requestFactory.getCircuitBreaker(HOST).getState());
+		try {
+			execute(HOST);
+			fail("CircuitBreakerOpenException expected");
+		}
+		catch (CircuitBreakerOpenException ex) {
+			// expected
+		}
+	}
+
+	@SmallTest
+	public void testHostsIsolated() throws Exception {
+		tripCircuit(HOST);
+
+		assertEquals(HttpStatus.OK, execute("https://other.example.com").getStatusCode());
+		assertEquals(2, requestFactory.getCircuitBreakers().size());
+		assertEquals(CircuitBreaker.State.CLOSED,
+				requestFactory.getCircuitBreakers().get("https://other.example.com").getState());
+	}
+
+	@SmallTest
+	public void testBulkhead() throws Exception {
+		requestFactory.setMaxConcurrentRequestsPerHost(2);
+
+		ClientHttpResponse first = execute(HOST);
+		execute(HOST);
+		assertEquals(2, requestFactory.getCircuitBreaker(HOST).getInFlightRequests());
+		try {
+			execute(HOST);
+			fail("BulkheadFullException expected");
+		}
+		catch (BulkheadFullException ex) {
+			assertEquals(HOST, ex.getHost());
+		}
+
+		first.close();
+		first.close();
+		assertEquals(1, requestFactory.getCircuitBreaker(HOST).getInFlightRequests());
+		execute(HOST);
+	}
+
+	@SmallTest
+	public void testReset() throws Exception {
+		tripCircuit(HOST);
+
+		requestFactory.getCircuitBreaker(HOST).reset();
+
+		assertEquals(CircuitBreaker.State.CLOSED, requestFactory.getCircuitBreaker(HOST).getState());
+		assertEquals(HttpStatus.OK, execute(HOST).getStatusCode());
+	}
+
+	private void tripCircuit(String host) throws Exception {
+		for (int i = 0; i < 4; i++) {
+			requestFactoryMock.outcomes.add(i % 2 == 0 ? new IOException("Connection reset") :
+					HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+		for (int i = 0; i < 4; i++) {
+			try {
+				execute(host).close();
+			}
+			catch (IOException ex) {
+				// expected
+			}
+		}
+	}
+
+	private ClientHttpResponse execute(String host) throws IOException {
+		ClientHttpRequest request = requestFactory.createRequest(URI.create(host + "/resource"), HttpMethod.GET);
+		return request.execute();
+	}
+
+	private Thread executeInBackground(final String host) {
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					execute(host).close();
+				}
+				catch (IOException ex) {
+					// ignore
+				}
+			}
+		};
+		thread.start();
+		return thread;
+	}
+
+
+	private static class RequestFactoryMock implements ClientHttpRequestFactory {
+
+		private final LinkedList<Object> outcomes = new LinkedList<Object>();
+
+		private volatile int executions;
+
+		private volatile long delay;
+
+		public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+			return new RequestMock(this, uri, httpMethod);
+		}
+
+		private synchronized Object nextOutcome() {
+			this.executions++;
+			return (this.outcomes.isEmpty() ? HttpStatus.OK : this.outcomes.removeFirst());
+		}
+	}
+
+	private static class RequestMock implements ClientHttpRequest {
+
+		private final RequestFactoryMock factory;
+
+		private final URI uri;
+
+		private final HttpMethod method;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		private RequestMock(RequestFactoryMock factory, URI uri, HttpMethod method) {
+			this.factory = factory;
+			this.uri = uri;
+			this.method = method;
+		}
+
+		public URI getURI() {
+			return this.uri;
+		}
+
+		public HttpMethod getMethod() {
+			return this.method;
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		public OutputStream getBody() throws IOException {
+			return this.body;
+		}
+
+		public ClientHttpResponse execute() throws IOException {
+			Object outcome = this.factory.nextOutcome();
+			if (this.factory.delay > 0) {
+				try {
+					Thread.sleep(this.factory.delay);
+				}
+				catch (InterruptedException ex) {
+					throw new IOException("Interrupted");
+				}
+			}
+			if (outcome instanceof IOException) {
+				throw (IOException) outcome;
+			}
+			return new ResponseMock((HttpStatus) outcome);
+		}
+	}
+
+	private static class ResponseMock implements ClientHttpResponse {
+
+		private final HttpStatus statusCode;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private ResponseMock(HttpStatus statusCode) {
+			this.statusCode = statusCode;
+		}
+
+		public HttpStatus getStatusCode() throws IOException {
+			return this.statusCode;
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return this.statusCode.value();
+		}
+
+		public String getStatusText() throws IOException {
+			return this.statusCode.getReasonPhrase();
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		public InputStream getBody() throws IOException {
+			return new ByteArrayInputStream(new byte[0]);
+		}
+
+		public void close() {
+		}
+	}
+
+}
@@ -0,0 +1,417 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StreamUtils;
+
+import android.test.suitebuilder.annotation.MediumTest;
+
+/**
+ * @author Roy Clarkson
+ */
+public class CoalescingClientHttpRequestFactoryTests extends TestCase {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final int THREADS = 5;
+
+	private RequestFactoryMock requestFactoryMock;
+
+	private CoalescingClientHttpRequestFactory requestFactory;
+
+	private ExecutorService executor;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.requestFactoryMock = new RequestFactoryMock();
+		this.requestFactory = new CoalescingClientHttpRequestFactory(this.requestFactoryMock);
+		this.executor = Executors.newFixedThreadPool(THREADS * 2);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		this.executor.shutdownNow();
+		super.tearDown();
+	}
+
+	@MediumTest
+	public void testConcurrentGetsCoalesced() throws Exception {
+		List<Future<String>> results = submit(HttpMethod.GET, "https://example.com/profile", null);
+		release();
+
+		for (Future<String> result : results) {
+			assertEquals("profile", result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, requestFactoryMock.executions.get());
+	}
+
+	@MediumTest
+	public void testDifferentHeadersNotCoalesced() throws Exception {
+		List<Future<String>> results = submit(HttpMethod.GET, "https://example.com/profile", "en");
+		results.addAll(submit(HttpMethod.GET, "https://example.com/profile", "de"));
+		release();
+
+		for (Future<String> result : results) {
+			assertEquals("profile", result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(2, requestFactoryMock.executions.get());
+	}
+
+	@MediumTest
+	public void testIgnoredHeadersCoalesced() throws Exception {
+		final AtomicInteger requestId = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(THREADS);
+		List<Future<String>> results = new ArrayList<Future<String>>();
+		for (int i = 0; i < THREADS; i++) {
+			results.add(executor.submit(new Callable<String>() {
+				public String call() throws Exception {
+					ClientHttpRequest request = requestFactory.createRequest(new URI("https://example.com/profile"),
+							HttpMethod.GET);
+					request.getHeaders().set("X-Request-Id", String.valueOf(requestId.incrementAndGet()));
+					started.countDown();
+					ClientHttpResponse response = request.execute();
+					try {
+						return StreamUtils.copyToString(response.getBody(), UTF8);
+					}
+					finally {
+						response.close();
+					}
+				}
+			}));
+		}
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		release();
+
+		for (Future<String> result : results) {
+			assertEquals("profile", result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, requestFactoryMock.executions.get());
+	}
+
+	@MediumTest
+	public void testRangeRequestsNotCoalesced() throws Exception {
+		List<Future<String>> results = submit("https://example.com/profile", HttpHeaders.RANGE, "bytes=0-99");
+		release();
+
+		for (Future<String> result : results) {
+			assertEquals("profile", result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(THREADS, requestFactoryMock.executions.get());
+	}
+
+	@MediumTest
+	public void testConditionalRequestsNotCoalesced() throws Exception {
+		List<Future<String>> results = submit("https://example.com/profile", HttpHeaders.IF_NONE_MATCH, "\"v1\"");
+		results.addAll(submit("https://example.com/profile", HttpHeaders.IF_MODIFIED_SINCE,
+				"Wed, 21 Oct 2015 07:28:00 GMT"));
+		release();
+
+		for (Future<String> result : results) {
+			assertEquals("profile", result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(THREADS * 2, requestFactoryMock.executions.get());
+	}
+
+	@MediumTest
+	public void testCustomHeadersNotCoalesced() throws Exception {
+		List<Future<String>> results = submit("https://example.com/profile", "X-Api-Key", "alice");
+		results.addAll(submit("https://example.com/profile", "X-Api-Key", "bob"));
+		release();
+
+		for (Future<String> result : results) {
+			assertEquals("profile", result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(2, requestFactoryMock.executions.get());
+	}
+
+	@MediumTest
+	public void testIgnoredHeaders() throws Exception {
+		assertTrue(requestFactory.getIgnoredHeaders().contains("x-request-id"));
+		requestFactory.setIgnoredHeaders(Collections.singleton("X-Session-Trace"));
+		assertEquals(Collections.singleton("x-session-trace"), requestFactory.getIgnoredHeaders());
+		List<Future<String>> results = submit("https://example.com/profile", "X-Session-Trace", "1");
+		results.addAll(submit("https://example.com/profile", "X-Session-Trace", "2"));
+		release();
+
+		for (Future<String> result : results) {
+			assertEquals("profile", result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, requestFactoryMock.executions.get());
+	}
+
+	@MediumTest
+	public void testKeyHeaders() throws Exception {
+		assertNull(requestFactory.getKeyHeaders());
+		requestFactory.setKeyHeaders(Collections.singleton("X-Tenant"));
+		assertEquals(Collections.singleton("x-tenant"), requestFactory.getKeyHeaders());
+		List<Future<String>> results = submit(HttpMethod.GET, "https://example.com/profile", "en");
+		results.addAll(submit(HttpMethod.GET, "https://example.com/profile", "de"));
+		release();
+
+		for (Future<String> result : results) {
+			assertEquals("profile", result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, requestFactoryMock.executions.get());
+	}
+
+	@MediumTest
+	public void testPostNotCoalesced() throws Exception {
+		List<Future<String>> results = submit(HttpMethod.POST, "https://example.com/profile", null);
+		release();
+
+		for (Future<String> result : results) {
+			assertEquals("profile", result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(THREADS, requestFactoryMock.executions.get());
+	}
+
+	@MediumTest
+	public void testFailureSharedWithWaiters() throws Exception {
+		requestFactoryMock.failure = new IOException("Connection reset");
+		List<Future<String>> results = submit(HttpMethod.GET, "https://example.com/profile", null);
+		release();
+
+		for (Future<String> result : results) {
+			try {
+				result.get(5, TimeUnit.SECONDS);
+				fail("ExecutionException expected");
+			}
+			catch (ExecutionException ex) {
+				assertTrue(ex.getCause() instanceof IOException);
+			}
+		}
+		assertEquals(1, requestFactoryMock.executions.get());
+	}
+
+	@MediumTest
+	public void testErrorSharedWithWaiters() throws Exception {
+		requestFactoryMock.error = new AssertionError("Broken transport");
+		List<Future<String>> results = submit(HttpMethod.GET, "https://example.com/profile", null);
+		release();
+
+		int errors = 0;
+		for (Future<String> result : results) {
+			try {
+				result.get(5, TimeUnit.SECONDS);
+				fail("ExecutionException expected");
+			}
+			catch (ExecutionException ex) {
+				if (ex.getCause() instanceof AssertionError) {
+					errors++;
+				}
+				else {
+					assertTrue(ex.getCause() instanceof IOException);
+					assertTrue(ex.getCause().getCause() instanceof AssertionError);
+				}
+			}
+		}
+		assertEquals(1, errors);
+		assertEquals(1, requestFactoryMock.executions.get());
+	}
+
+	@MediumTest
+	public void testSequentialGetsNotCoalesced() throws Exception {
+		requestFactoryMock.release.countDown();
+
+		assertEquals("profile", get(HttpMethod.GET, "https://example.com/profile", null));
+		assertEquals("profile", get(HttpMethod.GET, "https://example.com/profile", null));
+		assertEquals(2, requestFactoryMock.executions.get());
+	}
+
+	private List<Future<String>> submit(final HttpMethod method, final String url, final String language)
+			throws Exception {
+		final CountDownLatch started = new CountDownLatch(THREADS);
+		List<Future<String>> results = new ArrayList<Future<String>>();
+		for (int i = 0; i < THREADS; i++) {
+			results.add(executor.submit(new Callable<String>() {
+				public String call() throws Exception {
+					started.countDown();
+					return get(method, url, language);
+				}
+			}));
+		}
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		return results;
+	}
+
+	private List<Future<String>> submit(final String url, final String headerName, final String headerValue)
+			throws Exception {
+		final CountDownLatch started = new CountDownLatch(THREADS);
+		List<Future<String>> results = new ArrayList<Future<String>>();
+		for (int i = 0; i < THREADS; i++) {
+			results.add(executor.submit(new Callable<String>() {
+				public String call() throws Exception {
+					ClientHttpRequest request = requestFactory.createRequest(new URI(url), HttpMethod.GET);
+					request.getHeaders().set(headerName, headerValue);
+					started.countDown();
+					ClientHttpResponse response = request.execute();
+					try {
+						return StreamUtils.copyToString(response.getBody(), UTF8);
+					}
+					finally {
+						response.close();
+					}
+				}
+			}));
+		}
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		return results;
+	}
+
+	private void release() throws InterruptedException {
+		// give all requests time to join the exchange in flight
+		Thread.sleep(250);
+		requestFactoryMock.release.countDown();
+	}
+
+	private String get(HttpMethod method, String url, String language) throws Exception {
+		ClientHttpRequest request = requestFactory.createRequest(new URI(url), method);
+		if (language != null) {
+			request.getHeaders().setAcceptLanguage(language);
+		}
+		ClientHttpResponse response = request.execute();
+		try {
+			assertEquals(HttpStatus.OK, response.getStatusCode());
+			return StreamUtils.copyToString(response.getBody(), UTF8);
+		}
+		finally {
+			response.close();
+		}
+	}
+
+
+	private static class RequestFactoryMock implements ClientHttpRequestFactory {
+
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		private final AtomicInteger executions = new AtomicInteger();
+
+		private volatile IOException failure;
+
+		private volatile Error error;
+
+		public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+			return new RequestMock(this, uri, httpMethod);
+		}
+	}
+
+	private static class RequestMock implements ClientHttpRequest {
+
+		private final RequestFactoryMock factory;
+
+		private final URI uri;
+
+		private final HttpMethod method;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		private RequestMock(RequestFactoryMock factory, URI uri, HttpMethod method) {
+			this.factory = factory;
+			this.uri = uri;
+			this.method = method;
+		}
+
+		public URI getURI() {
+			return this.uri;
+		}
+
+		public HttpMethod getMethod() {
+			return this.method;
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		public OutputStream getBody() throws IOException {
+			return this.body;
+		}
+
+		public ClientHttpResponse execute() throws IOException {
+			this.factory.executions.incrementAndGet();
+			try {
+				this.factory.release.await();
+			}
+			catch (InterruptedException ex) {
+				throw new IOException("Interrupted");
+			}
+			if (this.factory.failure != null) {
+				throw this.factory.failure;
+			}
+			if (this.factory.error != null) {
+				throw this.factory.error;
+			}
+			return new ResponseMock();
+		}
+	}
+
+	private static class ResponseMock implements ClientHttpResponse {
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		public HttpStatus getStatusCode() throws IOException {
+			return HttpStatus.OK;
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return HttpStatus.OK.value();
+		}
+
+		public String getStatusText() throws IOException {
+			return "OK";
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		public InputStream getBody() throws IOException {
+			return new ByteArrayInputStream("profile".getBytes("UTF-8"));
+		}
+
+		public void close() {
+		}
+	}
+
+}
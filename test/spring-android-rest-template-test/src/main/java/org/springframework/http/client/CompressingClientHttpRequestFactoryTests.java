@@ -0,0 +1,307 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import junit.framework.TestCase;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.util.StreamUtils;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * @author Roy Clarkson
+ */
+public class CompressingClientHttpRequestFactoryTests extends TestCase {
+
+	private RequestFactoryMock requestFactoryMock;
+
+	private CompressingClientHttpRequestFactory requestFactory;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.requestFactoryMock = new RequestFactoryMock();
+		this.requestFactory = new CompressingClientHttpRequestFactory(this.requestFactoryMock);
+		this.requestFactory.setMinimumSize(100);
+	}
+
+	@SmallTest
+	public void testCompressLargeBody() throws Exception {
+		byte[] body = createBody(1000);
+		ClientHttpRequest request = createRequest(MediaType.APPLICATION_JSON);
+		OutputStream out = request.getBody();
+		for (int i = 0; i < body.length; i += 10) {
+			out.write(body, i, 10);
+		}
+		request.execute();
+
+		RequestMock sent = requestFactoryMock.request;
+		assertEquals("gzip", sent.sentHeaders.getFirst("Content-Encoding"));
+		assertEquals(sent.sentBody.length, sent.sentHeaders.getContentLength());
+		assertTrue(sent.sentBody.length < body.length);
+		assertTrue(Arrays.equals(body, decompress(sent.sentBody)));
+	}
+
+	@SmallTest
+	public void testCompressKnownLength() throws Exception {
+		byte[] body = createBody(1000);
+		ClientHttpRequest request = createRequest(MediaType.valueOf("application/vnd.example+json"));
+		request.getHeaders().setContentLength(body.length);
+		StreamUtils.copy(body, request.getBody());
+		request.execute();
+
+		RequestMock sent = requestFactoryMock.request;
+		assertEquals("gzip", sent.sentHeaders.getFirst("Content-Encoding"));
+		assertEquals(sent.sentBody.length, sent.sentHeaders.getContentLength());
+		assertTrue(Arrays.equals(body, decompress(sent.sentBody)));
+	}
+
+	@SmallTest
+	public void testSmallBodyNotCompressed() throws Exception {
+		byte[] body = createBody(99);
+		ClientHttpRequest request = createRequest(MediaType.TEXT_PLAIN);
+		StreamUtils.copy(body, request.getBody());
+		request.execute();
+
+		RequestMock sent = requestFactoryMock.request;
+		assertFalse(sent.sentHeaders.containsKey("Content-Encoding"));
+		assertEquals(body.length, sent.sentHeaders.getContentLength());
+		assertTrue(Arrays.equals(body, sent.sentBody));
+	}
+
+	@SmallTest
+	public void testMediaTypeNotCompressed() throws Exception {
+		byte[] body = createBody(1000);
+		ClientHttpRequest request = createRequest(MediaType.IMAGE_PNG);
+		StreamUtils.copy(body, request.getBody());
+		request.execute();
+
+		RequestMock sent = requestFactoryMock.request;
+		assertFalse(sent.sentHeaders.containsKey("Content-Encoding"));
+		assertTrue(Arrays.equals(body, sent.sentBody));
+	}
+
+	@SmallTest
+	public void testContentEncodingRespected() throws Exception {
+		byte[] body = createBody(1000);
+		ClientHttpRequest request = createRequest(MediaType.APPLICATION_JSON);
+		request.getHeaders().set("Content-Encoding", "identity");
+		StreamUtils.copy(body, request.getBody());
+		request.execute();
+
+		RequestMock sent = requestFactoryMock.request;
+		assertEquals("identity", sent.sentHeaders.getFirst("Content-Encoding"));
+		assertTrue(Arrays.equals(body, sent.sentBody));
+	}
+
+	@SmallTest
+	public void testNoBody() throws Exception {
+		ClientHttpRequest request = requestFactory.createRequest(URI.create("https://example.com"), HttpMethod.GET);
+		request.getHeaders().set("foo", "bar");
+		request.execute();
+
+		RequestMock sent = requestFactoryMock.request;
+		assertEquals("bar", sent.sentHeaders.getFirst("foo"));
+		assertEquals(0, sent.sentBody.length);
+	}
+
+	@SmallTest
+	public void testCompressStreamingBody() throws Exception {
+		requestFactoryMock.streaming = true;
+		final byte[] body = createBody(1000);
+		ClientHttpRequest request = createRequest(MediaType.APPLICATION_JSON);
+		((StreamingHttpOutputMessage) request).setBody(new StreamingHttpOutputMessage.Body() {
+			@Override
+			public void writeTo(OutputStream outputStream) throws IOException {
+				StreamUtils.copy(body, outputStream);
+			}
+		});
+		request.execute();
+
+		StreamingRequestMock sent = (StreamingRequestMock) requestFactoryMock.request;
+		assertEquals("gzip", sent.sentHeaders.getFirst("Content-Encoding"));
+		assertTrue(Arrays.equals(body, decompress(sent.sentBody)));
+	}
+
+	@SmallTest
+	public void testCompressStreamingBodyOverCircuitBreaker() throws Exception {
+		this.requestFactory = new CompressingClientHttpRequestFactory(
+				new CircuitBreakerClientHttpRequestFactory(this.requestFactoryMock));
+		this.requestFactory.setMinimumSize(100);
+		final byte[] body = createBody(4096);
+		ClientHttpRequest request = createRequest(MediaType.APPLICATION_JSON);
+		((StreamingHttpOutputMessage) request).setBody(new StreamingHttpOutputMessage.Body() {
+			@Override
+			public void writeTo(OutputStream outputStream) throws IOException {
+				StreamUtils.copy(body, outputStream);
+			}
+		});
+		request.execute().close();
+
+		RequestMock sent = requestFactoryMock.request;
+		assertFalse(sent instanceof StreamingRequestMock);
+		assertEquals("gzip", sent.sentHeaders.getFirst("Content-Encoding"));
+		assertTrue(Arrays.equals(body, decompress(sent.sentBody)));
+	}
+
+	@SmallTest
+	public void testCompressStreamingBodyOverCircuitBreakerOnce() throws Exception {
+		requestFactoryMock.streaming = true;
+		this.requestFactory = new CompressingClientHttpRequestFactory(
+				new CircuitBreakerClientHttpRequestFactory(this.requestFactoryMock));
+		this.requestFactory.setMinimumSize(100);
+		final byte[] body = createBody(4096);
+		ClientHttpRequest request = createRequest(MediaType.APPLICATION_JSON);
+		((StreamingHttpOutputMessage) request).setBody(new StreamingHttpOutputMessage.Body() {
+			@Override
+			public void writeTo(OutputStream outputStream) throws IOException {
+				StreamUtils.copy(body, outputStream);
+			}
+		});
+		request.execute().close();
+
+		RequestMock sent = requestFactoryMock.request;
+		assertEquals("gzip", sent.sentHeaders.getFirst("Content-Encoding"));
+		assertTrue(Arrays.equals(body, decompress(sent.sentBody)));
+	}
+
+	private ClientHttpRequest createRequest(MediaType contentType) throws IOException {
+		ClientHttpRequest request = requestFactory.createRequest(URI.create("https://example.com"), HttpMethod.POST);
+		request.getHeaders().setContentType(contentType);
+		return request;
+	}
+
+	private static byte[] createBody(int length) {
+		byte[] body = new byte[length];
+		for (int i = 0; i < length; i++) {
+			body[i] = (byte) ('a' + (i % 7));
+		}
+		return body;
+	}
+
+	private static byte[] decompress(byte[] body) throws IOException {
+		return StreamUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(body)));
+	}
+
+
+	private static class RequestFactoryMock implements ClientHttpRequestFactory {
+
+		private boolean streaming;
+
+		private RequestMock request;
+
+		public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+			this.request = (this.streaming ? new StreamingRequestMock(uri, httpMethod) : new RequestMock(uri, httpMethod));
+			return this.request;
+		}
+	}
+
+	private static class RequestMock extends AbstractBufferingClientHttpRequest {
+
+		private final URI uri;
+
+		private final HttpMethod method;
+
+		protected HttpHeaders sentHeaders;
+
+		protected byte[] sentBody;
+
+		private RequestMock(URI uri, HttpMethod method) {
+			this.uri = uri;
+			this.method = method;
+		}
+
+		public URI getURI() {
+			return this.uri;
+		}
+
+		public HttpMethod getMethod() {
+			return this.method;
+		}
+
+		@Override
+		protected ClientHttpResponse executeInternal(HttpHeaders headers, byte[] bufferedOutput) throws IOException {
+			this.sentHeaders = headers;
+			this.sentBody = bufferedOutput;
+			return new ResponseMock();
+		}
+	}
+
+	private static class StreamingRequestMock extends RequestMock implements StreamingHttpOutputMessage {
+
+		private Body body;
+
+		private StreamingRequestMock(URI uri, HttpMethod method) {
+			super(uri, method);
+		}
+
+		public void setBody(Body body) {
+			this.body = body;
+		}
+
+		@Override
+		protected ClientHttpResponse executeInternal(HttpHeaders headers, byte[] bufferedOutput) throws IOException {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			getEncodedBody(this.body).writeTo(out);
+			this.sentHeaders = headers;
+			this.sentBody = out.toByteArray();
+			return new ResponseMock();
+		}
+	}
+
+	private static class ResponseMock implements ClientHttpResponse {
+
+		public HttpStatus getStatusCode() throws IOException {
+			return HttpStatus.OK;
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return HttpStatus.OK.value();
+		}
+
+		public String getStatusText() throws IOException {
+			return "OK";
+		}
+
+		public HttpHeaders getHeaders() {
+			return new HttpHeaders();
+		}
+
+		public InputStream getBody() throws IOException {
+			return new ByteArrayInputStream(new byte[0]);
+		}
+
+		public void close() {
+		}
+	}
+
+}
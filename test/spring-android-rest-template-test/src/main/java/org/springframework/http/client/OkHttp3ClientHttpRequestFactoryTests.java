@@ -16,15 +16,28 @@
 
 package org.springframework.http.client;
 
+import java.io.IOException;
+import java.net.InetAddress;
 import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
 
 import android.os.Build;
 import android.test.suitebuilder.annotation.MediumTest;
+import android.test.suitebuilder.annotation.SmallTest;
 import android.util.Log;
 
 /**
@@ -101,4 +114,173 @@ public class OkHttp3ClientHttpRequestFactoryTests extends AbstractHttpRequestFac
 		assertEquals("Invalid status code", HttpStatus.OK, response.getStatusCode());
 	}
 
+	@MediumTest
+	public void testAsyncEcho() throws Exception {
+		AsyncClientHttpRequestFactory asyncFactory = (AsyncClientHttpRequestFactory) factory;
+		AsyncClientHttpRequest request = asyncFactory.createAsyncRequest(new URI(baseUrl + "/echo"), HttpMethod.PUT);
+		assertEquals("Invalid HTTP method", HttpMethod.PUT, request.getMethod());
+		String headerName = "MyHeader";
+		String headerValue = "value1";
+		request.getHeaders().add(headerName, headerValue);
+		byte[] body = "Hello World".getBytes("UTF-8");
+		StreamUtils.copy(body, request.getBody());
+
+		ListenableFuture<ClientHttpResponse> future = request.executeAsync();
+		ClientHttpResponse response = future.get(10, TimeUnit.SECONDS);
+		try {
+			assertEquals("Invalid status code", HttpStatus.OK, response.getStatusCode());
+			assertEquals("Header value not found", headerValue, response.getHeaders().getFirst(headerName));
+			byte[] result = FileCopyUtils.copyToByteArray(response.getBody());
+			assertTrue("Invalid body", Arrays.equals(body, result));
+		}
+		finally {
+			response.close();
+		}
+	}
+
+	@MediumTest
+	public void testAsyncCallback() throws Exception {
+		AsyncClientHttpRequestFactory asyncFactory = (AsyncClientHttpRequestFactory) factory;
+		AsyncClientHttpRequest request =
+				asyncFactory.createAsyncRequest(new URI(baseUrl + "/status/notfound"), HttpMethod.GET);
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicReference<HttpStatus> status = new AtomicReference<HttpStatus>();
+		request.executeAsync().addCallback(new ListenableFutureCallback<ClientHttpResponse>() {
+			@Override
+			public void onSuccess(ClientHttpResponse response) {
+				try {
+					status.set(response.getStatusCode());
+				}
+				catch (IOException ex) {
+					// leave status unset
+				}
+				finally {
+					response.close();
+					latch.countDown();
+				}
+			}
+			@Override
+			public void onFailure(Throwable ex) {
+				latch.countDown();
+			}
+		});
+		assertTrue("Callback not invoked", latch.await(10, TimeUnit.SECONDS));
+		assertEquals("Invalid status code", HttpStatus.NOT_FOUND, status.get());
+	}
+
+	@MediumTest
+	public void testRequestListener() throws Exception {
+		final List<ClientHttpRequestEvent> events = new ArrayList<ClientHttpRequestEvent>();
+		OkHttp3ClientHttpRequestFactory listenedFactory = new OkHttp3ClientHttpRequestFactory();
+		listenedFactory.setRequestListener(new ClientHttpRequestListener() {
+			@Override
+			public void onEvent(ClientHttpRequestEvent event) {
+				events.add(event);
+			}
+		});
+		ClientHttpRequest request = listenedFactory.createRequest(new URI(baseUrl + "/echo"), HttpMethod.PUT);
+		byte[] body = "Hello World".getBytes("UTF-8");
+		StreamUtils.copy(body, request.getBody());
+		ClientHttpResponse response = request.execute();
+		try {
+			assertEquals("Invalid status code", HttpStatus.OK, response.getStatusCode());
+		}
+		finally {
+			response.close();
+		}
+		assertEquals(3, events.size());
+		assertEquals(ClientHttpRequestEvent.Phase.CONNECT, events.get(0).getPhase());
+		assertEquals(ClientHttpRequestEvent.Phase.REQUEST_BODY_SENT, events.get(1).getPhase());
+		assertEquals(body.length, events.get(1).getByteCount());
+		assertEquals(ClientHttpRequestEvent.Phase.RESPONSE_HEADERS, events.get(2).getPhase());
+		assertEquals("localhost", events.get(2).getHost());
+		for (int i = 1; i < events.size(); i++) {
+			assertEquals(events.get(i - 1).getEndNanos(), events.get(i).getStartNanos());
+		}
+	}
+
+	@MediumTest
+	public void testPrewarm() throws Exception {
+		URI echo = new URI(baseUrl + "/echo");
+		URI status = new URI(baseUrl + "/status/ok");
+		URI unknown = new URI("http://prewarm.invalid/");
+		ListenableFuture<ConnectionPrewarmResult> future =
+				((OkHttp3ClientHttpRequestFactory) factory).prewarm(Arrays.asList(echo, status, unknown));
+		ConnectionPrewarmResult result = future.get(10, TimeUnit.SECONDS);
+		assertFalse(result.isSuccessful());
+		assertTrue(result.isResolved(echo));
+		assertTrue(result.isConnected(echo));
+		assertEquals(Arrays.asList(echo), result.getConnectedUris());
+		assertFalse(result.isConnected(unknown));
+		assertNotNull(result.getFailure(unknown));
+		assertEquals(1, result.getFailures().size());
+	}
+
+	@MediumTest
+	public void testPrewarmWithHostResolver() throws Exception {
+		final List<String> hosts = Collections.synchronizedList(new ArrayList<String>());
+		OkHttp3ClientHttpRequestFactory resolvingFactory = new OkHttp3ClientHttpRequestFactory();
+		resolvingFactory.setHostResolver(new HostResolver() {
+			@Override
+			public InetAddress[] resolve(String host) throws UnknownHostException {
+				hosts.add(host);
+				return InetAddress.getAllByName(host);
+			}
+		});
+		URI echo = new URI(baseUrl + "/echo");
+		ConnectionPrewarmResult result = resolvingFactory.prewarm(Arrays.asList(echo)).get(10, TimeUnit.SECONDS);
+		assertTrue(result.isResolved(echo));
+		assertTrue(result.isConnected(echo));
+		// once to warm the lookup, once by the client itself
+		assertEquals(Arrays.asList("localhost", "localhost"), hosts);
+	}
+
+	@SmallTest
+	public void testPrewarmOriginDefaultPort() throws Exception {
+		assertEquals(ConnectionPrewarming.getOrigin(new URI("https://example.com:443/hotels")),
+				ConnectionPrewarming.getOrigin(new URI("https://Example.com/")));
+		assertEquals(ConnectionPrewarming.getOrigin(new URI("http://example.com:80/hotels")),
+				ConnectionPrewarming.getOrigin(new URI("http://example.com/")));
+		assertFalse(ConnectionPrewarming.getOrigin(new URI("https://example.com:8443/")).equals(
+				ConnectionPrewarming.getOrigin(new URI("https://example.com/"))));
+	}
+
+	@MediumTest
+	public void testHostResolver() throws Exception {
+		final List<String> hosts = new ArrayList<String>();
+		OkHttp3ClientHttpRequestFactory resolvingFactory = new OkHttp3ClientHttpRequestFactory();
+		resolvingFactory.setHostResolver(new HostResolver() {
+			@Override
+			public InetAddress[] resolve(String host) throws UnknownHostException {
+				hosts.add(host);
+				return InetAddress.getAllByName(host);
+			}
+		});
+		ClientHttpResponse response = resolvingFactory.createRequest(new URI(baseUrl + "/status/ok"), HttpMethod.GET).execute();
+		try {
+			assertEquals("Invalid status code", HttpStatus.OK, response.getStatusCode());
+		}
+		finally {
+			response.close();
+		}
+		assertEquals(Arrays.asList("localhost"), hosts);
+	}
+
+	@MediumTest
+	public void testCancellationHandle() throws Exception {
+		CancellationHandle handle = new CancellationHandle();
+		handle.cancel();
+		CancellationHandle.setCurrent(handle);
+		try {
+			factory.createRequest(new URI(baseUrl + "/status/ok"), HttpMethod.GET).execute();
+			fail("IOException expected");
+		}
+		catch (IOException ex) {
+			// expected, the call is cancelled as soon as it is created
+		}
+		finally {
+			CancellationHandle.setCurrent(null);
+		}
+	}
+
 }
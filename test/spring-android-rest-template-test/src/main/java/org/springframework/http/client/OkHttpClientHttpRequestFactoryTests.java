@@ -17,11 +17,14 @@
 package org.springframework.http.client;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StreamUtils;
 
 import android.os.Build;
 import android.test.suitebuilder.annotation.MediumTest;
@@ -101,4 +104,35 @@ public class OkHttpClientHttpRequestFactoryTests extends AbstractHttpRequestFact
 		assertEquals("Invalid status code", HttpStatus.OK, response.getStatusCode());
 	}
 
+	@MediumTest
+	public void testRequestListener() throws Exception {
+		final List<ClientHttpRequestEvent> events = new ArrayList<ClientHttpRequestEvent>();
+		OkHttpClientHttpRequestFactory listenedFactory = new OkHttpClientHttpRequestFactory();
+		listenedFactory.setRequestListener(new ClientHttpRequestListener() {
+			@Override
+			public void onEvent(ClientHttpRequestEvent event) {
+				events.add(event);
+			}
+		});
+		ClientHttpRequest request = listenedFactory.createRequest(new URI(baseUrl + "/echo"), HttpMethod.PUT);
+		byte[] body = "Hello World".getBytes("UTF-8");
+		StreamUtils.copy(body, request.getBody());
+		ClientHttpResponse response = request.execute();
+		try {
+			assertEquals("Invalid status code", HttpStatus.OK, response.getStatusCode());
+		}
+		finally {
+			response.close();
+		}
+		assertEquals(3, events.size());
+		assertEquals(ClientHttpRequestEvent.Phase.CONNECT, events.get(0).getPhase());
+		assertEquals(ClientHttpRequestEvent.Phase.REQUEST_BODY_SENT, events.get(1).getPhase());
+		assertEquals(body.length, events.get(1).getByteCount());
+		assertEquals(ClientHttpRequestEvent.Phase.RESPONSE_HEADERS, events.get(2).getPhase());
+		assertEquals("localhost", events.get(2).getHost());
+		for (int i = 1; i < events.size(); i++) {
+			assertEquals(events.get(i - 1).getEndNanos(), events.get(i).getStartNanos());
+		}
+	}
+
 }
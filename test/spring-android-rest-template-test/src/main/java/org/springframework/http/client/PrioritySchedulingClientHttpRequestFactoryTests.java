@@ -0,0 +1,281 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+
+import android.test.suitebuilder.annotation.MediumTest;
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * @author Roy Clarkson
+ */
+public class PrioritySchedulingClientHttpRequestFactoryTests extends TestCase {
+
+	private static final String HOST = "https://example.com";
+
+	private PrioritySchedulingClientHttpRequestFactory requestFactory;
+
+	private final List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.requestFactory = new PrioritySchedulingClientHttpRequestFactory(new RequestFactoryMock());
+		this.requestFactory.setMaxConcurrentRequests(1);
+	}
+
+	@SmallTest
+	public void testInteractiveUsesYieldingSlots() throws Exception {
+		ClientHttpResponse background = execute(RequestPriority.BACKGROUND, HOST + "/sync");
+		assertEquals(1, requestFactory.getRunningRequestCount(RequestPriority.BACKGROUND));
+
+		ClientHttpResponse interactive = execute(RequestPriority.INTERACTIVE, HOST + "/user");
+		assertEquals(1, requestFactory.getRunningRequestCount(RequestPriority.INTERACTIVE));
+		interactive.close();
+		background.close();
+		assertEquals(0, requestFactory.getRunningRequestCount(RequestPriority.BACKGROUND));
+		assertEquals(0, requestFactory.getRunningRequestCount(RequestPriority.INTERACTIVE));
+	}
+
+	@MediumTest
+	public void testPriorityOrder() throws Exception {
+		ClientHttpResponse normal = execute(RequestPriority.NORMAL, HOST + "/first");
+		Waiter prefetch = startWaiter(RequestPriority.PREFETCH, HOST + "/prefetch", 1);
+		Waiter background = startWaiter(RequestPriority.BACKGROUND, HOST + "/background", 2);
+		Waiter interactive = startWaiter(RequestPriority.INTERACTIVE, HOST + "/interactive", 3);
+
+		normal.close();
+		interactive.awaitResponse().close();
+		background.awaitResponse().close();
+		prefetch.awaitResponse().close();
+		assertEquals(Arrays.asList("/first", "/interactive", "/background", "/prefetch"), executed);
+	}
+
+	@MediumTest
+	public void testAging() throws Exception {
+		requestFactory.setAgingInterval(20);
+		ClientHttpResponse normal = execute(RequestPriority.NORMAL, HOST + "/first");
+		Waiter prefetch = startWaiter(RequestPriority.PREFETCH, HOST + "/prefetch", 1);
+		Thread.sleep(100);
+		Waiter later = startWaiter(RequestPriority.NORMAL, HOST + "/later", 2);
+
+		normal.close();
+		prefetch.awaitResponse().close();
+		later.awaitResponse().close();
+		assertEquals(Arrays.asList("/first", "/prefetch", "/later"), executed);
+	}
+
+	@MediumTest
+	public void testMaxConcurrentRequestsPerLane() throws Exception {
+		requestFactory.setMaxConcurrentRequests(4);
+		requestFactory.setMaxConcurrentRequests(RequestPriority.PREFETCH, 1);
+		ClientHttpResponse first = execute(RequestPriority.PREFETCH, HOST + "/first");
+		Waiter second = startWaiter(RequestPriority.PREFETCH, HOST + "/second", 1);
+		ClientHttpResponse normal = execute(RequestPriority.NORMAL, HOST + "/normal");
+		assertEquals(1, requestFactory.getWaitingRequestCount());
+
+		first.close();
+		second.awaitResponse().close();
+		normal.close();
+		assertEquals(0, requestFactory.getWaitingRequestCount());
+	}
+
+	@MediumTest
+	public void testMaxConcurrentRequestsPerHost() throws Exception {
+		requestFactory.setMaxConcurrentRequests(4);
+		requestFactory.setMaxConcurrentRequestsPerHost(1);
+		ClientHttpResponse first = execute(RequestPriority.NORMAL, HOST + "/first");
+		Waiter second = startWaiter(RequestPriority.NORMAL, HOST + "/second", 1);
+		ClientHttpResponse other = execute(RequestPriority.NORMAL, "https://example.org/other");
+
+		first.close();
+		second.awaitResponse().close();
+		other.close();
+		assertEquals(Arrays.asList("/first", "/other", "/second"), executed);
+	}
+
+	@MediumTest
+	public void testCancelWhileWaiting() throws Exception {
+		ClientHttpResponse normal = execute(RequestPriority.NORMAL, HOST + "/first");
+		CancellationHandle handle = new CancellationHandle();
+		Waiter waiter = startWaiter(RequestPriority.NORMAL, HOST + "/second", 1, handle);
+
+		handle.cancel();
+		waiter.thread.join(1000);
+		assertTrue(waiter.exception instanceof InterruptedIOException);
+		assertEquals(0, requestFactory.getWaitingRequestCount());
+		normal.close();
+	}
+
+	private ClientHttpResponse execute(RequestPriority priority, String uri) throws Exception {
+		RequestPriorityHolder.setPriority(priority);
+		try {
+			return requestFactory.createRequest(new URI(uri), HttpMethod.GET).execute();
+		}
+		finally {
+			RequestPriorityHolder.resetPriority();
+		}
+	}
+
+	private Waiter startWaiter(RequestPriority priority, String uri, int waitingCount) throws Exception {
+		return startWaiter(priority, uri, waitingCount, null);
+	}
+
+	/**
+	 * Start executing a request on a thread of its own, and return once it waits for a slot.
+	 */
+	private Waiter startWaiter(RequestPriority priority, String uri, int waitingCount, CancellationHandle handle)
+			throws Exception {
+
+		Waiter waiter = new Waiter(priority, uri, handle);
+		waiter.thread.start();
+		for (int i = 0; i < 100 && requestFactory.getWaitingRequestCount() < waitingCount; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(waitingCount, requestFactory.getWaitingRequestCount());
+		return waiter;
+	}
+
+
+	private class Waiter implements Runnable {
+
+		private final RequestPriority priority;
+
+		private final String uri;
+
+		private final CancellationHandle handle;
+
+		private final Thread thread = new Thread(this);
+
+		private volatile ClientHttpResponse response;
+
+		private volatile Exception exception;
+
+		private Waiter(RequestPriority priority, String uri, CancellationHandle handle) {
+			this.priority = priority;
+			this.uri = uri;
+			this.handle = handle;
+		}
+
+		public void run() {
+			CancellationHandle.setCurrent(this.handle);
+			try {
+				this.response = execute(this.priority, this.uri);
+			}
+			catch (Exception ex) {
+				this.exception = ex;
+			}
+		}
+
+		private ClientHttpResponse awaitResponse() throws InterruptedException {
+			this.thread.join(1000);
+			assertNotNull("No response", this.response);
+			return this.response;
+		}
+	}
+
+	private class RequestFactoryMock implements ClientHttpRequestFactory {
+
+		public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+			return new RequestMock(uri, httpMethod);
+		}
+	}
+
+	private class RequestMock implements ClientHttpRequest {
+
+		private final URI uri;
+
+		private final HttpMethod method;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		private RequestMock(URI uri, HttpMethod method) {
+			this.uri = uri;
+			this.method = method;
+		}
+
+		public URI getURI() {
+			return this.uri;
+		}
+
+		public HttpMethod getMethod() {
+			return this.method;
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		public OutputStream getBody() throws IOException {
+			return this.body;
+		}
+
+		public ClientHttpResponse execute() throws IOException {
+			executed.add(this.uri.getPath());
+			return new ResponseMock();
+		}
+	}
+
+	private static class ResponseMock implements ClientHttpResponse {
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		public HttpStatus getStatusCode() throws IOException {
+			return HttpStatus.OK;
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return HttpStatus.OK.value();
+		}
+
+		public String getStatusText() throws IOException {
+			return HttpStatus.OK.getReasonPhrase();
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		public InputStream getBody() throws IOException {
+			return new ByteArrayInputStream(new byte[0]);
+		}
+
+		public void close() {
+		}
+	}
+
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StreamUtils;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * @author Roy Clarkson
+ */
+public class RetryingClientHttpRequestFactoryTests extends TestCase {
+
+	private RequestFactoryMock requestFactoryMock;
+
+	private SleepRecordingRequestFactory requestFactory;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.requestFactoryMock = new RequestFactoryMock();
+		this.requestFactory = new SleepRecordingRequestFactory(this.requestFactoryMock);
+	}
+
+	@SmallTest
+	public void testRetryOnIOException() throws Exception {
+		requestFactoryMock.outcomes.add(new IOException("Connection reset"));
+		requestFactoryMock.outcomes.add(HttpStatus.OK);
+
+		ClientHttpResponse response = execute(HttpMethod.GET, "Hello");
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(2, requestFactoryMock.requests.size());
+		for (RequestMock request : requestFactoryMock.requests) {
+			assertEquals("Hello", new String(request.body.toByteArray(), "UTF-8"));
+			assertEquals("bar", request.getHeaders().getFirst("foo"));
+		}
+	}
+
+	@SmallTest
+	public void testRetryOnStatusCode() throws Exception {
+		ResponseMock unavailable = new ResponseMock(HttpStatus.SERVICE_UNAVAILABLE);
+		requestFactoryMock.outcomes.add(unavailable);
+		requestFactoryMock.outcomes.add(HttpStatus.TOO_MANY_REQUESTS);
+		requestFactoryMock.outcomes.add(HttpStatus.OK);
+
+		ClientHttpResponse response = execute(HttpMethod.GET, null);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(3, requestFactoryMock.requests.size());
+		assertTrue(unavailable.closed);
+	}
+
+	@SmallTest
+	public void testMaxAttempts() throws Exception {
+		requestFactoryMock.outcomes.add(HttpStatus.SERVICE_UNAVAILABLE);
+		requestFactoryMock.outcomes.add(HttpStatus.SERVICE_UNAVAILABLE);
+		requestFactoryMock.outcomes.add(new IOException("Connection reset"));
+
+		try {
+			execute(HttpMethod.GET, null);
+			fail("IOException expected");
+		}
+		catch (IOException ex) {
+			assertEquals("Connection reset", ex.getMessage());
+		}
+		assertEquals(RetryingClientHttpRequestFactory.DEFAULT_MAX_ATTEMPTS, requestFactoryMock.requests.size());
+	}
+
+	@SmallTest
+	public void testLastResponseReturned() throws Exception {
+		requestFactory.setMaxAttempts(2);
+		requestFactoryMock.outcomes.add(HttpStatus.SERVICE_UNAVAILABLE);
+		requestFactoryMock.outcomes.add(HttpStatus.BAD_GATEWAY);
+
+		ClientHttpResponse response = execute(HttpMethod.GET, null);
+
+		assertEquals(HttpStatus.BAD_GATEWAY, response.getStatusCode());
+		assertEquals(2, requestFactoryMock.requests.size());
+	}
+
+	@SmallTest
+	public void testNonRetryableStatusCode() throws Exception {
+		requestFactoryMock.outcomes.add(HttpStatus.INTERNAL_SERVER_ERROR);
+
+		ClientHttpResponse response = execute(HttpMethod.GET, null);
+
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+		assertEquals(1, requestFactoryMock.requests.size());
+	}
+
+	@SmallTest
+	public void testNonRetryableException() throws Exception {
+		requestFactoryMock.outcomes.add(new UnknownHostException("example.com"));
+
+		try {
+			execute(HttpMethod.GET, null);
+			fail("UnknownHostException expected");
+		}
+		catch (UnknownHostException ex) {
+			// expected
+		}
+		assertEquals(1, requestFactoryMock.requests.size());
+	}
+
+	@SmallTest
+	public void testPostNotRetried() throws Exception {
+		requestFactoryMock.outcomes.add(HttpStatus.SERVICE_UNAVAILABLE);
+
+		ClientHttpResponse response = execute(HttpMethod.POST, "Hello");
+
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+		assertEquals(1, requestFactoryMock.requests.size());
+	}
+
+	@SmallTest
+	public void testBackoff() throws Exception {
+		requestFactory.setMaxAttempts(6);
+		requestFactory.setInitialBackoff(100);
+		requestFactory.setMaxBackoff(500);
+		for (int i = 0; i < 5; i++) {
+			requestFactoryMock.outcomes.add(new IOException("Connection reset"));
+		}
+		requestFactoryMock.outcomes.add(HttpStatus.OK);
+
+		execute(HttpMethod.GET, null);
+
+		assertEquals(5, requestFactory.sleeps.size());
+		long[] caps = {100, 200, 400, 500, 500};
+		for (int i = 0; i < caps.length; i++) {
+			long sleep = requestFactory.sleeps.get(i);
+			assertTrue("Backoff " + sleep + " exceeds " + caps[i], sleep >= 0 && sleep <= caps[i]);
+		}
+	}
+
+	@SmallTest
+	public void testRetryAfter() throws Exception {
+		ResponseMock unavailable = new ResponseMock(HttpStatus.SERVICE_UNAVAILABLE);
+		unavailable.getHeaders().setRetryAfter(2);
+		requestFactoryMock.outcomes.add(unavailable);
+		requestFactoryMock.outcomes.add(HttpStatus.OK);
+
+		ClientHttpResponse response = execute(HttpMethod.GET, null);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(1, requestFactory.sleeps.size());
+		assertEquals(2000, requestFactory.sleeps.get(0).longValue());
+	}
+
+	@SmallTest
+	public void testRetryAfterExceedsMaximum() throws Exception {
+		requestFactory.setMaxRetryAfter(1000);
+		ResponseMock unavailable = new ResponseMock(HttpStatus.SERVICE_UNAVAILABLE);
+		unavailable.getHeaders().setRetryAfter(3600);
+		requestFactoryMock.outcomes.add(unavailable);
+
+		ClientHttpResponse response = execute(HttpMethod.GET, null);
+
+		assertSame(unavailable, response);
+		assertEquals(1, requestFactoryMock.requests.size());
+		assertTrue(requestFactory.sleeps.isEmpty());
+	}
+
+	@SmallTest
+	public void testRetryAfterExceedsDeadline() throws Exception {
+		ResponseMock unavailable = new ResponseMock(HttpStatus.SERVICE_UNAVAILABLE);
+		unavailable.getHeaders().setRetryAfter(2);
+		requestFactoryMock.outcomes.add(unavailable);
+		CancellationHandle handle = new CancellationHandle();
+		handle.setTimeout(1000);
+		CancellationHandle.setCurrent(handle);
+		try {
+			ClientHttpResponse response = execute(HttpMethod.GET, null);
+			assertSame(unavailable, response);
+		}
+		finally {
+			CancellationHandle.setCurrent(null);
+			handle.release();
+		}
+		assertEquals(1, requestFactoryMock.requests.size());
+		assertTrue(requestFactory.sleeps.isEmpty());
+	}
+
+	@SmallTest
+	public void testRetryBudget() throws Exception {
+		requestFactory.setRetryBudget(new RetryBudget(0.5f, 1));
+		requestFactoryMock.defaultOutcome = HttpStatus.SERVICE_UNAVAILABLE;
+
+		// the initial token permits a single retry
+		execute(HttpMethod.GET, null);
+		assertEquals(2, requestFactoryMock.requests.size());
+
+		// the budget is exhausted
+		execute(HttpMethod.GET, null);
+		assertEquals(3, requestFactoryMock.requests.size());
+
+		// two requests earn another retry
+		execute(HttpMethod.GET, null);
+		assertEquals(5, requestFactoryMock.requests.size());
+	}
+
+	private ClientHttpResponse execute(HttpMethod method, String body) throws IOException {
+		ClientHttpRequest request = requestFactory.createRequest(URI.create("https://example.com/resource"), method);
+		request.getHeaders().set("foo", "bar");
+		if (body != null) {
+			StreamUtils.copy(body.getBytes("UTF-8"), request.getBody());
+		}
+		return request.execute();
+	}
+
+
+	private static class SleepRecordingRequestFactory extends RetryingClientHttpRequestFactory {
+
+		private final List<Long> sleeps = new ArrayList<Long>();
+
+		public SleepRecordingRequestFactory(ClientHttpRequestFactory requestFactory) {
+			super(requestFactory);
+		}
+
+		@Override
+		void sleep(long millis) {
+			this.sleeps.add(millis);
+		}
+	}
+
+	private static class RequestFactoryMock implements ClientHttpRequestFactory {
+
+		private final LinkedList<Object> outcomes = new LinkedList<Object>();
+
+		private final List<RequestMock> requests = new ArrayList<RequestMock>();
+
+		private Object defaultOutcome = HttpStatus.OK;
+
+		public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+			RequestMock request = new RequestMock(this, uri, httpMethod);
+			this.requests.add(request);
+			return request;
+		}
+	}
+
+	private static class RequestMock implements ClientHttpRequest {
+
+		private final RequestFactoryMock factory;
+
+		private final URI uri;
+
+		private final HttpMethod method;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		private RequestMock(RequestFactoryMock factory, URI uri, HttpMethod method) {
+			this.factory = factory;
+			this.uri = uri;
+			this.method = method;
+		}
+
+		public URI getURI() {
+			return this.uri;
+		}
+
+		public HttpMethod getMethod() {
+			return this.method;
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		public OutputStream getBody() throws IOException {
+			return this.body;
+		}
+
+		public ClientHttpResponse execute() throws IOException {
+			Object outcome = (this.factory.outcomes.isEmpty() ? this.factory.defaultOutcome :
+					this.factory.outcomes.removeFirst());
+			if (outcome instanceof IOException) {
+				throw (IOException) outcome;
+			}
+			if (outcome instanceof ResponseMock) {
+				return (ResponseMock) outcome;
+			}
+			return new ResponseMock((HttpStatus) outcome);
+		}
+	}
+
+	private static class ResponseMock implements ClientHttpResponse {
+
+		private final HttpStatus statusCode;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private boolean closed;
+
+		private ResponseMock(HttpStatus statusCode) {
+			this.statusCode = statusCode;
+		}
+
+		public HttpStatus getStatusCode() throws IOException {
+			return this.statusCode;
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return this.statusCode.value();
+		}
+
+		public String getStatusText() throws IOException {
+			return this.statusCode.getReasonPhrase();
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		public InputStream getBody() throws IOException {
+			return new ByteArrayInputStream(new byte[0]);
+		}
+
+		public void close() {
+			this.closed = true;
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.client;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.springframework.util.StreamUtils;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * @author Roy Clarkson
+ */
+public class SegmentedOutputStreamTests extends TestCase {
+
+	@SmallTest
+	public void testWriteAcrossSegments() throws Exception {
+		byte[] content = createContent(SegmentedOutputStream.SEGMENT_SIZE * 2 + 100);
+		SegmentedOutputStream out = new SegmentedOutputStream();
+		out.write(content[0]);
+		out.write(content, 1, 99);
+		out.write(content, 100, content.length - 100);
+		assertEquals(content.length, out.size());
+		assertTrue(Arrays.equals(content, out.toByteArray()));
+		ByteArrayOutputStream copy = new ByteArrayOutputStream();
+		out.writeTo(copy);
+		assertTrue(Arrays.equals(content, copy.toByteArray()));
+		out.release();
+	}
+
+	@SmallTest
+	public void testGetInputStream() throws Exception {
+		byte[] content = createContent(SegmentedOutputStream.SEGMENT_SIZE + 1);
+		SegmentedOutputStream out = new SegmentedOutputStream();
+		out.write(content);
+		assertTrue(Arrays.equals(content, StreamUtils.copyToByteArray(out.getInputStream())));
+		assertTrue(Arrays.equals(content, StreamUtils.copyToByteArray(out.getInputStream())));
+		assertEquals(-1, new SegmentedOutputStream().getInputStream().read());
+		out.release();
+	}
+
+	@SmallTest
+	public void testReleaseRecyclesSegments() throws Exception {
+		SegmentedOutputStream out = new SegmentedOutputStream();
+		out.write(createContent(SegmentedOutputStream.SEGMENT_SIZE * 3));
+		out.release();
+		assertEquals(0, out.size());
+		int pooled = SegmentedOutputStream.getPooledSegmentCount();
+		assertTrue(pooled >= 3);
+
+		out = new SegmentedOutputStream();
+		out.write(createContent(SegmentedOutputStream.SEGMENT_SIZE));
+		assertEquals(pooled - 1, SegmentedOutputStream.getPooledSegmentCount());
+		out.release();
+		assertEquals(pooled, SegmentedOutputStream.getPooledSegmentCount());
+	}
+
+	@SmallTest
+	public void testPoolIsBounded() throws Exception {
+		SegmentedOutputStream out = new SegmentedOutputStream();
+		out.write(createContent(SegmentedOutputStream.SEGMENT_SIZE * (SegmentedOutputStream.MAX_POOLED_SEGMENTS + 10)));
+		out.release();
+		assertEquals(SegmentedOutputStream.MAX_POOLED_SEGMENTS, SegmentedOutputStream.getPooledSegmentCount());
+	}
+
+	@SmallTest
+	public void testWrapDoesNotPool() throws Exception {
+		byte[] content = createContent(SegmentedOutputStream.SEGMENT_SIZE);
+		int pooled = SegmentedOutputStream.getPooledSegmentCount();
+		SegmentedOutputStream out = SegmentedOutputStream.wrap(content);
+		assertEquals(content.length, out.size());
+		assertTrue(Arrays.equals(content, out.toByteArray()));
+		out.release();
+		assertEquals(pooled, SegmentedOutputStream.getPooledSegmentCount());
+	}
+
+	private static byte[] createContent(int length) {
+		byte[] content = new byte[length];
+		for (int i = 0; i < length; i++) {
+			content[i] = (byte) (i % 251);
+		}
+		return content;
+	}
+
+}
@@ -16,10 +16,66 @@
 
 package org.springframework.http.client;
 
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StreamUtils;
+
+import android.test.suitebuilder.annotation.MediumTest;
+
 public class SimpleBufferingHttpRequestFactoryTests extends SimpleAbstractHttpRequestFactoryTests {
 
 	@Override
 	protected ClientHttpRequestFactory createRequestFactory() {
 		return new SimpleClientHttpRequestFactory();
 	}
+
+	@MediumTest
+	public void testRequestListener() throws Exception {
+		List<ClientHttpRequestEvent> events = executeWithListener(HttpMethod.GET, "/status/ok", null);
+		assertEquals(2, events.size());
+		assertEquals(ClientHttpRequestEvent.Phase.CONNECT, events.get(0).getPhase());
+		assertEquals(ClientHttpRequestEvent.Phase.RESPONSE_HEADERS, events.get(1).getPhase());
+		assertEquals(events.get(0).getEndNanos(), events.get(1).getStartNanos());
+
+		byte[] body = "Hello World".getBytes("UTF-8");
+		events = executeWithListener(HttpMethod.PUT, "/echo", body);
+		assertEquals(3, events.size());
+		assertEquals(ClientHttpRequestEvent.Phase.CONNECT, events.get(0).getPhase());
+		assertEquals(ClientHttpRequestEvent.Phase.REQUEST_BODY_SENT, events.get(1).getPhase());
+		assertEquals(body.length, events.get(1).getByteCount());
+		assertEquals(ClientHttpRequestEvent.Phase.RESPONSE_HEADERS, events.get(2).getPhase());
+		for (int i = 1; i < events.size(); i++) {
+			assertEquals(events.get(i - 1).getEndNanos(), events.get(i).getStartNanos());
+		}
+	}
+
+	private List<ClientHttpRequestEvent> executeWithListener(HttpMethod method, String path, byte[] body)
+			throws Exception {
+
+		final List<ClientHttpRequestEvent> events = new ArrayList<ClientHttpRequestEvent>();
+		SimpleClientHttpRequestFactory listenedFactory = new SimpleClientHttpRequestFactory();
+		listenedFactory.setRequestListener(new ClientHttpRequestListener() {
+			@Override
+			public void onEvent(ClientHttpRequestEvent event) {
+				events.add(event);
+			}
+		});
+		ClientHttpRequest request = listenedFactory.createRequest(new URI(baseUrl + path), method);
+		if (body != null) {
+			StreamUtils.copy(body, request.getBody());
+		}
+		ClientHttpResponse response = request.execute();
+		try {
+			assertEquals("Invalid status code", HttpStatus.OK, response.getStatusCode());
+		}
+		finally {
+			response.close();
+		}
+		return events;
+	}
+
 }
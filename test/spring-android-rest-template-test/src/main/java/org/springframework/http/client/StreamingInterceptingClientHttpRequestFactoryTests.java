@@ -0,0 +1,353 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.support.HttpRequestWrapper;
+import org.springframework.util.StreamUtils;
+
+import android.test.suitebuilder.annotation.MediumTest;
+
+/**
+ * @author Roy Clarkson
+ */
+public class StreamingInterceptingClientHttpRequestFactoryTests extends TestCase {
+
+	private StreamingInterceptingClientHttpRequestFactory requestFactory;
+
+	private RequestFactoryMock requestFactoryMock;
+
+	private RequestMock requestMock;
+
+	private ResponseMock responseMock;
+
+	@Override
+	public void setUp() throws Exception {
+		this.requestFactoryMock = new RequestFactoryMock();
+		this.requestMock = new StreamingRequestMock();
+		this.responseMock = new ResponseMock();
+		super.setUp();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		this.requestFactory = null;
+		this.requestFactoryMock = null;
+		this.requestMock = null;
+		this.responseMock = null;
+		super.tearDown();
+	}
+
+	@MediumTest
+	public void testBasic() throws Exception {
+		List<StreamingClientHttpRequestInterceptor> interceptors = new ArrayList<StreamingClientHttpRequestInterceptor>();
+		interceptors.add(new NoOpInterceptor());
+		interceptors.add(new NoOpInterceptor());
+		interceptors.add(new NoOpInterceptor());
+		requestFactory = new StreamingInterceptingClientHttpRequestFactory(requestFactoryMock, interceptors);
+
+		ClientHttpRequest request = requestFactory.createRequest(new URI("https://example.com"), HttpMethod.GET);
+		ClientHttpResponse response = request.execute();
+
+		assertTrue(((NoOpInterceptor) interceptors.get(0)).invoked);
+		assertTrue(((NoOpInterceptor) interceptors.get(1)).invoked);
+		assertTrue(((NoOpInterceptor) interceptors.get(2)).invoked);
+		assertTrue(requestMock.executed);
+		assertSame(responseMock, response);
+	}
+
+	@MediumTest
+	public void testNoExecution() throws Exception {
+		List<StreamingClientHttpRequestInterceptor> interceptors = new ArrayList<StreamingClientHttpRequestInterceptor>();
+		interceptors.add(new StreamingClientHttpRequestInterceptor() {
+			public ClientHttpResponse intercept(HttpRequest request, StreamingHttpOutputMessage.Body body,
+					StreamingClientHttpRequestExecution execution) throws IOException {
+				return responseMock;
+			}
+		});
+		interceptors.add(new NoOpInterceptor());
+		requestFactory = new StreamingInterceptingClientHttpRequestFactory(requestFactoryMock, interceptors);
+
+		ClientHttpRequest request = requestFactory.createRequest(new URI("https://example.com"), HttpMethod.GET);
+		ClientHttpResponse response = request.execute();
+
+		assertFalse(((NoOpInterceptor) interceptors.get(1)).invoked);
+		assertFalse(requestMock.executed);
+		assertSame(responseMock, response);
+	}
+
+	@MediumTest
+	public void testChangeHeaders() throws Exception {
+		final String headerName = "Foo";
+		final String headerValue = "Bar";
+		StreamingClientHttpRequestInterceptor interceptor = new StreamingClientHttpRequestInterceptor() {
+			public ClientHttpResponse intercept(HttpRequest request, StreamingHttpOutputMessage.Body body,
+					StreamingClientHttpRequestExecution execution) throws IOException {
+				request.getHeaders().set(headerName, headerValue);
+				return execution.execute(request, body);
+			}
+		};
+		requestFactory = new StreamingInterceptingClientHttpRequestFactory(requestFactoryMock,
+				Collections.singletonList(interceptor));
+
+		ClientHttpRequest request = requestFactory.createRequest(new URI("https://example.com"), HttpMethod.GET);
+		request.execute();
+
+		assertEquals(headerValue, requestMock.getHeaders().getFirst(headerName));
+	}
+
+	@MediumTest
+	public void testChangeURI() throws Exception {
+		final URI changedUri = new URI("https://example.com/2");
+		StreamingClientHttpRequestInterceptor interceptor = new StreamingClientHttpRequestInterceptor() {
+			public ClientHttpResponse intercept(HttpRequest request, StreamingHttpOutputMessage.Body body,
+					StreamingClientHttpRequestExecution execution) throws IOException {
+				return execution.execute(new HttpRequestWrapper(request) {
+					@Override
+					public URI getURI() {
+						return changedUri;
+					}
+				}, body);
+			}
+		};
+		requestFactory = new StreamingInterceptingClientHttpRequestFactory(requestFactoryMock,
+				Collections.singletonList(interceptor));
+
+		ClientHttpRequest request = requestFactory.createRequest(new URI("https://example.com"), HttpMethod.GET);
+		request.execute();
+
+		assertEquals(changedUri, requestMock.getURI());
+	}
+
+	@MediumTest
+	public void testStreamingBodyPassedToStreamingDelegate() throws Exception {
+		final byte[] bytes = "Hello World".getBytes("UTF-8");
+		final CountingBody body = new CountingBody(bytes);
+		StreamingClientHttpRequestInterceptor interceptor = new StreamingClientHttpRequestInterceptor() {
+			public ClientHttpResponse intercept(HttpRequest request, StreamingHttpOutputMessage.Body body,
+					StreamingClientHttpRequestExecution execution) throws IOException {
+				assertEquals(0, ((CountingBody) body).writeCount);
+				return execution.execute(request, body);
+			}
+		};
+		requestFactory = new StreamingInterceptingClientHttpRequestFactory(requestFactoryMock,
+				Collections.singletonList(interceptor));
+
+		ClientHttpRequest request = requestFactory.createRequest(new URI("https://example.com"), HttpMethod.POST);
+		assertTrue(request instanceof StreamingHttpOutputMessage);
+		((StreamingHttpOutputMessage) request).setBody(body);
+		request.execute();
+
+		assertSame(body, ((StreamingRequestMock) requestMock).streamingBody);
+		assertEquals(1, body.writeCount);
+		assertTrue(Arrays.equals(bytes, requestMock.body.toByteArray()));
+	}
+
+	@MediumTest
+	public void testStreamingBodyWrittenToNonStreamingDelegate() throws Exception {
+		requestMock = new RequestMock();
+		final byte[] bytes = "Hello World".getBytes("UTF-8");
+		CountingBody body = new CountingBody(bytes);
+		requestFactory = new StreamingInterceptingClientHttpRequestFactory(requestFactoryMock,
+				Collections.<StreamingClientHttpRequestInterceptor>singletonList(new NoOpInterceptor()));
+
+		ClientHttpRequest request = requestFactory.createRequest(new URI("https://example.com"), HttpMethod.POST);
+		((StreamingHttpOutputMessage) request).setBody(body);
+		request.execute();
+
+		assertEquals(1, body.writeCount);
+		assertTrue(Arrays.equals(bytes, requestMock.body.toByteArray()));
+	}
+
+	@MediumTest
+	public void testBufferedBody() throws Exception {
+		final byte[] bytes = "Hello World".getBytes("UTF-8");
+		requestFactory = new StreamingInterceptingClientHttpRequestFactory(requestFactoryMock,
+				Collections.<StreamingClientHttpRequestInterceptor>singletonList(new NoOpInterceptor()));
+
+		ClientHttpRequest request = requestFactory.createRequest(new URI("https://example.com"), HttpMethod.POST);
+		StreamUtils.copy(bytes, request.getBody());
+		request.execute();
+
+		assertEquals(bytes.length, requestMock.getHeaders().getContentLength());
+		assertTrue(Arrays.equals(bytes, requestMock.body.toByteArray()));
+	}
+
+	@MediumTest
+	public void testNoBody() throws Exception {
+		requestFactory = new StreamingInterceptingClientHttpRequestFactory(requestFactoryMock,
+				Collections.<StreamingClientHttpRequestInterceptor>singletonList(new NoOpInterceptor()));
+
+		ClientHttpRequest request = requestFactory.createRequest(new URI("https://example.com"), HttpMethod.GET);
+		request.execute();
+
+		assertNull(((StreamingRequestMock) requestMock).streamingBody);
+		assertEquals(0, requestMock.body.size());
+	}
+
+	private static class NoOpInterceptor implements StreamingClientHttpRequestInterceptor {
+
+		private boolean invoked = false;
+
+		public ClientHttpResponse intercept(HttpRequest request, StreamingHttpOutputMessage.Body body,
+				StreamingClientHttpRequestExecution execution) throws IOException {
+			invoked = true;
+			return execution.execute(request, body);
+		}
+	}
+
+	private static class CountingBody implements StreamingHttpOutputMessage.Body {
+
+		private final byte[] bytes;
+
+		private int writeCount = 0;
+
+		private CountingBody(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		public void writeTo(OutputStream outputStream) throws IOException {
+			writeCount++;
+			StreamUtils.copy(bytes, outputStream);
+		}
+	}
+
+	private class RequestFactoryMock implements ClientHttpRequestFactory {
+
+		public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+			requestMock.setURI(uri);
+			requestMock.setMethod(httpMethod);
+			return requestMock;
+		}
+
+	}
+
+	private class RequestMock implements ClientHttpRequest {
+
+		private URI uri;
+
+		private HttpMethod method;
+
+		private HttpHeaders headers = new HttpHeaders();
+
+		protected ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		private boolean executed = false;
+
+		private RequestMock() {
+		}
+
+		public URI getURI() {
+			return uri;
+		}
+
+		public void setURI(URI uri) {
+			this.uri = uri;
+		}
+
+		public HttpMethod getMethod() {
+			return method;
+		}
+
+		public void setMethod(HttpMethod method) {
+			this.method = method;
+		}
+
+		public HttpHeaders getHeaders() {
+			return headers;
+		}
+
+		public OutputStream getBody() throws IOException {
+			return body;
+		}
+
+		public ClientHttpResponse execute() throws IOException {
+			executed = true;
+			return responseMock;
+		}
+	}
+
+	private class StreamingRequestMock extends RequestMock implements StreamingHttpOutputMessage {
+
+		private Body streamingBody;
+
+		public void setBody(Body body) {
+			this.streamingBody = body;
+		}
+
+		@Override
+		public OutputStream getBody() throws IOException {
+			throw new UnsupportedOperationException("getBody not supported");
+		}
+
+		@Override
+		public ClientHttpResponse execute() throws IOException {
+			if (this.streamingBody != null) {
+				this.streamingBody.writeTo(body);
+			}
+			return super.execute();
+		}
+	}
+
+	private static class ResponseMock implements ClientHttpResponse {
+
+		private HttpStatus statusCode = HttpStatus.OK;
+
+		private String statusText = "";
+
+		private HttpHeaders headers = new HttpHeaders();
+
+		public HttpStatus getStatusCode() throws IOException {
+			return HttpStatus.valueOf(getRawStatusCode());
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return statusCode.value();
+		}
+
+		public String getStatusText() throws IOException {
+			return statusText;
+		}
+
+		public HttpHeaders getHeaders() {
+			return headers;
+		}
+
+		public InputStream getBody() throws IOException {
+			return null;
+		}
+
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,409 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import junit.framework.TestCase;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * @author Roy Clarkson
+ */
+public class CachingClientHttpRequestFactoryTests extends TestCase {
+
+	private static final String URL = "https://example.com/catalog";
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private File directory;
+
+	private RequestFactoryMock requestFactoryMock;
+
+	private CachingClientHttpRequestFactory requestFactory;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.directory = File.createTempFile("http-cache", "");
+		this.directory.delete();
+		this.requestFactoryMock = new RequestFactoryMock();
+		this.requestFactory = new CachingClientHttpRequestFactory(this.requestFactoryMock,
+				new DiskLruHttpCacheStore(this.directory, 1024 * 1024));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		this.requestFactory.clear();
+		this.requestFactory.destroy();
+		this.directory.delete();
+		super.tearDown();
+	}
+
+	@SmallTest
+	public void testFreshResponseServedFromCache() throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setCacheControl("max-age=60");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "catalog");
+
+		assertEquals("catalog", get(URL));
+		ClientHttpResponse response = execute(URL);
+
+		assertEquals(1, requestFactoryMock.requests.size());
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals("catalog", StreamUtils.copyToString(response.getBody(), UTF8));
+		assertNotNull(response.getHeaders().getFirst(HttpHeaders.AGE));
+	}
+
+	@SmallTest
+	public void testRevalidateWithETag() throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag("\"v1\"");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "catalog");
+		HttpHeaders notModifiedHeaders = new HttpHeaders();
+		notModifiedHeaders.setCacheControl("max-age=60");
+		requestFactoryMock.enqueue(HttpStatus.NOT_MODIFIED, notModifiedHeaders, "");
+
+		assertEquals("catalog", get(URL));
+		assertEquals("catalog", get(URL));
+		assertEquals("\"v1\"", requestFactoryMock.requests.get(1).getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH));
+
+		// the 304 response made the entry fresh
+		assertEquals("catalog", get(URL));
+		assertEquals(2, requestFactoryMock.requests.size());
+	}
+
+	@SmallTest
+	public void testRevalidateWithLastModified() throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setLastModified(System.currentTimeMillis() - 60 * 1000);
+		headers.setCacheControl("no-cache");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "catalog");
+		requestFactoryMock.enqueue(HttpStatus.NOT_MODIFIED, new HttpHeaders(), "");
+
+		assertEquals("catalog", get(URL));
+		assertEquals("catalog", get(URL));
+		assertEquals(headers.getFirst(HttpHeaders.LAST_MODIFIED),
+				requestFactoryMock.requests.get(1).getHeaders().getFirst(HttpHeaders.IF_MODIFIED_SINCE));
+	}
+
+	@SmallTest
+	public void testChangedResponseReplacesEntry() throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag("\"v1\"");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "catalog");
+		HttpHeaders newHeaders = new HttpHeaders();
+		newHeaders.setCacheControl("max-age=60");
+		requestFactoryMock.enqueue(HttpStatus.OK, newHeaders, "new catalog");
+
+		assertEquals("catalog", get(URL));
+		assertEquals("new catalog", get(URL));
+		assertEquals("new catalog", get(URL));
+		assertEquals(2, requestFactoryMock.requests.size());
+	}
+
+	@SmallTest
+	public void testResponseNoStore() throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setCacheControl("no-store, max-age=60");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "catalog");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "catalog");
+
+		get(URL);
+		get(URL);
+
+		assertEquals(2, requestFactoryMock.requests.size());
+	}
+
+	@SmallTest
+	public void testRequestNoCache() throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setCacheControl("max-age=60");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "catalog");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "new catalog");
+
+		get(URL);
+		ClientHttpRequest request = requestFactory.createRequest(new URI(URL), HttpMethod.GET);
+		request.getHeaders().setCacheControl("no-cache");
+		ClientHttpResponse response = request.execute();
+
+		assertEquals("new catalog", StreamUtils.copyToString(response.getBody(), UTF8));
+		assertEquals(2, requestFactoryMock.requests.size());
+	}
+
+	@SmallTest
+	public void testStaleWhileRevalidate() throws Exception {
+		QueueingExecutor executor = new QueueingExecutor();
+		requestFactory.setRevalidationExecutor(executor);
+		HttpHeaders headers = new HttpHeaders();
+		headers.setCacheControl("max-age=0, stale-while-revalidate=60");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "catalog");
+		HttpHeaders newHeaders = new HttpHeaders();
+		newHeaders.setCacheControl("max-age=60");
+		requestFactoryMock.enqueue(HttpStatus.OK, newHeaders, "new catalog");
+
+		get(URL);
+		ClientHttpResponse response = execute(URL);
+
+		assertEquals("catalog", StreamUtils.copyToString(response.getBody(), UTF8));
+		assertTrue(response.getHeaders().getFirst(HttpHeaders.WARNING).startsWith("110"));
+		assertEquals(1, requestFactoryMock.requests.size());
+		assertEquals(1, executor.tasks.size());
+
+		executor.runAll();
+
+		assertEquals(2, requestFactoryMock.requests.size());
+		assertEquals("new catalog", get(URL));
+		assertEquals(2, requestFactoryMock.requests.size());
+	}
+
+	@SmallTest
+	public void testUnsafeMethodInvalidates() throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setCacheControl("max-age=60");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "catalog");
+		requestFactoryMock.enqueue(HttpStatus.OK, new HttpHeaders(), "");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "new catalog");
+
+		get(URL);
+		requestFactory.createRequest(new URI(URL), HttpMethod.POST).execute();
+
+		assertEquals("new catalog", get(URL));
+		assertEquals(3, requestFactoryMock.requests.size());
+	}
+
+	@SmallTest
+	public void testUnsafeMethodErrorDoesNotInvalidate() throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setCacheControl("max-age=60");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "catalog");
+		requestFactoryMock.enqueue(HttpStatus.INTERNAL_SERVER_ERROR, new HttpHeaders(), "");
+
+		get(URL);
+		ClientHttpRequest request = requestFactory.createRequest(new URI(URL), HttpMethod.POST);
+		assertEquals("catalog", get(URL));
+		request.execute();
+
+		assertEquals("catalog", get(URL));
+		assertEquals(2, requestFactoryMock.requests.size());
+	}
+
+	@SmallTest
+	public void testUnsafeMethodInvalidatesLocation() throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setCacheControl("max-age=60");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "catalog");
+		HttpHeaders locationHeaders = new HttpHeaders();
+		locationHeaders.set(HttpHeaders.LOCATION, "/catalog");
+		requestFactoryMock.enqueue(HttpStatus.CREATED, locationHeaders, "");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "new catalog");
+
+		get(URL);
+		requestFactory.createRequest(new URI("https://example.com/catalog/items"), HttpMethod.POST).execute();
+
+		assertEquals("new catalog", get(URL));
+		assertEquals(3, requestFactoryMock.requests.size());
+	}
+
+	@SmallTest
+	public void testVary() throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setCacheControl("max-age=60");
+		headers.set(HttpHeaders.VARY, "Accept-Language");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "catalog");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "katalog");
+
+		get(URL);
+		ClientHttpRequest request = requestFactory.createRequest(new URI(URL), HttpMethod.GET);
+		request.getHeaders().setAcceptLanguage("de");
+		ClientHttpResponse response = request.execute();
+
+		assertEquals("katalog", StreamUtils.copyToString(response.getBody(), UTF8));
+		assertEquals(2, requestFactoryMock.requests.size());
+	}
+
+	@SmallTest
+	public void testMaxEntrySize() throws Exception {
+		requestFactory.setMaxEntrySize(4);
+		HttpHeaders headers = new HttpHeaders();
+		headers.setCacheControl("max-age=60");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "catalog");
+		requestFactoryMock.enqueue(HttpStatus.OK, headers, "catalog");
+
+		assertEquals("catalog", get(URL));
+		assertEquals("catalog", get(URL));
+		assertEquals(2, requestFactoryMock.requests.size());
+	}
+
+	@SmallTest
+	public void testNotStoredWithoutFreshnessOrValidator() throws Exception {
+		requestFactoryMock.enqueue(HttpStatus.OK, new HttpHeaders(), "catalog");
+		requestFactoryMock.enqueue(HttpStatus.OK, new HttpHeaders(), "catalog");
+
+		get(URL);
+		get(URL);
+
+		assertEquals(2, requestFactoryMock.requests.size());
+	}
+
+
+	private ClientHttpResponse execute(String url) throws Exception {
+		return requestFactory.createRequest(new URI(url), HttpMethod.GET).execute();
+	}
+
+	private String get(String url) throws Exception {
+		ClientHttpResponse response = execute(url);
+		try {
+			return StreamUtils.copyToString(response.getBody(), UTF8);
+		}
+		finally {
+			response.close();
+		}
+	}
+
+
+	private static class QueueingExecutor implements Executor {
+
+		private final List<Runnable> tasks = new ArrayList<Runnable>();
+
+		public void execute(Runnable task) {
+			this.tasks.add(task);
+		}
+
+		public void runAll() {
+			for (Runnable task : this.tasks) {
+				task.run();
+			}
+			this.tasks.clear();
+		}
+	}
+
+	private static class RequestFactoryMock implements ClientHttpRequestFactory {
+
+		private final LinkedList<ResponseMock> responses = new LinkedList<ResponseMock>();
+
+		private final List<RequestMock> requests = new ArrayList<RequestMock>();
+
+		public void enqueue(HttpStatus status, HttpHeaders headers, String body) throws IOException {
+			this.responses.add(new ResponseMock(status, headers, body.getBytes("UTF-8")));
+		}
+
+		public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+			return new RequestMock(this, uri, httpMethod);
+		}
+	}
+
+	private static class RequestMock implements ClientHttpRequest {
+
+		private final RequestFactoryMock factory;
+
+		private final URI uri;
+
+		private final HttpMethod method;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		private RequestMock(RequestFactoryMock factory, URI uri, HttpMethod method) {
+			this.factory = factory;
+			this.uri = uri;
+			this.method = method;
+		}
+
+		public URI getURI() {
+			return this.uri;
+		}
+
+		public HttpMethod getMethod() {
+			return this.method;
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		public OutputStream getBody() throws IOException {
+			return this.body;
+		}
+
+		public ClientHttpResponse execute() throws IOException {
+			this.factory.requests.add(this);
+			assertFalse("Unexpected request", this.factory.responses.isEmpty());
+			return this.factory.responses.removeFirst();
+		}
+	}
+
+	private static class ResponseMock implements ClientHttpResponse {
+
+		private final HttpStatus status;
+
+		private final HttpHeaders headers;
+
+		private final byte[] body;
+
+		private ResponseMock(HttpStatus status, HttpHeaders headers, byte[] body) {
+			this.status = status;
+			this.headers = headers;
+			this.body = body;
+		}
+
+		public HttpStatus getStatusCode() throws IOException {
+			return this.status;
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return this.status.value();
+		}
+
+		public String getStatusText() throws IOException {
+			return this.status.getReasonPhrase();
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		public InputStream getBody() throws IOException {
+			return new ByteArrayInputStream(this.body);
+		}
+
+		public void close() {
+		}
+	}
+
+}
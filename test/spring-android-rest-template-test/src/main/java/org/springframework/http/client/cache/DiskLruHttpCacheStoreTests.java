@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * @author Roy Clarkson
+ */
+public class DiskLruHttpCacheStoreTests extends TestCase {
+
+	private File directory;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.directory = File.createTempFile("http-cache", "");
+		this.directory.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		File[] files = this.directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		this.directory.delete();
+		super.tearDown();
+	}
+
+	@SmallTest
+	public void testEntryFormat() throws Exception {
+		HttpCacheEntry entry = createEntry(100);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		entry.writeTo(out);
+		HttpCacheEntry result = HttpCacheEntry.readFrom(new ByteArrayInputStream(out.toByteArray()));
+
+		assertEquals(entry.getStatusCode(), result.getStatusCode());
+		assertEquals(entry.getStatusText(), result.getStatusText());
+		assertEquals(entry.getHeaders(), result.getHeaders());
+		assertTrue(Arrays.equals(entry.getBody(), result.getBody()));
+		assertEquals(entry.getRequestTime(), result.getRequestTime());
+		assertEquals(entry.getResponseTime(), result.getResponseTime());
+		assertEquals(entry.getVaryHeaders(), result.getVaryHeaders());
+	}
+
+	@SmallTest
+	public void testPutAndGet() throws Exception {
+		DiskLruHttpCacheStore store = new DiskLruHttpCacheStore(this.directory, 10000);
+		store.put("a", createEntry(100));
+
+		HttpCacheEntry result = store.get("a");
+		assertNotNull(result);
+		assertEquals(100, result.getBody().length);
+		assertNull(store.get("b"));
+
+		store.remove("a");
+		assertNull(store.get("a"));
+		assertEquals(0, store.getSize());
+	}
+
+	@SmallTest
+	public void testReplace() throws Exception {
+		DiskLruHttpCacheStore store = new DiskLruHttpCacheStore(this.directory, 10000);
+		store.put("a", createEntry(100));
+		long size = store.getSize();
+		store.put("a", createEntry(200));
+
+		assertEquals(200, store.get("a").getBody().length);
+		assertEquals(size + 100, store.getSize());
+	}
+
+	@SmallTest
+	public void testEvictLeastRecentlyUsed() throws Exception {
+		DiskLruHttpCacheStore store = new DiskLruHttpCacheStore(this.directory, 2500);
+		store.put("a", createEntry(1000));
+		store.put("b", createEntry(1000));
+		assertNotNull(store.get("a"));
+		store.put("c", createEntry(1000));
+
+		assertNotNull(store.get("a"));
+		assertNull(store.get("b"));
+		assertNotNull(store.get("c"));
+		assertTrue(store.getSize() <= 2500);
+	}
+
+	@SmallTest
+	public void testEntryLargerThanMaxSize() throws Exception {
+		DiskLruHttpCacheStore store = new DiskLruHttpCacheStore(this.directory, 500);
+		store.put("a", createEntry(1000));
+
+		assertNull(store.get("a"));
+		assertEquals(0, store.getSize());
+		assertEquals(0, this.directory.listFiles().length);
+	}
+
+	@SmallTest
+	public void testReopen() throws Exception {
+		DiskLruHttpCacheStore store = new DiskLruHttpCacheStore(this.directory, 10000);
+		store.put("a", createEntry(100));
+
+		DiskLruHttpCacheStore reopened = new DiskLruHttpCacheStore(this.directory, 10000);
+		assertEquals(store.getSize(), reopened.getSize());
+		assertNotNull(reopened.get("a"));
+	}
+
+	@SmallTest
+	public void testCorruptEntryRemoved() throws Exception {
+		DiskLruHttpCacheStore store = new DiskLruHttpCacheStore(this.directory, 10000);
+		store.put("a", createEntry(100));
+		File file = this.directory.listFiles()[0];
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(new byte[] { 0, 1, 'a', 0 });
+		out.close();
+
+		assertNull(store.get("a"));
+		assertFalse(file.exists());
+	}
+
+	@SmallTest
+	public void testClear() throws Exception {
+		DiskLruHttpCacheStore store = new DiskLruHttpCacheStore(this.directory, 10000);
+		store.put("a", createEntry(100));
+		store.put("b", createEntry(100));
+		store.clear();
+
+		assertNull(store.get("a"));
+		assertEquals(0, store.getSize());
+		assertEquals(0, this.directory.listFiles().length);
+	}
+
+	private HttpCacheEntry createEntry(int bodySize) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		headers.setCacheControl("max-age=60");
+		headers.add("X-Multi", "1");
+		headers.add("X-Multi", "2");
+		byte[] body = new byte[bodySize];
+		Arrays.fill(body, (byte) 'x');
+		return new HttpCacheEntry(200, "OK", headers, body, 1000L, 2000L,
+				Collections.singletonMap("Accept-Language", "en"));
+	}
+
+}
@@ -16,6 +16,9 @@
 
 package org.springframework.http.converter;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.nio.charset.Charset;
@@ -25,12 +28,16 @@ import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 
 import org.springframework.core.io.AssetResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.MockHttpInputMessage;
 import org.springframework.http.MockHttpOutputMessage;
+import org.springframework.http.StreamingHttpOutputMessage;
 import org.springframework.http.converter.support.AllEncompassingFormHttpMessageConverter;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -169,6 +176,75 @@ public class FormHttpMessageConverterTests extends AndroidTestCase {
 //		verify(outputMessage.getBody(), never()).close();
 	}
 
+	@SmallTest
+	public void testWriteMultipartContentLength() throws Exception {
+		File file = File.createTempFile("upload", ".jpg");
+		try {
+			FileOutputStream fileOutputStream = new FileOutputStream(file);
+			fileOutputStream.write(new byte[100000]);
+			fileOutputStream.close();
+
+			MultiValueMap<String, Object> parts = new LinkedMultiValueMap<String, Object>();
+			parts.add("name 1", "value 1");
+			parts.add("name 2", "v\u00e4lue 2");
+			parts.add("bytes", new byte[] {1, 2, 3});
+			parts.add("resource", new ByteArrayResource(new byte[] {4, 5}));
+			parts.add("file", new FileSystemResource(file));
+
+			MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+			converter.write(parts, MediaType.MULTIPART_FORM_DATA, outputMessage);
+
+			assertEquals(outputMessage.getBodyAsBytes().length, outputMessage.getHeaders().getContentLength());
+			assertTrue(outputMessage.getBodyAsBytes().length > 100000);
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	@SmallTest
+	public void testWriteMultipartStreamingContentLength() throws Exception {
+		MultiValueMap<String, Object> parts = new LinkedMultiValueMap<String, Object>();
+		parts.add("name 1", "value 1");
+		parts.add("resource", new ByteArrayResource(new byte[] {4, 5}) {
+			@Override
+			public String getFilename() {
+				return "bytes.bin";
+			}
+		});
+
+		StreamingMockHttpOutputMessage outputMessage = new StreamingMockHttpOutputMessage();
+		converter.write(parts, MediaType.MULTIPART_FORM_DATA, outputMessage);
+		assertEquals(0, outputMessage.getBodyAsBytes().length);
+		outputMessage.body.writeTo(outputMessage.getBody());
+
+		assertEquals(outputMessage.getBodyAsBytes().length, outputMessage.getHeaders().getContentLength());
+		assertTrue(outputMessage.getBodyAsString(Charset.forName("UTF-8")).contains("filename=\"bytes.bin\""));
+	}
+
+	@SmallTest
+	public void testWriteMultipartUnknownContentLength() throws Exception {
+		MultiValueMap<String, Object> parts = new LinkedMultiValueMap<String, Object>();
+		parts.add("name 1", "value 1");
+		parts.add("stream", new InputStreamResource(new ByteArrayInputStream("content".getBytes("UTF-8"))));
+
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+		converter.write(parts, MediaType.MULTIPART_FORM_DATA, outputMessage);
+
+		assertEquals(-1, outputMessage.getHeaders().getContentLength());
+		assertTrue(outputMessage.getBodyAsString(Charset.forName("UTF-8")).contains("\r\n\r\ncontent\r\n"));
+	}
+
+	private static class StreamingMockHttpOutputMessage extends MockHttpOutputMessage
+			implements StreamingHttpOutputMessage {
+
+		private Body body;
+
+		public void setBody(Body body) {
+			this.body = body;
+		}
+	}
+
 //	private static class MockHttpOutputMessageRequestContext implements RequestContext {
 //
 //		private final MockHttpOutputMessage outputMessage;
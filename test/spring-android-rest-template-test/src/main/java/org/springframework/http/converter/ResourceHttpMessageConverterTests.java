@@ -16,12 +16,26 @@
 
 package org.springframework.http.converter;
 
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.springframework.core.io.AssetResource;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.MediaType;
 import org.springframework.http.MockHttpInputMessage;
 import org.springframework.http.MockHttpOutputMessage;
@@ -70,6 +84,41 @@ public class ResourceHttpMessageConverterTests extends AndroidTestCase {
 		converter.read(Resource.class, inputMessage);
 	}
 
+	@SmallTest
+	public void testReadStreaming() throws IOException {
+		final AtomicBoolean closed = new AtomicBoolean();
+		ClosableHttpInputMessage inputMessage = new ClosableHttpInputMessage(new byte[] {1, 2, 3}, closed);
+		Resource resource = converter.read(InputStreamResource.class, inputMessage);
+		assertTrue(resource instanceof ResponseBodyResource);
+
+		InputStream inputStream = resource.getInputStream();
+		assertTrue(Arrays.equals(new byte[] {1, 2, 3}, FileCopyUtils.copyToByteArray(inputStream)));
+		assertTrue(closed.get());
+	}
+
+	@SmallTest
+	public void testReadStreamingDisabled() throws IOException {
+		converter = new ResourceHttpMessageConverter(false);
+		Resource resource = converter.read(InputStreamResource.class, new MockHttpInputMessage(new byte[] {1, 2, 3}));
+		assertTrue(resource instanceof ByteArrayResource);
+	}
+
+	@SmallTest
+	public void testReadResourceInMemory() throws IOException {
+		Resource resource = converter.read(Resource.class, new MockHttpInputMessage(new byte[] {1, 2, 3}));
+		assertTrue(resource instanceof ByteArrayResource);
+	}
+
+	@SmallTest
+	public void testWriteStreamingResource() throws IOException {
+		MockHttpInputMessage inputMessage = new MockHttpInputMessage(new byte[] {1, 2, 3});
+		Resource resource = converter.read(InputStreamResource.class, inputMessage);
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+		converter.write(resource, null, outputMessage);
+		assertEquals(-1, outputMessage.getHeaders().getContentLength());
+		assertTrue(Arrays.equals(new byte[] {1, 2, 3}, outputMessage.getBodyAsBytes()));
+	}
+
 	@MediumTest
 	public void testWrite() throws IOException {
 		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
@@ -79,6 +128,108 @@ public class ResourceHttpMessageConverterTests extends AndroidTestCase {
 		assertEquals("Invalid content-length", asset.contentLength(), outputMessage.getHeaders().getContentLength());
 	}
 
+	@SmallTest
+	public void testWriteFile() throws IOException {
+		File source = createFile(200000);
+		try {
+			MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+			converter.write(new FileSystemResource(source), null, outputMessage);
+			assertEquals(200000, outputMessage.getHeaders().getContentLength());
+			assertTrue(Arrays.equals(FileCopyUtils.copyToByteArray(source), outputMessage.getBodyAsBytes()));
+		}
+		finally {
+			source.delete();
+		}
+	}
+
+	@SmallTest
+	public void testWriteFileToChannel() throws IOException {
+		File source = createFile(200000);
+		File target = File.createTempFile("target", ".bin");
+		try {
+			final FileOutputStream out = new FileOutputStream(target);
+			final HttpHeaders headers = new HttpHeaders();
+			converter.write(new FileSystemResource(source), null, new HttpOutputMessage() {
+				public HttpHeaders getHeaders() {
+					return headers;
+				}
+				public OutputStream getBody() {
+					return out;
+				}
+			});
+			out.close();
+			assertTrue(Arrays.equals(FileCopyUtils.copyToByteArray(source), FileCopyUtils.copyToByteArray(target)));
+		}
+		finally {
+			source.delete();
+			target.delete();
+		}
+	}
+
+	@SmallTest
+	public void testWriteFileToStalledChannel() throws IOException {
+		File source = createFile(200000);
+		try {
+			final ChannelOutputStream out = new ChannelOutputStream(0);
+			final HttpHeaders headers = new HttpHeaders();
+			converter.write(new FileSystemResource(source), null, new HttpOutputMessage() {
+				public HttpHeaders getHeaders() {
+					return headers;
+				}
+				public OutputStream getBody() {
+					return out;
+				}
+			});
+			assertTrue(Arrays.equals(FileCopyUtils.copyToByteArray(source), out.toByteArray()));
+		}
+		finally {
+			source.delete();
+		}
+	}
+
+	@SmallTest
+	public void testWriteTruncatedFile() throws IOException {
+		final File source = createFile(200000);
+		try {
+			final ChannelOutputStream out = new ChannelOutputStream(1000) {
+				@Override
+				public int write(ByteBuffer src) throws IOException {
+					// the file shrinks while being written
+					RandomAccessFile file = new RandomAccessFile(source, "rw");
+					file.setLength(500);
+					file.close();
+					return super.write(src);
+				}
+			};
+			final HttpHeaders headers = new HttpHeaders();
+			converter.write(new FileSystemResource(source), null, new HttpOutputMessage() {
+				public HttpHeaders getHeaders() {
+					return headers;
+				}
+				public OutputStream getBody() {
+					return out;
+				}
+			});
+			fail("IOException expected");
+		}
+		catch (IOException ex) {
+			// expected
+		}
+		finally {
+			source.delete();
+		}
+	}
+
+	private static File createFile(int length) throws IOException {
+		File file = File.createTempFile("source", ".bin");
+		byte[] content = new byte[length];
+		for (int i = 0; i < length; i++) {
+			content[i] = (byte) i;
+		}
+		FileCopyUtils.copy(content, file);
+		return file;
+	}
+
 	// SPR-10848
 
 	@SmallTest
@@ -90,4 +241,44 @@ public class ResourceHttpMessageConverterTests extends AndroidTestCase {
 		assertTrue(Arrays.equals(byteArray, outputMessage.getBodyAsBytes()));
 	}
 
+
+	/**
+	 * Output stream that is also a channel, accepting at most the given number of bytes
+	 * per channel write.
+	 */
+	private static class ChannelOutputStream extends ByteArrayOutputStream implements WritableByteChannel {
+
+		private final int maxChannelWrite;
+
+		public ChannelOutputStream(int maxChannelWrite) {
+			this.maxChannelWrite = maxChannelWrite;
+		}
+
+		public int write(ByteBuffer src) throws IOException {
+			int length = Math.min(src.remaining(), this.maxChannelWrite);
+			byte[] bytes = new byte[length];
+			src.get(bytes);
+			write(bytes, 0, length);
+			return length;
+		}
+
+		public boolean isOpen() {
+			return true;
+		}
+	}
+
+	private static class ClosableHttpInputMessage extends MockHttpInputMessage implements Closeable {
+
+		private final AtomicBoolean closed;
+
+		public ClosableHttpInputMessage(byte[] contents, AtomicBoolean closed) {
+			super(contents);
+			this.closed = closed;
+		}
+
+		public void close() {
+			this.closed.set(true);
+		}
+	}
+
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.client;
+
+import static org.mockito.BDDMockito.*;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.AsyncClientHttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+/**
+ * @author Roy Clarkson
+ */
+@SuppressWarnings("unchecked")
+public class AsyncRestTemplateTests extends TestCase {
+
+	private AsyncRestTemplate template;
+
+	private ClientHttpRequestFactory requestFactory;
+
+	private ClientHttpRequest request;
+
+	private ClientHttpResponse response;
+
+	private ResponseErrorHandler errorHandler;
+
+	private HttpMessageConverter converter;
+
+	@Override
+	public void setUp() {
+		requestFactory = mock(ClientHttpRequestFactory.class);
+		request = mock(ClientHttpRequest.class);
+		response = mock(ClientHttpResponse.class);
+		errorHandler = mock(ResponseErrorHandler.class);
+		converter = mock(HttpMessageConverter.class);
+		RestTemplate restTemplate = new RestTemplate(Collections.<HttpMessageConverter<?>>singletonList(converter));
+		restTemplate.setRequestFactory(requestFactory);
+		restTemplate.setErrorHandler(errorHandler);
+		template = new AsyncRestTemplate(restTemplate);
+	}
+
+	@Override
+	public void tearDown() throws Exception {
+		template.destroy();
+	}
+
+	public void testGetForObject() throws Exception {
+		given(converter.canRead(String.class, null)).willReturn(true);
+		MediaType textPlain = new MediaType("text", "plain");
+		given(converter.getSupportedMediaTypes()).willReturn(Collections.singletonList(textPlain));
+		given(requestFactory.createRequest(new URI("https://example.com/hotels/42"), HttpMethod.GET)).willReturn(request);
+		HttpHeaders requestHeaders = new HttpHeaders();
+		given(request.getHeaders()).willReturn(requestHeaders);
+		given(request.execute()).willReturn(response);
+		given(errorHandler.hasError(response)).willReturn(false);
+		HttpHeaders responseHeaders = new HttpHeaders();
+		responseHeaders.setContentType(textPlain);
+		responseHeaders.setContentLength(10);
+		given(response.getStatusCode()).willReturn(HttpStatus.OK);
+		given(response.getStatusText()).willReturn(HttpStatus.OK.getReasonPhrase());
+		given(response.getHeaders()).willReturn(responseHeaders);
+		given(converter.canRead(String.class, textPlain)).willReturn(true);
+		String expected = "Hello World";
+		given(converter.read(String.class, response)).willReturn(expected);
+
+		ListenableFuture<String> future = template.getForObject("https://example.com/hotels/{hotel}", String.class, "42");
+
+		assertEquals("Invalid GET result", expected, future.get(5, TimeUnit.SECONDS));
+		assertEquals("Invalid Accept header", textPlain.toString(), requestHeaders.getFirst("Accept"));
+		verify(response).close();
+	}
+
+	public void testCallbackOnSuccess() throws Exception {
+		given(requestFactory.createRequest(new URI("https://example.com"), HttpMethod.HEAD)).willReturn(request);
+		given(request.execute()).willReturn(response);
+		given(errorHandler.hasError(response)).willReturn(false);
+		HttpHeaders responseHeaders = new HttpHeaders();
+		given(response.getHeaders()).willReturn(responseHeaders);
+		given(response.getStatusCode()).willReturn(HttpStatus.OK);
+		given(response.getStatusText()).willReturn(HttpStatus.OK.getReasonPhrase());
+
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicReference<HttpHeaders> result = new AtomicReference<HttpHeaders>();
+		ListenableFuture<HttpHeaders> future = template.headForHeaders("https://example.com");
+		future.addCallback(new ListenableFutureCallback<HttpHeaders>() {
+			public void onSuccess(HttpHeaders headers) {
+				result.set(headers);
+				latch.countDown();
+			}
+			public void onFailure(Throwable ex) {
+				latch.countDown();
+			}
+		});
+
+		assertTrue("Callback not invoked", latch.await(5, TimeUnit.SECONDS));
+		assertSame("Invalid headers returned", responseHeaders, result.get());
+		verify(response).close();
+	}
+
+	public void testErrorHandling() throws Exception {
+		given(requestFactory.createRequest(new URI("https://example.com"), HttpMethod.GET)).willReturn(request);
+		given(request.execute()).willReturn(response);
+		given(errorHandler.hasError(response)).willReturn(true);
+		given(response.getStatusCode()).willReturn(HttpStatus.INTERNAL_SERVER_ERROR);
+		given(response.getStatusText()).willReturn("Internal Server Error");
+		willThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR)).given(errorHandler).handleError(response);
+
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		ListenableFuture<?> future = template.execute("https://example.com", HttpMethod.GET, null, null);
+		future.addCallback(new ListenableFutureCallback<Object>() {
+			public void onSuccess(Object result) {
+				latch.countDown();
+			}
+			public void onFailure(Throwable ex) {
+				failure.set(ex);
+				latch.countDown();
+			}
+		});
+
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("ExecutionException expected");
+		}
+		catch (ExecutionException ex) {
+			assertTrue(ex.getCause() instanceof HttpServerErrorException);
+		}
+		assertTrue("Callback not invoked", latch.await(5, TimeUnit.SECONDS));
+		assertTrue(failure.get() instanceof HttpServerErrorException);
+		verify(response).close();
+	}
+
+	public void testAsyncRequestFactory() throws Exception {
+		AsyncClientHttpRequestFactory asyncRequestFactory = mock(AsyncClientHttpRequestFactory.class);
+		AsyncClientHttpRequest asyncRequest = mock(AsyncClientHttpRequest.class);
+		template.setAsyncRequestFactory(asyncRequestFactory);
+		given(asyncRequestFactory.createAsyncRequest(new URI("https://example.com"), HttpMethod.HEAD))
+				.willReturn(asyncRequest);
+		SettableListenableFuture<ClientHttpResponse> responseFuture = new SettableListenableFuture<ClientHttpResponse>();
+		given(asyncRequest.executeAsync()).willReturn(responseFuture);
+		given(errorHandler.hasError(response)).willReturn(false);
+		HttpHeaders responseHeaders = new HttpHeaders();
+		given(response.getHeaders()).willReturn(responseHeaders);
+
+		ListenableFuture<HttpHeaders> future = template.headForHeaders("https://example.com");
+		assertFalse(future.isDone());
+		responseFuture.set(response);
+
+		assertSame("Invalid headers returned", responseHeaders, future.get(5, TimeUnit.SECONDS));
+		verify(response).close();
+		verifyZeroInteractions(requestFactory);
+	}
+
+	public void testAsyncRequestFactoryRejectsInterceptors() throws Exception {
+		((RestTemplate) template.getRestOperations()).getInterceptors().add(mock(ClientHttpRequestInterceptor.class));
+		try {
+			template.setAsyncRequestFactory(mock(AsyncClientHttpRequestFactory.class));
+			fail("IllegalStateException expected");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+		assertNull(template.getAsyncRequestFactory());
+	}
+
+	public void testAsyncRequestFactoryInterceptorsAddedLater() throws Exception {
+		AsyncClientHttpRequestFactory asyncRequestFactory = mock(AsyncClientHttpRequestFactory.class);
+		template.setAsyncRequestFactory(asyncRequestFactory);
+		((RestTemplate) template.getRestOperations()).getInterceptors().add(mock(ClientHttpRequestInterceptor.class));
+		try {
+			template.headForHeaders("https://example.com");
+			fail("IllegalStateException expected");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+		verifyZeroInteractions(asyncRequestFactory);
+	}
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.web.client;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * @author Roy Clarkson
+ */
+public class RequestMetricsRecorderTests extends TestCase {
+
+	private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private RequestMetricsRecorder recorder;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.recorder = new RequestMetricsRecorder();
+	}
+
+	@SmallTest
+	public void testBuckets() {
+		long previousUpperBound = -1;
+		for (int i = 0; i < RequestMetricsRecorder.BUCKET_COUNT; i++) {
+			long upperBound = RequestMetricsRecorder.getBucketUpperBoundNanos(i);
+			assertTrue(upperBound > previousUpperBound);
+			assertEquals(i, RequestMetricsRecorder.getBucketIndex(previousUpperBound + 1));
+			assertEquals(i, RequestMetricsRecorder.getBucketIndex(upperBound));
+			if (i >= RequestMetricsRecorder.SUB_BUCKET_COUNT) {
+				// relative error of at most 1 / SUB_BUCKET_COUNT
+				assertTrue(upperBound - previousUpperBound <= (previousUpperBound + 1) / RequestMetricsRecorder.SUB_BUCKET_COUNT + 1);
+			}
+			previousUpperBound = upperBound;
+		}
+		assertEquals(0, RequestMetricsRecorder.getBucketIndex(-1));
+		assertEquals(RequestMetricsRecorder.BUCKET_COUNT - 1, RequestMetricsRecorder.getBucketIndex(Long.MAX_VALUE));
+	}
+
+	@SmallTest
+	public void testPercentiles() {
+		for (int i = 1; i <= 1000; i++) {
+			this.recorder.record(HttpMethod.GET, "/hotels/{id}", "example.com", 200, i * MILLIS, -1, 100);
+		}
+		List<RequestMetricsSnapshot> snapshots = this.recorder.getSnapshots();
+		assertEquals(1, snapshots.size());
+		RequestMetricsSnapshot snapshot = snapshots.get(0);
+		assertEquals(1000, snapshot.getCount());
+		assertPercentile(500 * MILLIS, snapshot.getPercentileNanos(0.5));
+		assertPercentile(900 * MILLIS, snapshot.getPercentileNanos(0.9));
+		assertPercentile(990 * MILLIS, snapshot.getPercentileNanos(0.99));
+		assertPercentile(999 * MILLIS, snapshot.getPercentileNanos(0.999));
+		assertEquals(500500 * MILLIS / 1000, snapshot.getMeanNanos());
+		assertEquals(100000, snapshot.getResponseBytes());
+		assertEquals(0, snapshot.getRequestBytes());
+	}
+
+	private static void assertPercentile(long expected, long actual) {
+		assertTrue("Expected " + expected + " but was " + actual, actual >= expected && actual <= expected * 1.125);
+	}
+
+	@SmallTest
+	public void testKeysAndStatusSeries() {
+		this.recorder.record(HttpMethod.GET, "/hotels/{id}", "example.com", 200, MILLIS, -1, -1);
+		this.recorder.record(HttpMethod.GET, "/hotels/{id}", "example.com", 404, MILLIS, -1, -1);
+		this.recorder.record(HttpMethod.GET, "/hotels/{id}", "example.com", 503, MILLIS, -1, -1);
+		this.recorder.record(HttpMethod.GET, "/hotels/{id}", "example.com", -1, MILLIS, -1, -1);
+		this.recorder.record(HttpMethod.POST, "/hotels/{id}", "example.com", 201, MILLIS, 10, -1);
+		this.recorder.record(HttpMethod.GET, "/hotels/{id}", "example.org", 200, MILLIS, -1, -1);
+		List<RequestMetricsSnapshot> snapshots = this.recorder.getSnapshots();
+		assertEquals(3, snapshots.size());
+		RequestMetricsSnapshot snapshot = getSnapshot(snapshots, HttpMethod.GET, "example.com");
+		assertEquals(4, snapshot.getCount());
+		assertEquals(1, snapshot.getCount(HttpStatus.Series.SUCCESSFUL));
+		assertEquals(1, snapshot.getCount(HttpStatus.Series.CLIENT_ERROR));
+		assertEquals(1, snapshot.getCount(HttpStatus.Series.SERVER_ERROR));
+		assertEquals(1, snapshot.getFailureCount());
+		snapshot = getSnapshot(snapshots, HttpMethod.POST, "example.com");
+		assertEquals(1, snapshot.getCount());
+		assertEquals(10, snapshot.getRequestBytes());
+
+		this.recorder.clear();
+		assertTrue(this.recorder.getSnapshots().isEmpty());
+	}
+
+	@SmallTest
+	public void testMaxEndpoints() {
+		this.recorder.setMaxEndpoints(2);
+		this.recorder.record(HttpMethod.GET, "/hotels/{id}", "example.com", 200, MILLIS, -1, -1);
+		this.recorder.record(HttpMethod.GET, "/bookings/{id}", "example.com", 200, MILLIS, -1, -1);
+		for (int i = 0; i < 10; i++) {
+			this.recorder.record(HttpMethod.GET, "/hotels/" + i, "example.org", 200, MILLIS, -1, -1);
+		}
+		this.recorder.record(HttpMethod.GET, "/hotels/{id}", "example.com", 200, MILLIS, -1, -1);
+		List<RequestMetricsSnapshot> snapshots = this.recorder.getSnapshots();
+		assertEquals(3, snapshots.size());
+		for (RequestMetricsSnapshot snapshot : snapshots) {
+			if (snapshot.getUriTemplate().equals("/hotels/{id}")) {
+				assertEquals(2, snapshot.getCount());
+			}
+			else if (snapshot.getUriTemplate().equals(RequestMetricsRecorder.OTHER_URI_TEMPLATE)) {
+				assertEquals(10, snapshot.getCount());
+				assertNull(snapshot.getHost());
+			}
+			else {
+				assertEquals("/bookings/{id}", snapshot.getUriTemplate());
+			}
+		}
+	}
+
+	@SmallTest
+	public void testConcurrentRecording() throws Exception {
+		final int threads = 8;
+		final int requests = 1000;
+		final CountDownLatch latch = new CountDownLatch(threads);
+		for (int i = 0; i < threads; i++) {
+			new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < requests; j++) {
+						recorder.record(HttpMethod.GET, "/hotels", "example.com", 200, j * 1000, 1, 1);
+					}
+					latch.countDown();
+				}
+			}.start();
+		}
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		RequestMetricsSnapshot snapshot = this.recorder.getSnapshots().get(0);
+		assertEquals(threads * requests, snapshot.getCount());
+		assertEquals(threads * requests, snapshot.getCount(HttpStatus.Series.SUCCESSFUL));
+		assertEquals(threads * requests, snapshot.getRequestBytes());
+	}
+
+	@SmallTest
+	public void testPercentileBounds() {
+		this.recorder.record(HttpMethod.GET, "/", "example.com", 200, MILLIS, -1, -1);
+		assertTrue(this.recorder.getSnapshots().get(0).getPercentileNanos(0) > 0);
+		try {
+			this.recorder.getSnapshots().get(0).getPercentileNanos(1.5);
+			fail("IllegalArgumentException expected");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+	private static RequestMetricsSnapshot getSnapshot(List<RequestMetricsSnapshot> snapshots, HttpMethod method,
+			String host) {
+
+		for (RequestMetricsSnapshot snapshot : snapshots) {
+			if (snapshot.getMethod() == method && snapshot.getHost().equals(host)) {
+				return snapshot;
+			}
+		}
+		throw new AssertionError("No snapshot for " + method + " " + host);
+	}
+
+}
@@ -0,0 +1,459 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.web.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.WritableResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+import android.test.suitebuilder.annotation.MediumTest;
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * @author Roy Clarkson
+ */
+public class ResourceDownloaderTests extends TestCase {
+
+	private static final String URL = "https://example.com/bundle.zip";
+
+	private RequestFactoryMock requestFactory;
+
+	private ResourceDownloader downloader;
+
+	private File directory;
+
+	private File file;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.requestFactory = new RequestFactoryMock(createContent(100000));
+		RestTemplate template = new RestTemplate();
+		template.setRequestFactory(this.requestFactory);
+		this.downloader = new ResourceDownloader(template);
+		this.directory = File.createTempFile("downloads", "");
+		this.directory.delete();
+		this.directory.mkdirs();
+		this.file = new File(this.directory, "bundle.zip");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		File[] files = this.directory.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				child.delete();
+			}
+		}
+		this.directory.delete();
+		super.tearDown();
+	}
+
+	@SmallTest
+	public void testDownloadToFile() throws Exception {
+		assertEquals(100000, downloader.download(URL, new FileSystemResource(file)));
+
+		assertContent();
+		assertEquals(1, requestFactory.requests.size());
+		RequestMock request = requestFactory.requests.get(0);
+		assertEquals("identity", request.getHeaders().getFirst("Accept-Encoding"));
+		assertFalse(request.getHeaders().containsKey("Range"));
+	}
+
+	@SmallTest
+	public void testResumeAfterIOException() throws Exception {
+		requestFactory.failures = 2;
+		requestFactory.failAfter = 30000;
+		downloader.download(URL, new FileSystemResource(file));
+
+		assertContent();
+		assertEquals(3, requestFactory.requests.size());
+		assertEquals("bytes=30000-", requestFactory.requests.get(1).getHeaders().getFirst("Range"));
+		assertEquals("\"v1\"", requestFactory.requests.get(1).getHeaders().getFirst("If-Range"));
+		assertEquals("bytes=60000-", requestFactory.requests.get(2).getHeaders().getFirst("Range"));
+	}
+
+	@SmallTest
+	public void testResumeAttemptsExhausted() throws Exception {
+		requestFactory.failures = 10;
+		requestFactory.failAfter = 0;
+		downloader.setMaxResumeAttempts(2);
+		try {
+			downloader.download(URL, new FileSystemResource(file));
+			fail("ResourceAccessException expected");
+		}
+		catch (ResourceAccessException ex) {
+			// expected
+		}
+		assertEquals(3, requestFactory.requests.size());
+		assertFalse(file.exists());
+	}
+
+	@SmallTest
+	public void testResumePartialFile() throws Exception {
+		writePartialFile(40000, "\"v1\"");
+		downloader.download(URL, new FileSystemResource(file));
+
+		assertContent();
+		assertEquals(1, requestFactory.requests.size());
+		assertEquals("bytes=40000-", requestFactory.requests.get(0).getHeaders().getFirst("Range"));
+		assertEquals("\"v1\"", requestFactory.requests.get(0).getHeaders().getFirst("If-Range"));
+	}
+
+	@SmallTest
+	public void testResumeCompletePartialFile() throws Exception {
+		writePartialFile(100000, "\"v1\"");
+		downloader.download(URL, new FileSystemResource(file));
+
+		assertContent();
+		assertEquals(1, requestFactory.requests.size());
+	}
+
+	@SmallTest
+	public void testResumeChangedResource() throws Exception {
+		writePartialFile(40000, "\"v0\"");
+		downloader.download(URL, new FileSystemResource(file));
+
+		assertContent();
+		assertEquals(1, requestFactory.requests.size());
+		assertEquals("\"v0\"", requestFactory.requests.get(0).getHeaders().getFirst("If-Range"));
+	}
+
+	@SmallTest
+	public void testPartialFileWithoutValidator() throws Exception {
+		writePartialFile(40000, null);
+		downloader.download(URL, new FileSystemResource(file));
+
+		assertContent();
+		assertFalse(requestFactory.requests.get(0).getHeaders().containsKey("Range"));
+	}
+
+	@MediumTest
+	public void testParallelDownload() throws Exception {
+		downloader.setParallelism(4);
+		downloader.setMinimumPartSize(10000);
+		downloader.download(URL, new FileSystemResource(file));
+
+		assertContent();
+		assertEquals(5, requestFactory.requests.size());
+		assertEquals(HttpMethod.HEAD, requestFactory.requests.get(0).getMethod());
+		List<String> ranges = new ArrayList<String>();
+		for (RequestMock request : requestFactory.requests.subList(1, 5)) {
+			assertEquals("\"v1\"", request.getHeaders().getFirst("If-Range"));
+			ranges.add(request.getHeaders().getFirst("Range"));
+		}
+		assertTrue(ranges.containsAll(Arrays.asList("bytes=0-24999", "bytes=25000-49999", "bytes=50000-74999",
+				"bytes=75000-99999")));
+	}
+
+	@MediumTest
+	public void testParallelDownloadResumesParts() throws Exception {
+		requestFactory.failures = 2;
+		requestFactory.failAfter = 5000;
+		downloader.setParallelism(4);
+		downloader.setMinimumPartSize(10000);
+		downloader.download(URL, new FileSystemResource(file));
+
+		assertContent();
+		assertEquals(7, requestFactory.requests.size());
+	}
+
+	@MediumTest
+	public void testParallelDownloadFailure() throws Exception {
+		requestFactory.failures = 100;
+		requestFactory.failAfter = 5000;
+		downloader.setParallelism(4);
+		downloader.setMinimumPartSize(10000);
+		downloader.setMaxResumeAttempts(0);
+		try {
+			downloader.download(URL, new FileSystemResource(file));
+			fail("ResourceAccessException expected");
+		}
+		catch (ResourceAccessException ex) {
+			// expected
+		}
+		assertFalse(file.exists());
+		assertEquals(0, new File(file.getPath() + ResourceDownloader.PARTIAL_FILE_SUFFIX).length());
+	}
+
+	@SmallTest
+	public void testParallelDownloadWithoutRangeSupport() throws Exception {
+		requestFactory.acceptRanges = false;
+		downloader.setParallelism(4);
+		downloader.setMinimumPartSize(10000);
+		downloader.download(URL, new FileSystemResource(file));
+
+		assertContent();
+		assertEquals(2, requestFactory.requests.size());
+		assertFalse(requestFactory.requests.get(1).getHeaders().containsKey("Range"));
+	}
+
+	@SmallTest
+	public void testParallelDownloadOfSmallResource() throws Exception {
+		downloader.setParallelism(4);
+		downloader.setMinimumPartSize(60000);
+		downloader.download(URL, new FileSystemResource(file));
+
+		assertContent();
+		assertEquals(2, requestFactory.requests.size());
+	}
+
+	@SmallTest
+	public void testDownloadToStream() throws Exception {
+		requestFactory.failures = 1;
+		requestFactory.failAfter = 30000;
+		StreamResource resource = new StreamResource();
+		downloader.download(new URI(URL), resource);
+
+		assertTrue(Arrays.equals(requestFactory.content, resource.outputStream.toByteArray()));
+		assertEquals("bytes=30000-", requestFactory.requests.get(1).getHeaders().getFirst("Range"));
+	}
+
+	@SmallTest
+	public void testDownloadToStreamWithoutRangeSupport() throws Exception {
+		requestFactory.acceptRanges = false;
+		requestFactory.failures = 1;
+		requestFactory.failAfter = 30000;
+		try {
+			downloader.download(new URI(URL), new StreamResource());
+			fail("RestClientException expected");
+		}
+		catch (RestClientException ex) {
+			// expected
+		}
+		assertEquals(2, requestFactory.requests.size());
+	}
+
+	private void assertContent() throws IOException {
+		assertTrue(file.exists());
+		assertFalse(new File(file.getPath() + ResourceDownloader.PARTIAL_FILE_SUFFIX).exists());
+		assertFalse(new File(file.getPath() + ResourceDownloader.VALIDATOR_FILE_SUFFIX).exists());
+		InputStream inputStream = new FileSystemResource(file).getInputStream();
+		try {
+			assertTrue(Arrays.equals(requestFactory.content, StreamUtils.copyToByteArray(inputStream)));
+		}
+		finally {
+			inputStream.close();
+		}
+	}
+
+	private void writePartialFile(int length, String validator) throws IOException {
+		OutputStream outputStream = new FileOutputStream(file.getPath() + ResourceDownloader.PARTIAL_FILE_SUFFIX);
+		outputStream.write(requestFactory.content, 0, length);
+		outputStream.close();
+		if (validator != null) {
+			outputStream = new FileOutputStream(file.getPath() + ResourceDownloader.VALIDATOR_FILE_SUFFIX);
+			outputStream.write(validator.getBytes("UTF-8"));
+			outputStream.close();
+		}
+	}
+
+	private static byte[] createContent(int length) {
+		byte[] content = new byte[length];
+		for (int i = 0; i < length; i++) {
+			content[i] = (byte) (i * 31 + i / 256);
+		}
+		return content;
+	}
+
+
+	private static class StreamResource extends AbstractResource implements WritableResource {
+
+		private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		public boolean isWritable() {
+			return true;
+		}
+
+		public OutputStream getOutputStream() throws IOException {
+			return this.outputStream;
+		}
+
+		public String getDescription() {
+			return "stream resource";
+		}
+
+		public InputStream getInputStream() throws IOException {
+			return new ByteArrayInputStream(this.outputStream.toByteArray());
+		}
+	}
+
+	private static class RequestFactoryMock implements ClientHttpRequestFactory {
+
+		private final byte[] content;
+
+		private final List<RequestMock> requests = new ArrayList<RequestMock>();
+
+		private boolean acceptRanges = true;
+
+		private int failures;
+
+		private int failAfter;
+
+		private RequestFactoryMock(byte[] content) {
+			this.content = content;
+		}
+
+		public synchronized ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+			RequestMock request = new RequestMock(this, httpMethod);
+			this.requests.add(request);
+			return request;
+		}
+
+		private synchronized boolean shouldFail() {
+			return (this.failures-- > 0);
+		}
+	}
+
+	private static class RequestMock implements ClientHttpRequest {
+
+		private final RequestFactoryMock factory;
+
+		private final HttpMethod method;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private RequestMock(RequestFactoryMock factory, HttpMethod method) {
+			this.factory = factory;
+			this.method = method;
+		}
+
+		public URI getURI() {
+			return URI.create(URL);
+		}
+
+		public HttpMethod getMethod() {
+			return this.method;
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		public OutputStream getBody() throws IOException {
+			return new ByteArrayOutputStream();
+		}
+
+		public ClientHttpResponse execute() throws IOException {
+			byte[] content = this.factory.content;
+			ResponseMock response = new ResponseMock();
+			response.headers.setETag("\"v1\"");
+			if (this.factory.acceptRanges) {
+				response.headers.set("Accept-Ranges", "bytes");
+			}
+			int start = 0;
+			int end = content.length - 1;
+			List<HttpRange> ranges = this.headers.getRange();
+			String ifRange = this.headers.getFirst("If-Range");
+			if (this.factory.acceptRanges && !ranges.isEmpty() && (ifRange == null || ifRange.equals("\"v1\""))) {
+				start = (int) ranges.get(0).getRangeStart(content.length);
+				end = (int) ranges.get(0).getRangeEnd(content.length);
+				if (start >= content.length) {
+					response.status = HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE;
+					response.headers.set("Content-Range", "bytes */" + content.length);
+					return response;
+				}
+				response.status = HttpStatus.PARTIAL_CONTENT;
+				response.headers.set("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+			}
+			response.headers.setContentLength(end - start + 1);
+			if (this.method == HttpMethod.GET) {
+				response.body = Arrays.copyOfRange(content, start, end + 1);
+				response.fail = this.factory.shouldFail();
+				response.failAfter = this.factory.failAfter;
+			}
+			return response;
+		}
+	}
+
+	private static class ResponseMock implements ClientHttpResponse {
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private HttpStatus status = HttpStatus.OK;
+
+		private byte[] body = new byte[0];
+
+		private boolean fail;
+
+		private int failAfter;
+
+		public HttpStatus getStatusCode() throws IOException {
+			return this.status;
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return this.status.value();
+		}
+
+		public String getStatusText() throws IOException {
+			return this.status.getReasonPhrase();
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		public InputStream getBody() throws IOException {
+			if (!this.fail) {
+				return new ByteArrayInputStream(this.body);
+			}
+			final InputStream delegate = new ByteArrayInputStream(this.body, 0, Math.min(this.failAfter, this.body.length));
+			return new InputStream() {
+				@Override
+				public int read() throws IOException {
+					throw new UnsupportedOperationException();
+				}
+				@Override
+				public int read(byte[] buffer, int offset, int length) throws IOException {
+					int read = delegate.read(buffer, offset, length);
+					if (read == -1) {
+						throw new IOException("Connection reset");
+					}
+					return read;
+				}
+			};
+		}
+
+		public void close() {
+		}
+	}
+
+}
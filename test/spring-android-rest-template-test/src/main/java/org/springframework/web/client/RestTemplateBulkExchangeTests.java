@@ -0,0 +1,301 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.web.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.support.HostKeyUtils;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+
+import android.test.suitebuilder.annotation.MediumTest;
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * @author Roy Clarkson
+ */
+public class RestTemplateBulkExchangeTests extends TestCase {
+
+	private RequestFactoryMock requestFactory;
+
+	private RestTemplate template;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.requestFactory = new RequestFactoryMock();
+		this.template = new RestTemplate(
+				Collections.<HttpMessageConverter<?>>singletonList(new StringHttpMessageConverter()));
+		this.template.setRequestFactory(this.requestFactory);
+	}
+
+	@SmallTest
+	public void testExchange() throws Exception {
+		RequestEntity<Void> request = RequestEntity.get(new URI("https://example.com/hotels/42"))
+				.accept(MediaType.TEXT_PLAIN).build();
+
+		assertEquals("hotels/42", template.exchange(request, String.class).getBody());
+	}
+
+	@MediumTest
+	public void testResultsInRequestOrder() throws Exception {
+		List<RequestEntity<Void>> requests = new ArrayList<RequestEntity<Void>>();
+		for (int i = 0; i < 20; i++) {
+			requests.add(RequestEntity.get(new URI("https://example" + (i % 3) + ".com/" + i)).build());
+		}
+
+		List<BulkExchangeResult<String>> results = template.exchangeAll(requests, String.class);
+
+		assertEquals(20, results.size());
+		for (int i = 0; i < 20; i++) {
+			BulkExchangeResult<String> result = results.get(i);
+			assertEquals(i, result.getIndex());
+			assertSame(requests.get(i), result.getRequest());
+			assertTrue(result.isSuccess());
+			assertEquals(HttpStatus.OK, result.getResponse().getStatusCode());
+			assertEquals(String.valueOf(i), result.getResponse().getBody());
+		}
+	}
+
+	@MediumTest
+	public void testPartialFailure() throws Exception {
+		List<RequestEntity<Void>> requests = new ArrayList<RequestEntity<Void>>();
+		requests.add(RequestEntity.get(new URI("https://example.com/a")).build());
+		requests.add(RequestEntity.get(new URI("https://example.com/fail")).build());
+		requests.add(RequestEntity.get(new URI("https://example.com/missing")).build());
+		requests.add(RequestEntity.get(new URI("https://example.com/b")).build());
+
+		List<BulkExchangeResult<String>> results = template.exchangeAll(requests, String.class);
+
+		assertTrue(results.get(0).isSuccess());
+		assertEquals("a", results.get(0).getResponse().getBody());
+		assertFalse(results.get(1).isSuccess());
+		assertNull(results.get(1).getResponse());
+		assertTrue(results.get(1).getException() instanceof ResourceAccessException);
+		assertFalse(results.get(2).isSuccess());
+		assertTrue(results.get(2).getException() instanceof HttpClientErrorException);
+		assertTrue(results.get(3).isSuccess());
+		assertEquals("b", results.get(3).getResponse().getBody());
+	}
+
+	@MediumTest
+	public void testCallback() throws Exception {
+		List<RequestEntity<Void>> requests = new ArrayList<RequestEntity<Void>>();
+		for (int i = 0; i < 10; i++) {
+			requests.add(RequestEntity.get(new URI("https://example.com/" + i)).build());
+		}
+		final Thread caller = Thread.currentThread();
+		final List<BulkExchangeResult<String>> results = new ArrayList<BulkExchangeResult<String>>();
+
+		template.exchangeAll(requests, String.class, new BulkExchangeCallback<String>() {
+			public void onResult(BulkExchangeResult<String> result) {
+				assertSame(caller, Thread.currentThread());
+				results.add(result);
+			}
+		});
+
+		assertEquals(10, results.size());
+		boolean[] seen = new boolean[10];
+		for (BulkExchangeResult<String> result : results) {
+			assertFalse(seen[result.getIndex()]);
+			seen[result.getIndex()] = true;
+			assertEquals(String.valueOf(result.getIndex()), result.getResponse().getBody());
+		}
+	}
+
+	@MediumTest
+	public void testConcurrencyLimits() throws Exception {
+		template.setBulkConcurrencyLimit(5);
+		template.setBulkConcurrencyLimitPerHost(2);
+		List<RequestEntity<Void>> requests = new ArrayList<RequestEntity<Void>>();
+		for (int i = 0; i < 30; i++) {
+			requests.add(RequestEntity.get(new URI("https://example" + (i % 4) + ".com/" + i)).build());
+		}
+
+		List<BulkExchangeResult<String>> results = template.exchangeAll(requests, String.class);
+
+		for (BulkExchangeResult<String> result : results) {
+			assertTrue(result.isSuccess());
+		}
+		assertTrue(requestFactory.maxInFlight > 1);
+		assertTrue(requestFactory.maxInFlight <= 5);
+		for (int i = 0; i < 4; i++) {
+			assertTrue(requestFactory.maxInFlightPerHost.get("example" + i + ".com") <= 2);
+		}
+	}
+
+	@SmallTest
+	public void testEmpty() throws Exception {
+		List<RequestEntity<Void>> requests = Collections.emptyList();
+
+		assertTrue(template.exchangeAll(requests, String.class).isEmpty());
+	}
+
+	@SmallTest
+	public void testHostKey() throws Exception {
+		assertEquals("https://example.com", HostKeyUtils.getHostKey(new URI("HTTPS://Example.com/a")));
+		assertEquals("https://example.com:8443", HostKeyUtils.getHostKey(new URI("https://example.com:8443/")));
+		assertEquals("", HostKeyUtils.getHostKey(new URI("/relative")));
+	}
+
+
+	private static class RequestFactoryMock implements ClientHttpRequestFactory {
+
+		private final Map<String, Integer> inFlightPerHost = new HashMap<String, Integer>();
+
+		private final Map<String, Integer> maxInFlightPerHost = new HashMap<String, Integer>();
+
+		private int inFlight;
+
+		private int maxInFlight;
+
+		public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+			return new RequestMock(this, uri, httpMethod);
+		}
+
+		private synchronized void started(String host) {
+			this.inFlight++;
+			this.maxInFlight = Math.max(this.maxInFlight, this.inFlight);
+			Integer count = this.inFlightPerHost.get(host);
+			count = (count != null ? count + 1 : 1);
+			this.inFlightPerHost.put(host, count);
+			Integer max = this.maxInFlightPerHost.get(host);
+			this.maxInFlightPerHost.put(host, (max != null ? Math.max(max, count) : count));
+		}
+
+		private synchronized void finished(String host) {
+			this.inFlight--;
+			this.inFlightPerHost.put(host, this.inFlightPerHost.get(host) - 1);
+		}
+	}
+
+	private static class RequestMock implements ClientHttpRequest {
+
+		private final RequestFactoryMock factory;
+
+		private final URI uri;
+
+		private final HttpMethod method;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		private RequestMock(RequestFactoryMock factory, URI uri, HttpMethod method) {
+			this.factory = factory;
+			this.uri = uri;
+			this.method = method;
+		}
+
+		public URI getURI() {
+			return this.uri;
+		}
+
+		public HttpMethod getMethod() {
+			return this.method;
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		public OutputStream getBody() throws IOException {
+			return this.body;
+		}
+
+		public ClientHttpResponse execute() throws IOException {
+			String host = this.uri.getHost();
+			this.factory.started(host);
+			try {
+				Thread.sleep(20);
+			}
+			catch (InterruptedException ex) {
+				throw new IOException("Interrupted");
+			}
+			finally {
+				this.factory.finished(host);
+			}
+			String path = this.uri.getPath().substring(1);
+			if ("fail".equals(path)) {
+				throw new IOException("Connection reset");
+			}
+			HttpStatus status = ("missing".equals(path) ? HttpStatus.NOT_FOUND : HttpStatus.OK);
+			return new ResponseMock(status, path);
+		}
+	}
+
+	private static class ResponseMock implements ClientHttpResponse {
+
+		private final HttpStatus status;
+
+		private final byte[] body;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private ResponseMock(HttpStatus status, String body) throws IOException {
+			this.status = status;
+			this.body = body.getBytes("UTF-8");
+			this.headers.setContentType(MediaType.TEXT_PLAIN);
+			this.headers.setContentLength(this.body.length);
+		}
+
+		public HttpStatus getStatusCode() throws IOException {
+			return this.status;
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return this.status.value();
+		}
+
+		public String getStatusText() throws IOException {
+			return this.status.getReasonPhrase();
+		}
+
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		public InputStream getBody() throws IOException {
+			return new ByteArrayInputStream(this.body);
+		}
+
+		public void close() {
+		}
+	}
+
+}
@@ -0,0 +1,453 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.web.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.mortbay.jetty.Server;
+import org.mortbay.jetty.servlet.Context;
+import org.mortbay.jetty.servlet.ServletHolder;
+import org.springframework.http.ContentCodingType;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+import android.os.Debug;
+
+/**
+ * Drives a {@link RestTemplate} against an embedded Jetty server in order to compare the
+ * throughput, latency and allocation rate of {@link ClientHttpRequestFactory}
+ * implementations on the same workload.
+ *
+ * <p>Each run issues a number of exchanges from a pool of worker threads, optionally
+ * posting a request body, and reads a response body of the configured size. The server
+ * closes every connection when keep-alive is disabled, and compresses the response only
+ * when gzip is enabled, even if a transport asks for compression on its own.
+ *
+ * <p>Allocations are taken from the {@code art.gc.bytes-allocated} runtime statistic,
+ * which covers the whole process, the embedded server included. The statistic is only
+ * available on ART as of Android 6.0 (API 23); on earlier platforms the allocation rate
+ * is reported as unavailable.
+ *
+ * @author Roy Clarkson
+ */
+public class RestTemplateLoadTestHarness {
+
+	// available on ART as of Android 6.0 (API 23)
+	private static final Method getRuntimeStat = ReflectionUtils.findMethod(Debug.class, "getRuntimeStat", String.class);
+
+	private static final byte[] PAYLOAD_ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789 ,.{}:\"\n"
+			.getBytes();
+
+	private Server server;
+
+	private String baseUrl;
+
+	private int concurrency = 4;
+
+	private int requestCount = 200;
+
+	private int warmUpRequestCount = 20;
+
+	private int requestPayloadSize = 0;
+
+	private int responsePayloadSize = 1024;
+
+	private boolean keepAlive = true;
+
+	private boolean gzip = false;
+
+
+	/**
+	 * Set the number of worker threads issuing exchanges concurrently. Default is 4.
+	 */
+	public void setConcurrency(int concurrency) {
+		Assert.isTrue(concurrency > 0, "'concurrency' must be larger than 0");
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Set the number of measured exchanges per run. Default is 200.
+	 */
+	public void setRequestCount(int requestCount) {
+		Assert.isTrue(requestCount > 0, "'requestCount' must be larger than 0");
+		this.requestCount = requestCount;
+	}
+
+	/**
+	 * Set the number of exchanges issued before measuring, to populate connection pools
+	 * and let the JIT settle. Default is 20.
+	 */
+	public void setWarmUpRequestCount(int warmUpRequestCount) {
+		Assert.isTrue(warmUpRequestCount >= 0, "'warmUpRequestCount' must not be negative");
+		this.warmUpRequestCount = warmUpRequestCount;
+	}
+
+	/**
+	 * Set the size of the request body in bytes. When larger than 0, exchanges are sent
+	 * as {@code POST} requests, otherwise as {@code GET} requests. Default is 0.
+	 */
+	public void setRequestPayloadSize(int requestPayloadSize) {
+		Assert.isTrue(requestPayloadSize >= 0, "'requestPayloadSize' must not be negative");
+		this.requestPayloadSize = requestPayloadSize;
+	}
+
+	/**
+	 * Set the size of the (uncompressed) response body in bytes. Default is 1024.
+	 */
+	public void setResponsePayloadSize(int responsePayloadSize) {
+		Assert.isTrue(responsePayloadSize >= 0, "'responsePayloadSize' must not be negative");
+		this.responsePayloadSize = responsePayloadSize;
+	}
+
+	/**
+	 * Set whether the server keeps connections alive between exchanges. Default is
+	 * {@code true}.
+	 */
+	public void setKeepAlive(boolean keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	/**
+	 * Set whether responses are gzip compressed. Default is {@code false}.
+	 */
+	public void setGzip(boolean gzip) {
+		this.gzip = gzip;
+	}
+
+	/**
+	 * Start the embedded server on a free local port.
+	 */
+	public void start() throws Exception {
+		if (this.server == null) {
+			this.server = new Server(0);
+			Context context = new Context(this.server, "/");
+			context.addServlet(new ServletHolder(new PayloadServlet()), "/payload");
+			this.server.start();
+			this.baseUrl = "http://localhost:" + this.server.getConnectors()[0].getLocalPort();
+		}
+	}
+
+	/**
+	 * Stop the embedded server.
+	 */
+	public void stop() throws Exception {
+		if (this.server != null) {
+			this.server.stop();
+			this.server = null;
+		}
+	}
+
+	/**
+	 * Run the configured workload through a {@link RestTemplate} backed by the given
+	 * request factory.
+	 * @param name the name to report the result under
+	 * @param requestFactory the request factory to measure
+	 * @return the result of the run
+	 */
+	public Result run(String name, ClientHttpRequestFactory requestFactory) throws Exception {
+		Assert.state(this.server != null, "Server has not been started");
+		RestTemplate restTemplate = new RestTemplate(requestFactory);
+		String url = this.baseUrl + "/payload?size=" + this.responsePayloadSize + "&keepAlive=" + this.keepAlive +
+				"&gzip=" + this.gzip;
+		HttpMethod method = (this.requestPayloadSize > 0 ? HttpMethod.POST : HttpMethod.GET);
+		HttpHeaders headers = new HttpHeaders();
+		if (this.gzip) {
+			headers.setAcceptEncoding(ContentCodingType.GZIP);
+		}
+		byte[] requestBody = null;
+		if (this.requestPayloadSize > 0) {
+			headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+			requestBody = createPayload(this.requestPayloadSize);
+		}
+		HttpEntity<byte[]> requestEntity = new HttpEntity<byte[]>(requestBody, headers);
+
+		if (this.warmUpRequestCount > 0) {
+			execute(restTemplate, url, method, requestEntity, this.warmUpRequestCount);
+		}
+		long allocatedBefore = getAllocatedBytes();
+		long start = System.nanoTime();
+		List<Worker> workers = execute(restTemplate, url, method, requestEntity, this.requestCount);
+		long elapsed = System.nanoTime() - start;
+		long allocatedAfter = getAllocatedBytes();
+		long allocated = (allocatedBefore >= 0 && allocatedAfter >= 0 ? allocatedAfter - allocatedBefore : -1);
+		return new Result(name, workers, elapsed, allocated);
+	}
+
+	private List<Worker> execute(RestTemplate restTemplate, String url, HttpMethod method,
+			HttpEntity<byte[]> requestEntity, int count) throws InterruptedException {
+
+		int threads = Math.min(this.concurrency, count);
+		CountDownLatch startSignal = new CountDownLatch(1);
+		CountDownLatch doneSignal = new CountDownLatch(threads);
+		List<Worker> workers = new ArrayList<Worker>(threads);
+		for (int i = 0; i < threads; i++) {
+			int share = count / threads + (i < count % threads ? 1 : 0);
+			Worker worker = new Worker(restTemplate, url, method, requestEntity, share, startSignal, doneSignal);
+			workers.add(worker);
+			new Thread(worker, "load-test-" + i).start();
+		}
+		startSignal.countDown();
+		doneSignal.await();
+		return workers;
+	}
+
+	/**
+	 * Return the number of bytes allocated by the process so far, or -1 if the runtime
+	 * does not report it.
+	 */
+	private static long getAllocatedBytes() {
+		if (getRuntimeStat == null) {
+			return -1;
+		}
+		String value = (String) ReflectionUtils.invokeMethod(getRuntimeStat, null, "art.gc.bytes-allocated");
+		try {
+			return (value != null ? Long.parseLong(value) : -1);
+		}
+		catch (NumberFormatException ex) {
+			return -1;
+		}
+	}
+
+	private static byte[] createPayload(int size) {
+		byte[] payload = new byte[size];
+		long seed = 31;
+		for (int i = 0; i < size; i++) {
+			seed = seed * 6364136223846793005L + 1442695040888963407L;
+			payload[i] = PAYLOAD_ALPHABET[(int) ((seed >>> 33) % PAYLOAD_ALPHABET.length)];
+		}
+		return payload;
+	}
+
+
+	private class Worker implements Runnable {
+
+		private final RestTemplate restTemplate;
+
+		private final String url;
+
+		private final HttpMethod method;
+
+		private final HttpEntity<byte[]> requestEntity;
+
+		private final CountDownLatch startSignal;
+
+		private final CountDownLatch doneSignal;
+
+		private final long[] latencies;
+
+		private int errorCount;
+
+		private Worker(RestTemplate restTemplate, String url, HttpMethod method, HttpEntity<byte[]> requestEntity,
+				int count, CountDownLatch startSignal, CountDownLatch doneSignal) {
+
+			this.restTemplate = restTemplate;
+			this.url = url;
+			this.method = method;
+			this.requestEntity = requestEntity;
+			this.startSignal = startSignal;
+			this.doneSignal = doneSignal;
+			this.latencies = new long[count];
+		}
+
+		public void run() {
+			try {
+				this.startSignal.await();
+				for (int i = 0; i < this.latencies.length; i++) {
+					long start = System.nanoTime();
+					try {
+						ResponseEntity<byte[]> response = this.restTemplate.exchange(this.url, this.method,
+								this.requestEntity, byte[].class);
+						byte[] body = response.getBody();
+						if ((body != null ? body.length : 0) != responsePayloadSize) {
+							this.errorCount++;
+						}
+					}
+					catch (RestClientException ex) {
+						this.errorCount++;
+					}
+					this.latencies[i] = System.nanoTime() - start;
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			finally {
+				this.doneSignal.countDown();
+			}
+		}
+	}
+
+
+	/**
+	 * The outcome of a single run.
+	 */
+	public static class Result {
+
+		private final String name;
+
+		private final long[] latencies;
+
+		private final int errorCount;
+
+		private final long allocatedBytes;
+
+		private final long elapsedNanos;
+
+		private Result(String name, List<Worker> workers, long elapsedNanos, long allocatedBytes) {
+			int count = 0;
+			int errorCount = 0;
+			for (Worker worker : workers) {
+				count += worker.latencies.length;
+				errorCount += worker.errorCount;
+			}
+			long[] latencies = new long[count];
+			int offset = 0;
+			for (Worker worker : workers) {
+				System.arraycopy(worker.latencies, 0, latencies, offset, worker.latencies.length);
+				offset += worker.latencies.length;
+			}
+			Arrays.sort(latencies);
+			this.name = name;
+			this.latencies = latencies;
+			this.errorCount = errorCount;
+			this.allocatedBytes = allocatedBytes;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public int getRequestCount() {
+			return this.latencies.length;
+		}
+
+		public int getErrorCount() {
+			return this.errorCount;
+		}
+
+		/**
+		 * Return the number of exchanges completed per second.
+		 */
+		public double getThroughput() {
+			return this.latencies.length / (this.elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+		}
+
+		/**
+		 * Return the latency in milliseconds below which the given fraction of exchanges
+		 * completed, e.g. {@code 0.99} for the 99th percentile.
+		 */
+		public double getLatencyPercentile(double percentile) {
+			Assert.isTrue(percentile > 0 && percentile <= 1, "'percentile' must be in the range (0, 1]");
+			int index = (int) Math.ceil(percentile * this.latencies.length) - 1;
+			return this.latencies[Math.max(index, 0)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+		}
+
+		/**
+		 * Return the average number of bytes allocated by the process per exchange, or -1
+		 * if the runtime does not report allocations.
+		 */
+		public long getAllocatedBytesPerRequest() {
+			return (this.allocatedBytes >= 0 ? this.allocatedBytes / this.latencies.length : -1);
+		}
+
+		@Override
+		public String toString() {
+			long allocated = getAllocatedBytesPerRequest();
+			return String.format("%s: %d requests, %d errors, %.1f req/s, p50=%.2fms, p90=%.2fms, p99=%.2fms, " +
+					"max=%.2fms, %s", this.name, getRequestCount(), this.errorCount, getThroughput(),
+					getLatencyPercentile(0.5), getLatencyPercentile(0.9), getLatencyPercentile(0.99),
+					getLatencyPercentile(1), (allocated >= 0 ? allocated + " bytes/request" : "allocations n/a"));
+		}
+	}
+
+
+	private class PayloadServlet extends HttpServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		private volatile byte[] payload;
+
+		private volatile byte[] compressedPayload;
+
+		@Override
+		protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException,
+				IOException {
+			int size = Integer.parseInt(request.getParameter("size"));
+			if (!Boolean.valueOf(request.getParameter("keepAlive"))) {
+				response.setHeader("Connection", "close");
+			}
+			response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+			preparePayload(size);
+			byte[] body = this.payload;
+			String acceptEncoding = request.getHeader("Accept-Encoding");
+			if (Boolean.valueOf(request.getParameter("gzip")) && acceptEncoding != null &&
+					acceptEncoding.contains("gzip")) {
+				response.setHeader("Content-Encoding", "gzip");
+				body = this.compressedPayload;
+			}
+			response.setContentLength(body.length);
+			response.getOutputStream().write(body);
+		}
+
+		@Override
+		protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException,
+				IOException {
+			InputStream in = request.getInputStream();
+			byte[] buffer = new byte[4096];
+			while (in.read(buffer) != -1) {
+				// discard the request body
+			}
+			doGet(request, response);
+		}
+
+		private synchronized void preparePayload(int size) throws IOException {
+			if (this.payload == null || this.payload.length != size) {
+				byte[] payload = createPayload(size);
+				ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+				OutputStream out = new GZIPOutputStream(compressed);
+				out.write(payload);
+				out.close();
+				this.compressedPayload = compressed.toByteArray();
+				this.payload = payload;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.web.client;
+
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
+import org.springframework.http.client.OkHttpClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+
+/**
+ * Runs the same workloads through each {@link ClientHttpRequestFactory} implementation
+ * and logs the results, see {@link RestTemplateLoadTestHarness}.
+ *
+ * @author Roy Clarkson
+ */
+public class RestTemplateLoadTests extends AndroidTestCase {
+
+	private static final String TAG = RestTemplateLoadTests.class.getSimpleName();
+
+	private RestTemplateLoadTestHarness harness;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.harness = new RestTemplateLoadTestHarness();
+		this.harness.setConcurrency(4);
+		this.harness.setRequestCount(100);
+		this.harness.start();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		this.harness.stop();
+		this.harness = null;
+	}
+
+	@LargeTest
+	public void testSimpleClient() throws Exception {
+		runWorkloads("Simple", new SimpleClientHttpRequestFactory());
+	}
+
+	@LargeTest
+	public void testHttpComponentsClient() throws Exception {
+		runWorkloads("HttpComponents", new HttpComponentsClientHttpRequestFactory());
+	}
+
+	@LargeTest
+	public void testOkHttpClient() throws Exception {
+		runWorkloads("OkHttp", new OkHttpClientHttpRequestFactory());
+	}
+
+	@LargeTest
+	public void testOkHttp3Client() throws Exception {
+		runWorkloads("OkHttp3", new OkHttp3ClientHttpRequestFactory());
+	}
+
+	private void runWorkloads(String name, ClientHttpRequestFactory requestFactory) throws Exception {
+		run(name + " small", requestFactory, 0, 1024, true, false);
+		run(name + " small no-keep-alive", requestFactory, 0, 1024, false, false);
+		run(name + " large", requestFactory, 0, 256 * 1024, true, false);
+		run(name + " large gzip", requestFactory, 0, 256 * 1024, true, true);
+		run(name + " upload", requestFactory, 64 * 1024, 1024, true, false);
+	}
+
+	private void run(String name, ClientHttpRequestFactory requestFactory, int requestPayloadSize,
+			int responsePayloadSize, boolean keepAlive, boolean gzip) throws Exception {
+
+		this.harness.setRequestPayloadSize(requestPayloadSize);
+		this.harness.setResponsePayloadSize(responsePayloadSize);
+		this.harness.setKeepAlive(keepAlive);
+		this.harness.setGzip(gzip);
+		RestTemplateLoadTestHarness.Result result = this.harness.run(name, requestFactory);
+		Log.i(TAG, result.toString());
+		assertEquals("Failed requests in " + name, 0, result.getErrorCount());
+		assertEquals(100, result.getRequestCount());
+	}
+
+}
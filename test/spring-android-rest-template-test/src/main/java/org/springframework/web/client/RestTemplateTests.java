@@ -18,8 +18,14 @@ package org.springframework.web.client;
 
 import static org.mockito.BDDMockito.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -29,18 +35,30 @@ import java.util.Set;
 
 import junit.framework.TestCase;
 
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.CancellationHandle;
 import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestEvent;
+import org.springframework.http.client.ClientHttpRequestEvent.Phase;
 import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestListener;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.http.converter.GenericHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.http.converter.ResponseBodyResource;
+import org.springframework.util.StreamUtils;
 
 /**
  * @author Arjen Poutsma
@@ -181,6 +199,34 @@ public class RestTemplateTests extends TestCase {
 		verify(response).close();
 	}
 
+	public void testGetForObjectStreamingResource() throws Exception {
+		template.setMessageConverters(Collections.<HttpMessageConverter<?>>singletonList(
+				new ResourceHttpMessageConverter()));
+		given(requestFactory.createRequest(new URI("https://example.com/logo.jpg"), HttpMethod.GET))
+				.willReturn(request);
+		given(request.getHeaders()).willReturn(new HttpHeaders());
+		given(request.execute()).willReturn(response);
+		given(errorHandler.hasError(response)).willReturn(false);
+		HttpHeaders responseHeaders = new HttpHeaders();
+		responseHeaders.setContentType(MediaType.IMAGE_JPEG);
+		responseHeaders.setContentLength(3);
+		given(response.getHeaders()).willReturn(responseHeaders);
+		given(response.getBody()).willReturn(new ByteArrayInputStream(new byte[] {1, 2, 3}));
+		HttpStatus status = HttpStatus.OK;
+		given(response.getStatusCode()).willReturn(status);
+		given(response.getStatusText()).willReturn(status.getReasonPhrase());
+
+		InputStreamResource result = template.getForObject("https://example.com/logo.jpg", InputStreamResource.class);
+		assertTrue(result instanceof ResponseBodyResource);
+		assertEquals(3, result.contentLength());
+		verify(response, never()).close();
+
+		InputStream inputStream = result.getInputStream();
+		assertTrue(Arrays.equals(new byte[] {1, 2, 3}, StreamUtils.copyToByteArray(inputStream)));
+		inputStream.close();
+		verify(response).close();
+	}
+
 	public void testGetUnsupportedMediaType() throws Exception {
 		given(converter.canRead(String.class, null)).willReturn(true);
 		MediaType supportedMediaType = new MediaType("foo", "bar");
@@ -405,6 +451,388 @@ public class RestTemplateTests extends TestCase {
 		verify(response).close();
 	}
 
+	public void testRequestListener() throws Exception {
+		final List<ClientHttpRequestEvent> events = new ArrayList<ClientHttpRequestEvent>();
+		template.setRequestListener(new ClientHttpRequestListener() {
+			@Override
+			public void onEvent(ClientHttpRequestEvent event) {
+				events.add(event);
+			}
+		});
+		MediaType textPlain = new MediaType("text", "plain");
+		given(converter.canRead(Integer.class, null)).willReturn(true);
+		given(converter.getSupportedMediaTypes()).willReturn(Collections.singletonList(textPlain));
+		given(requestFactory.createRequest(new URI("https://example.com/42"), HttpMethod.POST)).willReturn(this.request);
+		HttpHeaders requestHeaders = new HttpHeaders();
+		given(this.request.getHeaders()).willReturn(requestHeaders);
+		given(this.request.getMethod()).willReturn(HttpMethod.POST);
+		given(this.request.getURI()).willReturn(new URI("https://example.com/42"));
+		given(converter.canWrite(String.class, null)).willReturn(true);
+		given(this.request.execute()).willReturn(response);
+		given(errorHandler.hasError(response)).willReturn(false);
+		HttpHeaders responseHeaders = new HttpHeaders();
+		responseHeaders.setContentType(textPlain);
+		responseHeaders.setContentLength(10);
+		given(response.getHeaders()).willReturn(responseHeaders);
+		given(response.getStatusCode()).willReturn(HttpStatus.OK);
+		given(response.getRawStatusCode()).willReturn(HttpStatus.OK.value());
+		given(converter.canRead(Integer.class, textPlain)).willReturn(true);
+		given(converter.read(Integer.class, response)).willReturn(42);
+
+		assertEquals(Integer.valueOf(42), template.postForObject("https://example.com/{id}", "Hello World", Integer.class, 42));
+
+		List<Phase> phases = new ArrayList<Phase>();
+		for (ClientHttpRequestEvent event : events) {
+			phases.add(event.getPhase());
+			assertEquals(HttpMethod.POST, event.getMethod());
+			assertEquals("example.com", event.getHost());
+			assertTrue(event.getDurationNanos() >= 0);
+		}
+		assertEquals(Arrays.asList(Phase.URI_EXPANSION, Phase.CONVERTER_SELECTION, Phase.REQUEST_SERIALIZATION,
+				Phase.EXCHANGE, Phase.DESERIALIZATION), phases);
+		assertEquals(10, events.get(4).getByteCount());
+		verify(response).close();
+	}
+
+	public void testRequestListenerErrorHandling() throws Exception {
+		final List<Phase> phases = new ArrayList<Phase>();
+		template.setRequestListener(new ClientHttpRequestListener() {
+			@Override
+			public void onEvent(ClientHttpRequestEvent event) {
+				phases.add(event.getPhase());
+			}
+		});
+		given(requestFactory.createRequest(new URI("https://example.com"), HttpMethod.GET)).willReturn(request);
+		given(request.execute()).willReturn(response);
+		given(errorHandler.hasError(response)).willReturn(true);
+		given(response.getStatusCode()).willReturn(HttpStatus.INTERNAL_SERVER_ERROR);
+		given(response.getStatusText()).willReturn("Internal Server Error");
+		willThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR)).given(errorHandler).handleError(response);
+
+		try {
+			template.execute("https://example.com", HttpMethod.GET, null, null);
+			fail("HttpServerErrorException expected");
+		}
+		catch (HttpServerErrorException ex) {
+			// expected
+		}
+		assertEquals(Arrays.asList(Phase.URI_EXPANSION, Phase.EXCHANGE, Phase.ERROR_HANDLING), phases);
+		verify(response).close();
+	}
+
+	public void testMetricsRecorder() throws Exception {
+		RequestMetricsRecorder recorder = new RequestMetricsRecorder();
+		template.setMetricsRecorder(recorder);
+		for (String id : Arrays.asList("21", "42")) {
+			ClientHttpRequest request = mock(ClientHttpRequest.class);
+			ClientHttpResponse response = mock(ClientHttpResponse.class);
+			given(requestFactory.createRequest(new URI("https://example.com/hotels/" + id), HttpMethod.GET))
+					.willReturn(request);
+			given(request.getHeaders()).willReturn(new HttpHeaders());
+			given(request.execute()).willReturn(response);
+			given(errorHandler.hasError(response)).willReturn(false);
+			given(response.getRawStatusCode()).willReturn(HttpStatus.OK.value());
+			given(response.getStatusCode()).willReturn(HttpStatus.OK);
+			HttpHeaders responseHeaders = new HttpHeaders();
+			responseHeaders.setContentLength(10);
+			given(response.getHeaders()).willReturn(responseHeaders);
+			template.execute("https://example.com/hotels/{id}", HttpMethod.GET, null, null, id);
+		}
+
+		List<RequestMetricsSnapshot> snapshots = recorder.getSnapshots();
+		assertEquals(1, snapshots.size());
+		RequestMetricsSnapshot snapshot = snapshots.get(0);
+		assertEquals(HttpMethod.GET, snapshot.getMethod());
+		assertEquals("https://example.com/hotels/{id}", snapshot.getUriTemplate());
+		assertEquals("example.com", snapshot.getHost());
+		assertEquals(2, snapshot.getCount());
+		assertEquals(2, snapshot.getCount(HttpStatus.Series.SUCCESSFUL));
+		assertEquals(20, snapshot.getResponseBytes());
+	}
+
+	public void testMetricsRecorderWithDoExecuteOverride() throws Exception {
+		final List<URI> executed = new ArrayList<URI>();
+		template = new RestTemplate(Collections.<HttpMessageConverter<?>>singletonList(converter)) {
+			@Override
+			protected <T> T doExecute(URI url, HttpMethod method, RequestCallback requestCallback,
+					ResponseExtractor<T> responseExtractor) throws RestClientException {
+
+				executed.add(url);
+				return super.doExecute(url, method, requestCallback, responseExtractor);
+			}
+		};
+		template.setRequestFactory(requestFactory);
+		template.setErrorHandler(errorHandler);
+		RequestMetricsRecorder recorder = new RequestMetricsRecorder();
+		template.setMetricsRecorder(recorder);
+		given(requestFactory.createRequest(new URI("https://example.com/hotels/42"), HttpMethod.GET))
+				.willReturn(request);
+		given(request.getHeaders()).willReturn(new HttpHeaders());
+		given(request.execute()).willReturn(response);
+		given(errorHandler.hasError(response)).willReturn(false);
+		given(response.getRawStatusCode()).willReturn(HttpStatus.OK.value());
+		given(response.getStatusCode()).willReturn(HttpStatus.OK);
+		given(response.getHeaders()).willReturn(new HttpHeaders());
+
+		template.execute("https://example.com/hotels/{id}", HttpMethod.GET, null, null, "42");
+		template.execute("https://example.com/hotels/{id}", HttpMethod.GET, null, null,
+				Collections.singletonMap("id", "42"));
+
+		assertEquals(2, executed.size());
+		assertEquals(new URI("https://example.com/hotels/42"), executed.get(0));
+		List<RequestMetricsSnapshot> snapshots = recorder.getSnapshots();
+		assertEquals(1, snapshots.size());
+		assertEquals("https://example.com/hotels/{id}", snapshots.get(0).getUriTemplate());
+		assertEquals(2, snapshots.get(0).getCount());
+	}
+
+	public void testMetricsRecorderWithoutUriTemplate() throws Exception {
+		RequestMetricsRecorder recorder = new RequestMetricsRecorder();
+		template.setMetricsRecorder(recorder);
+		for (String id : Arrays.asList("21", "42")) {
+			URI url = new URI("https://example.com/hotels/" + id);
+			ClientHttpRequest request = mock(ClientHttpRequest.class);
+			ClientHttpResponse response = mock(ClientHttpResponse.class);
+			given(requestFactory.createRequest(url, HttpMethod.GET)).willReturn(request);
+			given(request.getHeaders()).willReturn(new HttpHeaders());
+			given(request.execute()).willReturn(response);
+			given(errorHandler.hasError(response)).willReturn(false);
+			given(response.getRawStatusCode()).willReturn(HttpStatus.OK.value());
+			given(response.getStatusCode()).willReturn(HttpStatus.OK);
+			given(response.getHeaders()).willReturn(new HttpHeaders());
+			template.execute(url, HttpMethod.GET, null, null);
+		}
+
+		List<RequestMetricsSnapshot> snapshots = recorder.getSnapshots();
+		assertEquals(1, snapshots.size());
+		RequestMetricsSnapshot snapshot = snapshots.get(0);
+		assertEquals(RequestMetricsRecorder.NO_URI_TEMPLATE, snapshot.getUriTemplate());
+		assertEquals("example.com", snapshot.getHost());
+		assertEquals(2, snapshot.getCount());
+	}
+
+	public void testMetricsRecorderCountsBodyBytes() throws Exception {
+		RequestMetricsRecorder recorder = new RequestMetricsRecorder();
+		template.setMetricsRecorder(recorder);
+		given(requestFactory.createRequest(new URI("https://example.com/hotels"), HttpMethod.POST))
+				.willReturn(request);
+		given(request.getHeaders()).willReturn(new HttpHeaders());
+		given(request.getBody()).willReturn(new ByteArrayOutputStream());
+		given(request.execute()).willReturn(response);
+		given(errorHandler.hasError(response)).willReturn(false);
+		given(response.getRawStatusCode()).willReturn(HttpStatus.OK.value());
+		given(response.getStatusCode()).willReturn(HttpStatus.OK);
+		// no Content-Length, as for chunked or decoded bodies
+		given(response.getHeaders()).willReturn(new HttpHeaders());
+		given(response.getBody()).willReturn(new ByteArrayInputStream("Hello World".getBytes("UTF-8")));
+
+		String result = template.execute("https://example.com/hotels", HttpMethod.POST, new RequestCallback() {
+			public void doWithRequest(ClientHttpRequest request) throws IOException {
+				StreamUtils.copy("Hotel".getBytes("UTF-8"), request.getBody());
+			}
+		}, new ResponseExtractor<String>() {
+			public String extractData(ClientHttpResponse response) throws IOException {
+				return StreamUtils.copyToString(response.getBody(), Charset.forName("UTF-8"));
+			}
+		});
+
+		assertEquals("Hello World", result);
+		RequestMetricsSnapshot snapshot = recorder.getSnapshots().get(0);
+		assertEquals(5, snapshot.getRequestBytes());
+		assertEquals(11, snapshot.getResponseBytes());
+	}
+
+	public void testCancel() throws Exception {
+		given(converter.canRead(String.class, null)).willReturn(true);
+		MediaType textPlain = new MediaType("text", "plain");
+		given(converter.getSupportedMediaTypes()).willReturn(Collections.singletonList(textPlain));
+		given(requestFactory.createRequest(new URI("https://example.com"), HttpMethod.GET)).willReturn(request);
+		given(request.getHeaders()).willReturn(new HttpHeaders());
+		given(request.execute()).willReturn(response);
+		given(errorHandler.hasError(response)).willReturn(false);
+		HttpHeaders responseHeaders = new HttpHeaders();
+		responseHeaders.setContentType(textPlain);
+		given(response.getStatusCode()).willReturn(HttpStatus.OK);
+		given(response.getHeaders()).willReturn(responseHeaders);
+		given(response.getBody()).willReturn(new ByteArrayInputStream("Hello World".getBytes("UTF-8")));
+		given(converter.canRead(String.class, textPlain)).willReturn(true);
+		given(converter.read(eq(String.class), any(HttpInputMessage.class))).willAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				// the user leaves the screen while the body is being converted
+				assertEquals(1, template.cancel("screen"));
+				HttpInputMessage inputMessage = (HttpInputMessage) invocation.getArguments()[1];
+				return StreamUtils.copyToString(inputMessage.getBody(), Charset.forName("UTF-8"));
+			}
+		});
+
+		CancellationHandle handle = new CancellationHandle("screen");
+		CancellationHandle.setCurrent(handle);
+		try {
+			template.getForObject("https://example.com", String.class);
+			fail("RequestCancelledException expected");
+		}
+		catch (RequestCancelledException ex) {
+			// expected
+		}
+		finally {
+			CancellationHandle.setCurrent(null);
+		}
+		assertFalse(handle.isCancelled());
+		assertEquals(0, template.cancel("screen"));
+		verify(response).close();
+	}
+
+	public void testCancelStreamingResource() throws Exception {
+		template.setMessageConverters(Collections.<HttpMessageConverter<?>>singletonList(
+				new ResourceHttpMessageConverter()));
+		given(requestFactory.createRequest(new URI("https://example.com/logo.jpg"), HttpMethod.GET))
+				.willReturn(request);
+		given(request.getHeaders()).willReturn(new HttpHeaders());
+		given(request.execute()).willReturn(response);
+		given(errorHandler.hasError(response)).willReturn(false);
+		HttpHeaders responseHeaders = new HttpHeaders();
+		responseHeaders.setContentType(MediaType.IMAGE_JPEG);
+		given(response.getHeaders()).willReturn(responseHeaders);
+		given(response.getBody()).willReturn(new ByteArrayInputStream(new byte[] {1, 2, 3}));
+		given(response.getStatusCode()).willReturn(HttpStatus.OK);
+
+		CancellationHandle handle = new CancellationHandle("screen");
+		CancellationHandle.setCurrent(handle);
+		InputStreamResource result;
+		try {
+			result = template.getForObject("https://example.com/logo.jpg", InputStreamResource.class);
+		}
+		finally {
+			CancellationHandle.setCurrent(null);
+		}
+		InputStream inputStream = result.getInputStream();
+		assertEquals(1, inputStream.read());
+
+		// the user leaves the screen while the body is being streamed
+		assertEquals(1, template.cancel("screen"));
+		try {
+			inputStream.read();
+			fail("RequestCancelledException expected");
+		}
+		catch (RequestCancelledException ex) {
+			// expected
+		}
+		inputStream.close();
+		verify(response).close();
+		assertFalse(handle.isCancelled());
+		assertEquals(0, template.cancel("screen"));
+	}
+
+	public void testCancelledHandle() throws Exception {
+		given(requestFactory.createRequest(new URI("https://example.com"), HttpMethod.GET)).willReturn(request);
+		CancellationHandle handle = new CancellationHandle();
+		handle.cancel();
+		CancellationHandle.setCurrent(handle);
+		try {
+			template.execute("https://example.com", HttpMethod.GET, null, null);
+			fail("RequestCancelledException expected");
+		}
+		catch (RequestCancelledException ex) {
+			// expected
+		}
+		finally {
+			CancellationHandle.setCurrent(null);
+		}
+		verify(request, never()).execute();
+	}
+
+	public void testExchangeTimeout() throws Exception {
+		template.setExchangeTimeout(50);
+		givenSlowConversion(200);
+
+		try {
+			template.getForObject("https://example.com", String.class);
+			fail("RequestDeadlineExceededException expected");
+		}
+		catch (RequestDeadlineExceededException ex) {
+			// expected
+		}
+		assertNull(CancellationHandle.getCurrent());
+		verify(response).close();
+	}
+
+	public void testExchangeTimeoutStreamingResource() throws Exception {
+		template.setExchangeTimeout(50);
+		template.setMessageConverters(Collections.<HttpMessageConverter<?>>singletonList(
+				new ResourceHttpMessageConverter()));
+		given(requestFactory.createRequest(new URI("https://example.com/logo.jpg"), HttpMethod.GET))
+				.willReturn(request);
+		given(request.getHeaders()).willReturn(new HttpHeaders());
+		given(request.execute()).willReturn(response);
+		given(errorHandler.hasError(response)).willReturn(false);
+		HttpHeaders responseHeaders = new HttpHeaders();
+		responseHeaders.setContentType(MediaType.IMAGE_JPEG);
+		given(response.getHeaders()).willReturn(responseHeaders);
+		given(response.getBody()).willReturn(new ByteArrayInputStream(new byte[] {1, 2, 3}));
+		given(response.getStatusCode()).willReturn(HttpStatus.OK);
+
+		InputStreamResource result = template.getForObject("https://example.com/logo.jpg", InputStreamResource.class);
+		InputStream inputStream = result.getInputStream();
+		assertEquals(1, inputStream.read());
+
+		// the body is still being read at the deadline
+		Thread.sleep(200);
+		try {
+			inputStream.read();
+			fail("RequestDeadlineExceededException expected");
+		}
+		catch (RequestDeadlineExceededException ex) {
+			// expected
+		}
+		inputStream.close();
+		verify(response).close();
+	}
+
+	public void testExchangeTimeoutOverride() throws Exception {
+		template.setExchangeTimeout(50);
+		givenSlowConversion(100);
+
+		CancellationHandle handle = new CancellationHandle();
+		handle.setTimeout(5000);
+		CancellationHandle.setCurrent(handle);
+		try {
+			assertEquals("Hello World", template.getForObject("https://example.com", String.class));
+		}
+		finally {
+			CancellationHandle.setCurrent(null);
+			handle.release();
+		}
+		assertFalse(handle.isCancelled());
+	}
+
+	private void givenSlowConversion(final long millis) throws Exception {
+		given(converter.canRead(String.class, null)).willReturn(true);
+		MediaType textPlain = new MediaType("text", "plain");
+		given(converter.getSupportedMediaTypes()).willReturn(Collections.singletonList(textPlain));
+		given(requestFactory.createRequest(new URI("https://example.com"), HttpMethod.GET)).willReturn(request);
+		given(request.getHeaders()).willReturn(new HttpHeaders());
+		given(request.execute()).willReturn(response);
+		given(errorHandler.hasError(response)).willReturn(false);
+		HttpHeaders responseHeaders = new HttpHeaders();
+		responseHeaders.setContentType(textPlain);
+		given(response.getStatusCode()).willReturn(HttpStatus.OK);
+		given(response.getHeaders()).willReturn(responseHeaders);
+		given(response.getBody()).willReturn(new ByteArrayInputStream("Hello World".getBytes("UTF-8")));
+		given(converter.canRead(String.class, textPlain)).willReturn(true);
+		given(converter.read(eq(String.class), any(HttpInputMessage.class))).willAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				// the remaining time is available to nested requests
+				long remainingTime = CancellationHandle.getCurrent().getRemainingTime();
+				assertTrue(remainingTime >= 0);
+				Thread.sleep(millis);
+				HttpInputMessage inputMessage = (HttpInputMessage) invocation.getArguments()[1];
+				return StreamUtils.copyToString(inputMessage.getBody(), Charset.forName("UTF-8"));
+			}
+		});
+	}
+
 	public void testPostForEntity() throws Exception {
 		MediaType textPlain = new MediaType("text", "plain");
 		given(converter.canRead(Integer.class, null)).willReturn(true);